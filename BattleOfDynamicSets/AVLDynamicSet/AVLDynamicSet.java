@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package AVLDynamicSet;
+
+import DynamicSet.*;
+import java.util.Spliterator;
+
+//AVL tree (Adelson-Velsky and Landis, 1962): the heights of the two subtrees of every node differ
+//by at most one, so the tree is never deeper than about 1.44 log n. That is shallower than a
+//red-black tree, which makes searches a little cheaper at the price of more rotations on updates,
+//a good trade for read-heavy workloads.
+public class AVLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+	
+	private AVLNode<T> root;
+	
+	public AVLDynamicSet() {
+		
+		super();
+		root = null;
+	}
+	
+	public static void main(String []args) {
+		
+		AVLDynamicSet<String> set = new AVLDynamicSet<String>();
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+		
+		AVLNode<String> n1 = new AVLNode<String>(s1, s1);
+		AVLNode<String> n2 = new AVLNode<String>(s2, s2);
+		AVLNode<String> n3 = new AVLNode<String>(s3, s3);
+		AVLNode<String> n4 = new AVLNode<String>(s4, s4);
+		
+		//testing insert
+		set.insert(n1);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n4);
+		set.insert(n1);
+		
+		System.out.println(set.search(n3.getKey()).getKey());
+		set.delete(n4);
+		set.delete(n3);
+		set.delete(n2);
+		set.delete(n1);
+		set.delete(n1);
+		
+		set.insert(n4);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n1);
+		
+		//testing max
+		AVLNode<String> testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+		
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+		
+		//testing successor
+		testNode = set.successor(n3);
+		if (testNode == null)
+			System.out.println("No Successor of " + n3.getKey());
+		else
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+		
+		//testing predecessor
+		testNode = set.predecessor(n1);
+		if (testNode == null)
+			System.out.println("No Predecessor of " + n1.getKey());
+		else
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+	}
+	
+	//Insert element e in the set. Assumes that e has been properly initialized.
+	public void insert(SetElement<T> e) {
+		
+		AVLNode<T> trailing = null;
+		AVLNode<T> current = root;
+		int c = 0;
+		while (current != null) {
+			stats.visited();
+			stats.compared();
+			trailing = current;
+			c = e.getKey().compareTo(current.getKey());
+			if (c < 0)
+				current = current.getLeft();
+			else if (c > 0)
+				current = current.getRight();
+			else
+				return;	//e is already in the tree
+		}
+		
+		AVLNode<T> toAdd = new AVLNode<T>(e.getKey(), e.getData());
+		toAdd.setParent(trailing);
+		if (trailing == null)
+			root = toAdd;
+		else if (c < 0)
+			trailing.setLeft(toAdd);
+		else
+			trailing.setRight(toAdd);
+		retrace(trailing);
+		super.size++;
+	}
+	
+	//Given a pointer to element e in the set, removes e from the set.
+	public void delete(SetElement<T> e) {
+		
+		AVLNode<T> node = search(e.getKey());
+		if (node == null)
+			return;
+		
+		AVLNode<T> changed;	//lowest node whose subtree lost a node
+		if (node.getLeft() == null) {
+			changed = node.getParent();
+			transplant(node, node.getRight());
+		}
+		else if (node.getRight() == null) {
+			changed = node.getParent();
+			transplant(node, node.getLeft());
+		}
+		else {
+			AVLNode<T> successor = treeMinimum(node.getRight());
+			if (successor.getParent() != node) {
+				changed = successor.getParent();
+				transplant(successor, successor.getRight());
+				successor.setRight(node.getRight());
+				successor.getRight().setParent(successor);
+			}
+			else
+				changed = successor;
+			transplant(node, successor);
+			successor.setLeft(node.getLeft());
+			successor.getLeft().setParent(successor);
+		}
+		retrace(changed);
+		super.size--;
+	}
+	
+	//Walks from node up to the root, fixing heights and rotating every node that is out of balance.
+	private void retrace(AVLNode<T> node) {
+		
+		while (node != null) {
+			node = rebalance(node);
+			node = node.getParent();
+		}
+	}
+	
+	//Restores the AVL property at node, whose subtrees are balanced and differ in height by at most
+	//two, and returns the root of the subtree after the rotations.
+	private AVLNode<T> rebalance(AVLNode<T> node) {
+		
+		updateHeight(node);
+		int balance = balance(node);
+		if (balance > 1) {	//left heavy
+			if (balance(node.getLeft()) < 0)
+				rotateLeft(node.getLeft());	//left-right case
+			return rotateRight(node);
+		}
+		if (balance < -1) {	//right heavy
+			if (balance(node.getRight()) > 0)
+				rotateRight(node.getRight());	//right-left case
+			return rotateLeft(node);
+		}
+		return node;
+	}
+	
+	private static <T extends Comparable<T>> int height(AVLNode<T> node) {
+		
+		return (node == null) ? -1 : node.getHeight();
+	}
+	
+	private int balance(AVLNode<T> node) {
+		
+		return height(node.getLeft()) - height(node.getRight());
+	}
+	
+	private void updateHeight(AVLNode<T> node) {
+		
+		node.setHeight(Math.max(height(node.getLeft()), height(node.getRight())) + 1);
+	}
+	
+	//Rotates the right child of node above it and returns that child.
+	private AVLNode<T> rotateLeft(AVLNode<T> node) {
+		
+		stats.rotated();
+		AVLNode<T> rightchild = node.getRight();
+		node.setRight(rightchild.getLeft());
+		if (rightchild.getLeft() != null)
+			rightchild.getLeft().setParent(node);
+		transplant(node, rightchild);
+		rightchild.setLeft(node);
+		node.setParent(rightchild);
+		updateHeight(node);
+		updateHeight(rightchild);
+		return rightchild;
+	}
+	
+	//Rotates the left child of node above it and returns that child.
+	private AVLNode<T> rotateRight(AVLNode<T> node) {
+		
+		stats.rotated();
+		AVLNode<T> leftchild = node.getLeft();
+		node.setLeft(leftchild.getRight());
+		if (leftchild.getRight() != null)
+			leftchild.getRight().setParent(node);
+		transplant(node, leftchild);
+		leftchild.setRight(node);
+		node.setParent(leftchild);
+		updateHeight(node);
+		updateHeight(leftchild);
+		return leftchild;
+	}
+	
+	//Replaces the subtree rooted at node with the subtree rooted at replacement in node's parent.
+	private void transplant(AVLNode<T> node, AVLNode<T> replacement) {
+		
+		if (node.getParent() == null)
+			root = replacement;
+		else if (node == node.getParent().getLeft())
+			node.getParent().setLeft(replacement);
+		else
+			node.getParent().setRight(replacement);
+		if (replacement != null)
+			replacement.setParent(node.getParent());
+	}
+	
+	//Finds a SetElement with key k and returns a pointer to it, or null if not found.
+	public AVLNode<T> search(T k) {
+		
+		AVLNode<T> current = root;
+		while (current != null) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if (c < 0)
+				current = current.getLeft();
+			else if (c > 0)
+				current = current.getRight();
+			else
+				return current;
+		}
+		return null;
+	}
+	
+	//Finds a SetElement that has the smallest key, and returns a pointer to it, or null if the set is empty.
+	public AVLNode<T> minimum() {
+		
+		return (root == null) ? null : treeMinimum(root);
+	}
+	
+	//Finds a SetElement that has the largest key, and returns a pointer to it, or null if the set is empty.
+	public AVLNode<T> maximum() {
+		
+		return (root == null) ? null : treeMaximum(root);
+	}
+	
+	private AVLNode<T> treeMinimum(AVLNode<T> subtree) {
+		
+		while (subtree.getLeft() != null) {
+			stats.visited();
+			subtree = subtree.getLeft();
+		}
+		return subtree;
+	}
+	
+	private AVLNode<T> treeMaximum(AVLNode<T> subtree) {
+		
+		while (subtree.getRight() != null) {
+			stats.visited();
+			subtree = subtree.getRight();
+		}
+		return subtree;
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next larger key,
+	//and returns a pointer to it, or null if e is the maximum element.
+	public AVLNode<T> successor(SetElement<T> e) {
+		
+		AVLNode<T> node = search(e.getKey());
+		return (node == null) ? null : nextInorder(node);
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next smaller key,
+	//and returns a pointer to it, or null if e is the minimum element.
+	public AVLNode<T> predecessor(SetElement<T> e) {
+		
+		AVLNode<T> node = search(e.getKey());
+		if (node == null)
+			return null;
+		if (node.getLeft() != null)
+			return treeMaximum(node.getLeft());
+		AVLNode<T> parent = node.getParent();
+		while (parent != null && node == parent.getLeft()) {	//climb until we come up from a right child
+			stats.visited();
+			node = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+	
+	//Returns the node that follows node in key order, or null if node is the maximum.
+	private AVLNode<T> nextInorder(AVLNode<T> node) {
+		
+		if (node.getRight() != null)
+			return treeMinimum(node.getRight());
+		AVLNode<T> parent = node.getParent();
+		while (parent != null && node == parent.getRight()) {	//climb until we come up from a left child
+			stats.visited();
+			node = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+	
+	//Returns the node with the smallest key >= k, or null if every key is smaller.
+	private AVLNode<T> ceiling(T k) {
+		
+		AVLNode<T> current = root;
+		AVLNode<T> candidate = null;
+		while (current != null) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if (c == 0)
+				return current;
+			if (c < 0) {
+				candidate = current;
+				current = current.getLeft();
+			}
+			else
+				current = current.getRight();
+		}
+		return candidate;
+	}
+	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//One descent finds the first element, then the cursor walks the tree in order.
+	public Cursor<T> range(final T lo, T hi) {
+		
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+				
+				if (lo == null)
+					return minimum();
+				else
+					return ceiling(lo);
+			}
+			
+			protected SetElement<T> step(SetElement<T> e) {
+				
+				return nextInorder((AVLNode<T>)e);
+			}
+		};
+	}
+	
+	//Returns a spliterator over the elements in key order that splits at subtrees. The tree keeps no
+	//subtree sizes, so the parts only estimate their sizes as halves.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return new SubtreeSpliterator<T, AVLNode<T>>(root, super.size, new SubtreeSpliterator.Tree<AVLNode<T>>() {
+			public AVLNode<T> left(AVLNode<T> node) {
+				
+				return node.getLeft();
+			}
+			
+			public AVLNode<T> right(AVLNode<T> node) {
+				
+				return node.getRight();
+			}
+			
+			public long size(AVLNode<T> node) {
+				
+				return -1;	//unknown
+			}
+		});
+	}
+	
+	//Returns the height of the tree in nodes, 0 if it is empty.
+	public int height() {
+		
+		return height(root) + 1;
+	}
+}
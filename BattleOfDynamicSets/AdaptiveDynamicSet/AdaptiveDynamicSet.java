@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package AdaptiveDynamicSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import DynamicSet.*;
+import RedBlackDynamicSet.*;
+
+/*
+ * A set that chooses its representation as it goes. A small set is a packed sorted array of keys:
+ * a search is a binary search over one contiguous array, and an insert or delete shifts at most
+ * a few cache lines. Past upgradeSize elements, or past writeHeavySize elements while at least
+ * writeRatio of the recent operations were inserts and deletes, the array is rebuilt as a
+ * RedBlackDynamicSet, whose updates are O(log n). When the tree shrinks to downgradeSize elements
+ * it turns back into an array.
+ *
+ * Both migrations take O(n), and the thresholds are kept apart (2 * downgradeSize <= writeHeavySize)
+ * so at least n/2 inserts or deletes happen between two migrations of a set of n elements: their
+ * cost is O(1) amortized per update.
+ */
+public class AdaptiveDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+
+	public static final int DEFAULT_UPGRADE_SIZE = 1024;
+	public static final int DEFAULT_WRITE_HEAVY_SIZE = 256;
+	public static final double DEFAULT_WRITE_RATIO = 0.5;
+	public static final int DEFAULT_DOWNGRADE_SIZE = 64;
+
+	private static final int MIN_CAPACITY = 8;
+	private static final int WINDOW = 1024;	//the operation counters are halved when they reach this
+
+	private final int upgradeSize;	//largest size of the array
+	private final int writeHeavySize;	//smallest size at which a write-heavy workload upgrades
+	private final double writeRatio;	//fraction of writes that makes the workload write-heavy
+	private final int downgradeSize;	//size at which the tree turns back into an array
+
+	private Object[] keys;	//sorted keys, null while the set is a tree
+	private AdaptiveElement<T>[] elements;	//elements[i] has the key keys[i]
+	private RedBlackDynamicSet<T> tree;	//null while the set is an array
+	private int reads;	//recent reads and writes, a moving window over the last WINDOW or so operations
+	private int writes;
+
+	public AdaptiveDynamicSet() {
+
+		this(DEFAULT_UPGRADE_SIZE, DEFAULT_WRITE_HEAVY_SIZE, DEFAULT_WRITE_RATIO, DEFAULT_DOWNGRADE_SIZE);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public AdaptiveDynamicSet(int upgradeSize, int writeHeavySize, double writeRatio, int downgradeSize) {
+
+		super();
+		if (downgradeSize < 0 || 2 * downgradeSize > writeHeavySize || writeHeavySize > upgradeSize)
+			throw new IllegalArgumentException("need 0 <= 2 * downgradeSize <= writeHeavySize <= upgradeSize: "
+					+ downgradeSize + ", " + writeHeavySize + ", " + upgradeSize);
+		if (!(writeRatio >= 0 && writeRatio <= 1))
+			throw new IllegalArgumentException("writeRatio must be between 0 and 1: " + writeRatio);
+		this.upgradeSize = upgradeSize;
+		this.writeHeavySize = writeHeavySize;
+		this.writeRatio = writeRatio;
+		this.downgradeSize = downgradeSize;
+		keys = new Object[MIN_CAPACITY];
+		elements = new AdaptiveElement[MIN_CAPACITY];
+		tree = null;
+	}
+
+	public static void main(String []args) {
+
+		AdaptiveDynamicSet<String> set = new AdaptiveDynamicSet<String>(8, 8, 1.0, 2);
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+
+		AdaptiveElement<String> n1 = new AdaptiveElement<String>(s1, s1);
+		AdaptiveElement<String> n2 = new AdaptiveElement<String>(s2, s2);
+		AdaptiveElement<String> n3 = new AdaptiveElement<String>(s3, s3);
+		AdaptiveElement<String> n4 = new AdaptiveElement<String>(s4, s4);
+
+		//test insert
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n4);
+		set.insert(n1);
+
+		System.out.println(set.toString() + (set.isTree() ? " (tree)" : " (array)"));
+
+		//grow past the upgrade size and shrink back
+		for (int i = 0; i < 10; i++)
+			set.insert(new AdaptiveElement<String>("key" + i, "data" + i));
+		System.out.println(set.size() + " elements" + (set.isTree() ? " (tree)" : " (array)"));
+		for (int i = 0; i < 10; i++)
+			set.delete(new AdaptiveElement<String>("key" + i, "data" + i));
+		set.delete(n2);
+		set.delete(n3);
+		System.out.println(set.toString() + (set.isTree() ? " (tree)" : " (array)"));
+		set.insert(n2);
+		set.insert(n3);
+
+		//testing max
+		SetElement<String> testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+
+		//testing successor
+		testNode = set.successor(n3);
+		if (testNode == null)
+			System.out.println("No Successor of " + n3.getKey());
+		else
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+
+		//testing predecessor
+		testNode = set.predecessor(n1);
+		if (testNode == null)
+			System.out.println("No Predecessor of " + n1.getKey());
+		else
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+	}
+
+	public int getUpgradeSize() {
+
+		return upgradeSize;
+	}
+
+	public int getWriteHeavySize() {
+
+		return writeHeavySize;
+	}
+
+	public double getWriteRatio() {
+
+		return writeRatio;
+	}
+
+	public int getDowngradeSize() {
+
+		return downgradeSize;
+	}
+
+	//Returns true while the set is held as a RedBlackDynamicSet, false while it is a sorted array.
+	public boolean isTree() {
+
+		return tree != null;
+	}
+
+	//Insert element e in the set, if its key is not in the set yet.
+	public void insert(SetElement<T> e) {
+
+		count(true);
+		if (tree != null) {
+			tree.insert(e);
+			super.size = tree.size();
+			return;
+		}
+
+		int i = indexOf(e.getKey());
+		if (i >= 0)
+			return;	//already in the set
+		i = -(i + 1);
+		if (super.size == keys.length)
+			resize(Math.min(2 * keys.length, upgradeSize));
+		System.arraycopy(keys, i, keys, i + 1, super.size - i);
+		System.arraycopy(elements, i, elements, i + 1, super.size - i);
+		keys[i] = e.getKey();
+		elements[i] = new AdaptiveElement<T>(e.getKey(), e.getData());
+		super.size++;
+
+		if (super.size >= upgradeSize || (super.size >= writeHeavySize && writes >= writeRatio * (reads + writes)))
+			upgrade();
+	}
+
+	//Given a pointer to element e in set, removes e from set.
+	public void delete(SetElement<T> e) {
+
+		if (e == null)
+			return;
+		count(true);
+		if (tree != null) {
+			tree.delete(e);
+			super.size = tree.size();
+			if (super.size <= downgradeSize)
+				downgrade();
+			return;
+		}
+
+		int i = indexOf(e.getKey());
+		if (i < 0)
+			return;
+		System.arraycopy(keys, i + 1, keys, i, super.size - i - 1);
+		System.arraycopy(elements, i + 1, elements, i, super.size - i - 1);
+		super.size--;
+		keys[super.size] = null;
+		elements[super.size] = null;
+		if (super.size < keys.length / 4 && keys.length > MIN_CAPACITY)
+			resize(keys.length / 2);
+	}
+
+	//Inserts every element, like a series of insert calls. If the set would reach upgradeSize it
+	//upgrades first and lets the tree merge the elements in with its linear-time bulkLoad.
+	public void bulkLoad(Iterator<? extends SetElement<T>> elements) {
+
+		ArrayList<SetElement<T>> added = new ArrayList<SetElement<T>>();
+		while (elements.hasNext())
+			added.add(elements.next());
+		if (tree == null && super.size + added.size() >= upgradeSize)
+			upgrade();
+		if (tree != null) {
+			tree.bulkLoad(added.iterator());
+			super.size = tree.size();
+		}
+		else {
+			for (SetElement<T> e : added)
+				insert(e);
+		}
+	}
+
+	//Finds a SetElement with key 'k' and returns a pointer to it or null if not found
+	public SetElement<T> search(T k) {
+
+		if (k == null)
+			return null;
+		count(false);
+		if (tree != null)
+			return tree.search(k);
+		int i = indexOf(k);
+		if (i >= 0)
+			return elements[i];
+		else
+			return null;
+	}
+
+	public SetElement<T> minimum() {
+
+		if (tree != null)
+			return tree.minimum();
+		if (super.size == 0)
+			return null;
+		else
+			return elements[0];
+	}
+
+	public SetElement<T> maximum() {
+
+		if (tree != null)
+			return tree.maximum();
+		if (super.size == 0)
+			return null;
+		else
+			return elements[super.size - 1];
+	}
+
+	public SetElement<T> successor(SetElement<T> e) {
+
+		count(false);
+		if (tree != null)
+			return tree.successor(e);
+		int i = indexOf(e.getKey());
+		if (i < 0 || i + 1 == super.size)
+			return null;
+		else
+			return elements[i + 1];
+	}
+
+	public SetElement<T> predecessor(SetElement<T> e) {
+
+		count(false);
+		if (tree != null)
+			return tree.predecessor(e);
+		int i = indexOf(e.getKey());
+		if (i <= 0)
+			return null;
+		else
+			return elements[i - 1];
+	}
+
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//Over the array the cursor finds lo by binary search and then steps through consecutive slots.
+	public Cursor<T> range(final T lo, T hi) {
+
+		if (tree != null)
+			return tree.range(lo, hi);
+		return new Cursor<T>(hi) {
+			private int index;
+
+			protected SetElement<T> first() {
+
+				if (lo == null)
+					index = 0;
+				else {
+					index = indexOf(lo);
+					if (index < 0)
+						index = -(index + 1);
+				}
+				return (index < size) ? elements[index] : null;
+			}
+
+			protected SetElement<T> step(SetElement<T> e) {
+
+				index++;
+				return (index < size) ? elements[index] : null;
+			}
+		};
+	}
+
+	//Returns the tree's height, or for the array the number of levels of its binary search.
+	public int height() {
+
+		if (tree != null)
+			return tree.height();
+		return 32 - Integer.numberOfLeadingZeros(super.size);
+	}
+
+	//Returns the work counted in the array and in the trees the set has been.
+	public SetStatistics getStatistics() {
+
+		SetStatistics result = stats.copy();
+		if (tree != null)
+			result.add(tree.getStatistics());
+		return result;
+	}
+
+	public void resetStatistics() {
+
+		stats.reset();
+		if (tree != null)
+			tree.resetStatistics();
+	}
+
+	//Returns the tree's spliterator, or over the array one that splits at index midpoints.
+	public Spliterator<SetElement<T>> spliterator() {
+
+		if (tree != null)
+			return tree.spliterator();
+		return Spliterators.spliterator(elements, 0, super.size, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	//Counts a read or a write in the window the write ratio is taken over. Halving both counters
+	//when they reach WINDOW makes the ratio follow the recent workload.
+	private void count(boolean write) {
+
+		if (write)
+			writes++;
+		else
+			reads++;
+		if (reads + writes >= WINDOW) {
+			reads >>= 1;
+			writes >>= 1;
+		}
+	}
+
+	//Returns the index of k in the array, or -(insertion point) - 1 if absent.
+	@SuppressWarnings("unchecked")
+	private int indexOf(T k) {
+
+		int low = 0;
+		int high = super.size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			stats.visited();
+			stats.compared();
+			int c = ((T)keys[mid]).compareTo(k);
+			if (c < 0)
+				low = mid + 1;
+			else if (c > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+
+	private void resize(int capacity) {
+
+		keys = Arrays.copyOf(keys, Math.max(capacity, MIN_CAPACITY));
+		elements = Arrays.copyOf(elements, Math.max(capacity, MIN_CAPACITY));
+	}
+
+	//Rebuilds the array as a red-black tree. The elements are sorted, so the tree's bulkLoad builds
+	//it in linear time.
+	private void upgrade() {
+
+		RedBlackDynamicSet<T> t = new RedBlackDynamicSet<T>();
+		t.bulkLoad(Arrays.asList(elements).subList(0, super.size).iterator());
+		tree = t;
+		keys = null;
+		elements = null;
+	}
+
+	//Copies the tree back into a sorted array with room to grow to twice its size.
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void downgrade() {
+
+		int capacity = Math.max(Math.min(2 * super.size, upgradeSize), MIN_CAPACITY);
+		keys = new Object[capacity];
+		elements = new AdaptiveElement[capacity];
+		Cursor<T> c = tree.range(null, null);
+		int i = 0;
+		while (c.next()) {
+			keys[i] = c.getKey();
+			elements[i] = new AdaptiveElement<T>(c.getKey(), c.current().getData());
+			i++;
+		}
+		stats.add(tree.getStatistics());	//keep the work the tree did
+		tree = null;
+	}
+
+	public String toString() {
+
+		StringBuilder result = new StringBuilder();
+		result.append("[");
+		Cursor<T> c = range(null, null);
+		boolean first = true;
+		while (c.next()) {
+			if (!first)
+				result.append(", ");
+			result.append(c.getKey());
+			first = false;
+		}
+		result.append("]");
+		return result.toString();
+	}
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package AdaptiveRadixTreeDynamicSet;
+
+import java.util.Arrays;
+
+//An inner node of the adaptive radix tree. It branches on one byte of the key, and its children
+//are inner nodes or ARTElement leaves. Nodes come in four sizes and are replaced by the next
+//larger or smaller one as children are added and removed:
+//
+//	Node4, Node16	sorted byte array and matching child array, searched linearly or by halves
+//	Node48		256-entry index from byte to one of 48 child slots
+//	Node256		one child slot per byte
+//
+//The prefix holds the bytes all keys below share after the byte that leads to this node, so a
+//chain of nodes with one child each is compressed into one node.
+public abstract class ARTNode {
+
+	byte[] prefix;
+	int count;	//number of children
+
+	ARTNode(byte[] prefix) {
+
+		this.prefix = prefix;
+		this.count = 0;
+	}
+
+	public int getCount() {
+
+		return count;
+	}
+
+	//Returns the child for byte b (0 to 255), or null.
+	abstract Object findChild(int b);
+
+	//Returns the smallest byte larger than b that has a child, or -1 if none.
+	abstract int nextByte(int b);
+
+	//Returns the largest byte smaller than b that has a child, or -1 if none.
+	abstract int prevByte(int b);
+
+	abstract boolean isFull();
+
+	//Adds a child for byte b, which has none yet. The node must not be full.
+	abstract void addChild(int b, Object child);
+
+	//Replaces the child of byte b.
+	abstract void setChild(int b, Object child);
+
+	abstract void removeChild(int b);
+
+	//Returns a copy of this node in the next larger size.
+	abstract ARTNode grow();
+
+	//Returns a copy of this node in the next smaller size if it has few enough children to make
+	//that worthwhile, otherwise the node itself.
+	abstract ARTNode shrink();
+
+	//Returns target after adding all children of this node to it.
+	ARTNode copyTo(ARTNode target) {
+
+		for (int b = nextByte(-1); b >= 0; b = nextByte(b))
+			target.addChild(b, findChild(b));
+		return target;
+	}
+
+	//Node4 and Node16: the bytes of the children in ascending order.
+	static abstract class SortedNode extends ARTNode {
+
+		final byte[] keys;
+		final Object[] children;
+
+		SortedNode(byte[] prefix, int capacity) {
+
+			super(prefix);
+			keys = new byte[capacity];
+			children = new Object[capacity];
+		}
+
+		//Returns the slot of byte b, or -(insertion point) - 1 if b has no child.
+		int indexOf(int b) {
+
+			int i = 0;
+			while (i < count && (keys[i] & 0xFF) < b)
+				i++;
+			return (i < count && (keys[i] & 0xFF) == b) ? i : -(i + 1);
+		}
+
+		Object findChild(int b) {
+
+			int i = indexOf(b);
+			return (i >= 0) ? children[i] : null;
+		}
+
+		int nextByte(int b) {
+
+			for (int i = 0; i < count; i++)
+				if ((keys[i] & 0xFF) > b)
+					return keys[i] & 0xFF;
+			return -1;
+		}
+
+		int prevByte(int b) {
+
+			for (int i = count - 1; i >= 0; i--)
+				if ((keys[i] & 0xFF) < b)
+					return keys[i] & 0xFF;
+			return -1;
+		}
+
+		boolean isFull() {
+
+			return count == keys.length;
+		}
+
+		void addChild(int b, Object child) {
+
+			int i = -(indexOf(b) + 1);
+			System.arraycopy(keys, i, keys, i + 1, count - i);
+			System.arraycopy(children, i, children, i + 1, count - i);
+			keys[i] = (byte)b;
+			children[i] = child;
+			count++;
+		}
+
+		void setChild(int b, Object child) {
+
+			children[indexOf(b)] = child;
+		}
+
+		void removeChild(int b) {
+
+			int i = indexOf(b);
+			System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+			System.arraycopy(children, i + 1, children, i, count - i - 1);
+			count--;
+			children[count] = null;
+		}
+	}
+
+	static final class Node4 extends SortedNode {
+
+		Node4(byte[] prefix) {
+
+			super(prefix, 4);
+		}
+
+		ARTNode grow() {
+
+			return copyTo(new Node16(prefix));
+		}
+
+		ARTNode shrink() {
+
+			return this;
+		}
+	}
+
+	static final class Node16 extends SortedNode {
+
+		Node16(byte[] prefix) {
+
+			super(prefix, 16);
+		}
+
+		//binary search, the node is too wide for a linear scan to pay off
+		int indexOf(int b) {
+
+			int low = 0;
+			int high = count - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int c = (keys[mid] & 0xFF) - b;
+				if (c < 0)
+					low = mid + 1;
+				else if (c > 0)
+					high = mid - 1;
+				else
+					return mid;
+			}
+			return -(low + 1);
+		}
+
+		ARTNode grow() {
+
+			return copyTo(new Node48(prefix));
+		}
+
+		ARTNode shrink() {
+
+			return (count <= 3) ? copyTo(new Node4(prefix)) : this;
+		}
+	}
+
+	static final class Node48 extends ARTNode {
+
+		private final byte[] index = new byte[256];	//slot + 1 of the child of each byte, 0 for none
+		private final Object[] children = new Object[48];
+
+		Node48(byte[] prefix) {
+
+			super(prefix);
+		}
+
+		Object findChild(int b) {
+
+			int slot = index[b];
+			return (slot != 0) ? children[slot - 1] : null;
+		}
+
+		int nextByte(int b) {
+
+			for (int i = b + 1; i < 256; i++)
+				if (index[i] != 0)
+					return i;
+			return -1;
+		}
+
+		int prevByte(int b) {
+
+			for (int i = b - 1; i >= 0; i--)
+				if (index[i] != 0)
+					return i;
+			return -1;
+		}
+
+		boolean isFull() {
+
+			return count == children.length;
+		}
+
+		void addChild(int b, Object child) {
+
+			int slot = 0;
+			while (children[slot] != null)
+				slot++;
+			children[slot] = child;
+			index[b] = (byte)(slot + 1);
+			count++;
+		}
+
+		void setChild(int b, Object child) {
+
+			children[index[b] - 1] = child;
+		}
+
+		void removeChild(int b) {
+
+			children[index[b] - 1] = null;
+			index[b] = 0;
+			count--;
+		}
+
+		ARTNode grow() {
+
+			return copyTo(new Node256(prefix));
+		}
+
+		ARTNode shrink() {
+
+			return (count <= 12) ? copyTo(new Node16(prefix)) : this;
+		}
+	}
+
+	static final class Node256 extends ARTNode {
+
+		private final Object[] children = new Object[256];
+
+		Node256(byte[] prefix) {
+
+			super(prefix);
+		}
+
+		Object findChild(int b) {
+
+			return children[b];
+		}
+
+		int nextByte(int b) {
+
+			for (int i = b + 1; i < 256; i++)
+				if (children[i] != null)
+					return i;
+			return -1;
+		}
+
+		int prevByte(int b) {
+
+			for (int i = b - 1; i >= 0; i--)
+				if (children[i] != null)
+					return i;
+			return -1;
+		}
+
+		boolean isFull() {
+
+			return false;
+		}
+
+		void addChild(int b, Object child) {
+
+			children[b] = child;
+			count++;
+		}
+
+		void setChild(int b, Object child) {
+
+			children[b] = child;
+		}
+
+		void removeChild(int b) {
+
+			children[b] = null;
+			count--;
+		}
+
+		ARTNode grow() {
+
+			return this;
+		}
+
+		ARTNode shrink() {
+
+			return (count <= 37) ? copyTo(new Node48(prefix)) : this;
+		}
+	}
+
+	public String toString() {
+
+		return getClass().getSimpleName() + "(prefix " + Arrays.toString(prefix) + ", " + count + " children)";
+	}
+}
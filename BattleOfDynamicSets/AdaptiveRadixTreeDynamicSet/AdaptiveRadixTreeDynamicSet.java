@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package AdaptiveRadixTreeDynamicSet;
+
+import java.util.Arrays;
+import DynamicSet.*;
+
+/*
+ * Adaptive radix tree (Leis, Kemper and Neumann) over String keys. Instead of comparing whole
+ * keys at every level, a search reads the key one byte per inner node and jumps to the child
+ * for that byte, so it costs O(key length) whatever the size of the set. Inner nodes come in
+ * four sizes (see ARTNode), chains of one-child nodes are compressed into a prefix, and a leaf
+ * hangs as high as its key is unique, so keys with long shared prefixes store them once.
+ *
+ * Keys are encoded into bytes whose order is the order of String.compareTo: each char c becomes
+ * c + 1 written in one byte (up to 0x7F), two bytes (first byte 0x80-0xBF) or three bytes (first
+ * byte 0xC0-0xC1), and a 0 byte ends the key. The first byte of a char gives its length and is
+ * never 0, so no encoded key is a prefix of another: every key ends at a leaf, and a search meets
+ * a differing byte before it runs out of key.
+ */
+public class AdaptiveRadixTreeDynamicSet extends DynamicSet<String> {
+
+	private Object root;	//ARTNode, ARTElement or null
+	private boolean changed;	//the last insert or delete added or removed a leaf
+
+	public AdaptiveRadixTreeDynamicSet() {
+
+		super();
+		root = null;
+	}
+
+	public static void main(String []args) {
+
+		AdaptiveRadixTreeDynamicSet set = new AdaptiveRadixTreeDynamicSet();
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+
+		ARTElement n1 = new ARTElement(s1, s1);
+		ARTElement n2 = new ARTElement(s2, s2);
+		ARTElement n3 = new ARTElement(s3, s3);
+		ARTElement n4 = new ARTElement(s4, s4);
+
+		//test insert
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n4);
+		set.insert(n1);
+
+		System.out.println(set.toString());
+
+		//test delete
+		set.delete(n2);
+		set.delete(n3);
+		set.delete(n1);
+		set.delete(n4);
+		set.delete(n1);
+
+		//reinitialize set, enough keys to grow every node size
+		for (int i = 0; i < 300; i++)
+			set.insert(new ARTElement("key" + i, "data" + i));
+		set.insert(n1);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n4);
+
+		//testing max
+		ARTElement testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+
+		//testing successor
+		testNode = set.successor(n3);
+		if (testNode == null)
+			System.out.println("No Successor of " + n3.getKey());
+		else
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+
+		//testing predecessor
+		testNode = set.predecessor(n1);
+		if (testNode == null)
+			System.out.println("No Predecessor of " + n1.getKey());
+		else
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+	}
+
+	//Insert element e in the set, if its key is not in the set yet.
+	public void insert(SetElement<String> e) {
+
+		changed = false;
+		root = insert(root, encode(e.getKey()), 0, e);
+		if (changed)
+			super.size++;
+	}
+
+	//Inserts e below node, whose first byte is at depth of the key, and returns the node that
+	//replaces it in its parent.
+	private Object insert(Object node, byte[] key, int depth, SetElement<String> e) {
+
+		if (node == null) {
+			changed = true;
+			return new ARTElement(e.getKey(), e.getData());
+		}
+
+		stats.visited();
+		if (node instanceof ARTElement) {
+			ARTElement leaf = (ARTElement)node;
+			stats.compared();
+			if (leaf.getKey().equals(e.getKey()))
+				return leaf;	//already in the set
+			//split the lazy leaf: a Node4 for the bytes both keys share, and one child for each
+			byte[] other = encode(leaf.getKey());
+			int p = 0;
+			while (other[depth + p] == key[depth + p])
+				p++;
+			ARTNode n = new ARTNode.Node4(Arrays.copyOfRange(key, depth, depth + p));
+			n.addChild(other[depth + p] & 0xFF, leaf);
+			n.addChild(key[depth + p] & 0xFF, new ARTElement(e.getKey(), e.getData()));
+			changed = true;
+			return n;
+		}
+
+		ARTNode n = (ARTNode)node;
+		int p = mismatch(n, key, depth);
+		if (p < n.prefix.length) {
+			//the key leaves the compressed path: split the prefix with a Node4
+			ARTNode parent = new ARTNode.Node4(Arrays.copyOf(n.prefix, p));
+			int b = n.prefix[p] & 0xFF;
+			n.prefix = Arrays.copyOfRange(n.prefix, p + 1, n.prefix.length);
+			parent.addChild(b, n);
+			parent.addChild(key[depth + p] & 0xFF, new ARTElement(e.getKey(), e.getData()));
+			changed = true;
+			return parent;
+		}
+
+		depth += p;
+		int b = key[depth] & 0xFF;
+		Object child = n.findChild(b);
+		if (child != null) {
+			Object replaced = insert(child, key, depth + 1, e);
+			if (replaced != child)
+				n.setChild(b, replaced);
+			return n;
+		}
+		if (n.isFull())
+			n = n.grow();
+		n.addChild(b, new ARTElement(e.getKey(), e.getData()));
+		changed = true;
+		return n;
+	}
+
+	//Given a pointer to element e in set, removes e from set.
+	public void delete(SetElement<String> e) {
+
+		if (e == null || e.getKey() == null)
+			return;
+		changed = false;
+		root = delete(root, encode(e.getKey()), 0, e.getKey());
+		if (changed)
+			super.size--;
+	}
+
+	//Removes key k below node and returns the node that replaces it in its parent.
+	private Object delete(Object node, byte[] key, int depth, String k) {
+
+		if (node == null)
+			return null;
+		stats.visited();
+		if (node instanceof ARTElement) {
+			stats.compared();
+			if (((ARTElement)node).getKey().equals(k)) {
+				changed = true;
+				return null;
+			}
+			return node;
+		}
+
+		ARTNode n = (ARTNode)node;
+		int p = mismatch(n, key, depth);
+		if (p < n.prefix.length)
+			return n;
+		depth += p;
+		int b = key[depth] & 0xFF;
+		Object child = n.findChild(b);
+		if (child == null)
+			return n;
+		Object replaced = delete(child, key, depth + 1, k);
+		if (replaced == child)
+			return n;
+		if (replaced != null) {
+			n.setChild(b, replaced);
+			return n;
+		}
+
+		n.removeChild(b);
+		if (n.count == 1) {
+			//one child left: it takes the place of the node, with the node's prefix and byte prepended
+			int only = n.nextByte(-1);
+			Object last = n.findChild(only);
+			if (last instanceof ARTNode) {
+				ARTNode c = (ARTNode)last;
+				byte[] merged = new byte[n.prefix.length + 1 + c.prefix.length];
+				System.arraycopy(n.prefix, 0, merged, 0, n.prefix.length);
+				merged[n.prefix.length] = (byte)only;
+				System.arraycopy(c.prefix, 0, merged, n.prefix.length + 1, c.prefix.length);
+				c.prefix = merged;
+			}
+			return last;
+		}
+		return n.shrink();
+	}
+
+	//Finds a SetElement with key 'k' and returns a pointer to it or null if not found
+	public ARTElement search(String k) {
+
+		if (k == null)
+			return null;
+		byte[] key = encode(k);
+		Object node = root;
+		int depth = 0;
+		while (node instanceof ARTNode) {
+			stats.visited();
+			ARTNode n = (ARTNode)node;
+			byte[] prefix = n.prefix;
+			for (int i = 0; i < prefix.length; i++)
+				if (prefix[i] != key[depth + i])
+					return null;
+			depth += prefix.length;
+			node = n.findChild(key[depth] & 0xFF);
+			depth++;
+		}
+		if (node == null)
+			return null;
+		stats.visited();
+		stats.compared();
+		if (((ARTElement)node).getKey().equals(k))
+			return (ARTElement)node;
+		else
+			return null;
+	}
+
+	public ARTElement minimum() {
+
+		return leftmost(root);
+	}
+
+	public ARTElement maximum() {
+
+		return rightmost(root);
+	}
+
+	public ARTElement successor(SetElement<String> e) {
+
+		if (search(e.getKey()) == null)
+			return null;
+		return ceiling(root, encode(e.getKey()), 0, e.getKey(), true);
+	}
+
+	public ARTElement predecessor(SetElement<String> e) {
+
+		if (search(e.getKey()) == null)
+			return null;
+		return floor(root, encode(e.getKey()), 0, e.getKey(), true);
+	}
+
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//The cursor keeps the path from the root to its element on a stack, so a step moves to the next
+	//child of the deepest node that has one and down to the leftmost leaf below it.
+	public Cursor<String> range(final String lo, String hi) {
+
+		return new Cursor<String>(hi) {
+			private ARTNode[] nodes = new ARTNode[8];	//path to the current leaf
+			private int[] bytes = new int[8];	//byte taken at each node of the path
+			private int depth = 0;
+
+			protected SetElement<String> first() {
+
+				ARTElement leaf = (lo == null) ? leftmost(root) : ceiling(root, encode(lo), 0, lo, false);
+				if (leaf == null)
+					return null;
+				byte[] key = encode(leaf.getKey());
+				Object node = root;
+				int d = 0;
+				while (node instanceof ARTNode) {
+					ARTNode n = (ARTNode)node;
+					d += n.prefix.length;
+					int b = key[d] & 0xFF;
+					push(n, b);
+					node = n.findChild(b);
+					d++;
+				}
+				return leaf;
+			}
+
+			protected SetElement<String> step(SetElement<String> e) {
+
+				while (depth > 0) {
+					ARTNode n = nodes[depth - 1];
+					int b = n.nextByte(bytes[depth - 1]);
+					if (b >= 0) {
+						bytes[depth - 1] = b;
+						Object node = n.findChild(b);
+						while (node instanceof ARTNode) {
+							ARTNode m = (ARTNode)node;
+							int c = m.nextByte(-1);
+							push(m, c);
+							node = m.findChild(c);
+						}
+						return (ARTElement)node;
+					}
+					depth--;
+				}
+				return null;
+			}
+
+			private void push(ARTNode n, int b) {
+
+				if (depth == nodes.length) {
+					nodes = Arrays.copyOf(nodes, 2 * depth);
+					bytes = Arrays.copyOf(bytes, 2 * depth);
+				}
+				nodes[depth] = n;
+				bytes[depth] = b;
+				depth++;
+			}
+		};
+	}
+
+	//Returns the leaf with the smallest key >= k (> k if strict) below node, whose first byte is at
+	//depth of the key, or null.
+	private ARTElement ceiling(Object node, byte[] key, int depth, String k, boolean strict) {
+
+		if (node == null)
+			return null;
+		stats.visited();
+		if (node instanceof ARTElement) {
+			ARTElement leaf = (ARTElement)node;
+			stats.compared();
+			int c = leaf.getKey().compareTo(k);
+			return (c > 0 || (c == 0 && !strict)) ? leaf : null;
+		}
+
+		ARTNode n = (ARTNode)node;
+		for (int i = 0; i < n.prefix.length; i++) {
+			int pb = n.prefix[i] & 0xFF;
+			int kb = key[depth + i] & 0xFF;
+			if (pb < kb)
+				return null;	//every key below is smaller
+			if (pb > kb)
+				return leftmost(n);	//every key below is larger
+		}
+		depth += n.prefix.length;
+		int b = key[depth] & 0xFF;
+		ARTElement result = ceiling(n.findChild(b), key, depth + 1, k, strict);
+		if (result != null)
+			return result;
+		int next = n.nextByte(b);
+		return (next < 0) ? null : leftmost(n.findChild(next));
+	}
+
+	//Returns the leaf with the largest key <= k (< k if strict) below node, or null.
+	private ARTElement floor(Object node, byte[] key, int depth, String k, boolean strict) {
+
+		if (node == null)
+			return null;
+		stats.visited();
+		if (node instanceof ARTElement) {
+			ARTElement leaf = (ARTElement)node;
+			stats.compared();
+			int c = leaf.getKey().compareTo(k);
+			return (c < 0 || (c == 0 && !strict)) ? leaf : null;
+		}
+
+		ARTNode n = (ARTNode)node;
+		for (int i = 0; i < n.prefix.length; i++) {
+			int pb = n.prefix[i] & 0xFF;
+			int kb = key[depth + i] & 0xFF;
+			if (pb > kb)
+				return null;
+			if (pb < kb)
+				return rightmost(n);
+		}
+		depth += n.prefix.length;
+		int b = key[depth] & 0xFF;
+		ARTElement result = floor(n.findChild(b), key, depth + 1, k, strict);
+		if (result != null)
+			return result;
+		int prev = n.prevByte(b);
+		return (prev < 0) ? null : rightmost(n.findChild(prev));
+	}
+
+	private ARTElement leftmost(Object node) {
+
+		while (node instanceof ARTNode) {
+			stats.visited();
+			ARTNode n = (ARTNode)node;
+			node = n.findChild(n.nextByte(-1));
+		}
+		return (ARTElement)node;
+	}
+
+	private ARTElement rightmost(Object node) {
+
+		while (node instanceof ARTNode) {
+			stats.visited();
+			ARTNode n = (ARTNode)node;
+			node = n.findChild(n.prevByte(256));
+		}
+		return (ARTElement)node;
+	}
+
+	//Returns the number of nodes on the longest path from the root to a leaf, 0 if the set is empty.
+	//Paths are as long as the number of bytes where keys branch, not as the keys.
+	public int height() {
+
+		return height(root);
+	}
+
+	private static int height(Object node) {
+
+		if (node == null)
+			return 0;
+		if (node instanceof ARTElement)
+			return 1;
+		ARTNode n = (ARTNode)node;
+		int below = 0;
+		for (int b = n.nextByte(-1); b >= 0; b = n.nextByte(b))
+			below = Math.max(below, height(n.findChild(b)));
+		return 1 + below;
+	}
+
+	//Returns the number of bytes of the prefix of n that match the key from depth on.
+	private static int mismatch(ARTNode n, byte[] key, int depth) {
+
+		int p = 0;
+		while (p < n.prefix.length && n.prefix[p] == key[depth + p])
+			p++;
+		return p;
+	}
+
+	//Encodes k into bytes that compare like the String (see the class comment).
+	static byte[] encode(String k) {
+
+		int length = 1;
+		for (int i = 0; i < k.length(); i++) {
+			int v = k.charAt(i) + 1;
+			length += (v < 0x80) ? 1 : (v < 0x4000) ? 2 : 3;
+		}
+		byte[] key = new byte[length];
+		int j = 0;
+		for (int i = 0; i < k.length(); i++) {
+			int v = k.charAt(i) + 1;
+			if (v < 0x80)
+				key[j++] = (byte)v;
+			else if (v < 0x4000) {
+				key[j++] = (byte)(0x80 | (v >> 8));
+				key[j++] = (byte)v;
+			}
+			else {
+				key[j++] = (byte)(0xC0 | (v >> 16));
+				key[j++] = (byte)(v >> 8);
+				key[j++] = (byte)v;
+			}
+		}
+		key[j] = 0;
+		return key;
+	}
+
+	public String toString() {
+
+		StringBuilder result = new StringBuilder();
+		result.append("[");
+		Cursor<String> c = range(null, null);
+		boolean first = true;
+		while (c.next()) {
+			if (!first)
+				result.append(", ");
+			result.append(c.getKey());
+			first = false;
+		}
+		result.append("]");
+		return result.toString();
+	}
+}
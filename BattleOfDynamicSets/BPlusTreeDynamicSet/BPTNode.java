@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package BPlusTreeDynamicSet;
+
+import DynamicSet.SetStatistics;
+
+//A node of the B+-tree. Keys are kept sorted in one array per node so a search touches a few
+//contiguous cache lines per level instead of one node per comparison.
+//
+//Leaf: keys[0..count-1] with the matching elements[0..count-1], linked to its neighbours.
+//Internal: children[0..count-1] and separators keys[0..count-2], where keys[i] is the
+//smallest key in the subtree of children[i + 1].
+public class BPTNode<T extends Comparable<T>> {
+
+	private final boolean leaf;
+	int count;
+	final Object[] keys;
+	final BPTNode<T>[] children;
+	final BPTElement<T>[] elements;
+	BPTNode<T> next;	//leaf chain, in key order
+	BPTNode<T> prev;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	BPTNode(boolean leaf, int fanout) {
+
+		this.leaf = leaf;
+		this.count = 0;
+		if (leaf) {
+			this.keys = new Object[fanout];
+			this.elements = new BPTElement[fanout];
+			this.children = null;
+		}
+		else {
+			this.keys = new Object[fanout - 1];
+			this.children = new BPTNode[fanout];
+			this.elements = null;
+		}
+	}
+
+	public boolean isLeaf() {
+
+		return this.leaf;
+	}
+
+	//number of keys in a leaf, number of children in an internal node
+	public int getCount() {
+
+		return this.count;
+	}
+
+	public BPTNode<T> getNext() {
+
+		return this.next;
+	}
+
+	public BPTNode<T> getPrev() {
+
+		return this.prev;
+	}
+
+	@SuppressWarnings("unchecked")
+	T key(int i) {
+
+		return (T)keys[i];
+	}
+
+	//Returns the index of k among the first n keys, or -(insertion point) - 1 if absent.
+	//Counts the node and its comparisons in stats.
+	int indexOf(T k, int n, SetStatistics stats) {
+
+		stats.visited();
+		int low = 0;
+		int high = n - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			stats.compared();
+			int c = key(mid).compareTo(k);
+			if (c < 0)
+				low = mid + 1;
+			else if (c > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+
+	//Returns the child of an internal node whose subtree may contain k.
+	int childIndex(T k, SetStatistics stats) {
+
+		int i = indexOf(k, count - 1, stats);
+		if (i >= 0)
+			return i + 1;	//separator equals k, k is the smallest key of the right subtree
+		else
+			return -(i + 1);
+	}
+}
@@ -0,0 +1,564 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package BPlusTreeDynamicSet;
+
+import java.util.Arrays;
+import DynamicSet.*;
+
+/*
+ * B+-tree. Every node keeps its keys in one sorted array, so a search does a binary search
+ * over a few cache lines per level and visits O(log n / log fanout) nodes, instead of one
+ * node, and usually one cache miss, per comparison. All elements live in the leaves, which
+ * are linked in key order: successor and predecessor step to the neighbouring slot or leaf.
+ */
+public class BPlusTreeDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+
+	public static final int DEFAULT_FANOUT = 64;
+
+	private final int fanout;	//keys per leaf, children per internal node
+	private BPTNode<T> root;
+	private BPTNode<T> firstLeaf;
+	private BPTNode<T> lastLeaf;
+	private T splitKey;	//separator handed up by the last split
+
+	public BPlusTreeDynamicSet() {
+
+		this(DEFAULT_FANOUT);
+	}
+
+	public BPlusTreeDynamicSet(int fanout) {
+
+		super();
+		if (fanout < 4)
+			throw new IllegalArgumentException("fanout must be at least 4: " + fanout);
+		this.fanout = fanout;
+		root = new BPTNode<T>(true, fanout);
+		firstLeaf = root;
+		lastLeaf = root;
+	}
+
+	public static void main(String []args) {
+
+		BPlusTreeDynamicSet<String> set = new BPlusTreeDynamicSet<String>(4);
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+
+		BPTElement<String> n1 = new BPTElement<String>(s1, s1);
+		BPTElement<String> n2 = new BPTElement<String>(s2, s2);
+		BPTElement<String> n3 = new BPTElement<String>(s3, s3);
+		BPTElement<String> n4 = new BPTElement<String>(s4, s4);
+
+		//test insert
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n4);
+		set.insert(n1);
+
+		System.out.println(set.toString());
+
+		//test delete
+		set.delete(n2);
+		set.delete(n3);
+		set.delete(n1);
+		set.delete(n4);
+		set.delete(n1);
+
+		//reinitialize set, enough keys for several levels
+		for (int i = 0; i < 100; i++)
+			set.insert(new BPTElement<String>("key" + i, "data" + i));
+		set.insert(n1);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n4);
+
+		//testing max
+		BPTElement<String> testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+
+		//testing successor
+		testNode = set.successor(set.search(s3));
+		if (testNode == null)
+			System.out.println("No Successor of " + s3);
+		else
+			System.out.println("Successor of " + s3 + ": " + testNode.getKey());
+
+		//testing predecessor
+		testNode = set.predecessor(set.search(s1));
+		if (testNode == null)
+			System.out.println("No Predecessor of " + s1);
+		else
+			System.out.println("Predecessor of " + s1 + ": " + testNode.getKey());
+	}
+
+	public int getFanout() {
+
+		return fanout;
+	}
+
+	//Insert element e in the set, if its key is not in the set yet.
+	public void insert(SetElement<T> e) {
+
+		BPTNode<T> right = insert(root, e.getKey(), e.getData());
+
+		if (right != null) {	//root was split, grow a new root
+			BPTNode<T> newRoot = new BPTNode<T>(false, fanout);
+			newRoot.children[0] = root;
+			newRoot.children[1] = right;
+			newRoot.keys[0] = splitKey;
+			newRoot.count = 2;
+			root = newRoot;
+			stats.levelCreated();
+		}
+	}
+
+	//Inserts k below node. Returns the new right sibling if node was split, with its
+	//separator in splitKey, or null.
+	private BPTNode<T> insert(BPTNode<T> node, T k, T data) {
+
+		if (node.isLeaf()) {
+			int i = node.indexOf(k, node.count, stats);
+			if (i >= 0)
+				return null;	//already in the set
+			i = -(i + 1);
+
+			BPTElement<T> toAdd = new BPTElement<T>(k, data);
+			super.size++;
+			if (node.count < fanout) {
+				insertIntoLeaf(node, i, toAdd);
+				return null;
+			}
+
+			//full leaf, move the upper half into a new leaf
+			BPTNode<T> right = new BPTNode<T>(true, fanout);
+			int half = fanout / 2;
+			for (int j = half; j < node.count; j++) {
+				right.keys[j - half] = node.keys[j];
+				right.elements[j - half] = node.elements[j];
+				right.elements[j - half].setLeaf(right);
+				node.keys[j] = null;
+				node.elements[j] = null;
+			}
+			right.count = node.count - half;
+			node.count = half;
+
+			//link the new leaf into the leaf chain
+			right.next = node.next;
+			right.prev = node;
+			if (node.next != null)
+				node.next.prev = right;
+			else
+				lastLeaf = right;
+			node.next = right;
+
+			if (i <= half)
+				insertIntoLeaf(node, i, toAdd);
+			else
+				insertIntoLeaf(right, i - half, toAdd);
+			splitKey = right.key(0);
+			return right;
+		}
+
+		int ci = node.childIndex(k, stats);
+		BPTNode<T> newChild = insert(node.children[ci], k, data);
+		if (newChild == null)
+			return null;
+		T separator = splitKey;
+
+		if (node.count < fanout) {
+			//room for one more child: shift the separators and children after ci
+			System.arraycopy(node.keys, ci, node.keys, ci + 1, node.count - 1 - ci);
+			System.arraycopy(node.children, ci + 1, node.children, ci + 2, node.count - 1 - ci);
+			node.keys[ci] = separator;
+			node.children[ci + 1] = newChild;
+			node.count++;
+			return null;
+		}
+
+		//full internal node: lay out the fanout + 1 children and split them in two halves
+		Object[] keys = new Object[fanout];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		BPTNode<T>[] children = new BPTNode[fanout + 1];
+		System.arraycopy(node.keys, 0, keys, 0, ci);
+		keys[ci] = separator;
+		System.arraycopy(node.keys, ci, keys, ci + 1, fanout - 1 - ci);
+		System.arraycopy(node.children, 0, children, 0, ci + 1);
+		children[ci + 1] = newChild;
+		System.arraycopy(node.children, ci + 1, children, ci + 2, fanout - 1 - ci);
+
+		int leftCount = (fanout + 1) / 2;
+		BPTNode<T> right = new BPTNode<T>(false, fanout);
+		right.count = fanout + 1 - leftCount;
+		System.arraycopy(children, leftCount, right.children, 0, right.count);
+		System.arraycopy(keys, leftCount, right.keys, 0, right.count - 1);
+
+		Arrays.fill(node.keys, null);
+		Arrays.fill(node.children, null);
+		System.arraycopy(children, 0, node.children, 0, leftCount);
+		System.arraycopy(keys, 0, node.keys, 0, leftCount - 1);
+		node.count = leftCount;
+
+		@SuppressWarnings("unchecked")
+		T promoted = (T)keys[leftCount - 1];
+		splitKey = promoted;
+		return right;
+	}
+
+	private void insertIntoLeaf(BPTNode<T> leaf, int i, BPTElement<T> toAdd) {
+
+		System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.count - i);
+		System.arraycopy(leaf.elements, i, leaf.elements, i + 1, leaf.count - i);
+		leaf.keys[i] = toAdd.getKey();
+		leaf.elements[i] = toAdd;
+		toAdd.setLeaf(leaf);
+		leaf.count++;
+	}
+
+	//Given a pointer to element e in set, removes e from set.
+	public void delete(SetElement<T> e) {
+
+		if (e == null)
+			return;
+
+		if (delete(root, e.getKey())) {
+			super.size--;
+			if (!root.isLeaf() && root.count == 1) {	//root lost its last separator, shrink the tree
+				root = root.children[0];
+				stats.levelRemoved();
+			}
+		}
+	}
+
+	//Removes k below node, rebalancing children that fall below half full. Returns true if k was found.
+	private boolean delete(BPTNode<T> node, T k) {
+
+		if (node.isLeaf()) {
+			int i = node.indexOf(k, node.count, stats);
+			if (i < 0)
+				return false;
+			node.elements[i].setLeaf(null);
+			System.arraycopy(node.keys, i + 1, node.keys, i, node.count - 1 - i);
+			System.arraycopy(node.elements, i + 1, node.elements, i, node.count - 1 - i);
+			node.count--;
+			node.keys[node.count] = null;
+			node.elements[node.count] = null;
+			return true;
+		}
+
+		int ci = node.childIndex(k, stats);
+		BPTNode<T> child = node.children[ci];
+		if (!delete(child, k))
+			return false;
+		if (child.count < minCount(child))
+			rebalance(node, ci);
+		return true;
+	}
+
+	private int minCount(BPTNode<T> node) {
+
+		if (node.isLeaf())
+			return fanout / 2;
+		else
+			return (fanout + 1) / 2;
+	}
+
+	//Child ci of parent is below half full: borrow from a sibling that can spare an entry,
+	//otherwise merge with a sibling.
+	private void rebalance(BPTNode<T> parent, int ci) {
+
+		BPTNode<T> left = (ci > 0) ? parent.children[ci - 1] : null;
+		BPTNode<T> right = (ci + 1 < parent.count) ? parent.children[ci + 1] : null;
+
+		if (left != null && left.count > minCount(left))
+			borrowFromLeft(parent, ci);
+		else if (right != null && right.count > minCount(right))
+			borrowFromRight(parent, ci);
+		else if (left != null)
+			merge(parent, ci - 1);
+		else
+			merge(parent, ci);
+	}
+
+	//Moving one key through the parent into a sibling is the B-tree form of a rotation.
+	private void borrowFromLeft(BPTNode<T> parent, int ci) {
+
+		stats.rotated();
+		BPTNode<T> child = parent.children[ci];
+		BPTNode<T> left = parent.children[ci - 1];
+
+		if (child.isLeaf()) {
+			System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+			System.arraycopy(child.elements, 0, child.elements, 1, child.count);
+			left.count--;
+			child.keys[0] = left.keys[left.count];
+			child.elements[0] = left.elements[left.count];
+			child.elements[0].setLeaf(child);
+			left.keys[left.count] = null;
+			left.elements[left.count] = null;
+			child.count++;
+			parent.keys[ci - 1] = child.keys[0];
+		}
+		else {
+			//rotate through the parent: separator comes down, left's last separator goes up
+			System.arraycopy(child.keys, 0, child.keys, 1, child.count - 1);
+			System.arraycopy(child.children, 0, child.children, 1, child.count);
+			child.keys[0] = parent.keys[ci - 1];
+			child.children[0] = left.children[left.count - 1];
+			parent.keys[ci - 1] = left.keys[left.count - 2];
+			left.children[left.count - 1] = null;
+			left.keys[left.count - 2] = null;
+			left.count--;
+			child.count++;
+		}
+	}
+
+	private void borrowFromRight(BPTNode<T> parent, int ci) {
+
+		stats.rotated();
+		BPTNode<T> child = parent.children[ci];
+		BPTNode<T> right = parent.children[ci + 1];
+
+		if (child.isLeaf()) {
+			child.keys[child.count] = right.keys[0];
+			child.elements[child.count] = right.elements[0];
+			child.elements[child.count].setLeaf(child);
+			child.count++;
+			System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+			System.arraycopy(right.elements, 1, right.elements, 0, right.count - 1);
+			right.count--;
+			right.keys[right.count] = null;
+			right.elements[right.count] = null;
+			parent.keys[ci] = right.keys[0];
+		}
+		else {
+			child.keys[child.count - 1] = parent.keys[ci];
+			child.children[child.count] = right.children[0];
+			child.count++;
+			parent.keys[ci] = right.keys[0];
+			System.arraycopy(right.keys, 1, right.keys, 0, right.count - 2);
+			System.arraycopy(right.children, 1, right.children, 0, right.count - 1);
+			right.count--;
+			right.keys[right.count - 1] = null;
+			right.children[right.count] = null;
+		}
+	}
+
+	//Merges children i and i + 1 of parent into child i.
+	private void merge(BPTNode<T> parent, int i) {
+
+		BPTNode<T> left = parent.children[i];
+		BPTNode<T> right = parent.children[i + 1];
+
+		if (left.isLeaf()) {
+			for (int j = 0; j < right.count; j++) {
+				left.keys[left.count + j] = right.keys[j];
+				left.elements[left.count + j] = right.elements[j];
+				right.elements[j].setLeaf(left);
+			}
+			left.count += right.count;
+
+			//unlink the right leaf from the leaf chain
+			left.next = right.next;
+			if (right.next != null)
+				right.next.prev = left;
+			else
+				lastLeaf = left;
+		}
+		else {
+			left.keys[left.count - 1] = parent.keys[i];
+			System.arraycopy(right.keys, 0, left.keys, left.count, right.count - 1);
+			System.arraycopy(right.children, 0, left.children, left.count, right.count);
+			left.count += right.count;
+		}
+
+		//drop separator i and child i + 1 from the parent
+		System.arraycopy(parent.keys, i + 1, parent.keys, i, parent.count - 2 - i);
+		System.arraycopy(parent.children, i + 2, parent.children, i + 1, parent.count - 2 - i);
+		parent.count--;
+		parent.keys[parent.count - 1] = null;
+		parent.children[parent.count] = null;
+	}
+
+	//Finds a SetElement with key 'k' and returns a pointer to it, or null if not found.
+	public BPTElement<T> search(T k) {
+
+		if (k == null)
+			return null;
+
+		BPTNode<T> node = root;
+		while (!node.isLeaf())
+			node = node.children[node.childIndex(k, stats)];
+
+		int i = node.indexOf(k, node.count, stats);
+		if (i >= 0)
+			return node.elements[i];
+		else
+			return null;
+	}
+
+	//Returns the number of levels from the root to the leaves, 0 if the set is empty.
+	public int height() {
+
+		if (super.size == 0)
+			return 0;
+		int height = 1;
+		for (BPTNode<T> node = root; !node.isLeaf(); node = node.children[0])
+			height++;
+		return height;
+	}
+
+	//Finds a SetElement that has the smallest key, and returns a pointer to it, or null if the set is empty.
+	public BPTElement<T> minimum() {
+
+		if (firstLeaf.count == 0)
+			return null;
+		return firstLeaf.elements[0];
+	}
+
+	//Finds a SetElement that has the largest key, and returns a pointer to it, or null if the set is empty.
+	public BPTElement<T> maximum() {
+
+		if (lastLeaf.count == 0)
+			return null;
+		return lastLeaf.elements[lastLeaf.count - 1];
+	}
+
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next larger key,
+	//and returns a pointer to it, or null if e is the maximum element.
+	public BPTElement<T> successor(SetElement<T> e) {
+
+		BPTElement<T> element = locate(e);
+		if (element == null)
+			return null;
+
+		BPTNode<T> leaf = element.getLeaf();
+		int i = leaf.indexOf(element.getKey(), leaf.count, stats);
+		if (i + 1 < leaf.count)
+			return leaf.elements[i + 1];
+		else if (leaf.next != null)
+			return leaf.next.elements[0];
+		else
+			return null;
+	}
+
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next smaller key,
+	//and returns a pointer to it, or null if e is the minimum element.
+	public BPTElement<T> predecessor(SetElement<T> e) {
+
+		BPTElement<T> element = locate(e);
+		if (element == null)
+			return null;
+
+		BPTNode<T> leaf = element.getLeaf();
+		int i = leaf.indexOf(element.getKey(), leaf.count, stats);
+		if (i > 0)
+			return leaf.elements[i - 1];
+		else if (leaf.prev != null)
+			return leaf.prev.elements[leaf.prev.count - 1];
+		else
+			return null;
+	}
+
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//The cursor descends once to the leaf holding lo, then reads the leaves left to right along the
+	//leaf chain, so a scan touches consecutive array slots instead of chasing a pointer per element.
+	public Cursor<T> range(final T lo, T hi) {
+
+		return new Cursor<T>(hi) {
+			private BPTNode<T> leaf;	//position of the cursor: leaf.elements[index]
+			private int index;
+
+			protected SetElement<T> first() {
+
+				leaf = root;
+				if (lo == null)
+					leaf = firstLeaf;
+				else
+					while (!leaf.isLeaf())
+						leaf = leaf.children[leaf.childIndex(lo, stats)];
+				index = 0;
+				if (lo != null) {
+					index = leaf.indexOf(lo, leaf.count, stats);
+					if (index < 0)
+						index = -(index + 1);	//first key > lo
+				}
+				return element();
+			}
+
+			protected SetElement<T> step(SetElement<T> e) {
+
+				index++;
+				return element();
+			}
+
+			//element at the position, moving on to the next leaf past the end of this one
+			private SetElement<T> element() {
+
+				if (index == leaf.count) {
+					leaf = leaf.next;
+					index = 0;
+				}
+				if (leaf == null || leaf.count == 0)
+					return null;
+				return leaf.elements[index];
+			}
+		};
+	}
+
+	//Elements handed out by this tree know their leaf; anything else is looked up by key.
+	private BPTElement<T> locate(SetElement<T> e) {
+
+		if (e == null)
+			return null;
+		if (e instanceof BPTElement && ((BPTElement<T>)e).getLeaf() != null)
+			return (BPTElement<T>)e;
+		return search(e.getKey());
+	}
+
+	public String toString() {
+
+		StringBuilder result = new StringBuilder("[");
+		for (BPTNode<T> leaf = firstLeaf; leaf != null; leaf = leaf.next) {
+			for (int i = 0; i < leaf.count; i++) {
+				if (result.length() > 1)
+					result.append(", ");
+				result.append(leaf.keys[i]);
+			}
+		}
+		result.append("]");
+		return result.toString();
+	}
+}
@@ -29,6 +29,9 @@
 
 package BSTDynamicSet;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Spliterator;
 import DynamicSet.*;
 
 public class BSTDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
@@ -133,6 +136,8 @@ public class BSTDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			BSTNode<T> current = root;
 			
 			while(current != null) {
+				stats.visited();
+				stats.compared();
 				trailing = current;
 				if(toAdd.getKey().compareTo(current.getKey()) < 0)
 					current = current.getLeft();
@@ -143,10 +148,13 @@ public class BSTDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			toAdd.setParent(trailing);
 			if(trailing == null)	//tree empty
 				root = toAdd;
-			else if(toAdd.getKey().compareTo(trailing.getKey()) < 0)
-				trailing.setLeft(toAdd);
-			else
-				trailing.setRight(toAdd);
+			else {
+				stats.compared();
+				if(toAdd.getKey().compareTo(trailing.getKey()) < 0)
+					trailing.setLeft(toAdd);
+				else
+					trailing.setRight(toAdd);
+			}
 		
 			super.size++;
 		}
@@ -188,12 +196,29 @@ public class BSTDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 		BSTNode<T> current = subtree;
 		
-		while(current.getLeft() != null)
+		while(current.getLeft() != null) {
+			stats.visited();
 			current = current.getLeft();
-		
+		}
+
 		return current;
 	}
-	
+
+	/**
+	 * Find the maximum node of subtree
+	 */
+	private BSTNode<T> treeMaximum(BSTNode<T> subtree) {
+
+		BSTNode<T> current = subtree;
+
+		while(current.getRight() != null) {
+			stats.visited();
+			current = current.getRight();
+		}
+
+		return current;
+	}
+
 	/**
 	 * Replaces tree rooted at the given node with the given replacement subtree.
 	 */
@@ -216,8 +241,13 @@ public class BSTDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 		BSTNode<T> current = root;
 		
-		while(current != null && k.compareTo(current.getKey()) != 0) {
-			if(k.compareTo(current.getKey()) < 0)
+		while(current != null) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if(c == 0)
+				break;
+			if(c < 0)
 				current = current.getLeft();
 			else
 				current = current.getRight();
@@ -228,23 +258,19 @@ public class BSTDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 	//Find a SetElement that has the smallest key, return pointer to it, or null if empty set
 	public BSTNode<T> minimum() {
 		
-		BSTNode<T> current = root;
-		
-		while(current.getLeft() != null)
-			current = current.getLeft();
-		
-		return current;
+		if(root == null)	//empty set
+			return null;
+
+		return treeMinimum(root);
 	}
 
 	//Finds and returns element with largest key in set
 	public BSTNode<T> maximum() {
-		
-		BSTNode<T> current = root;
-		
-		while(current.getRight() != null)
-			current = current.getRight();
-		
-		return current;
+
+		if(root == null)	//empty set
+			return null;
+
+		return treeMaximum(root);
 	}
 
 	/*
@@ -256,10 +282,19 @@ public class BSTDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 		BSTNode<T> succ = search(e.getKey());
 		
-		if(succ != null)
-			return succ.getRight();
-		else
+		if(succ == null)
 			return null;
+		if(succ.getRight() != null)	//leftmost node of right subtree
+			return treeMinimum(succ.getRight());
+
+		//otherwise climb until we come up from a left child
+		BSTNode<T> parent = succ.getParent();
+		while(parent != null && succ == parent.getRight()) {
+			stats.visited();
+			succ = parent;
+			parent = parent.getParent();
+		}
+		return parent;
 	}
 
 	/*
@@ -271,10 +306,176 @@ public class BSTDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 		BSTNode<T> pred = search(e.getKey());
 		
-		if(pred != null)
-			return pred.getRight();
-		else
+		if(pred == null)
+			return null;
+		if(pred.getLeft() != null)	//rightmost node of left subtree
+			return treeMaximum(pred.getLeft());
+
+		//otherwise climb until we come up from a right child
+		BSTNode<T> parent = pred.getParent();
+		while(parent != null && pred == parent.getLeft()) {
+			stats.visited();
+			pred = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+	
+	/*
+	 * Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive),
+	 * in key order. The first element is found by one descent from the root; the steps walk
+	 * the tree in order, which visits every edge at most twice, so a scan costs O(1) per
+	 * element amortized on top of the descent.
+	 */
+	public Cursor<T> range(final T lo, T hi) {
+		
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+				
+				if(lo == null)
+					return minimum();
+				else
+					return ceiling(lo);
+			}
+			
+			protected SetElement<T> step(SetElement<T> e) {
+				
+				return nextInorder((BSTNode<T>)e);
+			}
+		};
+	}
+	
+	//Returns a spliterator over the elements in key order that splits at subtrees. The tree keeps no
+	//subtree sizes, so the parts only estimate their sizes as halves.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return new SubtreeSpliterator<T, BSTNode<T>>(root, super.size, new SubtreeSpliterator.Tree<BSTNode<T>>() {
+			public BSTNode<T> left(BSTNode<T> node) {
+				
+				return node.getLeft();
+			}
+			
+			public BSTNode<T> right(BSTNode<T> node) {
+				
+				return node.getRight();
+			}
+			
+			public long size(BSTNode<T> node) {
+				
+				return -1;	//unknown
+			}
+		});
+	}
+	
+	//Inserts every element in the set by rebuilding the tree as a perfectly balanced tree in O(n)
+	//when the elements arrive sorted, O(n log n) otherwise (they are sorted first). Inserting
+	//sorted keys one at a time would instead degenerate the tree into a list.
+	//Nodes already in the set are reused, so pointers to them stay valid.
+	public void bulkLoad(Iterator<? extends SetElement<T>> elements) {
+		
+		ArrayList<BSTNode<T>> added = new ArrayList<BSTNode<T>>();
+		while(elements.hasNext()) {
+			SetElement<T> e = elements.next();
+			added.add(new BSTNode<T>(e.getKey(), e.getData()));
+		}
+		ArrayList<BSTNode<T>> nodes = sortedUnion(inorder(), added);
+		root = build(nodes, 0, nodes.size() - 1, null);
+		super.size = nodes.size();
+	}
+	
+	/**
+	 * Links nodes[low..high] into a balanced subtree: the middle node becomes
+	 * the root and each half is built the same way.
+	 */
+	private BSTNode<T> build(ArrayList<BSTNode<T>> nodes, int low, int high, BSTNode<T> parent) {
+		
+		if(low > high)
 			return null;
+		int middle = (low + high) >>> 1;
+		BSTNode<T> node = nodes.get(middle);
+		node.setParent(parent);
+		node.setLeft(build(nodes, low, middle - 1, node));
+		node.setRight(build(nodes, middle + 1, high, node));
+		return node;
+	}
+	
+	/**
+	 * Returns the nodes of the tree in key order. Walks the parent pointers
+	 * instead of recursing, since an unbalanced tree can be as deep as it is large.
+	 */
+	private ArrayList<BSTNode<T>> inorder() {
+		
+		ArrayList<BSTNode<T>> result = new ArrayList<BSTNode<T>>(super.size);
+		BSTNode<T> node = (root == null) ? null : treeMinimum(root);
+		while(node != null) {
+			result.add(node);
+			node = nextInorder(node);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the height of the tree in nodes, counted one level at a time
+	 * instead of recursing, for the same reason.
+	 */
+	public int height() {
+		
+		int height = 0;
+		ArrayList<BSTNode<T>> level = new ArrayList<BSTNode<T>>();
+		if(root != null)
+			level.add(root);
+		while(!level.isEmpty()) {
+			height++;
+			ArrayList<BSTNode<T>> below = new ArrayList<BSTNode<T>>();
+			for(BSTNode<T> node : level) {
+				if(node.getLeft() != null)
+					below.add(node.getLeft());
+				if(node.getRight() != null)
+					below.add(node.getRight());
+			}
+			level = below;
+		}
+		return height;
+	}
+	
+	/**
+	 * Returns the node that follows node in key order, or null if node is the
+	 * maximum. Same climb as successor, without searching for node first.
+	 */
+	private BSTNode<T> nextInorder(BSTNode<T> node) {
+		
+		if(node.getRight() != null)
+			return treeMinimum(node.getRight());
+		BSTNode<T> parent = node.getParent();
+		while(parent != null && node == parent.getRight()) {
+			stats.visited();
+			node = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+	
+	/**
+	 * Returns the node with the smallest key >= k, or null if every key is smaller.
+	 */
+	private BSTNode<T> ceiling(T k) {
+		
+		BSTNode<T> current = root;
+		BSTNode<T> candidate = null;
+		while(current != null) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if(c == 0)
+				return current;
+			if(c < 0) {
+				candidate = current;
+				current = current.getLeft();
+			}
+			else
+				current = current.getRight();
+		}
+		return candidate;
 	}
 	
 	/**
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import ConcurrentDynamicSet.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Multi-threaded throughput of ConcurrentDynamicSet. A set of the given size is built from shuffled
+ * keys and shared by 1, 2, 4, ... threads that search random keys; a percentage of the operations are
+ * writes (delete a key and insert it again, so the size stays the same). Every thread count is run
+ * with the three read modes: OPTIMISTIC (StampedLock optimistic stamps), READ_LOCK (shared read lock)
+ * and EXCLUSIVE (one lock for everything, like wrapping the set in synchronized blocks), so the table
+ * shows how reads scale with the number of cores in each mode. Speedup is relative to one thread in
+ * the same mode.
+ *
+ * Thread counts above the number of cores only show the cost of oversubscription, so run it on a
+ * machine with 16 or more cores to see the read scaling.
+ *
+ * Run from the BattleOfDynamicSets folder:
+ *
+ *	javac Benchmark/ConcurrentReadScaling.java
+ *	java Benchmark.ConcurrentReadScaling [options]
+ *
+ * Options:
+ *
+ *	-impl RBT,BST		implementations to wrap (default: RBT,BST)
+ *	-threads 1,2,4,...	thread counts (default: 1, 2, 4, 8, 16, 32)
+ *	-size N			set size (default: 1000000)
+ *	-writes 0,1,10		percentage of writes (default: 0, 1, 10)
+ *	-wi N  -i N  -r MILLIS	warmup iterations, measurement iterations, iteration time
+ */
+public class ConcurrentReadScaling {
+
+	private static final long SEED = 42;
+
+	private static volatile boolean running;
+
+	public static void main(String []args) throws InterruptedException {
+
+		List<Implementation> implementations = Arrays.asList(Implementation.RBT, Implementation.BST);
+		List<Integer> threadCounts = Arrays.asList(1, 2, 4, 8, 16, 32);
+		List<Integer> writePercentages = Arrays.asList(0, 1, 10);
+		int size = 1000000;
+		int warmup = 2;
+		int measurement = 3;
+		long iterationMillis = 1000;
+
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value for " + args[i]);
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-impl":
+						implementations = new ArrayList<Implementation>();
+						for (String s : value.split(","))
+							implementations.add(Implementation.valueOf(s.trim().toUpperCase()));
+						break;
+					case "-threads":
+						threadCounts = parseInts(value);
+						break;
+					case "-writes":
+						writePercentages = parseInts(value);
+						break;
+					case "-size":
+						size = Integer.parseInt(value);
+						break;
+					case "-wi":
+						warmup = Integer.parseInt(value);
+						break;
+					case "-i":
+						measurement = Integer.parseInt(value);
+						break;
+					case "-r":
+						iterationMillis = Long.parseLong(value);
+						break;
+					default:
+						throw new IllegalArgumentException("unknown option " + args[i]);
+				}
+			}
+		} catch (IllegalArgumentException iae) {	//includes NumberFormatException
+			System.out.println("Error: " + iae.getMessage());
+			System.out.println("Usage: java Benchmark.ConcurrentReadScaling [-impl RBT,BST] [-threads 1,2,4,...] [-size N]"
+					+ " [-writes 0,1,10] [-wi N] [-i N] [-r MILLIS]");
+			return;
+		}
+
+		System.out.println("/**********ConcurrentDynamicSet Read Scaling**********/\n");
+		System.out.println("Cores: " + Runtime.getRuntime().availableProcessors() + ", size: " + size + ", warmup: " + warmup
+				+ " x " + iterationMillis + " ms, measurement: " + measurement + " x " + iterationMillis + " ms\n");
+		System.out.println(String.format("%-5s %-11s %7s %8s %16s %10s", "Impl", "Mode", "Writes", "Threads", "Thrpt (ops/s)", "Speedup"));
+		System.out.println("-------------------------------------------------------------");
+
+		Random random = new Random(SEED);
+		String[] keys = KeyDistribution.SHUFFLED.insertionOrder(KeyDistribution.sortedKeys(size), random);
+		for (Implementation impl : implementations) {
+			DynamicSet<String> set = impl.create();
+			for (String key : keys)
+				set.insert(impl.element(key));
+
+			for (int writes : writePercentages)
+				for (ConcurrentDynamicSet.ReadMode mode : ConcurrentDynamicSet.ReadMode.values()) {
+					if (impl.readsModify() && mode != ConcurrentDynamicSet.ReadMode.EXCLUSIVE)
+						continue;	//the other modes let readers corrupt the set
+					ConcurrentDynamicSet<String> shared = new ConcurrentDynamicSet<String>(set, mode);
+					double single = 0;
+					for (int threads : threadCounts) {
+						for (int i = 0; i < warmup; i++)
+							iteration(impl, shared, keys, threads, writes, iterationMillis);
+						double sum = 0;
+						for (int i = 0; i < measurement; i++)
+							sum += iteration(impl, shared, keys, threads, writes, iterationMillis);
+						double throughput = sum / measurement;
+						if (single == 0)
+							single = throughput / threads;	//per-thread throughput of the first (usually 1 thread) row
+						System.out.println(String.format("%-5s %-11s %6d%% %8d %16.0f %9.2fx",
+								impl, mode, writes, threads, throughput, throughput / single));
+					}
+				}
+		}
+		System.out.println("-------------------------------------------------------------\n");
+	}
+
+	//Runs threads against the set for iterationMillis and returns the total operations per second.
+	private static double iteration(final Implementation impl, final ConcurrentDynamicSet<String> set, final String[] keys,
+			int threads, final int writePercentage, long iterationMillis) throws InterruptedException {
+
+		final long[] counts = new long[threads * 16];	//one counter per thread, 128 bytes apart
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int slot = t * 16;
+			workers[t] = new Thread() {
+				public void run() {
+
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					Blackhole bh = new Blackhole();
+					ready.countDown();
+					try {
+						start.await();
+					} catch (InterruptedException ie) {
+						return;
+					}
+					long ops = 0;
+					while (running) {
+						String key = keys[random.nextInt(keys.length)];
+						if (writePercentage > 0 && random.nextInt(100) < writePercentage) {
+							SetElement<String> e = set.search(key);
+							if (e != null)
+								set.delete(e);
+							set.insert(impl.element(key));
+						}
+						else
+							bh.consume(set.search(key));
+						ops++;
+					}
+					counts[slot] = ops;
+					bh.publish();
+				}
+			};
+			workers[t].start();
+		}
+
+		ready.await();
+		running = true;
+		long begin = System.nanoTime();
+		start.countDown();
+		Thread.sleep(iterationMillis);
+		running = false;
+		for (Thread worker : workers)
+			worker.join();
+		long elapsed = System.nanoTime() - begin;
+
+		long total = 0;
+		for (int t = 0; t < threads; t++)
+			total += counts[t * 16];
+		return total * 1e9 / elapsed;
+	}
+
+	private static List<Integer> parseInts(String value) {
+
+		List<Integer> result = new ArrayList<Integer>();
+		for (String s : value.split(","))
+			result.add(Integer.parseInt(s.trim()));
+		return result;
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Benchmark harness for the DynamicSet implementations. Follows the methodology of JMH:
+ * warmup iterations that are thrown away, timed measurement iterations, every benchmark
+ * cell in its own forked JVM so JIT profiles of one implementation do not pollute another,
+ * and every result consumed by a Blackhole so it cannot be dead-code eliminated.
+ *
+ * Run from the BattleOfDynamicSets folder:
+ *
+ *	javac Benchmark/DynamicSetBenchmark.java
+ *	java Benchmark.DynamicSetBenchmark [options]
+ *
+ * See README.txt for the options.
+ */
+public class DynamicSetBenchmark {
+
+	private static final long SEED = 42;
+	private static final int ACCESS_KEYS = 1 << 16;	//lookup keys per pass of the steady state operations
+
+	public static void main(String []args) throws IOException, InterruptedException {
+
+		if (args.length > 0 && args[0].equals("-child")) {
+			runChild(args);
+			return;
+		}
+
+		Options options;
+		try {
+			options = Options.parse(args);
+		} catch (IllegalArgumentException iae) {
+			System.out.println("Error: " + iae.getMessage());
+			Options.usage();
+			return;
+		}
+
+		System.out.println("/**********DynamicSet Benchmark**********/\n");
+		System.out.println("Warmup: " + options.warmup + " x " + options.iterationMillis + " ms, measurement: "
+				+ options.measurement + " x " + options.iterationMillis + " ms, forks: " + options.forks + "\n");
+
+		List<Result> results = new ArrayList<Result>();
+		for (Implementation impl : options.implementations)
+			for (int size : options.sizes)
+				for (KeyDistribution dist : options.distributions)
+					for (Operation op : options.operations) {
+						Result result = new Result(impl, size, dist, op);
+						if (impl.isQuadratic(dist) && size > options.quadraticCap) {
+							result.skipped = true;	//O(n^2) build, would not finish
+						}
+						else {
+							System.out.println("Running " + impl + " " + size + " " + dist + " " + op + "...");
+							if (options.forks == 0)
+								result.add(measure(impl, size, dist, op, options.warmup, options.measurement, options.iterationMillis));
+							else
+								for (int fork = 0; fork < options.forks; fork++)
+									result.add(fork(impl, size, dist, op, options));
+						}
+						results.add(result);
+					}
+
+		printTable(results);
+	}
+
+	//Runs one benchmark cell in this JVM and returns ns/op of every measurement iteration.
+	public static double[] measure(Implementation impl, int size, KeyDistribution dist, Operation op,
+			int warmup, int measurement, long iterationMillis) {
+
+		Random random = new Random(SEED);
+		Fixture f = new Fixture(impl);
+		f.inserted = dist.insertionOrder(KeyDistribution.sortedKeys(size), random);
+		f.access = dist.accessOrder(f.inserted, Math.min(size, ACCESS_KEYS), random);
+
+		Blackhole bh = new Blackhole();
+		double[] samples = new double[measurement];
+		for (int i = 0; i < warmup + measurement; i++) {
+			System.gc();	//keep garbage of the previous iteration out of this one
+			double nsPerOp = iteration(f, op, bh, iterationMillis * 1000000L);
+			if (i >= warmup)
+				samples[i - warmup] = nsPerOp;
+		}
+		bh.publish();
+		return samples;
+	}
+
+	private static double iteration(Fixture f, Operation op, Blackhole bh, long iterationNanos) {
+
+		op.setup(f);
+		int pass = op.passLength(f);
+		long ops = 0;
+		long start = System.nanoTime();
+		long now;
+		do {
+			for (int i = 0; i < pass; i++)
+				op.operate(f, i, bh);
+			ops += pass;
+			now = System.nanoTime();
+		} while (!op.isSingleShot() && now - start < iterationNanos);
+
+		if (op.isSingleShot())
+			f.set = null;	//the pass changed the set, next setup starts over
+		return (double)(now - start) / ops;
+	}
+
+	//Runs one benchmark cell in a fresh JVM.
+	private static double[] fork(Implementation impl, int size, KeyDistribution dist, Operation op, Options options)
+			throws IOException, InterruptedException {
+
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(options.jvmArgs);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(DynamicSetBenchmark.class.getName());
+		command.addAll(Arrays.asList("-child", impl.name(), Integer.toString(size), dist.name(), op.name(),
+				Integer.toString(options.warmup), Integer.toString(options.measurement), Long.toString(options.iterationMillis)));
+
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		Process child = builder.start();
+
+		List<Double> samples = new ArrayList<Double>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(child.getInputStream()));
+		String line;
+		while ((line = in.readLine()) != null)
+			if (line.startsWith("SAMPLE "))
+				samples.add(Double.parseDouble(line.substring(7)));
+		in.close();
+
+		if (child.waitFor() != 0)
+			throw new IOException("Forked JVM for " + impl + " " + size + " " + dist + " " + op + " failed");
+
+		double[] result = new double[samples.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = samples.get(i);
+		return result;
+	}
+
+	private static void runChild(String[] args) {
+
+		double[] samples = measure(Implementation.valueOf(args[1]), Integer.parseInt(args[2]), KeyDistribution.valueOf(args[3]),
+				Operation.valueOf(args[4]), Integer.parseInt(args[5]), Integer.parseInt(args[6]), Long.parseLong(args[7]));
+		for (double sample : samples)
+			System.out.println("SAMPLE " + sample);
+	}
+
+	private static void printTable(List<Result> results) {
+
+		System.out.println("\n/**********DynamicSet Benchmark Results**********/\n");
+		System.out.println(String.format("%-5s %10s %-9s %-12s %16s %14s %12s",
+				"Impl", "Size", "Dist", "Op", "Thrpt (ops/s)", "Avg (ns/op)", "Error (ns)"));
+		System.out.println("-----------------------------------------------------------------------------------------");
+		for (Result r : results) {
+			if (r.skipped)
+				System.out.println(String.format("%-5s %10d %-9s %-12s %16s %14s %12s",
+						r.impl, r.size, r.dist, r.op, "skipped", "O(n^2)", ""));
+			else
+				System.out.println(String.format("%-5s %10d %-9s %-12s %16.0f %14.1f %12.1f",
+						r.impl, r.size, r.dist, r.op, r.throughput(), r.average(), r.error()));
+		}
+		System.out.println("-----------------------------------------------------------------------------------------\n");
+	}
+
+	//State shared by the operations of one benchmark cell.
+	static class Fixture {
+
+		final Implementation impl;
+		String[] inserted;	//keys in insertion order
+		String[] access;	//keys for the steady state operations
+		String[] rangeEnds;	//upper bound of the range scan starting at each access key
+		DynamicSet<String> set;
+		SetElement<String>[] elements;	//per operation elements
+
+		Fixture(Implementation impl) {
+
+			this.impl = impl;
+		}
+
+		//Builds a fresh set holding every key.
+		void build() {
+
+			set = impl.create();
+			for (int i = 0; i < inserted.length; i++)
+				set.insert(impl.element(inserted[i]));
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		SetElement<String>[] elementsFor(String[] keys) {
+
+			SetElement<String>[] result = new SetElement[keys.length];
+			for (int i = 0; i < keys.length; i++)
+				result[i] = impl.element(keys[i]);
+			return result;
+		}
+
+		//Returns pointers to the elements of the set holding the given keys.
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		SetElement<String>[] lookup(String[] keys) {
+
+			SetElement<String>[] result = new SetElement[keys.length];
+			for (int i = 0; i < keys.length; i++)
+				result[i] = set.search(keys[i]);
+			return result;
+		}
+	}
+
+	//Samples of one benchmark cell, across all forks.
+	private static class Result {
+
+		final Implementation impl;
+		final int size;
+		final KeyDistribution dist;
+		final Operation op;
+		boolean skipped;
+		List<Double> samples = new ArrayList<Double>();
+
+		Result(Implementation impl, int size, KeyDistribution dist, Operation op) {
+
+			this.impl = impl;
+			this.size = size;
+			this.dist = dist;
+			this.op = op;
+		}
+
+		void add(double[] more) {
+
+			for (double sample : more)
+				samples.add(sample);
+		}
+
+		double average() {
+
+			double sum = 0;
+			for (double sample : samples)
+				sum += sample;
+			return sum / samples.size();
+		}
+
+		double throughput() {
+
+			double sum = 0;
+			for (double sample : samples)
+				sum += 1e9 / sample;
+			return sum / samples.size();
+		}
+
+		//standard deviation of ns/op
+		double error() {
+
+			if (samples.size() < 2)
+				return 0;
+			double avg = average();
+			double sum = 0;
+			for (double sample : samples)
+				sum += (sample - avg) * (sample - avg);
+			return Math.sqrt(sum / (samples.size() - 1));
+		}
+	}
+
+	private static class Options {
+
+		List<Implementation> implementations = Arrays.asList(Implementation.values());
+		List<Integer> sizes = Arrays.asList(1000, 10000, 100000, 1000000, 10000000);
+		List<KeyDistribution> distributions = Arrays.asList(KeyDistribution.values());
+		List<Operation> operations = Arrays.asList(Operation.values());
+		int warmup = 3;
+		int measurement = 5;
+		long iterationMillis = 1000;
+		int forks = 1;
+		int quadraticCap = 100000;
+		List<String> jvmArgs = new ArrayList<String>();
+
+		static Options parse(String[] args) {
+
+			Options o = new Options();
+			for (int i = 0; i < args.length; i++) {
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value for " + args[i]);
+				String value = args[++i];
+				try {
+					switch (args[i - 1]) {
+						case "-impl":
+							o.implementations = new ArrayList<Implementation>();
+							for (String s : value.split(","))
+								o.implementations.add(Implementation.valueOf(s.trim().toUpperCase()));
+							break;
+						case "-size":
+							o.sizes = new ArrayList<Integer>();
+							for (String s : value.split(","))
+								o.sizes.add(Integer.parseInt(s.trim()));
+							break;
+						case "-dist":
+							o.distributions = new ArrayList<KeyDistribution>();
+							for (String s : value.split(","))
+								o.distributions.add(KeyDistribution.valueOf(s.trim().toUpperCase()));
+							break;
+						case "-op":
+							o.operations = new ArrayList<Operation>();
+							for (String s : value.split(","))
+								o.operations.add(Operation.valueOf(s.trim().toUpperCase()));
+							break;
+						case "-wi":
+							o.warmup = Integer.parseInt(value);
+							break;
+						case "-i":
+							o.measurement = Integer.parseInt(value);
+							break;
+						case "-r":
+							o.iterationMillis = Long.parseLong(value);
+							break;
+						case "-f":
+							o.forks = Integer.parseInt(value);
+							break;
+						case "-quadcap":
+							o.quadraticCap = Integer.parseInt(value);
+							break;
+						case "-jvmArgs":
+							o.jvmArgs = Arrays.asList(value.trim().split("\\s+"));
+							break;
+						default:
+							throw new IllegalArgumentException("unknown option " + args[i - 1]);
+					}
+				} catch (NumberFormatException nfe) {
+					throw new IllegalArgumentException("not a number: " + value);
+				}
+			}
+			if (o.measurement < 1)
+				throw new IllegalArgumentException("at least one measurement iteration is needed");
+			return o;
+		}
+
+		static void usage() {
+
+			System.out.println("Usage: java Benchmark.DynamicSetBenchmark [options]");
+			System.out.println("  -impl NAME,...             implementations to run (default: all)");
+			System.out.println("                             " + Arrays.toString(Implementation.values()));
+			System.out.println("  -size 1000,10000,...       set sizes (default: 1000 to 10000000)");
+			System.out.println("  -dist SORTED,SHUFFLED,ZIPFIAN  key distributions (default: all)");
+			System.out.println("  -op INSERT,SEARCH,...      operations (default: all)");
+			System.out.println("  -wi N  -i N  -r MILLIS     warmup iterations, measurement iterations, iteration time");
+			System.out.println("  -f N                       forked JVMs per cell, 0 runs in this JVM (default: 1)");
+			System.out.println("  -quadcap N                 largest size for O(n^2) builds (default: 100000)");
+			System.out.println("  -jvmArgs \"-Xmx8g ...\"      arguments for the forked JVMs");
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Search throughput of a set before and after freeze(). For every size a set is built from shuffled
+ * keys, frozen into both StaticOrderedIndex layouts, and the same random lookups (uniform or Zipfian)
+ * are timed on the set and on each index. Once the set no longer fits in the caches, a pointer-based
+ * tree waits for one cache miss per level, while the index finds the top levels in a few lines.
+ *
+ * Run from the BattleOfDynamicSets folder:
+ *
+ *	javac Benchmark/FrozenLookup.java
+ *	java Benchmark.FrozenLookup [options]
+ *
+ * Options:
+ *
+ *	-impl RBT,BST,...	sets to freeze (default: RBT)
+ *	-size N,N,...		set sizes (default: 1000, 100000, 1000000, 10000000)
+ *	-dist SHUFFLED,ZIPFIAN	lookup distributions (default: SHUFFLED)
+ *	-wi N  -i N  -r MILLIS	warmup iterations, measurement iterations, iteration time
+ */
+public class FrozenLookup {
+
+	private static final long SEED = 42;
+	private static final int ACCESS_KEYS = 1 << 20;
+
+	public static void main(String []args) {
+
+		List<Implementation> implementations = Arrays.asList(Implementation.RBT);
+		List<Integer> sizes = Arrays.asList(1000, 100000, 1000000, 10000000);
+		List<KeyDistribution> distributions = Arrays.asList(KeyDistribution.SHUFFLED);
+		int warmup = 3;
+		int measurement = 5;
+		long iterationMillis = 1000;
+
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value for " + args[i]);
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-impl":
+						implementations = new ArrayList<Implementation>();
+						for (String s : value.split(","))
+							implementations.add(Implementation.valueOf(s.trim().toUpperCase()));
+						break;
+					case "-size":
+						sizes = new ArrayList<Integer>();
+						for (String s : value.split(","))
+							sizes.add(Integer.parseInt(s.trim()));
+						break;
+					case "-dist":
+						distributions = new ArrayList<KeyDistribution>();
+						for (String s : value.split(","))
+							distributions.add(KeyDistribution.valueOf(s.trim().toUpperCase()));
+						break;
+					case "-wi":
+						warmup = Integer.parseInt(value);
+						break;
+					case "-i":
+						measurement = Integer.parseInt(value);
+						break;
+					case "-r":
+						iterationMillis = Long.parseLong(value);
+						break;
+					default:
+						throw new IllegalArgumentException("unknown option " + args[i]);
+				}
+			}
+		} catch (IllegalArgumentException iae) {	//includes NumberFormatException
+			System.out.println("Error: " + iae.getMessage());
+			System.out.println("Usage: java Benchmark.FrozenLookup [-impl RBT,BST] [-size N,N] [-dist SHUFFLED,ZIPFIAN]"
+					+ " [-wi N] [-i N] [-r MILLIS]");
+			return;
+		}
+
+		System.out.println("/**********Frozen Lookups**********/\n");
+		System.out.println(String.format("%-5s %10s %-9s %-14s %16s %10s", "Impl", "Size", "Dist", "Structure", "Thrpt (ops/s)", "ns/op"));
+		System.out.println("----------------------------------------------------------------------");
+
+		for (Implementation impl : implementations)
+			for (int size : sizes) {
+				if (impl.isQuadratic(KeyDistribution.SHUFFLED) && size > 100000)
+					continue;
+				Random random = new Random(SEED);
+				String[] keys = KeyDistribution.SHUFFLED.insertionOrder(KeyDistribution.sortedKeys(size), random);
+				DynamicSet<String> set = impl.create();
+				for (String key : keys)
+					set.insert(impl.element(key));
+
+				List<DynamicSet<String>> structures = new ArrayList<DynamicSet<String>>();
+				structures.add(set);
+				for (StaticOrderedIndex.Layout layout : StaticOrderedIndex.Layout.values())
+					structures.add(set.freeze(layout));
+
+				for (KeyDistribution distribution : distributions) {
+					String[] access = distribution.accessOrder(keys, ACCESS_KEYS, random);
+					for (DynamicSet<String> structure : structures) {
+						for (int i = 0; i < warmup; i++)
+							iteration(structure, access, iterationMillis);
+						double sum = 0;
+						for (int i = 0; i < measurement; i++)
+							sum += iteration(structure, access, iterationMillis);
+						double throughput = sum / measurement;
+						String name = (structure instanceof StaticOrderedIndex)
+								? ((StaticOrderedIndex<String>)structure).getLayout().toString() : "set";
+						System.out.println(String.format("%-5s %10d %-9s %-14s %16.0f %10.1f",
+								impl, size, distribution, name, throughput, 1e9 / throughput));
+					}
+				}
+			}
+		System.out.println("----------------------------------------------------------------------\n");
+	}
+
+	//Searches the access keys in a loop for iterationMillis and returns the searches per second.
+	private static double iteration(DynamicSet<String> structure, String[] access, long iterationMillis) {
+
+		Blackhole bh = new Blackhole();
+		long ops = 0;
+		long begin = System.nanoTime();
+		long end = begin + iterationMillis * 1000000L;
+		long now;
+		do {
+			for (int i = 0; i < 1024; i++)
+				bh.consume(structure.search(access[(int)((ops + i) & (ACCESS_KEYS - 1))]));
+			ops += 1024;
+			now = System.nanoTime();
+		} while (now < end);
+		bh.publish();
+		return ops * 1e9 / (now - begin);
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import DLLDynamicSet.*;
+import SkipListDynamicSet.*;
+import BSTDynamicSet.*;
+import RedBlackDynamicSet.*;
+import ConcurrentSkipListDynamicSet.*;
+import BPlusTreeDynamicSet.*;
+import AVLDynamicSet.*;
+import TreapDynamicSet.*;
+import SplayDynamicSet.*;
+import PersistentRedBlackSet.*;
+import AdaptiveDynamicSet.*;
+import AdaptiveRadixTreeDynamicSet.*;
+import LSMDynamicSet.*;
+import PagedBTreeDynamicSet.*;
+
+//The DynamicSet implementations the benchmark knows how to build. A new contender only needs
+//a constant here to show up in every benchmark table.
+public enum Implementation {
+
+	DLL(true, false) {
+		public DynamicSet<String> create() {
+
+			return new DLLDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new DLLNode<String>(key, key);
+		}
+	},
+
+	IDLL(false, false) {
+		public DynamicSet<String> create() {
+
+			return new DLLDynamicSet<String>(true);
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new DLLNode<String>(key, key);
+		}
+	},
+
+	SL(false, false) {
+		public DynamicSet<String> create() {
+
+			return new SkipListDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new SLNode<String>(key, key);
+		}
+	},
+
+	BST(false, true) {
+		public DynamicSet<String> create() {
+
+			return new BSTDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new BSTNode<String>(key, key);
+		}
+	},
+
+	RBT(false, false) {
+		public DynamicSet<String> create() {
+
+			return new RedBlackDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new RBTNode<String>(key, key);
+		}
+	},
+
+	CSL(false, false) {
+		public DynamicSet<String> create() {
+
+			return new ConcurrentSkipListDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new CSLNode<String>(key, key);
+		}
+	},
+
+	BPT(false, false) {
+		public DynamicSet<String> create() {
+
+			return new BPlusTreeDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new BPTElement<String>(key, key);
+		}
+	},
+
+	AVL(false, false) {
+		public DynamicSet<String> create() {
+
+			return new AVLDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new AVLNode<String>(key, key);
+		}
+	},
+
+	TREAP(false, false) {
+		public DynamicSet<String> create() {
+
+			return new TreapDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new TreapNode<String>(key, key);
+		}
+	},
+
+	SPLAY(false, false, true) {
+		public DynamicSet<String> create() {
+
+			return new SplayDynamicSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new SplayNode<String>(key, key);
+		}
+	},
+
+	PRBT(false, false) {
+		public DynamicSet<String> create() {
+
+			return new PersistentRedBlackSet<String>();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new PRBNode<String>(key, key);
+		}
+	},
+
+	//thresholds can be tuned with -Dadaptive.upgradeSize, -Dadaptive.writeHeavySize,
+	//-Dadaptive.writeRatio and -Dadaptive.downgradeSize
+	ADAPT(false, false) {
+		public DynamicSet<String> create() {
+
+			return new AdaptiveDynamicSet<String>(
+					Integer.getInteger("adaptive.upgradeSize", AdaptiveDynamicSet.DEFAULT_UPGRADE_SIZE),
+					Integer.getInteger("adaptive.writeHeavySize", AdaptiveDynamicSet.DEFAULT_WRITE_HEAVY_SIZE),
+					Double.parseDouble(System.getProperty("adaptive.writeRatio", String.valueOf(AdaptiveDynamicSet.DEFAULT_WRITE_RATIO))),
+					Integer.getInteger("adaptive.downgradeSize", AdaptiveDynamicSet.DEFAULT_DOWNGRADE_SIZE));
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new AdaptiveElement<String>(key, key);
+		}
+	},
+
+	ART(false, false) {
+		public DynamicSet<String> create() {
+
+			return new AdaptiveRadixTreeDynamicSet();
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new ARTElement(key, key);
+		}
+	},
+
+	//memtable size and fan-in can be tuned with -Dlsm.memtableCapacity and -Dlsm.fanIn
+	LSM(false, false) {
+		public DynamicSet<String> create() {
+
+			return new LSMDynamicSet<String>(
+					Integer.getInteger("lsm.memtableCapacity", LSMDynamicSet.DEFAULT_MEMTABLE_CAPACITY),
+					Integer.getInteger("lsm.fanIn", LSMDynamicSet.DEFAULT_FAN_IN));
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new LSMElement<String>(key, key);
+		}
+	},
+
+	//pages in a temporary file that is deleted with the set; the buffer pool size can be set
+	//with -Dpaged.poolPages
+	PAGED(false, false, true) {
+		public DynamicSet<String> create() {
+
+			return PagedBTreeDynamicSet.createTemporary(KeyCodec.STRING, PagedBTreeDynamicSet.DEFAULT_PAGE_SIZE,
+					Integer.getInteger("paged.poolPages", PagedBTreeDynamicSet.DEFAULT_POOL_PAGES));
+		}
+
+		public SetElement<String> element(String key) {
+
+			return new PagedElement<String>(key, key);
+		}
+	};
+
+	private final boolean linear;	//every insert/search walks the whole structure
+	private final boolean degeneratesOnSorted;	//sorted insertion order turns the structure into a list
+	private final boolean readsModify;	//search, minimum, ... write to the structure
+
+	private Implementation(boolean linear, boolean degeneratesOnSorted) {
+
+		this(linear, degeneratesOnSorted, false);
+	}
+
+	private Implementation(boolean linear, boolean degeneratesOnSorted, boolean readsModify) {
+
+		this.linear = linear;
+		this.degeneratesOnSorted = degeneratesOnSorted;
+		this.readsModify = readsModify;
+	}
+
+	//Create a new, empty set.
+	public abstract DynamicSet<String> create();
+
+	//Create an element that can be handed to insert().
+	public abstract SetElement<String> element(String key);
+
+	//Returns true if building a set of this implementation costs O(n^2) for the given distribution,
+	//which makes the large sizes impractical to benchmark.
+	public boolean isQuadratic(KeyDistribution distribution) {
+
+		return linear || (degeneratesOnSorted && distribution == KeyDistribution.SORTED);
+	}
+
+	//Returns true if reads change the set (a splay tree moves the node it finds to the root, a paged
+	//tree loads and evicts pages of its buffer pool), so threads can only share it under
+	//ConcurrentDynamicSet.ReadMode.EXCLUSIVE.
+	public boolean readsModify() {
+
+		return readsModify;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import java.util.Random;
+
+//How keys are fed to a set (insertion order) and picked for lookups (access order).
+public enum KeyDistribution {
+
+	SORTED,		//inserted in ascending order, like sorted-100.txt; uniform lookups
+	SHUFFLED,	//inserted in random order, like unsorted-100.txt; uniform lookups
+	ZIPFIAN;	//inserted in random order; lookups skewed towards a few hot keys
+
+	//Generates size distinct keys in ascending order. Keys are zero padded so that
+	//String order matches numeric order.
+	public static String[] sortedKeys(int size) {
+
+		String[] keys = new String[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = pad(i);
+		return keys;
+	}
+
+	//Returns the key at index i of sortedKeys(size) for any size larger than i, so keys can be
+	//added after the set was built.
+	public static String key(int i) {
+
+		return pad(i);
+	}
+
+	//Returns the keys in the order they should be inserted.
+	public String[] insertionOrder(String[] sortedKeys, Random random) {
+
+		String[] order = sortedKeys.clone();
+		if (this != SORTED)
+			shuffle(order, random);
+		return order;
+	}
+
+	//Draws count keys for lookups out of the keys in the set.
+	public String[] accessOrder(String[] inserted, int count, Random random) {
+
+		String[] access = new String[count];
+		if (this == ZIPFIAN) {
+			//hot ranks map onto the shuffled insertion order, so hot keys are spread over the key space
+			ZipfianGenerator zipf = new ZipfianGenerator(inserted.length, random);
+			for (int i = 0; i < count; i++)
+				access[i] = inserted[zipf.next()];
+		}
+		else {
+			for (int i = 0; i < count; i++)
+				access[i] = inserted[random.nextInt(inserted.length)];
+		}
+		return access;
+	}
+
+	private static String pad(int i) {
+
+		StringBuilder key = new StringBuilder("key");
+		String digits = Integer.toString(i);
+		for (int j = digits.length(); j < 10; j++)
+			key.append('0');
+		return key.append(digits).toString();
+	}
+
+	//Fisher-Yates shuffle
+	private static void shuffle(String[] keys, Random random) {
+
+		for (int i = keys.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			String temp = keys[i];
+			keys[i] = keys[j];
+			keys[j] = temp;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+/*
+ * Histogram of latencies in nanoseconds with log-linear buckets, like HdrHistogram: values below
+ * 128 get a bucket each, and every power of two above is cut into 64 buckets, so a bucket is
+ * less than 1.6% wide relative to its values and the whole range up to MAX_VALUE (about 18
+ * minutes) takes a few thousand counters. Recording is a few shifts and an increment.
+ *
+ * A histogram is not thread-safe: give every thread its own and add() them up at the end.
+ */
+public class LatencyHistogram {
+
+	public static final long MAX_VALUE = (1L << 40) - 1;
+
+	private static final int SUB_BUCKETS = 64;	//buckets per power of two
+	private static final int SUB_BUCKET_BITS = 6;
+
+	private final long[] counts = new long[index(MAX_VALUE) + 1];
+	private long total;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	//Records one value; negative values count as 0, values above MAX_VALUE as MAX_VALUE.
+	public void record(long nanos) {
+
+		long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+		counts[index(value)]++;
+		total++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	//Adds the values recorded in other to this histogram.
+	public void add(LatencyHistogram other) {
+
+		for (int i = 0; i < counts.length; i++)
+			counts[i] += other.counts[i];
+		total += other.total;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount() {
+
+		return total;
+	}
+
+	public double getMean() {
+
+		return (total == 0) ? 0 : (double)sum / total;
+	}
+
+	public long getMin() {
+
+		return (total == 0) ? 0 : min;
+	}
+
+	public long getMax() {
+
+		return max;
+	}
+
+	//Returns the value below which percentile percent of the recorded values fall (the middle of
+	//its bucket, within the recorded minimum and maximum), or 0 if nothing was recorded.
+	public long getPercentile(double percentile) {
+
+		if (total == 0)
+			return 0;
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				long middle = (lowest(i) + lowest(i + 1) - 1) / 2;
+				return Math.max(min, Math.min(middle, max));
+			}
+		}
+		return max;
+	}
+
+	//Bucket of a value: the value itself below 2 * SUB_BUCKETS, above it the power of two and the
+	//next SUB_BUCKET_BITS bits below the leading one.
+	private static int index(long value) {
+
+		if (value < 2 * SUB_BUCKETS)
+			return (int)value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int)(value >>> shift);
+	}
+
+	//Smallest value of a bucket.
+	private static long lowest(int index) {
+
+		if (index < 2 * SUB_BUCKETS)
+			return index;
+		int shift = (index >> SUB_BUCKET_BITS) - 1;
+		return (long)((index & (SUB_BUCKETS - 1)) | SUB_BUCKETS) << shift;
+	}
+}
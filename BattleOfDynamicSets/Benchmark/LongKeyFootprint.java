@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import RedBlackDynamicSet.*;
+import SkipListDynamicSet.*;
+import LongDynamicSet.*;
+import LongRedBlackSet.*;
+import LongSkipListSet.*;
+import OffHeapRedBlackSet.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+/*
+ * Compares the primitive long-key sets with the generic sets holding boxed Long keys. For each
+ * contender it inserts the same random 64-bit keys and reports the bytes allocated per insert
+ * (from the thread allocation counter of the HotSpot ThreadMXBean), the heap retained by the
+ * filled set, and the time per insert. Boxing the keys is part of the cost of the generic sets,
+ * so it is done inside the timed loop, as a caller holding primitive IDs would have to.
+ * OffHeapRedBlackSet keeps its nodes outside the heap, so its heap column is close to zero.
+ *
+ * Run from the BattleOfDynamicSets folder:
+ *
+ *	javac Benchmark/LongKeyFootprint.java
+ *	java Benchmark.LongKeyFootprint [size]
+ */
+public class LongKeyFootprint {
+
+	private static final long SEED = 42;
+	private static final int DEFAULT_SIZE = 1000000;
+	private static final int WARMUP = 3;
+
+	private static final String[] CONTENDERS = {"RedBlackDynamicSet<Long>", "SkipListDynamicSet<Long>",
+			"LongRedBlackSet", "LongSkipListSet", "OffHeapRedBlackSet"};
+
+	private static Object retained;	//keeps the measured set reachable across the heap snapshot
+
+	public static void main(String []args) {
+
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+		long[] keys = new long[size];
+		Random random = new Random(SEED);
+		for (int i = 0; i < size; i++)
+			keys[i] = random.nextLong();
+
+		System.out.println("/**********Long Key Footprint**********/\n");
+		System.out.println("Size: " + size + " random 64-bit keys\n");
+		System.out.println(String.format("%-26s%18s%18s%14s", "Set", "Alloc B/insert", "Heap B/key", "ns/insert"));
+		for (int c = 0; c < CONTENDERS.length; c++) {
+			for (int i = 0; i < WARMUP; i++)
+				release(fill(c, keys));	//let the JIT compile the insert path first
+			retained = null;
+
+			long heapBefore = usedHeap();
+			long allocBefore = allocatedBytes();
+			long start = System.nanoTime();
+			retained = fill(c, keys);
+			long elapsed = System.nanoTime() - start;
+			long allocated = allocatedBytes() - allocBefore;
+			long heap = usedHeap() - heapBefore;
+
+			System.out.println(String.format("%-26s%18s%18.1f%14.1f", CONTENDERS[c],
+					allocBefore < 0 ? "n/a" : String.format("%.1f", (double)allocated / size),
+					(double)heap / size, (double)elapsed / size));
+			release(retained);
+			retained = null;
+		}
+	}
+
+	private static Object fill(int contender, long[] keys) {
+
+		switch (contender) {
+			case 0:
+				return fill(new RedBlackDynamicSet<Long>(), keys, true);
+			case 1:
+				return fill(new SkipListDynamicSet<Long>(), keys, false);
+			case 2:
+				return fill(new LongRedBlackSet(), keys);
+			case 3:
+				return fill(new LongSkipListSet(), keys);
+			default:
+				return fill(new OffHeapRedBlackSet(), keys);
+		}
+	}
+
+	//Frees the memory of sets that live outside the heap.
+	private static void release(Object set) {
+
+		if (set instanceof OffHeapRedBlackSet)
+			((OffHeapRedBlackSet)set).close();
+	}
+
+	private static DynamicSet<Long> fill(DynamicSet<Long> set, long[] keys, boolean redBlack) {
+
+		for (int i = 0; i < keys.length; i++) {
+			Long key = Long.valueOf(keys[i]);
+			SetElement<Long> e = redBlack ? new RBTNode<Long>(key, key) : new SLNode<Long>(key, key);
+			set.insert(e);
+		}
+		return set;
+	}
+
+	private static LongDynamicSet fill(LongDynamicSet set, long[] keys) {
+
+		for (int i = 0; i < keys.length; i++)
+			set.insert(keys[i]);
+		return set;
+	}
+
+	//Bytes allocated by this thread so far, or -1 if the JVM does not count them.
+	private static long allocatedBytes() {
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	private static long usedHeap() {
+
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/*
+ * Heap bytes per element of every DynamicSet and of the two graph representations in this
+ * repository, measured by walking the populated structures with ObjectFootprint. For a set,
+ * "Shallow" is the element object itself (the node for most sets), "Structure" is everything the
+ * set retains except the keys, i.e. what the set costs on top of the data, and "Deep" adds the
+ * String keys. The last column multiplies Structure by -plan elements, to see whether a dataset
+ * fits in memory before loading it. A breakdown by class follows the table, so a layout change
+ * shows up as a change in one line.
+ *
+ * The graphs are the Graph project (Vertex with its seven ArrayLists, Arc) and the NetworkMetrics
+ * project (DirectedGraph with a BTree of BNodes per vertex). Both are separate source folders, and
+ * Graph lives in the default package, so their compiled classes are loaded from their folders and
+ * driven through their public methods by reflection. Each graph is built with -vertices random
+ * vertices first and then with -degree random arcs per vertex; the vertices alone give the bytes
+ * per vertex and the difference the bytes per arc.
+ *
+ * Run from the BattleOfDynamicSets folder (compile ../Graph/src and ../NetworkMetrics/code first if
+ * their class files are missing):
+ *
+ *	javac Benchmark/MemoryFootprint.java
+ *	java Benchmark.MemoryFootprint [options]
+ *
+ * Options:
+ *
+ *	-impl RBT,BST,...	sets to measure (default: all)
+ *	-size N			elements per set (default: 100000)
+ *	-quadcap N		elements for sets whose build is O(n^2) (default: 20000)
+ *	-plan N			elements for the projection column (default: 100000000)
+ *	-graph DIR		class folder of the Graph project, "none" to skip (default: ../Graph/src)
+ *	-network DIR		class folder of NetworkMetrics, "none" to skip (default: ../NetworkMetrics)
+ *	-vertices N  -degree N	graph size (default: 10000 vertices, 8 arcs per vertex)
+ *	-top N			classes listed per structure in the breakdown (default: 4)
+ */
+public class MemoryFootprint {
+
+	private static final long SEED = 42;
+
+	public static void main(String []args) {
+
+		List<Implementation> implementations = Arrays.asList(Implementation.values());
+		int size = 100000;
+		int quadcap = 20000;
+		long plan = 100000000L;
+		String graphDir = ".." + File.separator + "Graph" + File.separator + "src";
+		String networkDir = ".." + File.separator + "NetworkMetrics";
+		int vertices = 10000;
+		int degree = 8;
+		int top = 4;
+
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value for " + args[i]);
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-impl":
+						implementations = new ArrayList<Implementation>();
+						for (String s : value.split(","))
+							implementations.add(Implementation.valueOf(s.trim().toUpperCase()));
+						break;
+					case "-size":
+						size = Integer.parseInt(value);
+						break;
+					case "-quadcap":
+						quadcap = Integer.parseInt(value);
+						break;
+					case "-plan":
+						plan = Long.parseLong(value);
+						break;
+					case "-graph":
+						graphDir = value;
+						break;
+					case "-network":
+						networkDir = value;
+						break;
+					case "-vertices":
+						vertices = Integer.parseInt(value);
+						break;
+					case "-degree":
+						degree = Integer.parseInt(value);
+						break;
+					case "-top":
+						top = Integer.parseInt(value);
+						break;
+					default:
+						throw new IllegalArgumentException("unknown option " + args[i]);
+				}
+			}
+			if (size < 1 || quadcap < 1 || vertices < 2 || degree < 0)
+				throw new IllegalArgumentException("sizes must be positive");
+		} catch (IllegalArgumentException iae) {	//includes NumberFormatException
+			System.out.println("Error: " + iae.getMessage());
+			System.out.println("Usage: java Benchmark.MemoryFootprint [-impl RBT,BST] [-size N] [-quadcap N] [-plan N]"
+					+ " [-graph DIR|none] [-network DIR|none] [-vertices N] [-degree N] [-top N]");
+			return;
+		}
+
+		System.out.println("/**********Memory Footprint**********/\n");
+		System.out.println(String.format("Object header %d B, references %d B, alignment %d B\n",
+				ObjectFootprint.getHeaderSize(), ObjectFootprint.getReferenceSize(), ObjectFootprint.getAlignment()));
+
+		StringBuilder breakdown = new StringBuilder();
+		System.out.println(String.format("%-6s %9s %-22s %10s %12s %10s %14s", "Impl", "Size", "Element",
+				"Shallow B", "Structure B", "Deep B", "GB @ " + plan));
+		System.out.println("----------------------------------------------------------------------------------------------");
+		for (Implementation impl : implementations) {
+			int n = impl.isQuadratic(KeyDistribution.SHUFFLED) ? Math.min(size, quadcap) : size;
+			String[] keys = KeyDistribution.SHUFFLED.insertionOrder(KeyDistribution.sortedKeys(n), new Random(SEED));
+			ObjectFootprint footprint = new ObjectFootprint();
+			long keyBytes = 0;
+			for (String key : keys)
+				keyBytes += footprint.walk(key);
+			footprint.clearHistogram();
+
+			DynamicSet<String> set = impl.create();
+			SetElement<String> first = null;
+			for (String key : keys) {
+				SetElement<String> e = impl.element(key);
+				if (first == null)
+					first = e;
+				set.insert(e);
+			}
+			long structure = footprint.walk(set);
+			System.out.println(String.format("%-6s %9d %-22s %10d %12.1f %10.1f %14.2f", impl, n,
+					first.getClass().getSimpleName(), footprint.shallowSize(first), (double)structure / n,
+					(double)(structure + keyBytes) / n, (double)structure / n * plan / 1e9));
+			breakdown.append(classes(impl.toString(), footprint, n, "elem", top));
+		}
+		System.out.println("----------------------------------------------------------------------------------------------\n");
+		System.out.println("Structure bytes by class, per element:\n");
+		System.out.print(breakdown);
+
+		List<GraphBuilder> graphs = new ArrayList<GraphBuilder>();
+		if (!graphDir.equals("none"))
+			graphs.add(new GraphProject(graphDir));
+		if (!networkDir.equals("none"))
+			graphs.add(new NetworkMetricsProject(networkDir));
+		if (graphs.isEmpty())
+			return;
+
+		System.out.println("/**********Graph Footprint**********/\n");
+		System.out.println(String.format("Vertices: %d, arcs: %d (%d per vertex, random endpoints)\n", vertices,
+				(long)vertices * degree, degree));
+		System.out.println(String.format("%-16s %14s %12s %12s %14s", "Graph", "B/vertex", "B/arc", "Total MB",
+				"GB @ " + plan + " V"));
+		System.out.println("--------------------------------------------------------------------------");
+		breakdown.setLength(0);
+		for (GraphBuilder builder : graphs) {
+			try {
+				String[] keys = KeyDistribution.sortedKeys(vertices);
+				ObjectFootprint footprint = new ObjectFootprint();
+				for (String key : keys)
+					footprint.walk(key);
+				footprint.clearHistogram();
+				Object graph = builder.build(keys, 0, new Random(SEED));
+				long vertexBytes = footprint.walk(graph);
+
+				footprint = new ObjectFootprint();
+				for (String key : keys)
+					footprint.walk(key);
+				footprint.clearHistogram();
+				graph = builder.build(keys, degree, new Random(SEED));
+				long total = footprint.walk(graph);
+
+				long arcs = (long)vertices * degree;
+				double perVertex = (double)vertexBytes / vertices;
+				double perArc = arcs == 0 ? 0 : (double)(total - vertexBytes) / arcs;
+				System.out.println(String.format("%-16s %14.1f %12.1f %12.1f %14.2f", builder.getName(), perVertex,
+						perArc, total / 1e6, (perVertex + degree * perArc) * plan / 1e9));
+				breakdown.append(classes(builder.getName(), footprint, vertices, "vertex", top));
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				System.out.println(String.format("%-16s skipped: %s", builder.getName(), e));
+			}
+		}
+		System.out.println("--------------------------------------------------------------------------\n");
+		System.out.println("Bytes by class, per vertex (arcs included):\n");
+		System.out.print(breakdown);
+	}
+
+	//Formats the largest classes of the last walk, in objects and bytes per unit.
+	private static String classes(String name, ObjectFootprint footprint, int units, String unit, int top) {
+
+		StringBuilder sb = new StringBuilder();
+		List<Map.Entry<Class<?>, long[]>> histogram = footprint.getHistogram();
+		for (int i = 0; i < histogram.size() && i < top; i++) {
+			Map.Entry<Class<?>, long[]> entry = histogram.get(i);
+			if (entry.getValue()[1] * 20 < units)	//below 0.05 bytes per unit, e.g. the set object itself
+				break;
+			sb.append(String.format("%-16s %-58s %8.2f objects/%-6s %8.1f B/%s\n", i == 0 ? name : "",
+					entry.getKey().getTypeName(), (double)entry.getValue()[0] / units, unit,
+					(double)entry.getValue()[1] / units, unit));
+		}
+		return sb.append("\n").toString();
+	}
+
+	//Builds a graph of another project, found as class files under a folder.
+	private static abstract class GraphBuilder {
+
+		private final String name;
+		private final String dir;
+		private ClassLoader loader;
+
+		GraphBuilder(String name, String dir) {
+
+			this.name = name;
+			this.dir = dir;
+		}
+
+		String getName() {
+
+			return this.name;
+		}
+
+		Class<?> load(String className) throws ReflectiveOperationException {
+
+			if (loader == null) {
+				File folder = new File(dir);
+				if (!folder.isDirectory())
+					throw new ClassNotFoundException("no folder " + folder.getAbsolutePath());
+				try {
+					loader = new URLClassLoader(new URL[] {folder.toURI().toURL()}, MemoryFootprint.class.getClassLoader());
+				} catch (java.net.MalformedURLException mue) {
+					throw new ClassNotFoundException(dir, mue);
+				}
+			}
+			return Class.forName(className, true, loader);
+		}
+
+		//Returns a graph with one vertex per key and degree arcs out of every vertex, each to a
+		//random other vertex.
+		abstract Object build(String[] keys, int degree, Random random) throws ReflectiveOperationException;
+	}
+
+	//Graph project: Graph, Vertex (seven ArrayLists and an annotation map) and Arc, default package.
+	private static class GraphProject extends GraphBuilder {
+
+		GraphProject(String dir) {
+
+			super("Graph", dir);
+		}
+
+		Object build(String[] keys, int degree, Random random) throws ReflectiveOperationException {
+
+			Class<?> graphClass = load("Graph");
+			Class<?> vertexClass = load("Vertex");
+			Class<?> arcClass = load("Arc");
+			Constructor<?> newVertex = vertexClass.getConstructor(Comparable.class);
+			Constructor<?> newArc = arcClass.getConstructor(Boolean.class, Integer.class);
+			Method insertVertex = graphClass.getMethod("insertVertex", vertexClass);
+			Method insertDirectedEdge = graphClass.getMethod("insertDirectedEdge", vertexClass, vertexClass, arcClass);
+
+			Object graph = graphClass.getConstructor().newInstance();
+			Object[] vertices = new Object[keys.length];
+			for (int i = 0; i < keys.length; i++)
+				vertices[i] = insertVertex.invoke(graph, newVertex.newInstance((Object)keys[i]));
+			for (int i = 0; i < keys.length; i++)
+				for (int d = 0; d < degree; d++) {
+					Object arc = newArc.newInstance(Boolean.TRUE, Integer.valueOf(1));
+					insertDirectedEdge.invoke(graph, vertices[i], vertices[other(i, keys.length, random)], arc);
+				}
+			return graph;
+		}
+	}
+
+	//NetworkMetrics project: code.DirectedGraph, with an adjacency list and a BTree of arcs per vertex.
+	private static class NetworkMetricsProject extends GraphBuilder {
+
+		NetworkMetricsProject(String dir) {
+
+			super("NetworkMetrics", dir);
+		}
+
+		Object build(String[] keys, int degree, Random random) throws ReflectiveOperationException {
+
+			Class<?> graphClass = load("code.DirectedGraph");
+			Class<?> vertexClass = load("code.Vertex");
+			Method insertVertex = graphClass.getMethod("insertVertex", Object.class);
+			Method insertArc = graphClass.getMethod("insertArc", vertexClass, vertexClass);
+
+			Object graph = graphClass.getConstructor().newInstance();
+			Object[] vertices = new Object[keys.length];
+			for (int i = 0; i < keys.length; i++)
+				vertices[i] = insertVertex.invoke(graph, keys[i]);
+			for (int i = 0; i < keys.length; i++)
+				for (int d = 0; d < degree; d++)
+					insertArc.invoke(graph, vertices[i], vertices[other(i, keys.length, random)]);
+			return graph;
+		}
+	}
+
+	//A random vertex index other than i.
+	private static int other(int i, int n, Random random) {
+
+		int j = random.nextInt(n - 1);
+		return j < i ? j : j + 1;
+	}
+}
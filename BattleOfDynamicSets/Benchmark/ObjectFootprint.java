@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Measures the heap bytes held by a graph of objects without a heap dump. The shallow size of an
+ * object is read from the layout the JVM chose (field offsets, array base and index scale, from
+ * sun.misc.Unsafe, looked up reflectively), rounded up to the object alignment, so compressed
+ * pointers, field packing and padding are accounted as they really are. walk() follows every
+ * reference field and array slot from a root and adds up each object once; objects already seen by
+ * an earlier walk are skipped, which lets a caller walk the keys first and then the structure to
+ * get what the structure itself costs. Static fields and Class objects are never followed.
+ */
+public class ObjectFootprint {
+
+	private static final Object UNSAFE = unsafe();
+	private static final MethodHandle OBJECT_FIELD_OFFSET = unsafeMethod("objectFieldOffset", Field.class);
+	private static final MethodHandle ARRAY_BASE_OFFSET = unsafeMethod("arrayBaseOffset", Class.class);
+	private static final MethodHandle ARRAY_INDEX_SCALE = unsafeMethod("arrayIndexScale", Class.class);
+	private static final MethodHandle GET_OBJECT = unsafeMethod("getObject", Object.class, long.class);
+	private static final int ALIGNMENT = alignment();
+	private static final int REFERENCE_SIZE = arrayIndexScale(Object[].class);
+	private static final int HEADER_SIZE = headerSize();
+
+	private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+	private final Map<Class<?>, ClassLayout> layouts = new HashMap<Class<?>, ClassLayout>();
+	private final Map<Class<?>, long[]> histogram = new HashMap<Class<?>, long[]>();	//{objects, bytes}
+
+	//Fields of a class as the JVM laid them out: the instance size and where the references are.
+	private static class ClassLayout {
+
+		final long size;
+		final long[] references;	//offsets of the reference fields, null if the layout is hidden
+
+		ClassLayout(long size, long[] references) {
+
+			this.size = size;
+			this.references = references;
+		}
+	}
+
+	//sun.misc.Unsafe is looked up by name, so compiling this class needs no internal API. The method
+	//handles are static final, which lets the JIT call the Unsafe methods directly.
+	private static Object unsafe() {
+
+		try {
+			Field f = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			return f.get(null);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException("sun.misc.Unsafe is not available", roe);
+		}
+	}
+
+	private static MethodHandle unsafeMethod(String name, Class<?>... parameterTypes) {
+
+		try {
+			return MethodHandles.lookup().unreflect(UNSAFE.getClass().getMethod(name, parameterTypes)).bindTo(UNSAFE);
+		} catch (ReflectiveOperationException roe) {
+			throw new IllegalStateException("sun.misc.Unsafe." + name + " is not available", roe);
+		}
+	}
+
+	//Unsafe.objectFieldOffset; throws UnsupportedOperationException for hidden classes and records.
+	private static long objectFieldOffset(Field f) {
+
+		try {
+			return (long)OBJECT_FIELD_OFFSET.invokeExact(f);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	private static int arrayBaseOffset(Class<?> c) {
+
+		try {
+			return (int)ARRAY_BASE_OFFSET.invokeExact(c);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	private static int arrayIndexScale(Class<?> c) {
+
+		try {
+			return (int)ARRAY_INDEX_SCALE.invokeExact(c);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	private static Object getObject(Object o, long offset) {
+
+		try {
+			return (Object)GET_OBJECT.invokeExact(o, offset);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	//-XX:ObjectAlignmentInBytes, 8 unless the HotSpot diagnostic bean says otherwise
+	private static int alignment() {
+
+		try {
+			com.sun.management.HotSpotDiagnosticMXBean bean = java.lang.management.ManagementFactory
+					.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+			return Integer.parseInt(bean.getVMOption("ObjectAlignmentInBytes").getValue());
+		} catch (RuntimeException re) {
+			return 8;
+		}
+	}
+
+	//The first field of an object sits right after its header (12 bytes with compressed class pointers).
+	private static int headerSize() {
+
+		try {
+			return (int)objectFieldOffset(Probe.class.getDeclaredField("b"));
+		} catch (NoSuchFieldException nsfe) {
+			throw new IllegalStateException(nsfe);
+		}
+	}
+
+	private static class Probe {
+
+		byte b;
+	}
+
+	public static int getAlignment() {
+
+		return ALIGNMENT;
+	}
+
+	public static int getReferenceSize() {
+
+		return REFERENCE_SIZE;
+	}
+
+	public static int getHeaderSize() {
+
+		return HEADER_SIZE;
+	}
+
+	private static long align(long size) {
+
+		return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+
+	private static int fieldSize(Class<?> type) {
+
+		if (!type.isPrimitive())
+			return REFERENCE_SIZE;
+		if (type == long.class || type == double.class)
+			return 8;
+		if (type == int.class || type == float.class)
+			return 4;
+		if (type == short.class || type == char.class)
+			return 2;
+		return 1;
+	}
+
+	private ClassLayout layout(Class<?> c) {
+
+		ClassLayout layout = layouts.get(c);
+		if (layout != null)
+			return layout;
+		long end = HEADER_SIZE;
+		long estimate = HEADER_SIZE;
+		boolean hidden = false;
+		List<Long> references = new ArrayList<Long>();
+		for (Class<?> k = c; k != null; k = k.getSuperclass())
+			for (Field f : k.getDeclaredFields()) {
+				if (Modifier.isStatic(f.getModifiers()))
+					continue;
+				int size = fieldSize(f.getType());
+				estimate += size;
+				if (hidden)
+					continue;
+				long offset;
+				try {
+					offset = objectFieldOffset(f);
+				} catch (UnsupportedOperationException uoe) {	//hidden classes (lambdas) and records
+					hidden = true;
+					continue;
+				}
+				end = Math.max(end, offset + size);
+				if (!f.getType().isPrimitive())
+					references.add(offset);
+			}
+		if (hidden)
+			layout = new ClassLayout(align(estimate), null);
+		else {
+			long[] offsets = new long[references.size()];
+			for (int i = 0; i < offsets.length; i++)
+				offsets[i] = references.get(i);
+			layout = new ClassLayout(align(end), offsets);
+		}
+		layouts.put(c, layout);
+		return layout;
+	}
+
+	//Returns the shallow size of o in bytes: its header, fields and padding, but nothing it points to.
+	public long shallowSize(Object o) {
+
+		Class<?> c = o.getClass();
+		if (c.isArray())
+			return align(arrayBaseOffset(c) + (long)arrayIndexScale(c) * java.lang.reflect.Array.getLength(o));
+		return layout(c).size;
+	}
+
+	//Adds up the shallow sizes of every object reachable from root that no earlier walk has counted,
+	//and returns the sum.
+	public long walk(Object root) {
+
+		long total = 0;
+		ArrayDeque<Object> stack = new ArrayDeque<Object>();
+		push(stack, root);
+		while (!stack.isEmpty()) {
+			Object o = stack.pop();
+			Class<?> c = o.getClass();
+			long size = shallowSize(o);
+			total += size;
+			long[] h = histogram.get(c);
+			if (h == null)
+				histogram.put(c, h = new long[2]);
+			h[0]++;
+			h[1] += size;
+			if (c.isArray()) {
+				if (!c.getComponentType().isPrimitive())
+					for (Object e : (Object[])o)
+						push(stack, e);
+			}
+			else {
+				long[] references = layout(c).references;
+				if (references != null)
+					for (long offset : references)
+						push(stack, getObject(o, offset));
+			}
+		}
+		return total;
+	}
+
+	private void push(ArrayDeque<Object> stack, Object o) {
+
+		if (o == null || o instanceof Class || o instanceof ClassLoader || o instanceof Thread)
+			return;
+		if (seen.add(o))
+			stack.push(o);
+	}
+
+	//Number of objects and bytes per class counted so far, largest first.
+	public List<Map.Entry<Class<?>, long[]>> getHistogram() {
+
+		List<Map.Entry<Class<?>, long[]>> entries = new ArrayList<Map.Entry<Class<?>, long[]>>(histogram.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<Class<?>, long[]>>() {
+			public int compare(Map.Entry<Class<?>, long[]> a, Map.Entry<Class<?>, long[]> b) {
+
+				return Long.compare(b.getValue()[1], a.getValue()[1]);
+			}
+		});
+		return entries;
+	}
+
+	//Forgets the histogram but keeps the objects seen, so the next walk still skips them.
+	public void clearHistogram() {
+
+		histogram.clear();
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import java.util.Arrays;
+
+//The DynamicSet operations the benchmark measures.
+public enum Operation {
+
+	//Builds the whole set from empty; one iteration inserts every key once.
+	INSERT(true) {
+		public void setup(DynamicSetBenchmark.Fixture f) {
+
+			f.set = f.impl.create();
+			f.elements = f.elementsFor(f.inserted);
+		}
+
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			f.set.insert(f.elements[i]);
+		}
+	},
+
+	//Builds the whole set from empty with one bulkLoad call. The call is the first operation of
+	//the pass and the rest do nothing, so the time is reported per element like INSERT.
+	BULK_LOAD(true) {
+		public void setup(DynamicSetBenchmark.Fixture f) {
+
+			f.set = f.impl.create();
+			f.elements = f.elementsFor(f.inserted);
+		}
+
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			if (i == 0)
+				f.set.bulkLoad(f.elements);
+		}
+	},
+
+	//Empties a full set; one iteration deletes every key once, in insertion order.
+	DELETE(true) {
+		public void setup(DynamicSetBenchmark.Fixture f) {
+
+			f.build();
+			f.elements = f.lookup(f.inserted);
+		}
+
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			f.set.delete(f.elements[i]);
+		}
+	},
+
+	SEARCH(false) {
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			bh.consume(f.set.search(f.access[i]));
+		}
+	},
+
+	MINIMUM(false) {
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			bh.consume(f.set.minimum());
+		}
+	},
+
+	MAXIMUM(false) {
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			bh.consume(f.set.maximum());
+		}
+	},
+
+	SUCCESSOR(false) {
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			bh.consume(f.set.successor(f.elements[i]));
+		}
+	},
+
+	PREDECESSOR(false) {
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			bh.consume(f.set.predecessor(f.elements[i]));
+		}
+	},
+
+	//One operation reads SCAN_LENGTH elements with range(k, hi), where hi is the key SCAN_LENGTH
+	//positions after the access key k.
+	RANGE_SCAN(false) {
+		public void setup(DynamicSetBenchmark.Fixture f) {
+
+			super.setup(f);
+			if (f.rangeEnds == null) {
+				String[] sorted = f.inserted.clone();
+				Arrays.sort(sorted);
+				f.rangeEnds = new String[f.access.length];
+				for (int i = 0; i < f.access.length; i++) {
+					int position = Arrays.binarySearch(sorted, f.access[i]) + SCAN_LENGTH;
+					f.rangeEnds[i] = (position < sorted.length) ? sorted[position] : null;
+				}
+			}
+		}
+
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			Cursor<String> cursor = f.set.range(f.access[i], f.rangeEnds[i]);
+			while (cursor.next())
+				bh.consume(cursor.current());
+		}
+	},
+
+	//One operation opens tailFrom(k) at the access key k and stops after SCAN_LENGTH elements.
+	TAIL_SCAN(false) {
+		public void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh) {
+
+			Cursor<String> cursor = f.set.tailFrom(f.access[i]);
+			for (int n = 0; n < SCAN_LENGTH && cursor.next(); n++)
+				bh.consume(cursor.current());
+		}
+	};
+
+	static final int SCAN_LENGTH = 100;	//elements read by one scan operation
+
+	private final boolean singleShot;
+
+	private Operation(boolean singleShot) {
+
+		this.singleShot = singleShot;
+	}
+
+	//Single shot operations change the set, so every iteration gets a fresh fixture and
+	//performs exactly one pass. The others run passes over a shared, fully built set until
+	//the iteration time is used up.
+	public boolean isSingleShot() {
+
+		return singleShot;
+	}
+
+	//Prepares the fixture before an iteration. Not timed. Steady state operations look up
+	//the elements for the access keys so successor and predecessor get pointers into the set.
+	public void setup(DynamicSetBenchmark.Fixture f) {
+
+		if (f.set == null) {
+			f.build();
+			f.elements = f.lookup(f.access);
+		}
+	}
+
+	//Performs the i-th operation of a pass.
+	public abstract void operate(DynamicSetBenchmark.Fixture f, int i, Blackhole bh);
+
+	//Number of operations in one pass.
+	public int passLength(DynamicSetBenchmark.Fixture f) {
+
+		if (singleShot)
+			return f.inserted.length;
+		else
+			return f.access.length;
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import PagedBTreeDynamicSet.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Lookups on a PagedBTreeDynamicSet whose file is larger than its buffer pool. For every size a set
+ * is bulk loaded into a temporary file and closed; the file is then opened again with pools of
+ * several sizes, given as fractions of its pages, and the same random searches (uniform or Zipfian)
+ * are timed on each. The table shows how long the open took, the searches per second and the share
+ * of page requests the pool served without a read. Once the upper levels fit in the pool a search
+ * reads about one leaf, and Zipfian lookups keep their hot leaves resident in a much smaller pool.
+ * Reads go through the operating system's page cache, so the misses measured here cost a copy from
+ * memory unless the file is larger than the free memory of the machine.
+ *
+ * Run from the BattleOfDynamicSets folder:
+ *
+ *	javac Benchmark/PagedBTreeBenchmark.java
+ *	java Benchmark.PagedBTreeBenchmark [options]
+ *
+ * Options:
+ *
+ *	-size N,N,...		set sizes (default: 1000000, 10000000)
+ *	-pool F,F,...		pool sizes as fractions of the pages in the file (default: 0.01, 0.1, 1)
+ *	-dist SHUFFLED,ZIPFIAN	lookup distributions (default: SHUFFLED, ZIPFIAN)
+ *	-page BYTES		page size (default: 4096)
+ *	-wi N  -i N  -r MILLIS	warmup iterations, measurement iterations, iteration time
+ */
+public class PagedBTreeBenchmark {
+
+	private static final long SEED = 42;
+	private static final int ACCESS_KEYS = 1 << 20;
+
+	public static void main(String []args) {
+
+		List<Integer> sizes = Arrays.asList(1000000, 10000000);
+		List<Double> pools = Arrays.asList(0.01, 0.1, 1.0);
+		List<KeyDistribution> distributions = Arrays.asList(KeyDistribution.SHUFFLED, KeyDistribution.ZIPFIAN);
+		int pageSize = PagedBTreeDynamicSet.DEFAULT_PAGE_SIZE;
+		int warmup = 3;
+		int measurement = 5;
+		long iterationMillis = 1000;
+
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value for " + args[i]);
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-size":
+						sizes = new ArrayList<Integer>();
+						for (String s : value.split(","))
+							sizes.add(Integer.parseInt(s.trim()));
+						break;
+					case "-pool":
+						pools = new ArrayList<Double>();
+						for (String s : value.split(",")) {
+							double fraction = Double.parseDouble(s.trim());
+							if (fraction <= 0 || fraction > 1)
+								throw new IllegalArgumentException("pool fractions must be in (0, 1]: " + s);
+							pools.add(fraction);
+						}
+						break;
+					case "-dist":
+						distributions = new ArrayList<KeyDistribution>();
+						for (String s : value.split(","))
+							distributions.add(KeyDistribution.valueOf(s.trim().toUpperCase()));
+						break;
+					case "-page":
+						pageSize = Integer.parseInt(value);
+						break;
+					case "-wi":
+						warmup = Integer.parseInt(value);
+						break;
+					case "-i":
+						measurement = Integer.parseInt(value);
+						break;
+					case "-r":
+						iterationMillis = Long.parseLong(value);
+						break;
+					default:
+						throw new IllegalArgumentException("unknown option " + args[i]);
+				}
+			}
+		} catch (IllegalArgumentException iae) {	//includes NumberFormatException
+			System.out.println("Error: " + iae.getMessage());
+			System.out.println("Usage: java Benchmark.PagedBTreeBenchmark [-size N,N] [-pool F,F] [-dist SHUFFLED,ZIPFIAN]"
+					+ " [-page BYTES] [-wi N] [-i N] [-r MILLIS]");
+			return;
+		}
+
+		System.out.println("/**********Paged B-Tree Lookups**********/\n");
+		System.out.println(String.format("%10s %8s %8s %-9s %10s %16s %10s %8s",
+				"Size", "Pages", "Pool", "Dist", "Open (ms)", "Thrpt (ops/s)", "ns/op", "Hits"));
+		System.out.println("--------------------------------------------------------------------------------------");
+
+		for (int size : sizes) {
+			Random random = new Random(SEED);
+			final String[] sorted = KeyDistribution.sortedKeys(size);
+			String[] keys = KeyDistribution.SHUFFLED.insertionOrder(sorted, random);
+			Path file;
+			int pageCount;
+			try {
+				file = Files.createTempFile("pagedbtree", ".pbt");
+				Files.delete(file);
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+			try {
+				try (PagedBTreeDynamicSet<String> set = new PagedBTreeDynamicSet<String>(file, KeyCodec.STRING,
+						pageSize, PagedBTreeDynamicSet.MIN_POOL_PAGES)) {
+					set.bulkLoad(new Iterator<SetElement<String>>() {
+						int next = 0;
+
+						public boolean hasNext() {
+
+							return next < sorted.length;
+						}
+
+						public SetElement<String> next() {
+
+							String key = sorted[next++];
+							return new PagedElement<String>(key, key);
+						}
+					});
+					pageCount = set.getPageCount();
+				}
+
+				for (double fraction : pools) {
+					int poolPages = Math.max(PagedBTreeDynamicSet.MIN_POOL_PAGES, (int)Math.ceil(pageCount * fraction));
+					long begin = System.nanoTime();
+					PagedBTreeDynamicSet<String> set = new PagedBTreeDynamicSet<String>(file, KeyCodec.STRING, pageSize, poolPages);
+					double openMillis = (System.nanoTime() - begin) / 1e6;
+					try {
+						for (KeyDistribution distribution : distributions) {
+							String[] access = distribution.accessOrder(keys, ACCESS_KEYS, random);
+							for (int i = 0; i < warmup; i++)
+								iteration(set, access, iterationMillis);
+							set.resetPoolCounters();
+							double sum = 0;
+							for (int i = 0; i < measurement; i++)
+								sum += iteration(set, access, iterationMillis);
+							double throughput = sum / measurement;
+							long requests = set.getPoolHits() + set.getPoolMisses();
+							System.out.println(String.format("%10d %8d %8d %-9s %10.2f %16.0f %10.1f %7.1f%%",
+									size, pageCount, poolPages, distribution, openMillis, throughput, 1e9 / throughput,
+									requests == 0 ? 0.0 : 100.0 * set.getPoolHits() / requests));
+						}
+					} finally {
+						set.close();
+					}
+				}
+			} finally {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException ioe) {
+					throw new UncheckedIOException(ioe);
+				}
+			}
+		}
+		System.out.println("--------------------------------------------------------------------------------------\n");
+	}
+
+	//Searches the access keys in a loop for iterationMillis and returns the searches per second.
+	private static double iteration(DynamicSet<String> set, String[] access, long iterationMillis) {
+
+		Blackhole bh = new Blackhole();
+		long ops = 0;
+		long begin = System.nanoTime();
+		long end = begin + iterationMillis * 1000000L;
+		long now;
+		do {
+			for (int i = 0; i < 1024; i++)
+				bh.consume(set.search(access[(int)((ops + i) & (ACCESS_KEYS - 1))]));
+			ops += 1024;
+			now = System.nanoTime();
+		} while (now < end);
+		bh.publish();
+		return ops * 1e9 / (now - begin);
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import PagedBTreeDynamicSet.KeyCodec;
+import SetSnapshot.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+/*
+ * Time to rebuild a set after a restart, from a text file and from a SetSnapshot. For every
+ * implementation and size a set is built from shuffled keys and saved twice: as a text file with one
+ * key per line, like unsorted-100.txt, and as a snapshot. The text file is then read back with a
+ * Scanner and every key inserted, as TestDynamicSet does, and the snapshot is mapped and bulk loaded
+ * into an empty set. The table shows the time per key and the bytes per second read from each file.
+ * The files are read right after they were written, so they come from the page cache.
+ *
+ * Run from the BattleOfDynamicSets folder:
+ *
+ *	javac Benchmark/SnapshotLoad.java
+ *	java Benchmark.SnapshotLoad [options]
+ *
+ * Options:
+ *
+ *	-impl RBT,BST,...	sets to reload (default: RBT, BST, SL)
+ *	-size N,N,...		set sizes (default: 100000, 1000000, 10000000)
+ *	-i N			timed reloads of each file, the fastest is reported (default: 3)
+ */
+public class SnapshotLoad {
+
+	private static final long SEED = 42;
+
+	public static void main(String []args) {
+
+		List<Implementation> implementations = Arrays.asList(Implementation.RBT, Implementation.BST, Implementation.SL);
+		List<Integer> sizes = Arrays.asList(100000, 1000000, 10000000);
+		int measurement = 3;
+
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value for " + args[i]);
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-impl":
+						implementations = new ArrayList<Implementation>();
+						for (String s : value.split(","))
+							implementations.add(Implementation.valueOf(s.trim().toUpperCase()));
+						break;
+					case "-size":
+						sizes = new ArrayList<Integer>();
+						for (String s : value.split(","))
+							sizes.add(Integer.parseInt(s.trim()));
+						break;
+					case "-i":
+						measurement = Integer.parseInt(value);
+						break;
+					default:
+						throw new IllegalArgumentException("unknown option " + args[i]);
+				}
+			}
+		} catch (IllegalArgumentException iae) {	//includes NumberFormatException
+			System.out.println("Error: " + iae.getMessage());
+			System.out.println("Usage: java Benchmark.SnapshotLoad [-impl RBT,BST] [-size N,N] [-i N]");
+			return;
+		}
+
+		System.out.println("/**********Snapshot Load**********/\n");
+		System.out.println(String.format("%-5s %10s %-9s %12s %10s %10s %10s",
+				"Impl", "Size", "Source", "File (MB)", "Load (ms)", "ns/key", "MB/s"));
+		System.out.println("-----------------------------------------------------------------------");
+
+		for (Implementation impl : implementations)
+			for (int size : sizes) {
+				if (impl.isQuadratic(KeyDistribution.SHUFFLED) && size > 100000)
+					continue;
+				String[] keys = KeyDistribution.SHUFFLED.insertionOrder(KeyDistribution.sortedKeys(size), new Random(SEED));
+				DynamicSet<String> set = impl.create();
+				for (String key : keys)
+					set.insert(impl.element(key));
+				Path text = null;
+				Path snapshot = null;
+				try {
+					text = Files.createTempFile("keys", ".txt");
+					snapshot = Files.createTempFile("keys", ".snapshot");
+					try (BufferedWriter out = Files.newBufferedWriter(text, StandardCharsets.UTF_8)) {
+						for (String key : keys) {
+							out.write(key);
+							out.newLine();
+						}
+					}
+					SetSnapshot.write(set, snapshot, KeyCodec.STRING);
+					set = null;
+					keys = null;
+
+					long best = Long.MAX_VALUE;
+					for (int i = 0; i < measurement; i++)
+						best = Math.min(best, loadText(impl, text, size));
+					report(impl, size, "text", Files.size(text), best);
+					best = Long.MAX_VALUE;
+					for (int i = 0; i < measurement; i++)
+						best = Math.min(best, loadSnapshot(impl, snapshot, size));
+					report(impl, size, "snapshot", Files.size(snapshot), best);
+				} catch (IOException ioe) {
+					throw new UncheckedIOException(ioe);
+				} finally {
+					try {
+						if (text != null)
+							Files.deleteIfExists(text);
+						if (snapshot != null)
+							Files.deleteIfExists(snapshot);
+					} catch (IOException ioe) {
+						throw new UncheckedIOException(ioe);
+					}
+				}
+			}
+		System.out.println("-----------------------------------------------------------------------\n");
+	}
+
+	private static void report(Implementation impl, int size, String source, long bytes, long nanos) {
+
+		System.out.println(String.format("%-5s %10d %-9s %12.1f %10.1f %10.1f %10.1f",
+				impl, size, source, bytes / 1e6, nanos / 1e6, (double)nanos / size, bytes / 1e6 / (nanos / 1e9)));
+	}
+
+	//Reads the keys line by line and inserts them one at a time; returns the nanoseconds taken.
+	private static long loadText(Implementation impl, Path text, int size) throws IOException {
+
+		System.gc();
+		long begin = System.nanoTime();
+		DynamicSet<String> set = impl.create();
+		try (Scanner scan = new Scanner(text, StandardCharsets.UTF_8.name())) {
+			while (scan.hasNextLine())
+				set.insert(impl.element(scan.nextLine()));
+		}
+		long nanos = System.nanoTime() - begin;
+		if (set.size() != size)
+			throw new IllegalStateException(impl + " reloaded " + set.size() + " of " + size + " keys");
+		return nanos;
+	}
+
+	//Maps the snapshot and bulk loads it into an empty set; returns the nanoseconds taken.
+	private static long loadSnapshot(final Implementation impl, Path snapshot, int size) {
+
+		System.gc();
+		long begin = System.nanoTime();
+		DynamicSet<String> set = impl.create();
+		//the benchmark sets hold each key as its own data, which is what impl.element makes
+		try (SetSnapshot<String> in = new SetSnapshot<String>(snapshot, KeyCodec.STRING, new ElementFactory<String>() {
+			public SetElement<String> create(String key, String data) {
+
+				return impl.element(key);
+			}
+		})) {
+			in.loadInto(set);
+		}
+		long nanos = System.nanoTime() - begin;
+		if (set.size() != size)
+			throw new IllegalStateException(impl + " reloaded " + set.size() + " of " + size + " keys");
+		return nanos;
+	}
+}
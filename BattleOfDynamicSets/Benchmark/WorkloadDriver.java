@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import DynamicSet.*;
+import ConcurrentDynamicSet.*;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Replays a mix of operations against a DynamicSet from several threads, like the YCSB core
+ * workloads, and reports throughput and latency percentiles per operation. A set is loaded with
+ * -records keys, then every thread draws operations from the mix and keys from a chooser until
+ * the run time is over:
+ *
+ *	READ		search(key)
+ *	UPDATE		search(key), then delete it and insert a new element with the same key
+ *	INSERT		insert a key that was never in the set (keys are handed out in order)
+ *	DELETE		delete(key)
+ *	SCAN		read the elements from key to the key 1 to -scan places further with a cursor
+ *	RMW		read-modify-write: READ followed by UPDATE of the same key
+ *
+ * Workloads A to F are the YCSB presets: A update heavy (50% read, 50% update), B read mostly (95/5),
+ * C read only, D read latest (95% read, 5% insert, recent keys are hot), E short ranges (95% scan,
+ * 5% insert) and F read-modify-write (50% read, 50% rmw). -mix sets any other mix.
+ *
+ * Key choosers: UNIFORM over all keys, ZIPFIAN with popular keys spread over the key space, and
+ * LATEST with the most recently inserted keys the most popular.
+ *
+ * With more than one thread the set is wrapped in a ConcurrentDynamicSet (-mode), unless it is
+ * thread-safe itself (-mode NONE, e.g. CSL). Sets whose reads modify them (SPLAY, PAGED) are always
+ * wrapped in EXCLUSIVE mode, whatever -mode says, since any other mode corrupts them. With -target the threads together issue that many
+ * operations per second on a fixed schedule, and latency is measured from the moment an operation
+ * was due, so a stall shows up in the latency of every operation that waited for it.
+ *
+ * Run from the BattleOfDynamicSets folder:
+ *
+ *	javac Benchmark/WorkloadDriver.java
+ *	java Benchmark.WorkloadDriver [options]
+ *
+ * Options:
+ *
+ *	-impl RBT,SL,...			implementations (default: RBT)
+ *	-workload A,B,...			YCSB workloads (default: A)
+ *	-mix read=90,insert=5,scan=5		custom mix in percent, instead of -workload
+ *	-dist UNIFORM|ZIPFIAN|LATEST		key chooser (default: the workload's, ZIPFIAN for a mix)
+ *	-records N				keys loaded before the run (default: 100000)
+ *	-threads 1,2,4,...			worker thread counts (default: 1)
+ *	-threadType PLATFORM|VIRTUAL		kind of worker threads, VIRTUAL needs Java 21 (default: PLATFORM)
+ *	-mode OPTIMISTIC|READ_LOCK|EXCLUSIVE|NONE	ConcurrentDynamicSet read mode (default: READ_LOCK)
+ *	-target OPS				operations per second over all threads, 0 for as fast as possible
+ *	-scan N					longest scan (default: 100)
+ *	-wi MILLIS  -r MILLIS			warmup time and measured time per run (default: 2000, 10000)
+ *	-csv FILE				append one row per run and operation to FILE
+ */
+public class WorkloadDriver {
+
+	private static final long SEED = 42;
+	private static final String CSV_HEADER = "workload,impl,threads,threadType,mode,dist,records,target,op,count,"
+			+ "throughput,mean_us,p50_us,p99_us,p999_us,max_us";
+
+	public enum Op {
+		READ,
+		UPDATE,
+		INSERT,
+		DELETE,
+		SCAN,
+		RMW
+	}
+
+	public enum Chooser {
+		UNIFORM,
+		ZIPFIAN,
+		LATEST
+	}
+
+	//A mix of operations in percent, in the order of Op, and its default key chooser.
+	public enum Workload {
+		A(50, 50, 0, 0, 0, 0, Chooser.ZIPFIAN),
+		B(95, 5, 0, 0, 0, 0, Chooser.ZIPFIAN),
+		C(100, 0, 0, 0, 0, 0, Chooser.ZIPFIAN),
+		D(95, 0, 5, 0, 0, 0, Chooser.LATEST),
+		E(0, 0, 5, 0, 95, 0, Chooser.ZIPFIAN),
+		F(50, 0, 0, 0, 0, 50, Chooser.ZIPFIAN);
+
+		private final int[] mix;
+		private final Chooser chooser;
+
+		private Workload(int read, int update, int insert, int delete, int scan, int rmw, Chooser chooser) {
+
+			this.mix = new int[] {read, update, insert, delete, scan, rmw};
+			this.chooser = chooser;
+		}
+	}
+
+	private static volatile boolean running;
+
+	public static void main(String []args) throws InterruptedException, IOException {
+
+		List<Implementation> implementations = Arrays.asList(Implementation.RBT);
+		List<String> workloads = Arrays.asList("A");
+		int[] customMix = null;
+		Chooser chooser = null;
+		int records = 100000;
+		List<Integer> threadCounts = Arrays.asList(1);
+		boolean virtual = false;
+		String mode = "READ_LOCK";	//OPTIMISTIC reads are unbounded, so they are opt-in
+		long target = 0;
+		int maxScan = 100;
+		long warmupMillis = 2000;
+		long runMillis = 10000;
+		String csv = null;
+
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("missing value for " + args[i]);
+				String value = args[i + 1];
+				switch (args[i]) {
+					case "-impl":
+						implementations = new ArrayList<Implementation>();
+						for (String s : value.split(","))
+							implementations.add(Implementation.valueOf(s.trim().toUpperCase()));
+						break;
+					case "-workload":
+						workloads = new ArrayList<String>();
+						for (String s : value.split(","))
+							workloads.add(Workload.valueOf(s.trim().toUpperCase()).name());
+						break;
+					case "-mix":
+						customMix = parseMix(value);
+						break;
+					case "-dist":
+						chooser = Chooser.valueOf(value.trim().toUpperCase());
+						break;
+					case "-records":
+						records = Integer.parseInt(value);
+						break;
+					case "-threads":
+						threadCounts = new ArrayList<Integer>();
+						for (String s : value.split(","))
+							threadCounts.add(Integer.parseInt(s.trim()));
+						break;
+					case "-threadType":
+						if (!value.equalsIgnoreCase("PLATFORM") && !value.equalsIgnoreCase("VIRTUAL"))
+							throw new IllegalArgumentException("unknown thread type " + value);
+						virtual = value.equalsIgnoreCase("VIRTUAL");
+						if (virtual && !virtualThreads())
+							throw new IllegalArgumentException("virtual threads need Java 21 or later");
+						break;
+					case "-mode":
+						mode = value.trim().toUpperCase();
+						if (!mode.equals("NONE"))
+							ConcurrentDynamicSet.ReadMode.valueOf(mode);
+						break;
+					case "-target":
+						target = Long.parseLong(value);
+						break;
+					case "-scan":
+						maxScan = Integer.parseInt(value);
+						break;
+					case "-wi":
+						warmupMillis = Long.parseLong(value);
+						break;
+					case "-r":
+						runMillis = Long.parseLong(value);
+						break;
+					case "-csv":
+						csv = value;
+						break;
+					default:
+						throw new IllegalArgumentException("unknown option " + args[i]);
+				}
+			}
+			if (records < 1)
+				throw new IllegalArgumentException("records must be positive: " + records);
+		} catch (IllegalArgumentException iae) {	//includes NumberFormatException
+			System.out.println("Error: " + iae.getMessage());
+			System.out.println("Usage: java Benchmark.WorkloadDriver [-impl RBT,SL] [-workload A,B] [-mix read=90,insert=10]"
+					+ " [-dist UNIFORM|ZIPFIAN|LATEST] [-records N] [-threads 1,2,4] [-threadType PLATFORM|VIRTUAL]"
+					+ " [-mode OPTIMISTIC|READ_LOCK|EXCLUSIVE|NONE] [-target OPS] [-scan N] [-wi MILLIS] [-r MILLIS] [-csv FILE]");
+			return;
+		}
+		if (customMix != null)
+			workloads = Arrays.asList("custom");
+
+		PrintWriter out = null;
+		if (csv != null) {
+			boolean fresh = !new File(csv).exists() || new File(csv).length() == 0;
+			out = new PrintWriter(new FileWriter(csv, true));
+			if (fresh)
+				out.println(CSV_HEADER);
+		}
+
+		System.out.println("/**********Workload Driver**********/\n");
+		System.out.println("Records: " + records + ", warmup: " + warmupMillis + " ms, run: " + runMillis + " ms, target: "
+				+ (target > 0 ? target + " ops/s" : "none") + ", " + (virtual ? "virtual" : "platform") + " threads\n");
+		System.out.println(String.format("%-8s %-5s %7s %-7s %-7s %10s %14s %10s %10s %10s %10s %10s",
+				"Workload", "Impl", "Threads", "Dist", "Op", "Count", "Thrpt (ops/s)", "Mean (us)", "p50 (us)", "p99 (us)", "p999 (us)", "Max (us)"));
+		System.out.println("----------------------------------------------------------------------------------------------------------------------");
+
+		for (String workload : workloads) {
+			int[] mix = (customMix != null) ? customMix : Workload.valueOf(workload).mix;
+			Chooser keys = (chooser != null) ? chooser : (customMix != null) ? Chooser.ZIPFIAN : Workload.valueOf(workload).chooser;
+			for (Implementation impl : implementations)
+				for (int threads : threadCounts) {
+					String runMode = (threads == 1) ? "NONE" : impl.readsModify() ? "EXCLUSIVE" : mode;
+					Run run = new Run(impl, records, runMode, mix, keys, maxScan);
+					run.execute(threads, virtual, target, warmupMillis);	//warmup, results dropped
+					LatencyHistogram[] results = run.execute(threads, virtual, target, runMillis);
+
+					LatencyHistogram all = new LatencyHistogram();
+					for (Op op : Op.values()) {
+						LatencyHistogram h = results[op.ordinal()];
+						if (h.getCount() == 0)
+							continue;
+						all.add(h);
+						report(out, workload, impl, threads, virtual, runMode, keys, records, target, op.name(), h, runMillis);
+					}
+					report(out, workload, impl, threads, virtual, runMode, keys, records, target, "ALL", all, runMillis);
+				}
+		}
+		System.out.println("----------------------------------------------------------------------------------------------------------------------\n");
+		if (out != null) {
+			out.close();
+			System.out.println("Results appended to " + csv);
+		}
+	}
+
+	private static void report(PrintWriter out, String workload, Implementation impl, int threads, boolean virtual, String mode,
+			Chooser keys, int records, long target, String op, LatencyHistogram h, long runMillis) {
+
+		double throughput = h.getCount() * 1000.0 / runMillis;
+		System.out.println(String.format("%-8s %-5s %7d %-7s %-7s %10d %14.0f %10.2f %10.2f %10.2f %10.2f %10.2f",
+				workload, impl, threads, keys, op, h.getCount(), throughput, h.getMean() / 1000, h.getPercentile(50) / 1000.0,
+				h.getPercentile(99) / 1000.0, h.getPercentile(99.9) / 1000.0, h.getMax() / 1000.0));
+		if (out != null)
+			out.println(String.format("%s,%s,%d,%s,%s,%s,%d,%d,%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f",
+					workload, impl, threads, virtual ? "VIRTUAL" : "PLATFORM", mode, keys, records, target,
+					op, h.getCount(), throughput, h.getMean() / 1000, h.getPercentile(50) / 1000.0, h.getPercentile(99) / 1000.0,
+					h.getPercentile(99.9) / 1000.0, h.getMax() / 1000.0));
+	}
+
+	//Parses "read=50,update=50" into percentages in the order of Op; they must add up to 100.
+	private static int[] parseMix(String value) {
+
+		int[] mix = new int[Op.values().length];
+		int sum = 0;
+		for (String part : value.split(",")) {
+			String[] kv = part.split("=");
+			if (kv.length != 2)
+				throw new IllegalArgumentException("mix entries look like read=50: " + part);
+			int percent = Integer.parseInt(kv[1].trim());
+			mix[Op.valueOf(kv[0].trim().toUpperCase()).ordinal()] += percent;
+			sum += percent;
+		}
+		if (sum != 100)
+			throw new IllegalArgumentException("mix must add up to 100: " + value);
+		return mix;
+	}
+
+	//One set loaded with the records, shared by the runs of one row of the table.
+	private static class Run {
+
+		private final Implementation impl;
+		private final DynamicSet<String> set;
+		private final int records;
+		private final int[] cumulative;	//cumulative[op] = sum of the mix up to and including op
+		private final Chooser chooser;
+		private final int maxScan;
+		private final AtomicInteger inserted;	//keys 0 .. inserted - 1 have been handed out
+
+		Run(Implementation impl, int records, String mode, int[] mix, Chooser chooser, int maxScan) {
+
+			this.impl = impl;
+			this.records = records;
+			this.chooser = chooser;
+			this.maxScan = maxScan;
+			this.cumulative = new int[mix.length];
+			int sum = 0;
+			for (int i = 0; i < mix.length; i++) {
+				sum += mix[i];
+				cumulative[i] = sum;
+			}
+
+			DynamicSet<String> s = impl.create();
+			String[] order = KeyDistribution.SHUFFLED.insertionOrder(KeyDistribution.sortedKeys(records), new Random(SEED));
+			for (String key : order)
+				s.insert(impl.element(key));
+			this.set = mode.equals("NONE") ? s : new ConcurrentDynamicSet<String>(s, ConcurrentDynamicSet.ReadMode.valueOf(mode));
+			this.inserted = new AtomicInteger(records);
+		}
+
+		//Runs the workload on threads for millis and returns one histogram per Op.
+		LatencyHistogram[] execute(int threads, boolean virtual, long target, long millis) throws InterruptedException {
+
+			final LatencyHistogram[][] histograms = new LatencyHistogram[threads][];
+			final CountDownLatch ready = new CountDownLatch(threads);
+			final CountDownLatch start = new CountDownLatch(1);
+			final long interval = (target > 0) ? Math.max(1, threads * 1000000000L / target) : 0;	//per thread
+			Thread[] workers = new Thread[threads];
+			for (int t = 0; t < threads; t++) {
+				final int id = t;
+				histograms[t] = new LatencyHistogram[Op.values().length];
+				for (int i = 0; i < Op.values().length; i++)
+					histograms[t][i] = new LatencyHistogram();
+				workers[t] = startThread(new Runnable() {
+					public void run() {
+
+						Worker worker = new Worker(new Random(SEED + 1 + id));
+						ready.countDown();
+						try {
+							start.await();
+						} catch (InterruptedException ie) {
+							return;
+						}
+						long due = System.nanoTime();
+						while (running) {
+							if (interval > 0) {
+								due += interval;
+								long wait = due - System.nanoTime();
+								if (wait > 0)
+									LockSupport.parkNanos(wait);
+							}
+							long begin = (interval > 0) ? due : System.nanoTime();
+							Op op = worker.operation();
+							worker.perform(op);
+							histograms[id][op.ordinal()].record(System.nanoTime() - begin);
+						}
+						worker.bh.publish();
+					}
+				}, virtual);
+			}
+
+			ready.await();
+			running = true;
+			start.countDown();
+			Thread.sleep(millis);
+			running = false;
+			for (Thread worker : workers)
+				worker.join();
+
+			LatencyHistogram[] total = new LatencyHistogram[Op.values().length];
+			for (int i = 0; i < total.length; i++) {
+				total[i] = new LatencyHistogram();
+				for (int t = 0; t < threads; t++)
+					total[i].add(histograms[t][i]);
+			}
+			return total;
+		}
+
+		//The random state of one thread.
+		private class Worker {
+
+			private final Random random;
+			private final ZipfianGenerator zipf;
+			private final Blackhole bh = new Blackhole();
+
+			Worker(Random random) {
+
+				this.random = random;
+				this.zipf = (chooser == Chooser.UNIFORM) ? null : new ZipfianGenerator(records, random);
+			}
+
+			Op operation() {
+
+				int r = random.nextInt(100);
+				int i = 0;
+				while (r >= cumulative[i])
+					i++;
+				return Op.values()[i];
+			}
+
+			//Returns the index of a key that has been handed out (it may have been deleted since).
+			int keyIndex() {
+
+				int count = inserted.get();
+				switch (chooser) {
+					case UNIFORM:
+						return random.nextInt(count);
+					case LATEST:
+						return Math.max(0, count - 1 - zipf.next());
+					default:
+						//scatter the popular ranks over the key space, like YCSB's scrambled Zipfian
+						return (int)(((zipf.next() * 0x9E3779B97F4A7C15L) >>> 1) % count);
+				}
+			}
+
+			String key() {
+
+				return KeyDistribution.key(keyIndex());
+			}
+
+			void perform(Op op) {
+
+				switch (op) {
+					case READ:
+						bh.consume(set.search(key()));
+						break;
+					case UPDATE:
+						update(key());
+						break;
+					case INSERT:
+						set.insert(impl.element(KeyDistribution.key(inserted.getAndIncrement())));
+						break;
+					case DELETE:
+						SetElement<String> victim = set.search(key());
+						if (victim != null)
+							set.delete(victim);
+						break;
+					case SCAN:
+						//keys are numbered, so the scan is the range up to the key length places further
+						int from = keyIndex();
+						Cursor<String> c = set.range(KeyDistribution.key(from), KeyDistribution.key(from + 1 + random.nextInt(maxScan)));
+						while (c.next())
+							bh.consume(c.current());
+						break;
+					case RMW:
+						String key = key();
+						bh.consume(set.search(key));
+						update(key);
+						break;
+				}
+			}
+
+			private void update(String key) {
+
+				SetElement<String> e = set.search(key);
+				if (e != null) {
+					set.delete(e);
+					set.insert(impl.element(key));
+				}
+			}
+		}
+	}
+
+	private static boolean virtualThreads() {
+
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException nsme) {
+			return false;
+		}
+	}
+
+	//Starts a platform thread, or a virtual thread through Thread.ofVirtual(), which is looked up
+	//at run time so the driver still compiles and runs on Java versions before 21.
+	private static Thread startThread(Runnable task, boolean virtual) {
+
+		if (!virtual) {
+			Thread thread = new Thread(task);
+			thread.start();
+			return thread;
+		}
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (Thread)Class.forName("java.lang.Thread$Builder").getMethod("start", Runnable.class).invoke(builder, task);
+		} catch (ReflectiveOperationException roe) {
+			throw new UnsupportedOperationException("virtual threads need Java 21 or later");
+		}
+	}
+}
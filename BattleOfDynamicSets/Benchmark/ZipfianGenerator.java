@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package Benchmark;
+
+import java.util.Random;
+
+//Draws ranks in [0, items) with a Zipfian distribution, rank 0 being the most popular.
+//Uses the closed-form method from Gray et al., "Quickly Generating Billion-Record Synthetic
+//Databases", SIGMOD 1994, the same generator YCSB uses.
+public class ZipfianGenerator {
+
+	public static final double DEFAULT_THETA = 0.99;
+
+	private final int items;
+	private final double theta;
+	private final double alpha;
+	private final double zetan;
+	private final double eta;
+	private final Random random;
+
+	public ZipfianGenerator(int items, Random random) {
+
+		this(items, DEFAULT_THETA, random);
+	}
+
+	public ZipfianGenerator(int items, double theta, Random random) {
+
+		if (items < 1)
+			throw new IllegalArgumentException("items must be positive: " + items);
+		this.items = items;
+		this.theta = theta;
+		this.random = random;
+		this.zetan = zeta(items, theta);
+		this.alpha = 1.0 / (1.0 - theta);
+		this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+	}
+
+	//Returns the next rank.
+	public int next() {
+
+		double u = random.nextDouble();
+		double uz = u * zetan;
+
+		if (uz < 1.0)
+			return 0;
+		if (uz < 1.0 + Math.pow(0.5, theta))
+			return Math.min(1, items - 1);
+
+		int rank = (int)(items * Math.pow(eta * u - eta + 1, alpha));
+		return Math.min(rank, items - 1);
+	}
+
+	private static double zeta(int n, double theta) {
+
+		double sum = 0;
+		for (int i = 0; i < n; i++)
+			sum += 1 / Math.pow(i + 1, theta);
+		return sum;
+	}
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ConcurrentDynamicSet;
+
+import DynamicSet.*;
+import RedBlackDynamicSet.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.locks.StampedLock;
+
+//Makes any DynamicSet safe to share between threads. Writes (insert, delete, bulkLoad) hold the write
+//lock of a StampedLock. Reads (search, minimum, maximum, successor, predecessor) hold its shared read
+//lock by default, so readers run in parallel with each other but never with a writer.
+//
+//ReadMode.OPTIMISTIC is an opt-in experiment: reads first run without any lock under an optimistic
+//stamp and keep the result only if no write happened in the meantime; a read that overlapped a write,
+//or that threw on the half-updated structure, is repeated under the read lock. Such readers never
+//write to shared memory while no writer is active.
+//
+//The optimistic and read lock paths need reads that do not modify the wrapped set. Sets whose reads
+//write to them must be wrapped with ReadMode.EXCLUSIVE: SplayDynamicSet restructures itself on every
+//access, and PagedBTreeDynamicSet loads, pins and evicts pages of its buffer pool on every lookup.
+//
+//An optimistic read runs the whole traversal of the wrapped set with no synchronization at all, and
+//the stamp is only validated once it returns. A traversal that meets a rotation or split halfway may
+//throw (even a StackOverflowError), and is then repeated under the read lock, but it may also follow
+//links that a writer has left pointing in a cycle, and the wrapper cannot bound a traversal inside
+//the wrapped set: such a read never returns. OPTIMISTIC therefore only suits measuring the best case.
+//
+//Elements returned by reads are nodes of the wrapped set. Their keys do not change, but the caller
+//must not rely on them still being in the set once another thread may have deleted them.
+public class ConcurrentDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+	
+	//How reads are synchronized with writes.
+	public enum ReadMode {
+		OPTIMISTIC,	//optimistic stamp, falling back to the read lock; may hang, see above
+		READ_LOCK,	//shared read lock, the default
+		EXCLUSIVE	//write lock, for sets whose reads modify them
+	}
+	
+	private static final int SEARCH = 0;
+	private static final int MINIMUM = 1;
+	private static final int MAXIMUM = 2;
+	private static final int SUCCESSOR = 3;
+	private static final int PREDECESSOR = 4;
+	
+	private final DynamicSet<T> set;
+	private final ReadMode mode;
+	private final StampedLock lock;
+	
+	public ConcurrentDynamicSet(DynamicSet<T> set) {
+		
+		this(set, ReadMode.READ_LOCK);
+	}
+	
+	public ConcurrentDynamicSet(DynamicSet<T> set, ReadMode mode) {
+		
+		super();
+		this.set = set;
+		this.mode = mode;
+		this.lock = new StampedLock();
+	}
+	
+	public static void main(String []args) throws InterruptedException {
+		
+		final ConcurrentDynamicSet<String> set = new ConcurrentDynamicSet<String>(new RedBlackDynamicSet<String>());
+		final String[] names = {"Ja'far", "Abdullah", "Maha", "Amina"};
+		
+		//one writer keeps deleting and re-inserting the names while three readers look them up
+		Thread[] threads = new Thread[4];
+		final int[] found = new int[threads.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread() {
+				public void run() {
+					
+					for (int i = 0; i < 100000; i++) {
+						String name = names[i % names.length];
+						if (id == 0) {
+							set.insert(new RBTNode<String>(name, name));
+							if (i % 2 == 0)
+								set.delete(new RBTNode<String>(name, name));
+						}
+						else if (set.search(name) != null)
+							found[id]++;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		
+		for (int t = 1; t < threads.length; t++)
+			System.out.println("Reader " + t + " found a name " + found[t] + " times");
+		System.out.println("Size: " + set.size());
+		System.out.println("Minimum set element: " + set.minimum().getKey());
+		System.out.println("Maximum set element: " + set.maximum().getKey());
+	}
+	
+	//Returns the set this one synchronizes access to.
+	public DynamicSet<T> getSet() {
+		
+		return this.set;
+	}
+	
+	public ReadMode getReadMode() {
+		
+		return this.mode;
+	}
+	
+	//Returns the number of elements currently in the set.
+	public int size() {
+		
+		long stamp = lock.tryOptimisticRead();
+		int size = set.size();
+		if (lock.validate(stamp))
+			return size;
+		stamp = lock.readLock();
+		try {
+			return set.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	//Insert element e in the set.
+	public void insert(SetElement<T> e) {
+		
+		long stamp = lock.writeLock();
+		try {
+			set.insert(e);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	//Given a pointer to element e in set, removes e from set.
+	public void delete(SetElement<T> e) {
+		
+		long stamp = lock.writeLock();
+		try {
+			set.delete(e);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	//Inserts every element of elements in the set while holding the write lock once, so a batch of
+	//writes pays for one lock acquisition and lets the wrapped set use its own bulk loading. Readers
+	//see either none or all of the batch.
+	public void bulkLoad(Iterator<? extends SetElement<T>> elements) {
+		
+		long stamp = lock.writeLock();
+		try {
+			set.bulkLoad(elements);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	//Removes every element of elements from the set while holding the write lock once.
+	public void deleteAll(Iterator<? extends SetElement<T>> elements) {
+		
+		long stamp = lock.writeLock();
+		try {
+			while (elements.hasNext())
+				set.delete(elements.next());
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	//Finds a SetElement with key 'k' and returns a pointer to it or null if not found
+	public SetElement<T> search(T k) {
+		
+		return read(SEARCH, k, null);
+	}
+	
+	//Finds a SetElement that has the smallest key, and returns a pointer to it, or null if the set is empty.
+	public SetElement<T> minimum() {
+		
+		return read(MINIMUM, null, null);
+	}
+	
+	//Finds a SetElement that has the largest key, and returns a pointer to it, or null of the set is empty.
+	public SetElement<T> maximum() {
+		
+		return read(MAXIMUM, null, null);
+	}
+	
+	//Given a pointer to element e in the set, find a SetElement in the set that has the next larger key,
+	//and returns a pointer to it, or null if e is the maximum element.
+	public SetElement<T> successor(SetElement<T> e) {
+		
+		return read(SUCCESSOR, null, e);
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next smaller key,
+	//and returns a pointer to it, or null if e is the minimum element.
+	public SetElement<T> predecessor(SetElement<T> e) {
+		
+		return read(PREDECESSOR, null, e);
+	}
+	
+	//Runs a read on the wrapped set, synchronized according to the read mode.
+	private SetElement<T> read(int op, T k, SetElement<T> e) {
+		
+		if (mode == ReadMode.OPTIMISTIC) {
+			long stamp = lock.tryOptimisticRead();	//0 if a writer holds the lock
+			if (stamp != 0) {
+				try {
+					SetElement<T> result = apply(op, k, e);
+					if (lock.validate(stamp))
+						return result;
+				} catch (Throwable inconsistent) {
+					//a concurrent write left the structure half-updated, retry under the read lock.
+					//With no write in the way the failure is real and is passed on. A traversal
+					//caught in a cycle of half-updated links never gets here.
+					if (lock.validate(stamp))
+						throw inconsistent;
+				}
+			}
+		}
+		
+		if (mode == ReadMode.EXCLUSIVE) {
+			long stamp = lock.writeLock();
+			try {
+				return apply(op, k, e);
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+		}
+		
+		long stamp = lock.readLock();
+		try {
+			return apply(op, k, e);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	private SetElement<T> apply(int op, T k, SetElement<T> e) {
+		
+		switch (op) {
+			case SEARCH:
+				return set.search(k);
+			case MINIMUM:
+				return set.minimum();
+			case MAXIMUM:
+				return set.maximum();
+			case SUCCESSOR:
+				return set.successor(e);
+			default:
+				return set.predecessor(e);
+		}
+	}
+	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//A cursor of the wrapped set cannot survive concurrent writes, so the range is copied under the
+	//read lock (the write lock in EXCLUSIVE mode) and the cursor walks the copy: it sees the set as it
+	//was when range was called, at the cost of O(m) memory for m elements.
+	public Cursor<T> range(T lo, T hi) {
+		
+		final ArrayList<SetElement<T>> elements = new ArrayList<SetElement<T>>();
+		long stamp = mode == ReadMode.EXCLUSIVE ? lock.writeLock() : lock.readLock();
+		try {
+			Cursor<T> cursor = set.range(lo, hi);
+			while (cursor.next())
+				elements.add(cursor.current());
+		} finally {
+			lock.unlock(stamp);
+		}
+		
+		return new Cursor<T>(null) {
+			private int index = 0;
+			
+			protected SetElement<T> first() {
+				
+				return elements.isEmpty() ? null : elements.get(0);
+			}
+			
+			protected SetElement<T> step(SetElement<T> e) {
+				
+				index++;
+				return index < elements.size() ? elements.get(index) : null;
+			}
+		};
+	}
+	
+	//Height, statistics and reset come from the wrapped set, read under the read lock.
+	public int height() {
+		
+		long stamp = lock.readLock();
+		try {
+			return set.height();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	public SetStatistics getStatistics() {
+		
+		return set.getStatistics();
+	}
+	
+	public void resetStatistics() {
+		
+		set.resetStatistics();
+	}
+	
+	public String toString() {
+		
+		long stamp = mode == ReadMode.EXCLUSIVE ? lock.writeLock() : lock.readLock();
+		try {
+			return set.toString();
+		} finally {
+			lock.unlock(stamp);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ConcurrentSkipListDynamicSet;
+
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import DynamicSet.*;
+
+public class CSLNode<T extends Comparable<T>> extends SetElement<T> implements Comparable<T> {
+
+	//forward link per level of the tower. A set mark means this node is logically deleted
+	//at that level and the link may be snipped by any thread passing by.
+	private final AtomicMarkableReference<CSLNode<T>>[] next;
+
+	//initialize new node with a single level, e.g. to be handed to insert()
+	public CSLNode(T key, T data) {
+
+		this(key, data, 0);
+	}
+
+	//initialize new node with a tower of topLevel + 1 levels
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public CSLNode(T key, T data, int topLevel) {
+
+		super(key, data);
+		next = new AtomicMarkableReference[topLevel + 1];
+		for(int i = 0; i <= topLevel; i++) {
+			next[i] = new AtomicMarkableReference<CSLNode<T>>(null, false);
+		}
+	}
+
+	public AtomicMarkableReference<CSLNode<T>> getNext(int level) {
+
+		return next[level];
+	}
+
+	public int getTopLevel() {
+
+		return next.length - 1;
+	}
+
+	//A node is in the set as long as its bottom level link is unmarked
+	public boolean isDeleted() {
+
+		return next[0].isMarked();
+	}
+
+	public int compareTo(T k) {
+
+		return super.key.compareTo(k);
+	}
+}
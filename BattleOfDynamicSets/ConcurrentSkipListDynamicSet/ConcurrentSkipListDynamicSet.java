@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ConcurrentSkipListDynamicSet;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import DynamicSet.*;
+
+/*
+ * Lock-free skip list. Algorithms taken from Herlihy and Shavit's text
+ * The Art of Multiprocessor Programming, Morgan Kaufmann, 2008 (LockFreeSkipList).
+ *
+ * Every tower level is linked with an AtomicMarkableReference. delete first marks the
+ * links of the victim's tower top to bottom (logical deletion); the node leaves the set
+ * when its bottom link is marked, and later traversals physically snip it out with CAS.
+ * No operation takes a lock, so all of them can run from many threads at once.
+ */
+public class ConcurrentSkipListDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+
+	private static final int MAX_LEVEL = 31;
+
+	private final CSLNode<T> head;	//sentinel smaller than every key
+	private final CSLNode<T> tail;	//sentinel larger than every key
+	private final AtomicInteger count;
+	private final AtomicInteger highest;	//highest level any tower reached; searches start there
+
+	public ConcurrentSkipListDynamicSet() {
+
+		super();
+		head = new CSLNode<T>(null, null, MAX_LEVEL);
+		tail = new CSLNode<T>(null, null, MAX_LEVEL);
+		for(int i = 0; i <= MAX_LEVEL; i++) {
+			head.getNext(i).set(tail, false);
+		}
+		count = new AtomicInteger(0);
+		highest = new AtomicInteger(0);
+	}
+
+	public static void main(String []args) throws InterruptedException {
+
+		final ConcurrentSkipListDynamicSet<Integer> set = new ConcurrentSkipListDynamicSet<Integer>();
+		Thread[] threads = new Thread[4];
+
+		//test concurrent insert, every thread inserts every fourth key and deletes half of them again
+		for(int t = 0; t < threads.length; t++) {
+			final int first = t;
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					for(int i = first; i < 10000; i += 4)
+						set.insert(new CSLNode<Integer>(i, i));
+					for(int i = first; i < 10000; i += 8)
+						set.delete(new CSLNode<Integer>(i, i));
+				}
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+
+		System.out.println("Size after concurrent insert/delete: " + set.size());
+		System.out.println("Minimum set element: " + set.minimum().getKey());
+		System.out.println("Maximum set element: " + set.maximum().getKey());
+		System.out.println("Successor of 5: " + set.successor(set.search(5)).getKey());
+		System.out.println("Predecessor of 5: " + set.predecessor(set.search(5)).getKey());
+	}
+
+	//Returns the number of elements currently in the set.
+	public int size() {
+
+		return count.get();
+	}
+
+	//Returns the number of levels searches start from, 0 if the set is empty. Levels are never
+	//removed: a level emptied by deletes stays in use until the set is discarded.
+	public int height() {
+
+		return (count.get() == 0) ? 0 : highest.get() + 1;
+	}
+
+	//Insert element e in the set, if its key is not in the set yet.
+	public void insert(SetElement<T> e) {
+
+		T k = e.getKey();
+		int topLevel = randomLevel();
+
+		//raise the search start level before the tower can become visible
+		int start = highest.get();
+		while(start < topLevel && !highest.compareAndSet(start, topLevel))
+			start = highest.get();
+		for(int level = start; level < topLevel; level++)
+			stats.levelCreated();
+
+		//sized to the levels in use now, which already cover the new tower
+		int levels = Math.max(start, topLevel) + 1;
+		CSLNode<T>[] preds = newLevels(levels);
+		CSLNode<T>[] succs = newLevels(levels);
+
+		while(true) {
+
+			if(find(k, preds, succs))
+				return;	//already in the set
+
+			CSLNode<T> toAdd = new CSLNode<T>(k, e.getData(), topLevel);
+			for(int level = 0; level <= topLevel; level++) {
+				toAdd.getNext(level).set(succs[level], false);
+			}
+
+			//the node is in the set as soon as it is linked into the bottom level
+			if(!preds[0].getNext(0).compareAndSet(succs[0], toAdd, false, false))
+				continue;	//bottom level changed under us, start over
+			count.incrementAndGet();
+
+			//link the rest of the tower, re-finding the position whenever a CAS fails
+			for(int level = 1; level <= topLevel; level++) {
+				while(true) {
+					CSLNode<T> succ = succs[level];
+					CSLNode<T> current = toAdd.getNext(level).getReference();
+					//fails once a concurrent delete marked this level; the node is on its way out
+					if(current != succ && !toAdd.getNext(level).compareAndSet(current, succ, false, false))
+						return;
+					if(preds[level].getNext(level).compareAndSet(succ, toAdd, false, false))
+						break;
+					find(k, preds, succs);
+					if(succs[0] != toAdd)
+						return;	//already deleted again
+				}
+			}
+			return;
+		}
+	}
+
+	//Given a pointer to element e in set, removes e from set.
+	public void delete(SetElement<T> e) {
+
+		if(e == null)
+			return;
+
+		T k = e.getKey();
+		//highest never drops, so these cover every tower already in the set
+		int levels = highest.get() + 1;
+		CSLNode<T>[] preds = newLevels(levels);
+		CSLNode<T>[] succs = newLevels(levels);
+		boolean[] marked = {false};
+
+		if(!find(k, preds, succs))
+			return;	//not in the set
+
+		CSLNode<T> victim = succs[0];
+
+		//mark the upper levels, top to bottom
+		for(int level = victim.getTopLevel(); level >= 1; level--) {
+			CSLNode<T> succ = victim.getNext(level).get(marked);
+			while(!marked[0]) {
+				victim.getNext(level).attemptMark(succ, true);
+				succ = victim.getNext(level).get(marked);
+			}
+		}
+
+		//marking the bottom level removes the node; only one thread can win this CAS
+		CSLNode<T> succ = victim.getNext(0).get(marked);
+		while(true) {
+			boolean iMarkedIt = victim.getNext(0).compareAndSet(succ, succ, false, true);
+			succ = victim.getNext(0).get(marked);
+			if(iMarkedIt) {
+				count.decrementAndGet();
+				find(k, preds, succs);	//snip the marked tower out
+				return;
+			}
+			else if(marked[0])
+				return;	//another thread deleted it first
+		}
+	}
+
+	//Returns an array with one slot per level, for find to fill in.
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private CSLNode<T>[] newLevels(int levels) {
+
+		return new CSLNode[levels];
+	}
+
+	/*
+	 * Finds the position of k at every level and stores the last node smaller than k in
+	 * preds and the node after it in succs. Snips out marked nodes it passes; if a snip fails
+	 * because the list changed the search restarts from the head. Returns true if k is in the set.
+	 * Levels raised by other threads after preds was sized are not searched; the levels below
+	 * still hold every node, so the result is the same.
+	 */
+	private boolean find(T k, CSLNode<T>[] preds, CSLNode<T>[] succs) {
+
+		boolean[] marked = {false};
+
+		retry:
+		while(true) {
+			CSLNode<T> pred = head;
+			CSLNode<T> current = null;
+			for(int level = Math.min(highest.get(), preds.length - 1); level >= 0; level--) {
+				current = pred.getNext(level).getReference();
+				while(true) {
+					CSLNode<T> succ = current.getNext(level).get(marked);
+					while(marked[0]) {	//current is deleted, unlink it at this level
+						if(!pred.getNext(level).compareAndSet(current, succ, false, false))
+							continue retry;
+						current = succ;
+						succ = current.getNext(level).get(marked);
+					}
+					if(compare(current, k) < 0) {
+						pred = current;
+						current = succ;
+					}
+					else
+						break;
+				}
+				preds[level] = pred;
+				succs[level] = current;
+			}
+			return compare(current, k) == 0;
+		}
+	}
+
+	//Finds a SetElement with key 'k' and returns a pointer to it, or null if not found.
+	//Wait-free: marked nodes are skipped, never unlinked.
+	public CSLNode<T> search(T k) {
+
+		if(k == null)
+			return null;
+
+		CSLNode<T> current = ceiling(k, false);
+		if(current != tail && compare(current, k) == 0)
+			return current;
+		else
+			return null;
+	}
+
+	//Finds a SetElement that has the smallest key, and returns a pointer to it, or null if the set is empty.
+	public CSLNode<T> minimum() {
+
+		boolean[] marked = {false};
+		CSLNode<T> current = head.getNext(0).getReference();
+		while(current != tail) {
+			CSLNode<T> succ = current.getNext(0).get(marked);
+			if(!marked[0])
+				return current;
+			current = succ;
+		}
+		return null;
+	}
+
+	//Finds a SetElement that has the largest key, and returns a pointer to it, or null if the set is empty.
+	public CSLNode<T> maximum() {
+
+		while(true) {
+			CSLNode<T> last = floor(null, false);
+			if(last == head)
+				return null;
+			if(!last.isDeleted())
+				return last;
+			//deleted while we looked at it, look again
+		}
+	}
+
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next larger key,
+	//and returns a pointer to it, or null if e is the maximum element.
+	public CSLNode<T> successor(SetElement<T> e) {
+
+		if(e == null || search(e.getKey()) == null)
+			return null;
+
+		CSLNode<T> succ = ceiling(e.getKey(), true);
+		if(succ == tail)
+			return null;
+		else
+			return succ;
+	}
+
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next smaller key,
+	//and returns a pointer to it, or null if e is the minimum element.
+	public CSLNode<T> predecessor(SetElement<T> e) {
+
+		if(e == null || search(e.getKey()) == null)
+			return null;
+
+		while(true) {
+			CSLNode<T> pred = floor(e.getKey(), true);
+			if(pred == head)
+				return null;
+			if(!pred.isDeleted())
+				return pred;
+		}
+	}
+
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//Unlike the other sets, this one may be modified while the cursor is in use: the cursor is
+	//weakly consistent, like the iterators of java.util.concurrent. It never returns an element
+	//twice or out of order, and it skips the nodes marked as deleted when it reaches them.
+	public Cursor<T> range(final T lo, T hi) {
+
+		final boolean[] marked = {false};	//one holder per cursor, stepping allocates nothing
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+
+				if(lo == null)
+					return minimum();
+				CSLNode<T> first = ceiling(lo, false);
+				if(first == tail)
+					return null;
+				else
+					return first;
+			}
+
+			protected SetElement<T> step(SetElement<T> e) {
+
+				//a deleted node keeps its forward links, so the walk can continue from it
+				CSLNode<T> current = ((CSLNode<T>)e).getNext(0).getReference();
+				while(current != tail) {
+					CSLNode<T> succ = current.getNext(0).get(marked);
+					if(!marked[0])
+						return current;
+					current = succ;
+				}
+				return null;
+			}
+		};
+	}
+	
+	//Returns a weakly consistent spliterator over the elements in key order: like a cursor it may or
+	//may not see updates made while it runs, so it is CONCURRENT and its size is only an estimate.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED | Spliterator.DISTINCT
+				| Spliterator.NONNULL | Spliterator.CONCURRENT);
+	}
+
+	//Returns the first unmarked node with a key >= k (> k if strict), or tail.
+	private CSLNode<T> ceiling(T k, boolean strict) {
+
+		boolean[] marked = {false};
+		CSLNode<T> pred = head;
+		CSLNode<T> current = null;
+		for(int level = highest.get(); level >= 0; level--) {
+			current = pred.getNext(level).getReference();
+			while(true) {
+				CSLNode<T> succ = current.getNext(level).get(marked);
+				while(marked[0]) {
+					current = succ;
+					succ = current.getNext(level).get(marked);
+				}
+				int c = compare(current, k);
+				if(c < 0 || (strict && c == 0)) {
+					pred = current;
+					current = succ;
+				}
+				else
+					break;
+			}
+		}
+		return current;
+	}
+
+	//Returns the last node with a key < k (<= k if not strict), or head. A null k stands
+	//for a key larger than every key in the set.
+	private CSLNode<T> floor(T k, boolean strict) {
+
+		boolean[] marked = {false};
+		CSLNode<T> pred = head;
+		for(int level = highest.get(); level >= 0; level--) {
+			CSLNode<T> current = pred.getNext(level).getReference();
+			while(true) {
+				CSLNode<T> succ = current.getNext(level).get(marked);
+				while(marked[0]) {
+					current = succ;
+					succ = current.getNext(level).get(marked);
+				}
+				if(current == tail)
+					break;
+				int c;
+				if(k == null) {
+					stats.visited();
+					c = -1;
+				}
+				else
+					c = compare(current, k);
+				if(c < 0 || (!strict && c == 0)) {
+					pred = current;
+					current = succ;
+				}
+				else
+					break;
+			}
+		}
+		return pred;
+	}
+
+	//compare node with key k, head sorts before and tail after every key
+	private int compare(CSLNode<T> node, T k) {
+
+		if(node == head)
+			return -1;
+		if(node == tail)
+			return 1;
+		stats.visited();
+		stats.compared();
+		return node.getKey().compareTo(k);
+	}
+
+	//Geometric level distribution with p = 1/2, drawn from a per-thread generator so
+	//threads never contend on the random state.
+	private static int randomLevel() {
+
+		int level = Integer.numberOfTrailingZeros(~ThreadLocalRandom.current().nextInt());
+		return Math.min(level, MAX_LEVEL);
+	}
+
+	public String toString() {
+
+		StringBuilder result = new StringBuilder("[");
+		CSLNode<T> current = minimum();
+		while(current != null) {
+			result.append(current.getKey());
+			current = successor(current);
+			if(current != null)
+				result.append(", ");
+		}
+		result.append("]");
+		return result.toString();
+	}
+}
@@ -30,19 +30,58 @@
 package DLLDynamicSet;
 
 import DynamicSet.*;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 
+//An indexed list (new DLLDynamicSet<T>(true)) also keeps an open-addressing hash index from key
+//to node, so search, delete, successor and predecessor are O(1) expected, and skip levels above the
+//list (each node is raised one more level with probability 1/4) so insert finds its position in
+//O(log n) expected instead of walking the list. Successor and predecessor remain single pointer
+//steps, which makes the indexed list an ordered store in the spirit of LinkedHashMap. The index
+//relies on the keys' equals() and hashCode() agreeing with compareTo(), as they do for String and
+//the boxed numbers.
 public class DLLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 	
+	private static final int MAX_HEIGHT = 16;	//enough for 4^16 nodes with p = 1/4
+	private static final int INITIAL_CAPACITY = 16;
+	
 	private DLLNode<T> head; //DLL sentinel
+	private final boolean indexed;
+	private DLLNode<T>[] table;	//hash index, linear probing, at most half full; null if not indexed
+	private int height;	//highest skip level in use
+	private int seed;	//xorshift state for skip heights
 	
 	//Constructor that initialized a new list with a sentinel that references the head and tail of the list.
 	public DLLDynamicSet() {
 		
+		this(false);
+	}
+	
+	//Constructor for a list that, if indexed is true, keeps a hash index and skip levels.
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public DLLDynamicSet(boolean indexed) {
+		
 		super();
 		head = new DLLNode<T>(null, null);
 		head.setNext(head);
 		head.setPrev(head);
+		this.indexed = indexed;
+		if(indexed) {
+			head.setHeight(MAX_HEIGHT);
+			for(int level = 1; level <= MAX_HEIGHT; level++) {
+				head.setNext(level, head);
+				head.setPrev(level, head);
+			}
+			table = new DLLNode[INITIAL_CAPACITY];
+			height = 0;
+			seed = (int)System.nanoTime() | 1;
+		}
+	}
+	
+	public boolean isIndexed() {
+		
+		return indexed;
 	}
 	
 	/////////////// Main method test ///////////////
@@ -96,23 +135,40 @@ public class DLLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 		//testing predecessor
 		testNode = set.predecessor(n2);
-		System.out.println("Predecessor of " + n2.getKey() + ": " + testNode.getKey());
+		if(testNode != null)
+			System.out.println("Predecessor of " + n2.getKey() + ": " + testNode.getKey());
+		else
+			System.out.println(n2.getKey() + " has no predecessor.");
 				
 		testNode = set.predecessor(n1);
-		System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+		if(testNode != null)
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+		else
+			System.out.println(n1.getKey() + " has no predecessor.");
 				
 		//testing successor
 		testNode = set.successor(n2);
-		System.out.println("Successor of " + n2.getKey() + ": " + testNode.getKey());
+		if(testNode != null)
+			System.out.println("Successor of " + n2.getKey() + ": " + testNode.getKey());
+		else
+			System.out.println(n2.getKey() + " has no successor.");
 				
 		testNode = set.successor(n3);
-		System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+		if(testNode != null)
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+		else
+			System.out.println(n3.getKey() + " has no successor.");
 		
 	}
 	
 	//insert element into list
 	public void insert(SetElement<T> e) {
 		
+		if(indexed) {
+			insertIndexed(e);
+			return;
+		}
+		
 		if(search(e.getKey()) == null) {
 			
 			DLLNode<T> toAdd = new DLLNode<T>(e.getKey(), e.getData());
@@ -135,14 +191,143 @@ public class DLLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 	}
 	
+	//insert into an indexed list: the hash index rejects duplicates, and the skip levels are descended
+	//from the top to find the last node with a smaller key on every level the new node is linked into.
+	private void insertIndexed(SetElement<T> e) {
+		
+		T k = e.getKey();
+		if(lookup(k) != null)
+			return;
+		
+		DLLNode<T> toAdd = new DLLNode<T>(k, e.getData());
+		int h = randomHeight();
+		if(h > 0)
+			toAdd.setHeight(h);
+		for(; height < h; height++)
+			stats.levelCreated();
+		
+		DLLNode<T> current = head;
+		for(int level = height; level >= 0; level--) {
+			DLLNode<T> next = current.getNext(level);
+			while(next != head && compare(next, k) < 0) {
+				current = next;
+				next = current.getNext(level);
+			}
+			if(level <= h) {
+				toAdd.setNext(level, next);
+				toAdd.setPrev(level, current);
+				current.setNext(level, toAdd);
+				next.setPrev(level, toAdd);
+			}
+		}
+		
+		if((super.size + 1) * 2 > table.length)
+			resize(table.length * 2);
+		addToIndex(toAdd);
+		super.size++;
+	}
+	
+	//compares the key of node with k, counting the node as visited
+	private int compare(DLLNode<T> node, T k) {
+		
+		stats.visited();
+		stats.compared();
+		return node.getKey().compareTo(k);
+	}
+	
+	//Geometric skip height with p = 1/4: the number of trailing zero bit pairs of a xorshift word.
+	private int randomHeight() {
+		
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return Math.min(Integer.numberOfTrailingZeros(seed) >>> 1, MAX_HEIGHT);
+	}
+	
+	//home slot of key k in the hash index
+	private int slot(T k) {
+		
+		int h = k.hashCode() * 0x9E3779B9;	//spread the low bits of clustered hash codes
+		return (h ^ (h >>> 16)) & (table.length - 1);
+	}
+	
+	//Returns the node with key k from the hash index, or null if k is not in the set.
+	private DLLNode<T> lookup(T k) {
+		
+		int mask = table.length - 1;
+		for(int i = slot(k); table[i] != null; i = (i + 1) & mask) {
+			stats.visited();
+			stats.compared();
+			if(table[i].getKey().equals(k))
+				return table[i];
+		}
+		return null;
+	}
+	
+	private void addToIndex(DLLNode<T> node) {
+		
+		int mask = table.length - 1;
+		int i = slot(node.getKey());
+		while(table[i] != null)
+			i = (i + 1) & mask;
+		table[i] = node;
+	}
+	
+	//Removes node from the hash index. Later entries of the probe run are shifted back into the hole
+	//when their home slot allows it, so a lookup never stops early and no tombstones are needed.
+	private void removeFromIndex(DLLNode<T> node) {
+		
+		int mask = table.length - 1;
+		int hole = slot(node.getKey());
+		while(table[hole] != node)
+			hole = (hole + 1) & mask;
+		
+		for(int i = (hole + 1) & mask; table[i] != null; i = (i + 1) & mask) {
+			int home = slot(table[i].getKey());
+			if(((i - home) & mask) >= ((i - hole) & mask)) {	//home is not between the hole and i
+				table[hole] = table[i];
+				hole = i;
+			}
+		}
+		table[hole] = null;
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void resize(int capacity) {
+		
+		DLLNode<T>[] old = table;
+		table = new DLLNode[capacity];
+		for(DLLNode<T> node : old) {
+			if(node != null)
+				addToIndex(node);
+		}
+	}
+	
 	private DLLNode<T> searchPosition (T k) {
 		
+		if(indexed && k != null) {
+			
+			//descend the skip levels to the last node with a key < k
+			DLLNode<T> current = head;
+			for(int level = height; level >= 0; level--) {
+				DLLNode<T> next = current.getNext(level);
+				while(next != head && compare(next, k) < 0) {
+					current = next;
+					next = current.getNext(level);
+				}
+			}
+			if(current.getNext() == head)
+				return null;
+			else
+				return current.getNext();
+		}
+		
 		if (k != null && head.getNext().getKey() != null) {
 			
 			DLLNode<T> current = head.getNext();	//assign head to current
 			
 			//loop through list until the current possition's key is >= k
-			while(current != head && current.getKey().compareTo(k) < 0) {
+			while(current != head && compare(current, k) < 0) {
 				current = current.getNext();
 			}
 			if(current == head) {
@@ -163,11 +348,23 @@ public class DLLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			
 			DLLNode<T> node = search(e.getKey());
 			
-			if(node != null) {
+			if(node != null && indexed) {
+				//unlink from the list and from every skip level the node is on
+				for(int level = node.getHeight(); level >= 0; level--) {
+					node.getPrev(level).setNext(level, node.getNext(level));
+					node.getNext(level).setPrev(level, node.getPrev(level));
+				}
+				while(height > 0 && head.getNext(height) == head) {
+					height--;
+					stats.levelRemoved();
+				}
+				removeFromIndex(node);
+				super.size--;	//update size
+			}
+			else if(node != null) {
 				node.getPrev().setNext(node.getNext());
 				node.getNext().setPrev(node.getPrev());
 				super.size--;	//update size
-				System.gc();	//run garbage collector
 			}
 		}
 	}
@@ -175,19 +372,22 @@ public class DLLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 	//Find a a SetElement with key 'k' and returns a pointer to it,
 	//or returns a pointer to the node with the greatest key < k,
 	//or null if the key is always < k.
+	//An indexed list answers from the hash index instead.
 	public DLLNode<T> search(T k) {
 		
-		if (k != null && head.getNext().getKey() != null) {
+		if (indexed)
+			return k == null ? null : lookup(k);
+		else if (k != null && head.getNext().getKey() != null) {
 			
 			DLLNode<T> current = head.getNext();
 			
 			//loop through the list until the key is >= to k
-			while(current != head && current.getKey().compareTo(k) < 0) {
+			while(current != head && compare(current, k) < 0) {
 				current = current.getNext();
 			}
 			if(current == head)
 				return null;
-			else if(current.getKey().compareTo(k) == 0)
+			else if(compare(current, k) == 0)
 				return current;
 			else
 				return null;
@@ -196,6 +396,15 @@ public class DLLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			return null;
 	}
 	
+	//Returns the number of levels a search walks: the list, plus the skip levels in use above it in an
+	//indexed list. 0 if the list is empty.
+	public int height() {
+		
+		if(super.size == 0)
+			return 0;
+		return indexed ? height + 1 : 1;
+	}
+	
 	//Find a SetElement that has the smallest key, and returns a pointer to it, or null if empty
 	public DLLNode<T> minimum() {
 		
@@ -224,7 +433,7 @@ public class DLLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			
 			DLLNode<T> succ = search(e.getKey());
 			
-			if(succ != null)
+			if(succ != null && succ.getNext() != head)
 				return succ.getNext();
 			else
 				return null;
@@ -241,15 +450,92 @@ public class DLLDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			
 			DLLNode<T> pred = search(e.getKey());
 			
-			if(pred != null)
+			if(pred != null && pred.getPrev() != head)
 				return pred.getPrev();
 			else
-				return pred;
+				return null;
 		}
 		else
 			return null;
 	}
 	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//Finding the first element walks the list from the head (or descends the skip levels of an indexed
+	//list), every step after it follows one next pointer.
+	public Cursor<T> range(final T lo, T hi) {
+		
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+				
+				if(lo == null)
+					return minimum();
+				else
+					return searchPosition(lo);
+			}
+			
+			protected SetElement<T> step(SetElement<T> e) {
+				
+				DLLNode<T> next = ((DLLNode<T>)e).getNext();
+				if(next == head)
+					return null;
+				else
+					return next;
+			}
+		};
+	}
+	
+	//Returns a spliterator over the elements in key order. A part knows how many nodes it holds, so it
+	//is split by walking a stride of half of them, and every part is exactly SIZED.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return new ListSpliterator(head.getNext(), super.size);
+	}
+	
+	private class ListSpliterator implements Spliterator<SetElement<T>> {
+		
+		private DLLNode<T> next;	//next node to visit
+		private long remaining;	//number of nodes from next on that belong to this part
+		
+		ListSpliterator(DLLNode<T> next, long remaining) {
+			
+			this.next = next;
+			this.remaining = remaining;
+		}
+		
+		public boolean tryAdvance(Consumer<? super SetElement<T>> action) {
+			
+			if(remaining == 0)
+				return false;
+			DLLNode<T> node = next;
+			next = node.getNext();
+			remaining--;
+			action.accept(node);
+			return true;
+		}
+		
+		public Spliterator<SetElement<T>> trySplit() {
+			
+			long half = remaining / 2;
+			if(half == 0)
+				return null;
+			ListSpliterator prefix = new ListSpliterator(next, half);
+			for(long i = 0; i < half; i++)
+				next = next.getNext();
+			remaining -= half;
+			return prefix;
+		}
+		
+		public long estimateSize() {
+			
+			return remaining;
+		}
+		
+		public int characteristics() {
+			
+			return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+		}
+	}
+	
 	public String toString() {
 		
 		StringBuilder result = new StringBuilder("[");
@@ -35,12 +35,16 @@ public class DLLNode<T extends Comparable<T>> extends SetElement<T> implements C
 	
 	private DLLNode<T> next;
 	private DLLNode<T> prev;
+	private DLLNode<T>[] skipNext;	//skip levels 1..height of an indexed list, null for height 0
+	private DLLNode<T>[] skipPrev;
 	
 	public DLLNode(T newKey, T data) {
 		
 		super(newKey, data);
 		this.next = null;
 		this.prev = null;
+		this.skipNext = null;
+		this.skipPrev = null;
 	}
 	
 	//returns next node in linked list
@@ -66,6 +70,56 @@ public class DLLNode<T extends Comparable<T>> extends SetElement<T> implements C
 		this.prev = prev;
 	}
 	
+	//returns the number of skip levels the node is linked into above the list itself
+	public int getHeight() {
+		
+		if(this.skipNext == null)
+			return 0;
+		else
+			return this.skipNext.length;
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	void setHeight(int height) {
+		
+		this.skipNext = new DLLNode[height];
+		this.skipPrev = new DLLNode[height];
+	}
+	
+	//returns next node on the given skip level, level 0 is the linked list itself
+	public DLLNode<T> getNext(int level) {
+		
+		if(level == 0)
+			return this.next;
+		else
+			return this.skipNext[level - 1];
+	}
+	
+	//returns previous node on the given skip level, level 0 is the linked list itself
+	public DLLNode<T> getPrev(int level) {
+		
+		if(level == 0)
+			return this.prev;
+		else
+			return this.skipPrev[level - 1];
+	}
+	
+	void setNext(int level, DLLNode<T> next) {
+		
+		if(level == 0)
+			this.next = next;
+		else
+			this.skipNext[level - 1] = next;
+	}
+	
+	void setPrev(int level, DLLNode<T> prev) {
+		
+		if(level == 0)
+			this.prev = prev;
+		else
+			this.skipPrev[level - 1] = prev;
+	}
+	
 	//compareTo method that will compare two DLL nodes and return
 	//negative if the referenced node is less than element, 
 	//positive if the referenced node is greater than element,
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package DynamicSet;
+
+//A forward walk over the elements of a DynamicSet in key order, from the first key >= lo up to
+//but not including hi. The cursor starts before the first element; next() moves it one element
+//on, so a scan reads
+//
+//	Cursor<T> c = set.range(lo, hi);
+//	while (c.next())
+//		use(c.current());
+//
+//and may stop at any time. Stepping allocates nothing: current() is the element held by the set.
+//The set must not be modified while a cursor is in use.
+public abstract class Cursor<T extends Comparable<T>> {
+	
+	private final T hi;	//exclusive upper bound, null for none
+	private SetElement<T> current;
+	private boolean started;
+	private boolean done;
+	
+	protected Cursor(T hi) {
+		
+		this.hi = hi;
+		this.current = null;
+		this.started = false;
+		this.done = false;
+	}
+	
+	//Moves to the next element of the range and returns true, or returns false if the range is exhausted.
+	public boolean next() {
+		
+		if (done)
+			return false;
+		SetElement<T> e = started ? step(current) : first();
+		started = true;
+		if (e == null || (hi != null && e.getKey().compareTo(hi) >= 0)) {
+			done = true;
+			current = null;
+			return false;
+		}
+		current = e;
+		return true;
+	}
+	
+	//Returns the element the cursor is on, or null before the first and after the last call to next().
+	public SetElement<T> current() {
+		
+		return current;
+	}
+	
+	//Returns the key of the element the cursor is on.
+	public T getKey() {
+		
+		return current.getKey();
+	}
+	
+	//Finds the first element of the range (the smallest key >= lo), or null if there is none.
+	protected abstract SetElement<T> first();
+	
+	//Given the element the cursor is on, returns the element with the next larger key, or null.
+	protected abstract SetElement<T> step(SetElement<T> e);
+}
@@ -29,21 +29,35 @@
 
 package DynamicSet;
 
-public abstract class DynamicSet<T> {
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public abstract class DynamicSet<T extends Comparable<T>> implements Iterable<SetElement<T>> {
 
 
 	protected int size;
+	protected final SetStatistics stats;	//work counted when SetStatistics.ENABLED
 	
 	//Create an instance of DynamicSet and initialize it with an empty set.
 	public DynamicSet() {
 		
 		this.size = 0;
+		this.stats = new SetStatistics();
 	}
 	
 	//Returns the number of elements currently in the set.
 	public int size() {
 		
-		return this.size();	
+		return this.size;	
 	}
 	
 	//Insert element e in the set.
@@ -69,4 +83,136 @@ public abstract class DynamicSet<T> {
 	//and returns a pointer to it, or null if e is the minimum element.
 	public abstract SetElement<T> predecessor(SetElement<T> e);
 	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//A null lo starts at the minimum, a null hi runs to the maximum.
+	public abstract Cursor<T> range(T lo, T hi);
+	
+	//Returns the number of levels a search may descend through: the height of a tree in nodes, the
+	//number of levels of a skip list. 0 if the set is empty.
+	public abstract int height();
+	
+	//Returns a copy of the work counted so far (see SetStatistics), all zero unless counting is enabled.
+	public SetStatistics getStatistics() {
+		
+		return stats.copy();
+	}
+	
+	public void resetStatistics() {
+		
+		stats.reset();
+	}
+	
+	//Returns a cursor over the elements with keys from k (inclusive) to the maximum, in key order.
+	public Cursor<T> tailFrom(T k) {
+		
+		return range(k, null);
+	}
+	
+	//Returns an iterator over the elements of the set in key order, backed by a cursor over the whole set.
+	public Iterator<SetElement<T>> iterator() {
+		
+		final Cursor<T> cursor = range(null, null);
+		return new Iterator<SetElement<T>>() {
+			private boolean ahead = false;	//cursor has been moved to the element next() returns
+			private boolean more = false;
+			
+			public boolean hasNext() {
+				
+				if (!ahead) {
+					more = cursor.next();
+					ahead = true;
+				}
+				return more;
+			}
+			
+			public SetElement<T> next() {
+				
+				if (!hasNext())
+					throw new NoSuchElementException();
+				ahead = false;
+				return cursor.current();
+			}
+		};
+	}
+	
+	//Returns an ORDERED, DISTINCT, SIZED and SUBSIZED spliterator over the elements of the set in key
+	//order. This one splits off batches read from iterator(); implementations override it to split
+	//along their own structure.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+	
+	//Returns a sequential stream of the elements of the set in key order.
+	public Stream<SetElement<T>> stream() {
+		
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	//Returns a parallel stream of the elements of the set, which the common ForkJoinPool works on
+	//in the parts spliterator() splits the set into. The set must not be modified meanwhile.
+	public Stream<SetElement<T>> parallelStream() {
+		
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	//Returns a read-only copy of the set in the given layout, which searches faster than most sets
+	//(see StaticOrderedIndex). Later changes to the set do not reach the copy.
+	public StaticOrderedIndex<T> freeze(StaticOrderedIndex.Layout layout) {
+		
+		return new StaticOrderedIndex<T>(this, layout);
+	}
+	
+	//Returns a read-only copy of the set in the Eytzinger layout.
+	public StaticOrderedIndex<T> freeze() {
+		
+		return freeze(StaticOrderedIndex.Layout.EYTZINGER);
+	}
+	
+	//Inserts every element of elements in the set, like a series of insert calls. Implementations
+	//that can build themselves from sorted input in linear time override this.
+	public void bulkLoad(Iterator<? extends SetElement<T>> elements) {
+		
+		while (elements.hasNext())
+			insert(elements.next());
+	}
+	
+	//Inserts every element of the array in the set, see bulkLoad(Iterator).
+	public void bulkLoad(SetElement<T>[] elements) {
+		
+		bulkLoad(Arrays.asList(elements).iterator());
+	}
+	
+	//Merges the elements already in a set (sorted by key, distinct) with elements to be added (any
+	//order) into one list sorted by key without duplicates; on equal keys the first one wins, so
+	//existing elements are kept. The added list is only sorted if a linear scan finds it out of order.
+	protected static <T extends Comparable<T>, E extends SetElement<T>> ArrayList<E> sortedUnion(List<E> existing, List<E> added) {
+		
+		boolean sorted = true;
+		for (int i = 1; i < added.size() && sorted; i++)
+			if (added.get(i - 1).getKey().compareTo(added.get(i).getKey()) > 0)
+				sorted = false;
+		if (!sorted)
+			Collections.sort(added, new Comparator<E>() {	//stable, so the first of equal keys stays first
+				public int compare(E a, E b) {
+					
+					return a.getKey().compareTo(b.getKey());
+				}
+			});
+		
+		ArrayList<E> result = new ArrayList<E>(existing.size() + added.size());
+		int i = 0;
+		int j = 0;
+		while (i < existing.size() || j < added.size()) {
+			E next;
+			if (j == added.size() || (i < existing.size() && existing.get(i).getKey().compareTo(added.get(j).getKey()) <= 0))
+				next = existing.get(i++);
+			else
+				next = added.get(j++);
+			if (result.isEmpty() || result.get(result.size() - 1).getKey().compareTo(next.getKey()) != 0)
+				result.add(next);
+		}
+		return result;
+	}
+	
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package DynamicSet;
+
+/*
+ * Counts the work a DynamicSet does, to explain its running times: key comparisons, nodes visited,
+ * rotations, and levels created and removed (skip list levels, and the root splits and merges that
+ * change the height of a B+-tree). A B+-tree counts a key moved between siblings as a rotation.
+ *
+ * Counting is off unless the JVM is started with -Ddynamicset.stats=true. ENABLED is a static final
+ * constant, so when it is false the JIT folds every counting call into nothing and the sets run
+ * exactly as fast as without them.
+ *
+ * Every DynamicSet counts into its own SetStatistics. getStatistics() returns a copy, and the
+ * difference of the copies taken before and after a run of operations, divided by the number of
+ * operations, is the work per operation. The counters are plain longs: counts made by several
+ * threads at once may lose increments.
+ */
+public class SetStatistics {
+
+	public static final boolean ENABLED = Boolean.getBoolean("dynamicset.stats");
+
+	private long comparisons;
+	private long visits;
+	private long rotations;
+	private long levelsCreated;
+	private long levelsRemoved;
+
+	public SetStatistics() {
+
+		reset();
+	}
+
+	public void compared() {
+
+		if (ENABLED)
+			comparisons++;
+	}
+
+	public void visited() {
+
+		if (ENABLED)
+			visits++;
+	}
+
+	public void rotated() {
+
+		if (ENABLED)
+			rotations++;
+	}
+
+	public void levelCreated() {
+
+		if (ENABLED)
+			levelsCreated++;
+	}
+
+	public void levelRemoved() {
+
+		if (ENABLED)
+			levelsRemoved++;
+	}
+
+	public long getComparisons() {
+
+		return comparisons;
+	}
+
+	public long getVisits() {
+
+		return visits;
+	}
+
+	public long getRotations() {
+
+		return rotations;
+	}
+
+	public long getLevelsCreated() {
+
+		return levelsCreated;
+	}
+
+	public long getLevelsRemoved() {
+
+		return levelsRemoved;
+	}
+
+	public void reset() {
+
+		comparisons = 0;
+		visits = 0;
+		rotations = 0;
+		levelsCreated = 0;
+		levelsRemoved = 0;
+	}
+
+	//Adds the counts of other to these.
+	public void add(SetStatistics other) {
+
+		comparisons += other.comparisons;
+		visits += other.visits;
+		rotations += other.rotations;
+		levelsCreated += other.levelsCreated;
+		levelsRemoved += other.levelsRemoved;
+	}
+
+	public SetStatistics copy() {
+
+		SetStatistics result = new SetStatistics();
+		result.add(this);
+		return result;
+	}
+
+	//Returns the counts made since before was copied.
+	public SetStatistics minus(SetStatistics before) {
+
+		SetStatistics result = copy();
+		result.comparisons -= before.comparisons;
+		result.visits -= before.visits;
+		result.rotations -= before.rotations;
+		result.levelsCreated -= before.levelsCreated;
+		result.levelsRemoved -= before.levelsRemoved;
+		return result;
+	}
+
+	public String toString() {
+
+		return "comparisons=" + comparisons + " visits=" + visits + " rotations=" + rotations
+			+ " levelsCreated=" + levelsCreated + " levelsRemoved=" + levelsRemoved;
+	}
+}
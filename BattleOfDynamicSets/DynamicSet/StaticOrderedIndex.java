@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package DynamicSet;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/*
+ * A read-only copy of a DynamicSet laid out for searching, made by DynamicSet.freeze(). The keys
+ * are stored as an implicit complete binary search tree in one array, so a search computes the
+ * index of the next node instead of loading a child pointer, and the nodes it visits first share
+ * cache lines:
+ *
+ *	EYTZINGER	breadth-first order: node i has children 2i and 2i + 1, and the 16 descendants four
+ *			levels below a node are adjacent, one cache line of references.
+ *	VAN_EMDE_BOAS	recursive order: the top half of the levels is stored first, followed by every
+ *			subtree of the bottom half, each laid out the same way. A search touches O(log_B n)
+ *			blocks of any size B without knowing B. The tree is padded to 2^h - 1 nodes.
+ *
+ * The descent has no data-dependent branch: it always runs the full height and picks the child
+ * with a compare, not a jump, and the first key >= k is recovered from the path afterwards.
+ * Elements are kept in key order next to the tree, so range, successor and predecessor step
+ * through consecutive slots of an array.
+ */
+public class StaticOrderedIndex<T extends Comparable<T>> extends DynamicSet<T> {
+
+	public enum Layout {
+		EYTZINGER,
+		VAN_EMDE_BOAS
+	}
+
+	private final Layout layout;
+	private final SetElement<T>[] sorted;	//elements in key order
+	private final Object[] keys;	//keys in layout order, null for padding (larger than every key)
+	private final int[] ranks;	//ranks[p] is the index in sorted of keys[p]
+	private final int height;	//levels of the implicit tree
+
+	//van Emde Boas tables, per depth d > 0: the node at depth d is the root of a bottom tree whose
+	//top tree is rooted at depth above[d], has topSize[d] nodes and is followed by bottom trees of
+	//bottomSize[d] nodes each.
+	private final int[] above;
+	private final int[] topSize;
+	private final int[] bottomSize;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	StaticOrderedIndex(DynamicSet<T> set, Layout layout) {
+
+		super();
+		this.layout = layout;
+		int n = set.size();
+		sorted = new SetElement[n];
+		Cursor<T> c = set.range(null, null);
+		while (c.next())
+			sorted[super.size++] = new Element<T>(c.getKey(), c.current().getData());
+		height = 32 - Integer.numberOfLeadingZeros(n);	//levels of a complete tree with >= n nodes
+
+		if (layout == Layout.EYTZINGER) {
+			keys = new Object[n + 1];	//1-based, keys[0] unused
+			ranks = new int[n + 1];
+			fillEytzinger(1, 0);
+			above = null;
+			topSize = null;
+			bottomSize = null;
+		}
+		else {
+			int nodes = (1 << height) - 1;
+			keys = new Object[nodes];
+			ranks = new int[nodes];
+			above = new int[height];
+			topSize = new int[height];
+			bottomSize = new int[height];
+			split(0, height);
+			//place node i (breadth-first, 1-based) at position[i], then fill in order
+			int[] position = new int[nodes + 1];
+			for (int i = 2, d = 1; i <= nodes; i++) {
+				if (i == 1 << (d + 1))
+					d++;
+				position[i] = position[i >> (d - above[d])] + topSize[d] + (i & topSize[d]) * bottomSize[d];
+			}
+			fillVanEmdeBoas(1, 0, position);
+		}
+	}
+
+	public Layout getLayout() {
+
+		return layout;
+	}
+
+	//A StaticOrderedIndex never changes.
+	public void insert(SetElement<T> e) {
+
+		throw new UnsupportedOperationException("a StaticOrderedIndex is read-only");
+	}
+
+	//A StaticOrderedIndex never changes.
+	public void delete(SetElement<T> e) {
+
+		throw new UnsupportedOperationException("a StaticOrderedIndex is read-only");
+	}
+
+	//Finds a SetElement with key 'k' and returns a pointer to it or null if not found
+	public SetElement<T> search(T k) {
+
+		if (k == null)
+			return null;
+		int r = rank(k, false);
+		if (r < super.size && compare(sorted[r], k) == 0)
+			return sorted[r];
+		else
+			return null;
+	}
+
+	public SetElement<T> minimum() {
+
+		return (super.size == 0) ? null : sorted[0];
+	}
+
+	public SetElement<T> maximum() {
+
+		return (super.size == 0) ? null : sorted[super.size - 1];
+	}
+
+	public SetElement<T> successor(SetElement<T> e) {
+
+		int r = rank(e.getKey(), false);
+		if (r + 1 < super.size && compare(sorted[r], e.getKey()) == 0)
+			return sorted[r + 1];
+		else
+			return null;
+	}
+
+	public SetElement<T> predecessor(SetElement<T> e) {
+
+		int r = rank(e.getKey(), false);
+		if (r > 0 && r < super.size && compare(sorted[r], e.getKey()) == 0)
+			return sorted[r - 1];
+		else
+			return null;
+	}
+
+	private int compare(SetElement<T> e, T k) {
+
+		stats.compared();
+		return e.getKey().compareTo(k);
+	}
+
+	//Returns the number of levels of the implicit tree, which every search descends in full.
+	public int height() {
+
+		return height;
+	}
+
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//lo is found by one search of the tree, the scan then reads the sorted elements in sequence.
+	public Cursor<T> range(final T lo, T hi) {
+
+		return new Cursor<T>(hi) {
+			private int index;
+
+			protected SetElement<T> first() {
+
+				index = (lo == null) ? 0 : rank(lo, false);
+				return (index < size) ? sorted[index] : null;
+			}
+
+			protected SetElement<T> step(SetElement<T> e) {
+
+				index++;
+				return (index < size) ? sorted[index] : null;
+			}
+		};
+	}
+
+	public Spliterator<SetElement<T>> spliterator() {
+
+		return Spliterators.spliterator(sorted, 0, super.size, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+	}
+
+	//Returns the number of keys smaller than k, or not larger than k if strict, which is the index in
+	//sorted of the first key >= k (> k if strict).
+	public int rank(T k, boolean strict) {
+
+		if (layout == Layout.EYTZINGER)
+			return rankEytzinger(k, strict);
+		else
+			return rankVanEmdeBoas(k, strict);
+	}
+
+	@SuppressWarnings("unchecked")
+	private int rankEytzinger(T k, boolean strict) {
+
+		int limit = strict ? 1 : 0;	//go right while compareTo(k) < limit
+		int n = super.size;
+		int i = 1;
+		while (i <= n) {
+			stats.visited();
+			stats.compared();
+			i = 2 * i + ((((T)keys[i]).compareTo(k) < limit) ? 1 : 0);
+		}
+		//i went right after the answer and then only left: drop those left turns and the right turn
+		i >>= Integer.numberOfTrailingZeros(~i) + 1;
+		return (i == 0) ? n : ranks[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	private int rankVanEmdeBoas(T k, boolean strict) {
+
+		int limit = strict ? 1 : 0;
+		int i = 1;
+		for (int d = 0; d < height; d++) {
+			T key = (T)keys[position(i, d)];
+			stats.visited();
+			if (key != null)
+				stats.compared();	//padding nodes are not compared
+			i = 2 * i + ((key != null && key.compareTo(k) < limit) ? 1 : 0);
+		}
+		int turns = Integer.numberOfTrailingZeros(~i) + 1;
+		return (turns > height) ? super.size : ranks[position(i >> turns, height - turns)];
+	}
+
+	//Returns the position in keys of the node at depth d with breadth-first index i. Each bottom tree
+	//on the way up adds its offset past the top tree above it, O(log height) steps, so a search
+	//needs no record of the positions it visited.
+	private int position(int i, int d) {
+
+		int p = 0;
+		for (int e = d; e > 0; e = above[e])
+			p += topSize[e] + ((i >> (d - e)) & topSize[e]) * bottomSize[e];
+		return p;
+	}
+
+	//Fills the breadth-first tree below node i in order with the sorted keys from rank r on, and
+	//returns the next rank.
+	private int fillEytzinger(int i, int r) {
+
+		if (i > super.size)
+			return r;
+		r = fillEytzinger(2 * i, r);
+		keys[i] = sorted[r].getKey();
+		ranks[i] = r;
+		return fillEytzinger(2 * i + 1, r + 1);
+	}
+
+	private int fillVanEmdeBoas(int i, int r, int[] position) {
+
+		if (i >= position.length)
+			return r;
+		r = fillVanEmdeBoas(2 * i, r, position);
+		if (r < super.size) {
+			keys[position[i]] = sorted[r].getKey();
+			ranks[position[i]] = r;
+		}
+		else
+			ranks[position[i]] = super.size;
+		return fillVanEmdeBoas(2 * i + 1, r + 1, position);
+	}
+
+	//Records the van Emde Boas split of a tree of h levels rooted at depth root: the top tree takes
+	//h / 2 levels and the bottom trees the rest, and both are split the same way.
+	private void split(int root, int h) {
+
+		if (h <= 1)
+			return;
+		int top = h / 2;
+		int bottom = h - top;
+		above[root + top] = root;
+		topSize[root + top] = (1 << top) - 1;
+		bottomSize[root + top] = (1 << bottom) - 1;
+		split(root, top);
+		split(root + top, bottom);
+	}
+
+	public String toString() {
+
+		StringBuilder result = new StringBuilder();
+		result.append("[");
+		for (int i = 0; i < super.size; i++) {
+			if (i > 0)
+				result.append(", ");
+			result.append(sorted[i].getKey());
+		}
+		result.append("]");
+		return result.toString();
+	}
+
+	//An element of a StaticOrderedIndex, a copy of the element of the frozen set.
+	public static final class Element<T> extends SetElement<T> {
+
+		Element(T key, T data) {
+
+			super(key, data);
+		}
+
+		public void setData(T data) {
+
+			throw new UnsupportedOperationException("a StaticOrderedIndex is read-only");
+		}
+	}
+}
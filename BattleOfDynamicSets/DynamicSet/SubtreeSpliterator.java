@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package DynamicSet;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+//A Spliterator over the elements of a binary search tree, in key order, that splits at subtrees.
+//What is left to visit is a short list of pending items, each either a single node or a whole
+//subtree; trySplit hands the first items, about half of the remaining elements, to a new
+//spliterator, and opens up (left subtree, node, right subtree) the one item that straddles the
+//middle. A balanced tree therefore splits into halves in O(log n), and traversal walks the tree
+//with an explicit stack without allocating per element.
+//
+//When the tree keeps subtree sizes every split knows its exact size (SIZED and SUBSIZED); otherwise
+//the halves are estimates and only the unsplit spliterator is SIZED. The tree must not be modified
+//while the spliterator is in use.
+public class SubtreeSpliterator<T extends Comparable<T>, N extends SetElement<T>> implements Spliterator<SetElement<T>> {
+	
+	//How the spliterator reads the tree.
+	public interface Tree<N> {
+		
+		//Returns the left child of node, or null if it has none.
+		N left(N node);
+		
+		//Returns the right child of node, or null if it has none.
+		N right(N node);
+		
+		//Returns the number of nodes in the subtree of node, or -1 if the tree does not keep subtree sizes.
+		long size(N node);
+	}
+	
+	private final Tree<N> tree;
+	private final boolean sized;	//every item size is exact
+	private Object[] nodes;	//pending items, the first one in key order last
+	private long[] sizes;
+	private boolean[] whole;	//true for a whole subtree, false for a single node
+	private int count;
+	private long remaining;	//exact if sized or not yet split
+	private boolean split;
+	
+	//Creates a spliterator over the subtree of root (null for an empty tree), which holds size elements.
+	public SubtreeSpliterator(N root, long size, Tree<N> tree) {
+		
+		this(tree, root != null && tree.size(root) >= 0, 16);
+		if (root != null)
+			push(root, size, true);
+		this.remaining = size;
+	}
+	
+	private SubtreeSpliterator(Tree<N> tree, boolean sized, int capacity) {
+		
+		this.tree = tree;
+		this.sized = sized;
+		this.nodes = new Object[capacity];
+		this.sizes = new long[capacity];
+		this.whole = new boolean[capacity];
+		this.count = 0;
+		this.split = false;
+	}
+	
+	public boolean tryAdvance(Consumer<? super SetElement<T>> action) {
+		
+		while (count > 0) {
+			count--;
+			N node = node(count);
+			if (whole[count])
+				open(node, sizes[count]);
+			else {
+				nodes[count] = null;
+				remaining--;
+				action.accept(node);
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	public void forEachRemaining(Consumer<? super SetElement<T>> action) {
+		
+		while (tryAdvance(action))
+			;
+	}
+	
+	//Hands the first half of the remaining elements to a new spliterator.
+	public Spliterator<SetElement<T>> trySplit() {
+		
+		long half = remaining / 2;
+		if (half <= 0)
+			return null;
+		long taken = 0;
+		int i = count - 1;
+		while (i >= 0) {
+			long s = sizes[i];
+			if (taken + s <= half) {
+				taken += s;
+				i--;
+			}
+			else if (whole[i] && s > 1) {
+				//the item straddles the middle, replace it by its parts and look again
+				N node = node(i);
+				int above = count - i - 1;
+				Object[] nodesAbove = new Object[above];
+				long[] sizesAbove = new long[above];
+				boolean[] wholeAbove = new boolean[above];
+				System.arraycopy(nodes, i + 1, nodesAbove, 0, above);
+				System.arraycopy(sizes, i + 1, sizesAbove, 0, above);
+				System.arraycopy(whole, i + 1, wholeAbove, 0, above);
+				count = i;
+				open(node, s);
+				i = count - 1;
+				for (int j = 0; j < above; j++)
+					push(nodesAbove[j], sizesAbove[j], wholeAbove[j]);
+			}
+			else
+				break;
+		}
+		if (taken == 0 || i < 0)
+			return null;
+		
+		//items i + 1 .. count - 1 become the prefix
+		int moved = count - i - 1;
+		SubtreeSpliterator<T, N> prefix = new SubtreeSpliterator<T, N>(tree, sized, Math.max(16, moved * 2));
+		System.arraycopy(nodes, i + 1, prefix.nodes, 0, moved);
+		System.arraycopy(sizes, i + 1, prefix.sizes, 0, moved);
+		System.arraycopy(whole, i + 1, prefix.whole, 0, moved);
+		prefix.count = moved;
+		prefix.remaining = taken;
+		prefix.split = true;
+		for (int j = i + 1; j < count; j++)
+			nodes[j] = null;
+		count = i + 1;
+		remaining -= taken;
+		split = true;
+		return prefix;
+	}
+	
+	public long estimateSize() {
+		
+		return Math.max(remaining, 0);
+	}
+	
+	public int characteristics() {
+		
+		int characteristics = ORDERED | DISTINCT | NONNULL;
+		if (sized)
+			characteristics |= SIZED | SUBSIZED;
+		else if (!split)
+			characteristics |= SIZED;	//exact until the first split
+		return characteristics;
+	}
+	
+	//Replaces a whole subtree by its right subtree, its root and its left subtree, so the left
+	//subtree is next.
+	private void open(N node, long size) {
+		
+		N left = tree.left(node);
+		N right = tree.right(node);
+		long leftSize;
+		long rightSize;
+		if (sized) {
+			leftSize = (left == null) ? 0 : tree.size(left);
+			rightSize = (right == null) ? 0 : tree.size(right);
+		}
+		else if (left == null || right == null) {
+			leftSize = size - 1;	//the one child gets the whole estimate
+			rightSize = size - 1;
+		}
+		else {
+			leftSize = (size - 1) / 2;
+			rightSize = size - 1 - leftSize;
+		}
+		if (right != null)
+			push(right, Math.max(rightSize, 1), true);
+		push(node, 1, false);
+		if (left != null)
+			push(left, Math.max(leftSize, 1), true);
+	}
+	
+	private void push(Object node, long size, boolean isWhole) {
+		
+		if (count == nodes.length) {
+			int capacity = count * 2;
+			Object[] newNodes = new Object[capacity];
+			long[] newSizes = new long[capacity];
+			boolean[] newWhole = new boolean[capacity];
+			System.arraycopy(nodes, 0, newNodes, 0, count);
+			System.arraycopy(sizes, 0, newSizes, 0, count);
+			System.arraycopy(whole, 0, newWhole, 0, count);
+			nodes = newNodes;
+			sizes = newSizes;
+			whole = newWhole;
+		}
+		nodes[count] = node;
+		sizes[count] = size;
+		whole[count] = isWhole;
+		count++;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private N node(int i) {
+		
+		return (N)nodes[i];
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package InstrumentedDynamicSet;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.FlightRecorder;
+import DynamicSet.*;
+import RedBlackDynamicSet.*;
+
+//Wraps any DynamicSet and records how long calls of insert, delete, search, minimum, maximum,
+//successor and predecessor take, in one OperationStats histogram per operation.
+//
+//Reading the clock twice costs 20 to 60 ns depending on the machine, more than many operations
+//themselves, so by default one call in DEFAULT_SAMPLE_EVERY, picked at random, is timed. The other
+//calls only draw a thread-local random number, a few nanoseconds, and the counts are scaled up.
+//Percentiles of a random sample are those of all calls, but the maximum is the sampled maximum.
+//Use sampleEvery 1 to time every call.
+//
+//publish() makes the histograms visible outside the program: as MBeans named
+//DynamicSet:type=InstrumentedDynamicSet,name=<name>,operation=<operation> (in jconsole or any JMX
+//client), and as a DynamicSet.OperationLatency Flight Recorder event per operation every second.
+//
+//The decorator adds no synchronization: wrap a ConcurrentDynamicSet to share the set between threads.
+public class InstrumentedDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+
+	public enum Operation {
+		INSERT,
+		DELETE,
+		SEARCH,
+		MINIMUM,
+		MAXIMUM,
+		SUCCESSOR,
+		PREDECESSOR
+	}
+
+	public static final int DEFAULT_SAMPLE_EVERY = 16;
+
+	private final DynamicSet<T> set;
+	private final String name;
+	private final int sampleMask;	//a call is timed if a random int has none of these bits
+	private final OperationStats[] stats;
+	private Runnable events;	//Flight Recorder hook, null while not published
+
+	public InstrumentedDynamicSet(DynamicSet<T> set, String name) {
+
+		this(set, name, DEFAULT_SAMPLE_EVERY);
+	}
+
+	//Times one call in sampleEvery, which must be a power of two.
+	public InstrumentedDynamicSet(DynamicSet<T> set, String name, int sampleEvery) {
+
+		super();
+		if (sampleEvery < 1 || Integer.bitCount(sampleEvery) != 1)
+			throw new IllegalArgumentException("sampleEvery must be a power of two: " + sampleEvery);
+		this.set = set;
+		this.name = name;
+		this.sampleMask = sampleEvery - 1;
+		stats = new OperationStats[Operation.values().length];
+		for (Operation op : Operation.values())
+			stats[op.ordinal()] = new OperationStats(op.name().toLowerCase(), sampleEvery);
+		events = null;
+	}
+
+	public static void main(String []args) {
+
+		InstrumentedDynamicSet<String> set = new InstrumentedDynamicSet<String>(new RedBlackDynamicSet<String>(), "names");
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+
+		RBTNode<String> n1 = new RBTNode<String>(s1, s1);
+		RBTNode<String> n2 = new RBTNode<String>(s2, s2);
+		RBTNode<String> n3 = new RBTNode<String>(s3, s3);
+		RBTNode<String> n4 = new RBTNode<String>(s4, s4);
+
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n4);
+
+		//a few million calls, so the histograms show the steady state
+		for (int i = 0; i < 1000000; i++) {
+			set.search(s1);
+			set.successor(n2);
+			set.predecessor(n3);
+			set.minimum();
+			set.maximum();
+		}
+		for (int i = 0; i < 100000; i++) {
+			set.delete(n4);
+			set.insert(n4);
+		}
+
+		for (Operation op : Operation.values())
+			System.out.println(set.getStats(op));
+	}
+
+	//Returns the set this one measures.
+	public DynamicSet<T> getSet() {
+
+		return set;
+	}
+
+	public int getSampleEvery() {
+
+		return sampleMask + 1;
+	}
+
+	public String getName() {
+
+		return name;
+	}
+
+	public OperationStats getStats(Operation op) {
+
+		return stats[op.ordinal()];
+	}
+
+	//Clears the histograms of all operations.
+	public void reset() {
+
+		for (OperationStats s : stats)
+			s.reset();
+	}
+
+	//Registers one MBean per operation with the platform MBean server and starts emitting Flight
+	//Recorder events. Throws IllegalStateException if MBeans of the same name are registered already.
+	public synchronized void publish() {
+
+		if (events != null)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			for (Operation op : Operation.values())
+				server.registerMBean(stats[op.ordinal()], objectName(op));
+		} catch (JMException jme) {
+			unregister(server);
+			throw new IllegalStateException("cannot register the MBeans of " + name, jme);
+		}
+		events = new Runnable() {
+			public void run() {
+
+				for (OperationStats s : stats) {
+					LatencyEvent event = new LatencyEvent();
+					event.set = name;
+					event.operation = s.getOperation();
+					event.count = s.getCount();
+					event.mean = Math.round(s.getMeanNanos());
+					event.p50 = s.getP50Nanos();
+					event.p99 = s.getP99Nanos();
+					event.p999 = s.getP999Nanos();
+					event.max = s.getMaxNanos();
+					event.commit();
+				}
+			}
+		};
+		FlightRecorder.addPeriodicEvent(LatencyEvent.class, events);
+	}
+
+	//Undoes publish().
+	public synchronized void unpublish() {
+
+		if (events == null)
+			return;
+		FlightRecorder.removePeriodicEvent(events);
+		events = null;
+		unregister(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	private void unregister(MBeanServer server) {
+
+		for (Operation op : Operation.values()) {
+			try {
+				ObjectName objectName = objectName(op);
+				if (server.isRegistered(objectName))
+					server.unregisterMBean(objectName);
+			} catch (JMException jme) {
+				//not registered, nothing to undo
+			}
+		}
+	}
+
+	private ObjectName objectName(Operation op) throws JMException {
+
+		return new ObjectName("DynamicSet:type=InstrumentedDynamicSet,name=" + ObjectName.quote(name)
+				+ ",operation=" + op.name().toLowerCase());
+	}
+
+	//Returns the number of elements currently in the set.
+	public int size() {
+
+		return set.size();
+	}
+
+	public void insert(SetElement<T> e) {
+
+		if (!sample()) {
+			set.insert(e);
+			return;
+		}
+		long start = System.nanoTime();
+		set.insert(e);
+		stats[0].record(System.nanoTime() - start);
+	}
+
+	public void delete(SetElement<T> e) {
+
+		if (!sample()) {
+			set.delete(e);
+			return;
+		}
+		long start = System.nanoTime();
+		set.delete(e);
+		stats[1].record(System.nanoTime() - start);
+	}
+
+	public SetElement<T> search(T k) {
+
+		if (!sample())
+			return set.search(k);
+		long start = System.nanoTime();
+		SetElement<T> result = set.search(k);
+		stats[2].record(System.nanoTime() - start);
+		return result;
+	}
+
+	public SetElement<T> minimum() {
+
+		if (!sample())
+			return set.minimum();
+		long start = System.nanoTime();
+		SetElement<T> result = set.minimum();
+		stats[3].record(System.nanoTime() - start);
+		return result;
+	}
+
+	public SetElement<T> maximum() {
+
+		if (!sample())
+			return set.maximum();
+		long start = System.nanoTime();
+		SetElement<T> result = set.maximum();
+		stats[4].record(System.nanoTime() - start);
+		return result;
+	}
+
+	public SetElement<T> successor(SetElement<T> e) {
+
+		if (!sample())
+			return set.successor(e);
+		long start = System.nanoTime();
+		SetElement<T> result = set.successor(e);
+		stats[5].record(System.nanoTime() - start);
+		return result;
+	}
+
+	public SetElement<T> predecessor(SetElement<T> e) {
+
+		if (!sample())
+			return set.predecessor(e);
+		long start = System.nanoTime();
+		SetElement<T> result = set.predecessor(e);
+		stats[6].record(System.nanoTime() - start);
+		return result;
+	}
+
+	private boolean sample() {
+
+		return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+	}
+
+	//Not measured: the time of a scan depends on how far the caller reads.
+	public Cursor<T> range(T lo, T hi) {
+
+		return set.range(lo, hi);
+	}
+
+	public void bulkLoad(Iterator<? extends SetElement<T>> elements) {
+
+		set.bulkLoad(elements);
+	}
+
+	public Spliterator<SetElement<T>> spliterator() {
+
+		return set.spliterator();
+	}
+
+	public int height() {
+
+		return set.height();
+	}
+
+	public SetStatistics getStatistics() {
+
+		return set.getStatistics();
+	}
+
+	public void resetStatistics() {
+
+		set.resetStatistics();
+	}
+
+	public String toString() {
+
+		return set.toString();
+	}
+}
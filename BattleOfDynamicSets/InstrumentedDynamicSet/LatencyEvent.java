@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package InstrumentedDynamicSet;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+//Flight Recorder event with the latency statistics of one operation of an InstrumentedDynamicSet,
+//emitted every second for every operation of every published set while a recording is running.
+@Name("DynamicSet.OperationLatency")
+@Label("DynamicSet Operation Latency")
+@Category("DynamicSet")
+@Description("Latency of one operation of an InstrumentedDynamicSet since it was created or reset")
+@Period("1 s")
+@StackTrace(false)
+public class LatencyEvent extends Event {
+
+	@Label("Set")
+	String set;
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Calls")
+	long count;
+
+	@Label("Mean")
+	@Timespan(Timespan.NANOSECONDS)
+	long mean;
+
+	@Label("50th Percentile")
+	@Timespan(Timespan.NANOSECONDS)
+	long p50;
+
+	@Label("99th Percentile")
+	@Timespan(Timespan.NANOSECONDS)
+	long p99;
+
+	@Label("99.9th Percentile")
+	@Timespan(Timespan.NANOSECONDS)
+	long p999;
+
+	@Label("Maximum")
+	@Timespan(Timespan.NANOSECONDS)
+	long max;
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package InstrumentedDynamicSet;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Latency histogram of one operation, recorded from any number of threads without locks. Buckets
+ * are log-linear: values below 16 ns get a bucket each and every power of two above is cut into 8
+ * buckets (at most 12.5% wide). Each thread counts into one of several stripes picked by its id, so
+ * threads rarely increment the same cache line; readers add the stripes up.
+ *
+ * If only one call in sampleEvery is recorded, counts are multiplied by sampleEvery.
+ */
+public class OperationStats implements OperationStatsMBean {
+
+	public static final long MAX_VALUE = (1L << 40) - 1;
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = index(MAX_VALUE) + 1;
+	private static final int SUM = BUCKETS;	//slots after the buckets in every stripe
+	private static final int MAX = BUCKETS + 1;
+
+	private final String operation;
+	private final int sampleEvery;
+	private final AtomicLongArray[] stripes;
+
+	public OperationStats(String operation, int sampleEvery) {
+
+		this.operation = operation;
+		this.sampleEvery = sampleEvery;
+		int n = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);	//next power of two
+		stripes = new AtomicLongArray[n];
+		for (int i = 0; i < n; i++)
+			stripes[i] = new AtomicLongArray(BUCKETS + 2);
+	}
+
+	//Records one call that took nanos.
+	public void record(long nanos) {
+
+		long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+		AtomicLongArray stripe = stripes[(int)Thread.currentThread().getId() & (stripes.length - 1)];
+		stripe.getAndIncrement(index(value));
+		stripe.getAndAdd(SUM, value);
+		if (value > stripe.get(MAX))
+			stripe.accumulateAndGet(MAX, value, Math::max);
+	}
+
+	public String getOperation() {
+
+		return operation;
+	}
+
+	//Returns the number of calls, estimated from the recorded ones.
+	public long getCount() {
+
+		return recorded() * sampleEvery;
+	}
+
+	private long recorded() {
+
+		long count = 0;
+		for (AtomicLongArray stripe : stripes)
+			for (int i = 0; i < BUCKETS; i++)
+				count += stripe.get(i);
+		return count;
+	}
+
+	public double getMeanNanos() {
+
+		long count = recorded();
+		long sum = 0;
+		for (AtomicLongArray stripe : stripes)
+			sum += stripe.get(SUM);
+		return (count == 0) ? 0 : (double)sum / count;
+	}
+
+	public long getMaxNanos() {
+
+		long max = 0;
+		for (AtomicLongArray stripe : stripes)
+			max = Math.max(max, stripe.get(MAX));
+		return max;
+	}
+
+	public long getP50Nanos() {
+
+		return getPercentileNanos(50);
+	}
+
+	public long getP99Nanos() {
+
+		return getPercentileNanos(99);
+	}
+
+	public long getP999Nanos() {
+
+		return getPercentileNanos(99.9);
+	}
+
+	//Returns the middle of the bucket holding the given percentile, or 0 if nothing was recorded.
+	public long getPercentileNanos(double percentile) {
+
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (AtomicLongArray stripe : stripes)
+			for (int i = 0; i < BUCKETS; i++) {
+				long c = stripe.get(i);
+				counts[i] += c;
+				total += c;
+			}
+		if (total == 0)
+			return 0;
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min((lowest(i) + lowest(i + 1) - 1) / 2, getMaxNanos());
+		}
+		return getMaxNanos();
+	}
+
+	//Clears the histogram. Calls recorded while it runs may be partly kept.
+	public void reset() {
+
+		for (AtomicLongArray stripe : stripes)
+			for (int i = 0; i < stripe.length(); i++)
+				stripe.set(i, 0);
+	}
+
+	private static int index(long value) {
+
+		if (value < 2 * SUB_BUCKETS)
+			return (int)value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int)(value >>> shift);
+	}
+
+	private static long lowest(int index) {
+
+		if (index < 2 * SUB_BUCKETS)
+			return index;
+		int shift = (index >> SUB_BUCKET_BITS) - 1;
+		return (long)((index & (SUB_BUCKETS - 1)) | SUB_BUCKETS) << shift;
+	}
+
+	public String toString() {
+
+		return String.format("%-11s %10d calls, mean %.1f ns, p50 %d ns, p99 %d ns, p999 %d ns, max %d ns", operation,
+				getCount(), getMeanNanos(), getP50Nanos(), getP99Nanos(), getP999Nanos(), getMaxNanos());
+	}
+}
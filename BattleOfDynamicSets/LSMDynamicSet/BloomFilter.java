@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package LSMDynamicSet;
+
+//Blocked Bloom filter over the keys of one sorted run. A key sets PROBES bits that all lie in one
+//512-bit block (a cache line), so a lookup costs at most one cache miss instead of one per probe.
+//With BITS_PER_KEY bits per key about 1% of the absent keys are reported as present.
+class BloomFilter {
+
+	static final int BITS_PER_KEY = 10;
+	private static final int PROBES = 7;
+	private static final int BLOCK_WORDS = 8;	//64-bit words per block
+
+	private final long[] words;
+	private final int blocks;
+
+	BloomFilter(int keys) {
+
+		blocks = Math.max(1, (int)(((long)keys * BITS_PER_KEY + 511) / 512));
+		words = new long[blocks * BLOCK_WORDS];
+	}
+
+	//Spreads the hash code of a key over 64 bits (the murmur3 finalizer). Computed once per operation
+	//and handed to every filter.
+	static long hash(int hashCode) {
+
+		long h = hashCode;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	void add(long hash) {
+
+		int base = block(hash) * BLOCK_WORDS;
+		long g = hash * 0x9e3779b97f4a7c15L;
+		for (int i = 0; i < PROBES; i++) {
+			int bit = (int)(g >>> (9 * i)) & 511;
+			words[base + (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	//Returns false if the key was certainly never added, true if it probably was.
+	boolean mightContain(long hash) {
+
+		int base = block(hash) * BLOCK_WORDS;
+		long g = hash * 0x9e3779b97f4a7c15L;
+		for (int i = 0; i < PROBES; i++) {
+			int bit = (int)(g >>> (9 * i)) & 511;
+			if ((words[base + (bit >>> 6)] & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	private int block(long hash) {
+
+		return (int)(((hash >>> 32) * blocks) >>> 32);	//high bits scaled to [0, blocks)
+	}
+}
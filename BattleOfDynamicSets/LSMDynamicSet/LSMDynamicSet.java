@@ -0,0 +1,563 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package LSMDynamicSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import DynamicSet.*;
+
+/*
+ * Log-structured merge set for write-heavy workloads. Inserts and deletes go to a small skip list,
+ * the memtable, which stays in the caches. When it holds memtableCapacity entries it is written
+ * out as an immutable sorted run: a sorted array of keys, the matching elements and a Bloom
+ * filter. Runs are merged by size-tiered compaction: runs are grouped in tiers by size (tier t
+ * holds up to memtableCapacity * fanIn^t keys), and as soon as fanIn runs of one tier sit next to
+ * each other they are merged into one run of the next tier, so every element is rewritten
+ * O(log(n / memtableCapacity)) times, sequentially, instead of paying pointer updates at random
+ * places of a large tree on every insert.
+ *
+ * A delete writes a tombstone (a null element) that hides the key in older runs; tombstones are
+ * dropped when a merge reaches the oldest run. The newest occurrence of a key decides: memtable
+ * first, then the runs from newest to oldest. A search skips every run whose Bloom filter rules
+ * the key out, which is most of them, so it binary-searches about one run. minimum, maximum,
+ * successor and predecessor take the nearest key of every run and of the memtable; range()
+ * merges all of them with a heap.
+ *
+ * Like the other sets, an insert of a key already in the set is ignored. This needs the same
+ * lookup as a search, which the Bloom filters keep cheap for new keys.
+ */
+public class LSMDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+
+	public static final int DEFAULT_MEMTABLE_CAPACITY = 4096;
+	public static final int DEFAULT_FAN_IN = 4;
+
+	private final int memtableCapacity;	//entries, tombstones included, that trigger a flush
+	private final int fanIn;	//runs of one tier merged together
+	private final Memtable<T> memtable;
+	private final ArrayList<SortedRun<T>> runs;	//newest first
+
+	public LSMDynamicSet() {
+
+		this(DEFAULT_MEMTABLE_CAPACITY, DEFAULT_FAN_IN);
+	}
+
+	public LSMDynamicSet(int memtableCapacity, int fanIn) {
+
+		super();
+		if (memtableCapacity < 1)
+			throw new IllegalArgumentException("memtableCapacity must be at least 1: " + memtableCapacity);
+		if (fanIn < 2)
+			throw new IllegalArgumentException("fanIn must be at least 2: " + fanIn);
+		this.memtableCapacity = memtableCapacity;
+		this.fanIn = fanIn;
+		this.memtable = new Memtable<T>();
+		this.runs = new ArrayList<SortedRun<T>>();
+	}
+
+	public static void main(String []args) {
+
+		LSMDynamicSet<String> set = new LSMDynamicSet<String>(2, 2);
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+
+		LSMElement<String> n1 = new LSMElement<String>(s1, s1);
+		LSMElement<String> n2 = new LSMElement<String>(s2, s2);
+		LSMElement<String> n3 = new LSMElement<String>(s3, s3);
+		LSMElement<String> n4 = new LSMElement<String>(s4, s4);
+
+		//test insert
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n4);
+		set.insert(n1);
+
+		System.out.println(set.toString() + " in " + set.getRunCount() + " runs");
+
+		//delete keys that live in sorted runs, then insert one again
+		set.delete(n2);
+		set.delete(n3);
+		System.out.println(set.toString() + " in " + set.getRunCount() + " runs");
+		set.insert(n2);
+		set.insert(n3);
+
+		//testing max
+		SetElement<String> testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+
+		//testing successor
+		testNode = set.successor(n3);
+		if (testNode == null)
+			System.out.println("No Successor of " + n3.getKey());
+		else
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+
+		//testing predecessor
+		testNode = set.predecessor(n1);
+		if (testNode == null)
+			System.out.println("No Predecessor of " + n1.getKey());
+		else
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+	}
+
+	public int getMemtableCapacity() {
+
+		return memtableCapacity;
+	}
+
+	public int getFanIn() {
+
+		return fanIn;
+	}
+
+	//Returns the number of sorted runs, not counting the memtable.
+	public int getRunCount() {
+
+		return runs.size();
+	}
+
+	public void insert(SetElement<T> e) {
+
+		T k = e.getKey();
+		Memtable.Entry<T> entry = memtable.find(k, stats);
+		if (entry != null) {
+			if (entry.element != null)
+				return;	//already in the set
+			entry.element = e;	//replaces a tombstone
+			super.size++;
+			return;
+		}
+		if (searchRuns(k, BloomFilter.hash(k.hashCode())) != null)
+			return;
+		memtable.add(k, e);
+		super.size++;
+		if (memtable.count() >= memtableCapacity)
+			flush();
+	}
+
+	public void delete(SetElement<T> e) {
+
+		if (e == null || e.getKey() == null)
+			return;
+		T k = e.getKey();
+		Memtable.Entry<T> entry = memtable.find(k, stats);
+		SetElement<T> old = searchRuns(k, BloomFilter.hash(k.hashCode()));
+		if (entry != null) {
+			if (entry.element == null)
+				return;	//already deleted
+			if (old == null)
+				memtable.remove(entry);	//no older version to hide
+			else
+				entry.element = null;
+		}
+		else {
+			if (old == null)
+				return;	//not in the set
+			memtable.add(k, null);
+		}
+		super.size--;
+		if (memtable.count() >= memtableCapacity)
+			flush();
+	}
+
+	public SetElement<T> search(T k) {
+
+		if (k == null)
+			return null;
+		Memtable.Entry<T> entry = memtable.get(k, stats);
+		if (entry != null)
+			return entry.element;
+		return searchRuns(k, BloomFilter.hash(k.hashCode()));
+	}
+
+	//Returns the element of the newest run holding k, null if it is a tombstone or no run holds k.
+	private SetElement<T> searchRuns(T k, long hash) {
+
+		for (int r = 0; r < runs.size(); r++) {
+			SortedRun<T> run = runs.get(r);
+			if (!run.mightContain(hash))
+				continue;
+			int i = run.indexOf(k, stats);
+			if (i >= 0)
+				return run.elements[i];
+		}
+		return null;
+	}
+
+	public SetElement<T> minimum() {
+
+		return ceiling(null, true);
+	}
+
+	public SetElement<T> maximum() {
+
+		return floor(null, true);
+	}
+
+	public SetElement<T> successor(SetElement<T> e) {
+
+		return ceiling(e.getKey(), false);
+	}
+
+	public SetElement<T> predecessor(SetElement<T> e) {
+
+		return floor(e.getKey(), false);
+	}
+
+	//Returns the element with the smallest key >= k (> k if not inclusive), or null. Every run and
+	//the memtable offer their nearest key; the smallest wins, and on equal keys the newest source.
+	//If that is a tombstone the search goes on past it.
+	private SetElement<T> ceiling(T k, boolean inclusive) {
+
+		while (true) {
+			Memtable.Entry<T> entry = memtable.ceiling(k, inclusive, stats);
+			T best = (entry == null) ? null : entry.key;
+			SetElement<T> element = (entry == null) ? null : entry.element;
+			for (int r = 0; r < runs.size(); r++) {
+				SortedRun<T> run = runs.get(r);
+				int i = run.ceilingIndex(k, inclusive, stats);
+				if (i < run.length && (best == null || compare(run.key(i), best) < 0)) {
+					best = run.key(i);
+					element = run.elements[i];
+				}
+			}
+			if (best == null || element != null)
+				return element;
+			k = best;
+			inclusive = false;
+		}
+	}
+
+	//Returns the element with the largest key <= k (< k if not inclusive), or null.
+	private SetElement<T> floor(T k, boolean inclusive) {
+
+		while (true) {
+			Memtable.Entry<T> entry = memtable.floor(k, inclusive, stats);
+			T best = (entry == null) ? null : entry.key;
+			SetElement<T> element = (entry == null) ? null : entry.element;
+			for (int r = 0; r < runs.size(); r++) {
+				SortedRun<T> run = runs.get(r);
+				int i = run.floorIndex(k, inclusive, stats);
+				if (i >= 0 && (best == null || compare(run.key(i), best) > 0)) {
+					best = run.key(i);
+					element = run.elements[i];
+				}
+			}
+			if (best == null || element != null)
+				return element;
+			k = best;
+			inclusive = false;
+		}
+	}
+
+	private int compare(T a, T b) {
+
+		stats.compared();
+		return a.compareTo(b);
+	}
+
+	//Returns the number of places a search may look in: the memtable and every run. 0 if the set is empty.
+	public int height() {
+
+		return (super.size == 0) ? 0 : runs.size() + 1;
+	}
+
+	//Writes the memtable out as the newest run and compacts.
+	private void flush() {
+
+		if (memtable.count() == 0)
+			return;
+		SortedRun<T> run = memtable.flush(runs.isEmpty());
+		if (run.length > 0) {
+			runs.add(0, run);
+			stats.levelCreated();
+			compact();
+		}
+	}
+
+	//Tier of a run: 0 up to memtableCapacity keys, t up to memtableCapacity * fanIn^t keys.
+	private int tier(int length) {
+
+		int t = 0;
+		for (long limit = memtableCapacity; length > limit; limit *= fanIn)
+			t++;
+		return t;
+	}
+
+	//Merges every group of at least fanIn adjacent runs of one tier, until there is none. Only
+	//adjacent runs are merged, so the runs stay ordered by age. A run that is in a higher tier than
+	//the next older one (a merge dropped many tombstones, or a bulkLoad) is merged with it, which
+	//keeps the tiers growing from the newest run to the oldest and the groups of a tier together.
+	private void compact() {
+
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			int i = 0;
+			while (i < runs.size() && !merged) {
+				int t = tier(runs.get(i).length);
+				int j = i + 1;
+				while (j < runs.size() && tier(runs.get(j).length) == t)
+					j++;
+				if (j - i >= fanIn) {
+					merge(i, j);
+					merged = true;
+				}
+				else if (j < runs.size() && tier(runs.get(j).length) < t) {
+					merge(j - 1, j + 1);
+					merged = true;
+				}
+				else
+					i = j;
+			}
+		}
+	}
+
+	//Replaces runs[from..to) with one run. On equal keys the newest run wins; tombstones are dropped
+	//if the oldest run takes part.
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void merge(int from, int to) {
+
+		List<SortedRun<T>> group = runs.subList(from, to);
+		boolean dropTombstones = (to == runs.size());
+		int total = 0;
+		for (SortedRun<T> run : group)
+			total += run.length;
+		Object[] keys = new Object[total];
+		int[] hashCodes = new int[total];
+		SetElement<T>[] elements = new SetElement[total];
+		int[] position = new int[group.size()];
+		int n = 0;
+		while (true) {
+			int min = -1;
+			T minKey = null;
+			for (int r = 0; r < group.size(); r++) {	//newest first
+				SortedRun<T> run = group.get(r);
+				if (position[r] == run.length)
+					continue;
+				T key = run.key(position[r]);
+				if (min < 0) {
+					min = r;
+					minKey = key;
+					continue;
+				}
+				int c = compare(key, minKey);
+				if (c < 0) {
+					min = r;
+					minKey = key;
+				}
+				else if (c == 0)
+					position[r]++;	//older version of a key a newer run holds
+			}
+			if (min < 0)
+				break;
+			SortedRun<T> run = group.get(min);
+			SetElement<T> e = run.elements[position[min]];
+			if (e != null || !dropTombstones) {
+				keys[n] = minKey;
+				hashCodes[n] = run.hashCodes[position[min]];
+				elements[n] = e;
+				n++;
+			}
+			position[min]++;
+		}
+		for (int r = 0; r < group.size(); r++)
+			stats.levelRemoved();
+		group.clear();
+		if (n > 0) {
+			if (n < total) {
+				keys = Arrays.copyOf(keys, n);
+				hashCodes = Arrays.copyOf(hashCodes, n);
+				elements = Arrays.copyOf(elements, n);
+			}
+			runs.add(from, new SortedRun<T>(keys, hashCodes, elements, n));
+			stats.levelCreated();
+		}
+	}
+
+	//Inserts the elements as one new run instead of one at a time: they are sorted once, the keys
+	//already in the set are left out, and the run goes through the usual compaction.
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void bulkLoad(Iterator<? extends SetElement<T>> elements) {
+
+		ArrayList<SetElement<T>> added = new ArrayList<SetElement<T>>();
+		while (elements.hasNext())
+			added.add(elements.next());
+		if (added.isEmpty())
+			return;
+		flush();	//the memtable is newer than the loaded run must be
+		ArrayList<SetElement<T>> sorted = sortedUnion(new ArrayList<SetElement<T>>(), added);
+		Object[] keys = new Object[sorted.size()];
+		int[] hashCodes = new int[sorted.size()];
+		SetElement<T>[] loaded = new SetElement[sorted.size()];
+		int n = 0;
+		for (SetElement<T> e : sorted) {
+			int hashCode = e.getKey().hashCode();
+			if (searchRuns(e.getKey(), BloomFilter.hash(hashCode)) == null) {
+				keys[n] = e.getKey();
+				hashCodes[n] = hashCode;
+				loaded[n] = e;
+				n++;
+			}
+		}
+		if (n == 0)
+			return;
+		runs.add(0, new SortedRun<T>(keys, hashCodes, loaded, n));
+		stats.levelCreated();
+		super.size += n;
+		compact();
+	}
+
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//Every run and the memtable are positioned at lo once and merged with a heap ordered by key and
+	//age; older versions and tombstones are skipped on the way.
+	public Cursor<T> range(final T lo, T hi) {
+
+		return new Cursor<T>(hi) {
+			private PriorityQueue<Source> heap;
+
+			protected SetElement<T> first() {
+
+				heap = new PriorityQueue<Source>(runs.size() + 1, new Comparator<Source>() {
+					public int compare(Source a, Source b) {
+
+						int c = LSMDynamicSet.this.compare(a.key(), b.key());
+						return (c != 0) ? c : Integer.compare(a.age, b.age);
+					}
+				});
+				Source s = new Source(0, memtable.ceiling(lo, true, stats));
+				if (!s.isDone())
+					heap.add(s);
+				for (int r = 0; r < runs.size(); r++) {
+					SortedRun<T> run = runs.get(r);
+					s = new Source(r + 1, run, run.ceilingIndex(lo, true, stats));
+					if (!s.isDone())
+						heap.add(s);
+				}
+				return step(null);
+			}
+
+			protected SetElement<T> step(SetElement<T> e) {
+
+				while (!heap.isEmpty()) {
+					Source s = heap.poll();
+					T key = s.key();
+					SetElement<T> element = s.element();
+					advance(s);
+					while (!heap.isEmpty() && LSMDynamicSet.this.compare(heap.peek().key(), key) == 0)
+						advance(heap.poll());	//older versions of the same key
+					if (element != null)
+						return element;
+				}
+				return null;
+			}
+
+			private void advance(Source s) {
+
+				s.next();
+				if (!s.isDone())
+					heap.add(s);
+			}
+		};
+	}
+
+	//The memtable or one run, read in key order by a cursor. age is 0 for the memtable and r + 1
+	//for runs.get(r), so a smaller age is a newer version.
+	private class Source {
+
+		final int age;
+		private Memtable.Entry<T> entry;
+		private final SortedRun<T> run;
+		private int index;
+
+		Source(int age, Memtable.Entry<T> entry) {
+
+			this.age = age;
+			this.entry = entry;
+			this.run = null;
+		}
+
+		Source(int age, SortedRun<T> run, int index) {
+
+			this.age = age;
+			this.run = run;
+			this.index = index;
+		}
+
+		boolean isDone() {
+
+			return (run == null) ? entry == null : index >= run.length;
+		}
+
+		T key() {
+
+			return (run == null) ? entry.key : run.key(index);
+		}
+
+		SetElement<T> element() {
+
+			return (run == null) ? entry.element : run.elements[index];
+		}
+
+		void next() {
+
+			if (run == null)
+				entry = entry.next[0];
+			else
+				index++;
+		}
+	}
+
+	public String toString() {
+
+		StringBuilder result = new StringBuilder();
+		result.append("[");
+		Cursor<T> c = range(null, null);
+		boolean first = true;
+		while (c.next()) {
+			if (!first)
+				result.append(", ");
+			result.append(c.getKey());
+			first = false;
+		}
+		result.append("]");
+		return result.toString();
+	}
+}
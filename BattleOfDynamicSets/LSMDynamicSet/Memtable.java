@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package LSMDynamicSet;
+
+import java.util.SplittableRandom;
+import DynamicSet.*;
+
+//The write buffer of an LSMDynamicSet: a skip list from key to element, or to null for a
+//tombstone. It stays small (the flush threshold of the set), so its towers and keys stay in
+//the caches and an insert costs a few comparisons. find() records the predecessor of a key on
+//every level, which add() and remove() then splice at without a second descent.
+class Memtable<T extends Comparable<T>> {
+
+	private static final int MAX_LEVEL = 32;
+
+	static class Entry<T> {
+
+		final T key;
+		SetElement<T> element;	//null for a tombstone
+		final Entry<T>[] next;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Entry(T key, SetElement<T> element, int height) {
+
+			this.key = key;
+			this.element = element;
+			this.next = new Entry[height];
+		}
+	}
+
+	private final Entry<T> head;
+	private int levels;
+	private int count;	//entries, tombstones included
+	private final Entry<T>[] update;	//predecessor per level, filled by find
+	private final SplittableRandom random;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	Memtable() {
+
+		head = new Entry<T>(null, null, MAX_LEVEL);
+		levels = 1;
+		count = 0;
+		update = new Entry[MAX_LEVEL];
+		random = new SplittableRandom();
+	}
+
+	int count() {
+
+		return count;
+	}
+
+	//Returns the entry with key k, or null. Records the predecessors of k for add and remove.
+	//The entry that stopped the walk on one level often stops it again on the levels below, and is
+	//not compared twice.
+	Entry<T> find(T k, SetStatistics stats) {
+
+		Entry<T> p = head;
+		Entry<T> bound = null;	//known to have a key >= k
+		boolean equal = false;	//bound has the key k
+		for (int level = levels - 1; level >= 0; level--) {
+			Entry<T> next = p.next[level];
+			while (next != null && next != bound) {
+				stats.visited();
+				stats.compared();
+				int c = next.key.compareTo(k);
+				if (c >= 0) {
+					bound = next;
+					equal = (c == 0);
+					break;
+				}
+				p = next;
+				next = p.next[level];
+			}
+			update[level] = p;
+		}
+		return equal ? bound : null;	//the walk on level 0 stops at bound, the first key >= k
+	}
+
+	//Returns the entry with key k, or null. Unlike find it writes nothing, so readers may share it.
+	Entry<T> get(T k, SetStatistics stats) {
+
+		Entry<T> e = ceiling(k, true, stats);
+		if (e != null) {
+			stats.compared();
+			if (e.key.compareTo(k) == 0)
+				return e;
+		}
+		return null;
+	}
+
+	//Adds k after a find(k) that returned null.
+	void add(T k, SetElement<T> element) {
+
+		int height = Integer.numberOfTrailingZeros(random.nextInt() | Integer.MIN_VALUE) + 1;
+		for (; levels < height; levels++)
+			update[levels] = head;
+		Entry<T> e = new Entry<T>(k, element, height);
+		for (int i = 0; i < height; i++) {
+			e.next[i] = update[i].next[i];
+			update[i].next[i] = e;
+		}
+		count++;
+	}
+
+	//Unlinks the entry a find returned.
+	void remove(Entry<T> e) {
+
+		for (int i = 0; i < e.next.length; i++)
+			update[i].next[i] = e.next[i];
+		while (levels > 1 && head.next[levels - 1] == null)
+			levels--;
+		count--;
+	}
+
+	//Returns the entry with the smallest key >= k (> k if not inclusive), or null. A null k is
+	//below every key.
+	Entry<T> ceiling(T k, boolean inclusive, SetStatistics stats) {
+
+		if (k == null)
+			return head.next[0];
+		Entry<T> p = head;	//last entry with a key < k (<= k if not inclusive)
+		for (int level = levels - 1; level >= 0; level--) {
+			Entry<T> next = p.next[level];
+			while (next != null) {
+				stats.visited();
+				stats.compared();
+				int c = next.key.compareTo(k);
+				if (c > 0 || (c == 0 && inclusive))
+					break;
+				p = next;
+				next = p.next[level];
+			}
+		}
+		return p.next[0];
+	}
+
+	//Returns the entry with the largest key <= k (< k if not inclusive), or null. A null k is
+	//above every key.
+	Entry<T> floor(T k, boolean inclusive, SetStatistics stats) {
+
+		Entry<T> p = head;
+		for (int level = levels - 1; level >= 0; level--) {
+			Entry<T> next = p.next[level];
+			while (next != null) {
+				if (k != null) {
+					stats.visited();
+					stats.compared();
+					int c = next.key.compareTo(k);
+					if (c > 0 || (c == 0 && !inclusive))
+						break;
+				}
+				p = next;
+				next = p.next[level];
+			}
+		}
+		return p == head ? null : p;
+	}
+
+	//Copies the entries into a sorted run and empties the memtable. Tombstones are left out if
+	//there is no older run for them to hide keys in.
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	SortedRun<T> flush(boolean dropTombstones) {
+
+		Object[] keys = new Object[count];
+		int[] hashCodes = new int[count];
+		SetElement<T>[] elements = new SetElement[count];
+		int n = 0;
+		for (Entry<T> e = head.next[0]; e != null; e = e.next[0])
+			if (e.element != null || !dropTombstones) {
+				keys[n] = e.key;
+				hashCodes[n] = e.key.hashCode();
+				elements[n] = e.element;
+				n++;
+			}
+		for (int i = 0; i < MAX_LEVEL; i++)
+			head.next[i] = null;
+		levels = 1;
+		count = 0;
+		return new SortedRun<T>(keys, hashCodes, elements, n);
+	}
+}
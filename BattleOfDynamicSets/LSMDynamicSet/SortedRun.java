@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package LSMDynamicSet;
+
+import DynamicSet.*;
+
+//An immutable run of an LSMDynamicSet: distinct keys in sorted order in one array, the matching
+//elements and the hash codes of the keys in two more, and a Bloom filter over the keys. A null
+//element is a tombstone, which hides the key in older runs until a merge reaches the oldest run
+//and drops it. The hash codes let a merge build the filter of its output without loading every
+//key again.
+class SortedRun<T extends Comparable<T>> {
+
+	final Object[] keys;
+	final int[] hashCodes;
+	final SetElement<T>[] elements;
+	final int length;
+	private final BloomFilter filter;
+
+	SortedRun(Object[] keys, int[] hashCodes, SetElement<T>[] elements, int length) {
+
+		this.keys = keys;
+		this.hashCodes = hashCodes;
+		this.elements = elements;
+		this.length = length;
+		this.filter = new BloomFilter(length);
+		for (int i = 0; i < length; i++)
+			filter.add(BloomFilter.hash(hashCodes[i]));
+	}
+
+	@SuppressWarnings("unchecked")
+	T key(int i) {
+
+		return (T)keys[i];
+	}
+
+	boolean mightContain(long hash) {
+
+		return filter.mightContain(hash);
+	}
+
+	//Returns the index of k, or -(insertion point) - 1 if absent.
+	int indexOf(T k, SetStatistics stats) {
+
+		stats.visited();
+		int low = 0;
+		int high = length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			stats.compared();
+			int c = key(mid).compareTo(k);
+			if (c < 0)
+				low = mid + 1;
+			else if (c > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+
+	//Returns the index of the smallest key >= k (> k if not inclusive), length if there is none.
+	//A null k is below every key.
+	int ceilingIndex(T k, boolean inclusive, SetStatistics stats) {
+
+		if (k == null)
+			return 0;
+		int i = indexOf(k, stats);
+		if (i >= 0)
+			return inclusive ? i : i + 1;
+		return -(i + 1);
+	}
+
+	//Returns the index of the largest key <= k (< k if not inclusive), -1 if there is none.
+	//A null k is above every key.
+	int floorIndex(T k, boolean inclusive, SetStatistics stats) {
+
+		if (k == null)
+			return length - 1;
+		int i = indexOf(k, stats);
+		if (i >= 0)
+			return inclusive ? i : i - 1;
+		return -(i + 1) - 1;
+	}
+}
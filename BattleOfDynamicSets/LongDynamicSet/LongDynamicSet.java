@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package LongDynamicSet;
+
+//DynamicSet for primitive long keys. Keys are never boxed: implementations keep them in long[]
+//arrays and compare them with primitive operators. Elements are addressed by int handles
+//(indices into those arrays) instead of SetElement pointers; NIL takes the place of null.
+//A handle stays valid until its key is deleted.
+public abstract class LongDynamicSet {
+
+	public static final int NIL = -1;
+
+	protected int size;
+	
+	//Create an instance of LongDynamicSet and initialize it with an empty set.
+	public LongDynamicSet() {
+		
+		this.size = 0;
+	}
+	
+	//Returns the number of elements currently in the set.
+	public int size() {
+		
+		return this.size;	
+	}
+	
+	//Insert key k in the set. Does nothing if k is already in the set.
+	public abstract void insert(long k);
+	
+	//Removes key k from the set. Does nothing if k is not in the set.
+	public abstract void delete(long k);
+	
+	//Finds the element with key k and returns a handle to it or NIL if not found
+	public abstract int search(long k);
+	
+	//Finds the element that has the smallest key, and returns a handle to it, or NIL if the set is empty.
+	public abstract int minimum();
+	
+	//Finds the element that has the largest key, and returns a handle to it, or NIL if the set is empty.
+	public abstract int maximum();
+	
+	//Given a handle to element e in the set, finds the element in the set that has the next larger key,
+	//and returns a handle to it, or NIL if e is the maximum element.
+	public abstract int successor(int e);
+	
+	//Given a handle to element e in the set, finds the element in the set that has the next smaller key,
+	//and returns a handle to it, or NIL if e is the minimum element.
+	public abstract int predecessor(int e);
+	
+	//Returns the key of the element with handle e.
+	public abstract long key(int e);
+	
+}
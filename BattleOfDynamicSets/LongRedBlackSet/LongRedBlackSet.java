@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package LongRedBlackSet;
+
+import java.util.Arrays;
+import LongDynamicSet.*;
+
+//Red-black tree over primitive long keys. A node is an index into parallel arrays (key, left,
+//right, parent, color), so the tree holds no per-node objects and no boxed keys. Index 0 is the
+//sentinel nil of Cormen et al; slots of deleted nodes are kept on a free list and reused.
+public class LongRedBlackSet extends LongDynamicSet {
+	
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int nil = 0;
+	
+	private long[] keys;
+	private int[] left;
+	private int[] right;
+	private int[] parent;
+	private boolean[] red;	//true for red, false for black
+	private int root;
+	private int used;	//slots handed out so far, slot 0 is nil
+	private int free;	//head of the free list (chained through left), nil if empty
+	
+	public LongRedBlackSet() {
+		
+		this(DEFAULT_CAPACITY);
+	}
+	
+	//Create an empty set with room for capacity keys before the arrays grow.
+	public LongRedBlackSet(int capacity) {
+		
+		super();
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		keys = new long[capacity + 1];
+		left = new int[capacity + 1];
+		right = new int[capacity + 1];
+		parent = new int[capacity + 1];
+		red = new boolean[capacity + 1];
+		root = nil;
+		used = 1;
+		free = nil;
+	}
+	
+	public static void main(String []args) {
+		
+		LongRedBlackSet set = new LongRedBlackSet();
+		long s1 = 1024L;
+		long s2 = 7L;
+		long s3 = 4294967296L;
+		long s4 = 512L;
+		
+		//testing insert
+		set.insert(s1);
+		set.insert(s2);
+		set.insert(s3);
+		set.insert(s4);
+		set.insert(s1);
+		
+		System.out.println(set.key(set.search(s3)));
+		set.delete(s4);
+		set.delete(s3);
+		set.delete(s2);
+		set.delete(s1);
+		set.delete(s1);
+		
+		set.insert(s4);
+		set.insert(s2);
+		set.insert(s3);
+		set.insert(s1);
+		set.insert(s1);
+		
+		//testing max
+		System.out.println("Maximum set element: " + set.key(set.maximum()));
+		
+		//testing min
+		System.out.println("Minimum set element: " + set.key(set.minimum()));
+		
+		//testing successor
+		int testNode = set.successor(set.search(s3));
+		if (testNode == NIL)
+			System.out.println("No Successor of " + s3);
+		else
+			System.out.println("Successor of " + s3 + ": " + set.key(testNode));
+		
+		//testing predecessor
+		testNode = set.predecessor(set.search(s1));
+		if (testNode == NIL)
+			System.out.println("No Predecessor of " + s1);
+		else
+			System.out.println("Predecessor of " + s1 + ": " + set.key(testNode));
+	}
+	
+	/*
+	 * Methods taken from algorithms provided from Cormen et al's text
+	 * Introduction of Algorithms, MIT Press, 2009.
+	 */
+	
+	//Insert key k in the set. The descent that finds the insert location also detects duplicates.
+	public void insert(long k) {
+		
+		int trailing = nil;
+		int current = root;
+		while (current != nil) {
+			trailing = current;
+			if (k < keys[current])
+				current = left[current];
+			else if (k > keys[current])
+				current = right[current];
+			else
+				return;	//k is already in the tree
+		}
+		
+		int toAdd = allocate(k);
+		parent[toAdd] = trailing;
+		if (trailing == nil)
+			root = toAdd;
+		else if (k < keys[trailing])
+			left[trailing] = toAdd;
+		else
+			right[trailing] = toAdd;
+		RBInsertFixup(toAdd);
+		super.size++;
+	}
+	
+	//Takes a slot from the free list, or a fresh one, and initializes it as a red leaf.
+	private int allocate(long k) {
+		
+		int node;
+		if (free != nil) {
+			node = free;
+			free = left[node];
+		}
+		else {
+			if (used == keys.length)
+				grow();
+			node = used++;
+		}
+		keys[node] = k;
+		left[node] = nil;
+		right[node] = nil;
+		parent[node] = nil;
+		red[node] = true;
+		return node;
+	}
+	
+	private void release(int node) {
+		
+		left[node] = free;
+		free = node;
+	}
+	
+	private void grow() {
+		
+		int capacity = keys.length + (keys.length >> 1) + 1;
+		keys = Arrays.copyOf(keys, capacity);
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		red = Arrays.copyOf(red, capacity);
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void RBInsertFixup(int node) {
+		
+		int uncle;
+		while (red[parent[node]]) {	//if node's parent is red
+			int grandparent = parent[parent[node]];
+			if (parent[node] == left[grandparent]) {
+				uncle = right[grandparent];
+				if (red[uncle]) {
+					red[parent[node]] = false;
+					red[uncle] = false;
+					red[grandparent] = true;
+					node = grandparent;
+				}
+				else {
+					if (node == right[parent[node]]) {
+						node = parent[node];
+						LeftRotate(node);
+					}
+					red[parent[node]] = false;
+					red[parent[parent[node]]] = true;
+					RightRotate(parent[parent[node]]);
+				}
+			}
+			else {
+				uncle = left[grandparent];
+				if (red[uncle]) {
+					red[parent[node]] = false;
+					red[uncle] = false;
+					red[grandparent] = true;
+					node = grandparent;
+				}
+				else {
+					if (node == left[parent[node]]) {
+						node = parent[node];
+						RightRotate(node);
+					}
+					red[parent[node]] = false;
+					red[parent[parent[node]]] = true;
+					LeftRotate(parent[parent[node]]);
+				}
+			}
+		}
+		red[root] = false;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void LeftRotate(int node) {
+		
+		int rightchild = right[node];
+		right[node] = left[rightchild];
+		if (left[rightchild] != nil)
+			parent[left[rightchild]] = node;
+		parent[rightchild] = parent[node];
+		if (parent[node] == nil)
+			root = rightchild;
+		else if (node == left[parent[node]])
+			left[parent[node]] = rightchild;
+		else
+			right[parent[node]] = rightchild;
+		left[rightchild] = node;
+		parent[node] = rightchild;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void RightRotate(int node) {
+		
+		int leftchild = left[node];
+		left[node] = right[leftchild];
+		if (right[leftchild] != nil)
+			parent[right[leftchild]] = node;
+		parent[leftchild] = parent[node];
+		if (parent[node] == nil)
+			root = leftchild;
+		else if (node == right[parent[node]])
+			right[parent[node]] = leftchild;
+		else
+			left[parent[node]] = leftchild;
+		right[leftchild] = node;
+		parent[node] = leftchild;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	//Removes key k from the set.
+	public void delete(long k) {
+		
+		int node = find(k);
+		if (node == nil)
+			return;
+		
+		int trailing = node;
+		int leading;
+		boolean original = red[trailing];	//store trailing node's original color
+		if (left[node] == nil) {
+			leading = right[node];
+			RedBlackTransplant(node, right[node]);
+		}
+		else if (right[node] == nil) {
+			leading = left[node];
+			RedBlackTransplant(node, left[node]);
+		}
+		else {
+			trailing = RBTreeMinimum(right[node]);
+			original = red[trailing];
+			leading = right[trailing];
+			if (parent[trailing] == node)
+				parent[leading] = trailing;
+			else {
+				RedBlackTransplant(trailing, right[trailing]);
+				right[trailing] = right[node];
+				parent[right[trailing]] = trailing;
+			}
+			RedBlackTransplant(node, trailing);
+			left[trailing] = left[node];
+			parent[left[trailing]] = trailing;
+			red[trailing] = red[node];
+		}
+		if (!original)	//a black node was removed
+			RedBlackDeleteFixup(leading);
+		release(node);
+		super.size--;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void RedBlackDeleteFixup(int leading) {
+		
+		int w;
+		while (leading != root && !red[leading]) {
+			if (leading == left[parent[leading]]) {
+				w = right[parent[leading]];
+				if (red[w]) {												//case 1
+					red[w] = false;
+					red[parent[leading]] = true;
+					LeftRotate(parent[leading]);
+					w = right[parent[leading]];
+				}
+				if (!red[left[w]] && !red[right[w]]) {					//case 2
+					red[w] = true;
+					leading = parent[leading];
+				}
+				else {
+					if (!red[right[w]]) {									//case 3
+						red[left[w]] = false;
+						red[w] = true;
+						RightRotate(w);
+						w = right[parent[leading]];
+					}
+					red[w] = red[parent[leading]];							//case 4
+					red[parent[leading]] = false;
+					red[right[w]] = false;
+					LeftRotate(parent[leading]);
+					leading = root;
+				}
+			}
+			else { //same as "then" clause with left and right exchanged
+				w = left[parent[leading]];
+				if (red[w]) {
+					red[w] = false;
+					red[parent[leading]] = true;
+					RightRotate(parent[leading]);
+					w = left[parent[leading]];
+				}
+				if (!red[right[w]] && !red[left[w]]) {
+					red[w] = true;
+					leading = parent[leading];
+				}
+				else {
+					if (!red[left[w]]) {
+						red[right[w]] = false;
+						red[w] = true;
+						LeftRotate(w);
+						w = left[parent[leading]];
+					}
+					red[w] = red[parent[leading]];
+					red[parent[leading]] = false;
+					red[left[w]] = false;
+					RightRotate(parent[leading]);
+					leading = root;
+				}
+			}
+		}
+		red[leading] = false;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void RedBlackTransplant(int u, int v) {
+		
+		if (parent[u] == nil)
+			root = v;
+		else if (u == left[parent[u]])
+			left[parent[u]] = v;
+		else
+			right[parent[u]] = v;
+		parent[v] = parent[u];
+	}
+	
+	//Returns the node holding k, or nil.
+	private int find(long k) {
+		
+		int current = root;
+		while (current != nil && k != keys[current]) {
+			if (k < keys[current])
+				current = left[current];
+			else
+				current = right[current];
+		}
+		return current;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	//Finds the element with key k and returns a handle to it, or NIL if not found.
+	public int search(long k) {
+		
+		int node = find(k);
+		return node == nil ? NIL : node;
+	}
+	
+	//Finds the element that has the smallest key, and returns a handle to it,
+	//or NIL if the set is empty.
+	public int minimum() {
+		
+		return root == nil ? NIL : RBTreeMinimum(root);
+	}
+	
+	//Finds the element that has the largest key, and returns a handle to it,
+	//or NIL if the set is empty.
+	public int maximum() {
+		
+		return root == nil ? NIL : RBTreeMaximum(root);
+	}
+	
+	private int RBTreeMinimum(int subtree) {
+		
+		while (left[subtree] != nil)
+			subtree = left[subtree];
+		return subtree;
+	}
+	
+	private int RBTreeMaximum(int subtree) {
+		
+		while (right[subtree] != nil)
+			subtree = right[subtree];
+		return subtree;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	//Given a handle to element e in the set, finds the element in the set that has the next larger key,
+	//and returns a handle to it, or NIL if e is the maximum element.
+	public int successor(int e) {
+		
+		if (right[e] != nil)
+			return RBTreeMinimum(right[e]);
+		int up = parent[e];
+		while (up != nil && e == right[up]) {
+			e = up;
+			up = parent[up];
+		}
+		return up == nil ? NIL : up;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	//Given a handle to element e in the set, finds the element in the set that has the next smaller key,
+	//and returns a handle to it, or NIL if e is the minimum element.
+	public int predecessor(int e) {
+		
+		if (left[e] != nil)
+			return RBTreeMaximum(left[e]);
+		int up = parent[e];
+		while (up != nil && e == left[up]) {
+			e = up;
+			up = parent[up];
+		}
+		return up == nil ? NIL : up;
+	}
+	
+	//Returns the key of the element with handle e.
+	public long key(int e) {
+		
+		return keys[e];
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package LongSkipListSet;
+
+import java.util.Arrays;
+import LongDynamicSet.*;
+
+//Skip list over primitive long keys. A node is an index into parallel arrays: keys[x] is its key,
+//and its tower of forward links lives in links[base[x] .. base[x] + height[x] - 1], one int per
+//level. prev[x] links the bottom level backwards so predecessor is O(1) like successor.
+//Node 0 is the head sentinel with a full-height tower. Deleted nodes are kept on one free list
+//per tower height so their link slots can be reused by a node of the same height.
+public class LongSkipListSet extends LongDynamicSet {
+	
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_LEVEL = 32;
+	private static final int head = 0;
+	
+	private long[] keys;
+	private int[] prev;	//bottom level backward links, doubles as free list chain
+	private int[] base;	//offset of the node's tower in links
+	private byte[] height;	//number of levels the node is linked into
+	private int[] links;
+	private int used;	//nodes handed out so far, node 0 is head
+	private int linksUsed;
+	private final int[] free;	//free list heads indexed by tower height
+	private final int[] update;	//rightmost node before the search key on every level
+	private int level;	//number of levels currently in use
+	private int tail;	//node with the largest key, head if the set is empty
+	private long seed;	//xorshift state for tower heights
+	
+	public LongSkipListSet() {
+		
+		this(DEFAULT_CAPACITY);
+	}
+	
+	//Create an empty set with room for capacity keys before the arrays grow.
+	public LongSkipListSet(int capacity) {
+		
+		super();
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		keys = new long[capacity + 1];
+		prev = new int[capacity + 1];
+		base = new int[capacity + 1];
+		height = new byte[capacity + 1];
+		links = new int[MAX_LEVEL + 2 * capacity];	//towers average two levels
+		free = new int[MAX_LEVEL + 1];
+		Arrays.fill(free, NIL);
+		update = new int[MAX_LEVEL];
+		
+		//initialize the head sentinel
+		Arrays.fill(links, 0, MAX_LEVEL, NIL);
+		base[head] = 0;
+		height[head] = MAX_LEVEL;
+		prev[head] = NIL;
+		linksUsed = MAX_LEVEL;
+		used = 1;
+		level = 1;
+		tail = head;
+		seed = System.nanoTime() | 1L;
+	}
+	
+	public static void main(String []args) {
+		
+		LongSkipListSet set = new LongSkipListSet();
+		long s1 = 1024L;
+		long s2 = 7L;
+		long s3 = 4294967296L;
+		long s4 = 512L;
+		
+		//test insert
+		set.insert(s2);
+		set.insert(s3);
+		set.insert(s1);
+		set.insert(s4);
+		set.insert(s1);
+		
+		System.out.println(set.toString());
+		
+		set.delete(s2);
+		set.insert(s2);
+		
+		//testing max
+		System.out.println("Maximun set element: " + set.key(set.maximum()));
+		
+		//testing min
+		System.out.println("Minimum set element: " + set.key(set.minimum()));
+		
+		//testing successor
+		int testNode = set.successor(set.search(s3));
+		if (testNode == NIL)
+			System.out.println("No Successor of " + s3);
+		else
+			System.out.println("Successor of " + s3 + ": " + set.key(testNode));
+		
+		//testing predecessor
+		testNode = set.predecessor(set.search(s1));
+		if (testNode == NIL)
+			System.out.println("No Predecessor of " + s1);
+		else
+			System.out.println("Predecessor of " + s1 + ": " + set.key(testNode));
+	}
+	
+	//Insert key k in the set. A single descent records the rightmost node before k on every
+	//level, which is both the duplicate check and the list of links to splice.
+	public void insert(long k) {
+		
+		int candidate = descend(k);
+		if (candidate != NIL && keys[candidate] == k)
+			return;	//k is already in the set
+		
+		int h = randomLevel();
+		if (h > level) {
+			for (int i = level; i < h; i++)
+				update[i] = head;
+			level = h;
+		}
+		
+		int node = allocate(k, h);
+		int tower = base[node];
+		for (int i = 0; i < h; i++) {
+			int before = base[update[i]] + i;
+			links[tower + i] = links[before];
+			links[before] = node;
+		}
+		prev[node] = update[0];
+		if (candidate != NIL)
+			prev[candidate] = node;
+		else
+			tail = node;
+		super.size++;
+	}
+	
+	//Removes key k from the set.
+	public void delete(long k) {
+		
+		int node = descend(k);
+		if (node == NIL || keys[node] != k)
+			return;
+		
+		int tower = base[node];
+		for (int i = 0; i < height[node]; i++)
+			links[base[update[i]] + i] = links[tower + i];
+		int next = links[tower];
+		if (next != NIL)
+			prev[next] = prev[node];
+		else
+			tail = prev[node];
+		while (level > 1 && links[level - 1] == NIL)	//head's tower starts at links[0]
+			level--;
+		release(node);
+		super.size--;
+	}
+	
+	//Fills update with the rightmost node whose key is smaller than k on every level in use,
+	//and returns the first node with key >= k, or NIL.
+	private int descend(long k) {
+		
+		int x = head;
+		for (int i = level - 1; i >= 0; i--) {
+			int next = links[base[x] + i];
+			while (next != NIL && keys[next] < k) {
+				x = next;
+				next = links[base[x] + i];
+			}
+			update[i] = x;
+		}
+		return links[base[x]];
+	}
+	
+	//Geometric tower height with p = 1/2, from the trailing zeros of a xorshift word.
+	private int randomLevel() {
+		
+		seed ^= seed << 13;
+		seed ^= seed >>> 7;
+		seed ^= seed << 17;
+		return Math.min(Long.numberOfTrailingZeros(seed) + 1, MAX_LEVEL);
+	}
+	
+	//Takes a node of tower height h from the free list, or carves a fresh one out of the arrays.
+	private int allocate(long k, int h) {
+		
+		int node = free[h];
+		if (node != NIL)
+			free[h] = prev[node];
+		else {
+			if (used == keys.length)
+				grow();
+			if (linksUsed + h > links.length)
+				links = Arrays.copyOf(links, Math.max(linksUsed + h, links.length + (links.length >> 1)));
+			node = used++;
+			base[node] = linksUsed;
+			height[node] = (byte)h;
+			linksUsed += h;
+		}
+		keys[node] = k;
+		return node;
+	}
+	
+	private void release(int node) {
+		
+		prev[node] = free[height[node]];
+		free[height[node]] = node;
+	}
+	
+	private void grow() {
+		
+		int capacity = keys.length + (keys.length >> 1) + 1;
+		keys = Arrays.copyOf(keys, capacity);
+		prev = Arrays.copyOf(prev, capacity);
+		base = Arrays.copyOf(base, capacity);
+		height = Arrays.copyOf(height, capacity);
+	}
+	
+	//Finds the element with key k and returns a handle to it or NIL if not found.
+	public int search(long k) {
+		
+		int x = head;
+		for (int i = level - 1; i >= 0; i--) {
+			int next = links[base[x] + i];
+			while (next != NIL && keys[next] < k) {
+				x = next;
+				next = links[base[x] + i];
+			}
+		}
+		int candidate = links[base[x]];
+		return (candidate != NIL && keys[candidate] == k) ? candidate : NIL;
+	}
+	
+	//Finds the element that has the smallest key, and returns a handle to it, or NIL if the set is empty.
+	public int minimum() {
+		
+		return links[base[head]];
+	}
+	
+	//Finds the element that has the largest key, and returns a handle to it, or NIL if the set is empty.
+	public int maximum() {
+		
+		return tail == head ? NIL : tail;
+	}
+	
+	//Given a handle to element e in the set, finds the element in the set that has the next larger key,
+	//and returns a handle to it, or NIL if e is the maximum element.
+	public int successor(int e) {
+		
+		return links[base[e]];
+	}
+	
+	//Given a handle to element e in the set, finds the element in the set that has the next smaller key,
+	//and returns a handle to it, or NIL if e is the minimum element.
+	public int predecessor(int e) {
+		
+		return prev[e] == head ? NIL : prev[e];
+	}
+	
+	//Returns the key of the element with handle e.
+	public long key(int e) {
+		
+		return keys[e];
+	}
+	
+	//Prints each level of the skip list, top level first.
+	public String toString() {
+		
+		StringBuilder result = new StringBuilder();
+		for (int i = level - 1; i >= 0; i--) {
+			result.append("Level ").append(i).append(": -inf");
+			for (int x = links[i]; x != NIL; x = links[base[x] + i])
+				result.append(" ").append(keys[x]);
+			result.append(" +inf\n");
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package OffHeapRedBlackSet;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import LongDynamicSet.*;
+
+//Red-black tree whose nodes live outside the Java heap. Every node is a fixed-width record in a
+//direct ByteBuffer, addressed by an int index instead of a reference:
+//
+//	offset  0	long key
+//	offset  8	long value
+//	offset 16	int left
+//	offset 20	int right
+//	offset 24	int parent
+//	offset 28	int color (1 for red, 0 for black)
+//
+//Records are allocated in chunks of 2^CHUNK_SHIFT so the set grows without copying and is not
+//limited by the 2 GB capacity of a single buffer. Record 0 is the sentinel nil of Cormen et al,
+//and records of deleted nodes are kept on a free list. Once a chunk exists, insert, delete and
+//the queries do not allocate on the heap, so the garbage collector never sees the nodes.
+//
+//The memory is released by close(); the set cannot be used afterwards.
+public class OffHeapRedBlackSet extends LongDynamicSet implements AutoCloseable {
+	
+	private static final int RECORD = 32;
+	private static final int KEY = 0;
+	private static final int VALUE = 8;
+	private static final int LEFT = 16;
+	private static final int RIGHT = 20;
+	private static final int PARENT = 24;
+	private static final int COLOR = 28;
+	private static final int CHUNK_SHIFT = 16;	//65536 records, 2 MB per chunk
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+	private static final int nil = 0;
+	
+	private ByteBuffer[] chunks;
+	private int chunkCount;
+	private int root;
+	private int used;	//records handed out so far, record 0 is nil
+	private int free;	//head of the free list (chained through left), nil if empty
+	
+	public OffHeapRedBlackSet() {
+		
+		super();
+		chunks = new ByteBuffer[4];
+		chunkCount = 0;
+		addChunk();
+		root = nil;
+		used = 1;
+		free = nil;
+		setLeft(nil, nil);
+		setRight(nil, nil);
+		setParent(nil, nil);
+		setRed(nil, false);
+	}
+	
+	public static void main(String []args) {
+		
+		OffHeapRedBlackSet set = new OffHeapRedBlackSet();
+		long s1 = 1024L;
+		long s2 = 7L;
+		long s3 = 4294967296L;
+		long s4 = 512L;
+		
+		//testing insert
+		set.insert(s1, -s1);
+		set.insert(s2, -s2);
+		set.insert(s3, -s3);
+		set.insert(s4, -s4);
+		set.insert(s1, -s1);
+		
+		System.out.println(set.key(set.search(s3)) + " -> " + set.value(set.search(s3)));
+		set.delete(s4);
+		set.delete(s3);
+		set.delete(s2);
+		set.delete(s1);
+		set.delete(s1);
+		
+		set.insert(s4, -s4);
+		set.insert(s2, -s2);
+		set.insert(s3, -s3);
+		set.insert(s1, -s1);
+		set.insert(s1, -s1);
+		
+		//testing max
+		System.out.println("Maximum set element: " + set.key(set.maximum()));
+		
+		//testing min
+		System.out.println("Minimum set element: " + set.key(set.minimum()));
+		
+		//testing successor
+		int testNode = set.successor(set.search(s3));
+		if (testNode == NIL)
+			System.out.println("No Successor of " + s3);
+		else
+			System.out.println("Successor of " + s3 + ": " + set.key(testNode));
+		
+		//testing predecessor
+		testNode = set.predecessor(set.search(s1));
+		if (testNode == NIL)
+			System.out.println("No Predecessor of " + s1);
+		else
+			System.out.println("Predecessor of " + s1 + ": " + set.key(testNode));
+		
+		set.close();
+	}
+	
+	/* record accessors */
+	
+	private ByteBuffer chunk(int node) {
+		
+		return chunks[node >>> CHUNK_SHIFT];
+	}
+	
+	private static int offset(int node) {
+		
+		return (node & CHUNK_MASK) * RECORD;
+	}
+	
+	private long keyOf(int node) {
+		
+		return chunk(node).getLong(offset(node) + KEY);
+	}
+	
+	private int left(int node) {
+		
+		return chunk(node).getInt(offset(node) + LEFT);
+	}
+	
+	private int right(int node) {
+		
+		return chunk(node).getInt(offset(node) + RIGHT);
+	}
+	
+	private int parent(int node) {
+		
+		return chunk(node).getInt(offset(node) + PARENT);
+	}
+	
+	private boolean isRed(int node) {
+		
+		return chunk(node).getInt(offset(node) + COLOR) != 0;
+	}
+	
+	private void setLeft(int node, int left) {
+		
+		chunk(node).putInt(offset(node) + LEFT, left);
+	}
+	
+	private void setRight(int node, int right) {
+		
+		chunk(node).putInt(offset(node) + RIGHT, right);
+	}
+	
+	private void setParent(int node, int parent) {
+		
+		chunk(node).putInt(offset(node) + PARENT, parent);
+	}
+	
+	private void setRed(int node, boolean red) {
+		
+		chunk(node).putInt(offset(node) + COLOR, red ? 1 : 0);
+	}
+	
+	/* allocation */
+	
+	private void addChunk() {
+		
+		if (chunkCount == chunks.length)
+			chunks = Arrays.copyOf(chunks, chunks.length * 2);
+		chunks[chunkCount++] = ByteBuffer.allocateDirect(RECORD << CHUNK_SHIFT).order(ByteOrder.nativeOrder());
+	}
+	
+	//Takes a record from the free list, or a fresh one, and initializes it as a red leaf.
+	private int allocate(long k, long value) {
+		
+		int node;
+		if (free != nil) {
+			node = free;
+			free = left(node);
+		}
+		else {
+			if (used == Integer.MAX_VALUE)
+				throw new IllegalStateException("set is full");
+			if ((used >>> CHUNK_SHIFT) == chunkCount)
+				addChunk();
+			node = used++;
+		}
+		ByteBuffer chunk = chunk(node);
+		int offset = offset(node);
+		chunk.putLong(offset + KEY, k);
+		chunk.putLong(offset + VALUE, value);
+		chunk.putInt(offset + LEFT, nil);
+		chunk.putInt(offset + RIGHT, nil);
+		chunk.putInt(offset + PARENT, nil);
+		chunk.putInt(offset + COLOR, 1);
+		return node;
+	}
+	
+	private void release(int node) {
+		
+		setLeft(node, free);
+		free = node;
+	}
+	
+	/*
+	 * Methods taken from algorithms provided from Cormen et al's text
+	 * Introduction of Algorithms, MIT Press, 2009.
+	 */
+	
+	//Insert key k in the set with value 0.
+	public void insert(long k) {
+		
+		insert(k, 0L);
+	}
+	
+	//Insert key k in the set with the given value. Does nothing if k is already in the set.
+	public void insert(long k, long value) {
+		
+		ensureOpen();
+		int trailing = nil;
+		int current = root;
+		while (current != nil) {
+			trailing = current;
+			long key = keyOf(current);
+			if (k < key)
+				current = left(current);
+			else if (k > key)
+				current = right(current);
+			else
+				return;	//k is already in the tree
+		}
+		
+		int toAdd = allocate(k, value);
+		setParent(toAdd, trailing);
+		if (trailing == nil)
+			root = toAdd;
+		else if (k < keyOf(trailing))
+			setLeft(trailing, toAdd);
+		else
+			setRight(trailing, toAdd);
+		RBInsertFixup(toAdd);
+		super.size++;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void RBInsertFixup(int node) {
+		
+		int uncle;
+		while (isRed(parent(node))) {	//if node's parent is red
+			int grandparent = parent(parent(node));
+			if (parent(node) == left(grandparent)) {
+				uncle = right(grandparent);
+				if (isRed(uncle)) {
+					setRed(parent(node), false);
+					setRed(uncle, false);
+					setRed(grandparent, true);
+					node = grandparent;
+				}
+				else {
+					if (node == right(parent(node))) {
+						node = parent(node);
+						LeftRotate(node);
+					}
+					setRed(parent(node), false);
+					setRed(parent(parent(node)), true);
+					RightRotate(parent(parent(node)));
+				}
+			}
+			else {
+				uncle = left(grandparent);
+				if (isRed(uncle)) {
+					setRed(parent(node), false);
+					setRed(uncle, false);
+					setRed(grandparent, true);
+					node = grandparent;
+				}
+				else {
+					if (node == left(parent(node))) {
+						node = parent(node);
+						RightRotate(node);
+					}
+					setRed(parent(node), false);
+					setRed(parent(parent(node)), true);
+					LeftRotate(parent(parent(node)));
+				}
+			}
+		}
+		setRed(root, false);
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void LeftRotate(int node) {
+		
+		int rightchild = right(node);
+		setRight(node, left(rightchild));
+		if (left(rightchild) != nil)
+			setParent(left(rightchild), node);
+		setParent(rightchild, parent(node));
+		if (parent(node) == nil)
+			root = rightchild;
+		else if (node == left(parent(node)))
+			setLeft(parent(node), rightchild);
+		else
+			setRight(parent(node), rightchild);
+		setLeft(rightchild, node);
+		setParent(node, rightchild);
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void RightRotate(int node) {
+		
+		int leftchild = left(node);
+		setLeft(node, right(leftchild));
+		if (right(leftchild) != nil)
+			setParent(right(leftchild), node);
+		setParent(leftchild, parent(node));
+		if (parent(node) == nil)
+			root = leftchild;
+		else if (node == right(parent(node)))
+			setRight(parent(node), leftchild);
+		else
+			setLeft(parent(node), leftchild);
+		setRight(leftchild, node);
+		setParent(node, leftchild);
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	//Removes key k from the set.
+	public void delete(long k) {
+		
+		ensureOpen();
+		int node = find(k);
+		if (node == nil)
+			return;
+		
+		int trailing = node;
+		int leading;
+		boolean original = isRed(trailing);	//store trailing node's original color
+		if (left(node) == nil) {
+			leading = right(node);
+			RedBlackTransplant(node, right(node));
+		}
+		else if (right(node) == nil) {
+			leading = left(node);
+			RedBlackTransplant(node, left(node));
+		}
+		else {
+			trailing = RBTreeMinimum(right(node));
+			original = isRed(trailing);
+			leading = right(trailing);
+			if (parent(trailing) == node)
+				setParent(leading, trailing);
+			else {
+				RedBlackTransplant(trailing, right(trailing));
+				setRight(trailing, right(node));
+				setParent(right(trailing), trailing);
+			}
+			RedBlackTransplant(node, trailing);
+			setLeft(trailing, left(node));
+			setParent(left(trailing), trailing);
+			setRed(trailing, isRed(node));
+		}
+		if (!original)	//a black node was removed
+			RedBlackDeleteFixup(leading);
+		release(node);
+		super.size--;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void RedBlackDeleteFixup(int leading) {
+		
+		int w;
+		while (leading != root && !isRed(leading)) {
+			if (leading == left(parent(leading))) {
+				w = right(parent(leading));
+				if (isRed(w)) {												//case 1
+					setRed(w, false);
+					setRed(parent(leading), true);
+					LeftRotate(parent(leading));
+					w = right(parent(leading));
+				}
+				if (!isRed(left(w)) && !isRed(right(w))) {					//case 2
+					setRed(w, true);
+					leading = parent(leading);
+				}
+				else {
+					if (!isRed(right(w))) {									//case 3
+						setRed(left(w), false);
+						setRed(w, true);
+						RightRotate(w);
+						w = right(parent(leading));
+					}
+					setRed(w, isRed(parent(leading)));						//case 4
+					setRed(parent(leading), false);
+					setRed(right(w), false);
+					LeftRotate(parent(leading));
+					leading = root;
+				}
+			}
+			else { //same as "then" clause with left and right exchanged
+				w = left(parent(leading));
+				if (isRed(w)) {
+					setRed(w, false);
+					setRed(parent(leading), true);
+					RightRotate(parent(leading));
+					w = left(parent(leading));
+				}
+				if (!isRed(right(w)) && !isRed(left(w))) {
+					setRed(w, true);
+					leading = parent(leading);
+				}
+				else {
+					if (!isRed(left(w))) {
+						setRed(right(w), false);
+						setRed(w, true);
+						LeftRotate(w);
+						w = left(parent(leading));
+					}
+					setRed(w, isRed(parent(leading)));
+					setRed(parent(leading), false);
+					setRed(left(w), false);
+					RightRotate(parent(leading));
+					leading = root;
+				}
+			}
+		}
+		setRed(leading, false);
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	private void RedBlackTransplant(int u, int v) {
+		
+		if (parent(u) == nil)
+			root = v;
+		else if (u == left(parent(u)))
+			setLeft(parent(u), v);
+		else
+			setRight(parent(u), v);
+		setParent(v, parent(u));
+	}
+	
+	//Returns the record holding k, or nil.
+	private int find(long k) {
+		
+		int current = root;
+		while (current != nil) {
+			long key = keyOf(current);
+			if (k < key)
+				current = left(current);
+			else if (k > key)
+				current = right(current);
+			else
+				break;
+		}
+		return current;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	//Finds the element with key k and returns a handle to it, or NIL if not found.
+	public int search(long k) {
+		
+		ensureOpen();
+		int node = find(k);
+		return node == nil ? NIL : node;
+	}
+	
+	//Finds the element that has the smallest key, and returns a handle to it,
+	//or NIL if the set is empty.
+	public int minimum() {
+		
+		ensureOpen();
+		return root == nil ? NIL : RBTreeMinimum(root);
+	}
+	
+	//Finds the element that has the largest key, and returns a handle to it,
+	//or NIL if the set is empty.
+	public int maximum() {
+		
+		ensureOpen();
+		return root == nil ? NIL : RBTreeMaximum(root);
+	}
+	
+	private int RBTreeMinimum(int subtree) {
+		
+		while (left(subtree) != nil)
+			subtree = left(subtree);
+		return subtree;
+	}
+	
+	private int RBTreeMaximum(int subtree) {
+		
+		while (right(subtree) != nil)
+			subtree = right(subtree);
+		return subtree;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	//Given a handle to element e in the set, finds the element in the set that has the next larger key,
+	//and returns a handle to it, or NIL if e is the maximum element.
+	public int successor(int e) {
+		
+		ensureOpen();
+		if (right(e) != nil)
+			return RBTreeMinimum(right(e));
+		int up = parent(e);
+		while (up != nil && e == right(up)) {
+			e = up;
+			up = parent(up);
+		}
+		return up == nil ? NIL : up;
+	}
+	
+	/* Taken from the algorithm provided by the text; Cormen */
+	//Given a handle to element e in the set, finds the element in the set that has the next smaller key,
+	//and returns a handle to it, or NIL if e is the minimum element.
+	public int predecessor(int e) {
+		
+		ensureOpen();
+		if (left(e) != nil)
+			return RBTreeMaximum(left(e));
+		int up = parent(e);
+		while (up != nil && e == left(up)) {
+			e = up;
+			up = parent(up);
+		}
+		return up == nil ? NIL : up;
+	}
+	
+	//Returns the key of the element with handle e.
+	public long key(int e) {
+		
+		ensureOpen();
+		return keyOf(e);
+	}
+	
+	//Returns the value of the element with handle e.
+	public long value(int e) {
+		
+		ensureOpen();
+		return chunk(e).getLong(offset(e) + VALUE);
+	}
+	
+	//Replaces the value of the element with handle e.
+	public void setValue(int e, long value) {
+		
+		ensureOpen();
+		chunk(e).putLong(offset(e) + VALUE, value);
+	}
+	
+	//Returns the number of bytes reserved outside the heap.
+	public long offHeapBytes() {
+		
+		return (long)chunkCount * (RECORD << CHUNK_SHIFT);
+	}
+	
+	private void ensureOpen() {
+		
+		if (chunks == null)
+			throw new IllegalStateException("set has been closed");
+	}
+	
+	//Releases the off-heap memory. The set cannot be used afterwards; closing twice does nothing.
+	public void close() {
+		
+		if (chunks == null)
+			return;
+		ByteBuffer[] released = chunks;
+		chunks = null;	//no access after this point, so freeing the buffers below is safe
+		chunkCount = 0;
+		root = nil;
+		super.size = 0;
+		for (ByteBuffer chunk : released)
+			if (chunk != null)
+				Deallocator.free(chunk);
+	}
+	
+	//Frees a direct buffer right away instead of waiting for the garbage collector to find it.
+	//Uses sun.misc.Unsafe.invokeCleaner on Java 9 and later; on other runtimes the buffer is
+	//simply dropped and freed when it is collected.
+	private static class Deallocator {
+		
+		private static final Object unsafe;
+		private static final Method invokeCleaner;
+		
+		static {
+			Object u = null;
+			Method m = null;
+			try {
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				java.lang.reflect.Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				u = theUnsafe.get(null);
+				m = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			} catch (Exception e) {
+				u = null;
+				m = null;
+			}
+			unsafe = u;
+			invokeCleaner = m;
+		}
+		
+		static void free(ByteBuffer buffer) {
+			
+			if (invokeCleaner == null)
+				return;
+			try {
+				invokeCleaner.invoke(unsafe, buffer);
+			} catch (Exception e) {
+				//leave it to the garbage collector
+			}
+		}
+	}
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package PagedBTreeDynamicSet;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import DynamicSet.SetStatistics;
+
+//Layout of one page of a PagedBTreeDynamicSet, read and written in place with absolute
+//ByteBuffer accesses. A page is a slotted page: a 16-byte header, an array of slots growing up
+//from the header, and variable-sized cells growing down from the end of the page. The slots are
+//kept in key order and point at the cells, so an insert moves slots but never cells.
+//
+//	offset  0	byte type (LEAF or INTERNAL)
+//	offset  2	short number of keys
+//	offset  4	short start of the cell area
+//	offset  6	short bytes of removed cells, reclaimed by compacting the page
+//	offset  8	int next leaf (leaf) or child 0 (internal), 0 for none
+//	offset 12	int previous leaf (leaf), 0 for none
+//
+//Leaf slot: short cell offset; cell: short key length, short data length (NO_DATA for null),
+//key bytes, data bytes. Internal slot i: short cell offset, int child i + 1; cell: short key
+//length, key bytes. Key i of an internal page is the smallest key under child i + 1.
+class BTreePage {
+
+	static final byte LEAF = 1;
+	static final byte INTERNAL = 2;
+	static final int HEADER = 16;
+	static final int NO_DATA = 0xFFFF;
+
+	private static final int TYPE = 0;
+	private static final int COUNT = 2;
+	private static final int CELLS = 4;
+	private static final int GARBAGE = 6;
+	private static final int LINK = 8;
+	private static final int PREV = 12;
+	private static final int LEAF_SLOT = 2;
+	private static final int INTERNAL_SLOT = 6;
+
+	static void init(ByteBuffer p, byte type) {
+
+		p.put(TYPE, type);
+		p.putShort(COUNT, (short)0);
+		p.putShort(CELLS, (short)p.capacity());
+		p.putShort(GARBAGE, (short)0);
+		p.putInt(LINK, 0);
+		p.putInt(PREV, 0);
+	}
+
+	static boolean isLeaf(ByteBuffer p) {
+
+		return p.get(TYPE) == LEAF;
+	}
+
+	static int count(ByteBuffer p) {
+
+		return p.getShort(COUNT) & 0xFFFF;
+	}
+
+	private static int cells(ByteBuffer p) {
+
+		return p.getShort(CELLS) & 0xFFFF;
+	}
+
+	static int next(ByteBuffer p) {
+
+		return p.getInt(LINK);
+	}
+
+	static void setNext(ByteBuffer p, int page) {
+
+		p.putInt(LINK, page);
+	}
+
+	static int prev(ByteBuffer p) {
+
+		return p.getInt(PREV);
+	}
+
+	static void setPrev(ByteBuffer p, int page) {
+
+		p.putInt(PREV, page);
+	}
+
+	//Child i of an internal page, 0 <= i <= count.
+	static int child(ByteBuffer p, int i) {
+
+		return (i == 0) ? p.getInt(LINK) : p.getInt(HEADER + INTERNAL_SLOT * (i - 1) + 2);
+	}
+
+	private static int slotSize(ByteBuffer p) {
+
+		return isLeaf(p) ? LEAF_SLOT : INTERNAL_SLOT;
+	}
+
+	private static int cell(ByteBuffer p, int i) {
+
+		return p.getShort(HEADER + slotSize(p) * i) & 0xFFFF;
+	}
+
+	private static int keyLength(ByteBuffer p, int cell) {
+
+		return p.getShort(cell) & 0xFFFF;
+	}
+
+	private static int cellSize(ByteBuffer p, int cell) {
+
+		if (!isLeaf(p))
+			return 2 + keyLength(p, cell);
+		int dataLength = p.getShort(cell + 2) & 0xFFFF;
+		return 4 + keyLength(p, cell) + ((dataLength == NO_DATA) ? 0 : dataLength);
+	}
+
+	//Bytes a key and its data take in a leaf, slot included.
+	static int leafEntrySize(byte[] key, byte[] data) {
+
+		return LEAF_SLOT + 4 + key.length + ((data == null) ? 0 : data.length);
+	}
+
+	//Bytes a key takes in an internal page, slot included.
+	static int internalEntrySize(byte[] key) {
+
+		return INTERNAL_SLOT + 2 + key.length;
+	}
+
+	static byte[] key(ByteBuffer p, int i) {
+
+		int cell = cell(p, i);
+		byte[] key = new byte[keyLength(p, cell)];
+		int offset = cell + (isLeaf(p) ? 4 : 2);
+		for (int j = 0; j < key.length; j++)
+			key[j] = p.get(offset + j);
+		return key;
+	}
+
+	//Data of entry i of a leaf, null if it was inserted without data.
+	static byte[] data(ByteBuffer p, int i) {
+
+		int cell = cell(p, i);
+		int length = p.getShort(cell + 2) & 0xFFFF;
+		if (length == NO_DATA)
+			return null;
+		byte[] data = new byte[length];
+		int offset = cell + 4 + keyLength(p, cell);
+		for (int j = 0; j < length; j++)
+			data[j] = p.get(offset + j);
+		return data;
+	}
+
+	//Compares key i with probe as unsigned bytes, a prefix first.
+	static int compare(ByteBuffer p, int i, byte[] probe) {
+
+		int cell = cell(p, i);
+		int length = keyLength(p, cell);
+		int offset = cell + (isLeaf(p) ? 4 : 2);
+		int n = Math.min(length, probe.length);
+		for (int j = 0; j < n; j++) {
+			int c = (p.get(offset + j) & 0xFF) - (probe[j] & 0xFF);
+			if (c != 0)
+				return c;
+		}
+		return length - probe.length;
+	}
+
+	//Returns the index of probe among the keys, or -(insertion point) - 1 if absent.
+	static int search(ByteBuffer p, byte[] probe, SetStatistics stats) {
+
+		stats.visited();
+		int low = 0;
+		int high = count(p) - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			stats.compared();
+			int c = compare(p, mid, probe);
+			if (c < 0)
+				low = mid + 1;
+			else if (c > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+
+	//Returns the child of an internal page whose subtree may hold probe.
+	static int childIndex(ByteBuffer p, byte[] probe, SetStatistics stats) {
+
+		int i = search(p, probe, stats);
+		return (i >= 0) ? i + 1 : -(i + 1);
+	}
+
+	private static int free(ByteBuffer p) {
+
+		return cells(p) - HEADER - slotSize(p) * count(p);
+	}
+
+	//Makes room for an entry of size bytes (slot included), compacting the page if the removed
+	//cells would be enough. Returns false if the page is too full.
+	private static boolean reserve(ByteBuffer p, int size) {
+
+		if (free(p) >= size)
+			return true;
+		if (free(p) + (p.getShort(GARBAGE) & 0xFFFF) < size)
+			return false;
+		compact(p);
+		return true;
+	}
+
+	//Moves slots i.. one place up and returns the offset of a new cell of cellSize bytes.
+	private static int open(ByteBuffer p, int i, int cellSize) {
+
+		int slot = slotSize(p);
+		int n = count(p);
+		for (int j = HEADER + slot * n - 1; j >= HEADER + slot * i; j--)
+			p.put(j + slot, p.get(j));
+		int cell = cells(p) - cellSize;
+		p.putShort(CELLS, (short)cell);
+		p.putShort(HEADER + slot * i, (short)cell);
+		p.putShort(COUNT, (short)(n + 1));
+		return cell;
+	}
+
+	//Inserts a key and its data as entry i of a leaf. Returns false if it does not fit.
+	static boolean insertLeaf(ByteBuffer p, int i, byte[] key, byte[] data) {
+
+		if (!reserve(p, leafEntrySize(key, data)))
+			return false;
+		int cell = open(p, i, leafEntrySize(key, data) - LEAF_SLOT);
+		p.putShort(cell, (short)key.length);
+		p.putShort(cell + 2, (short)((data == null) ? NO_DATA : data.length));
+		for (int j = 0; j < key.length; j++)
+			p.put(cell + 4 + j, key[j]);
+		if (data != null)
+			for (int j = 0; j < data.length; j++)
+				p.put(cell + 4 + key.length + j, data[j]);
+		return true;
+	}
+
+	//Inserts key i of an internal page, with child i + 1 to its right. Returns false if it does not fit.
+	static boolean insertInternal(ByteBuffer p, int i, byte[] key, int rightChild) {
+
+		if (!reserve(p, internalEntrySize(key)))
+			return false;
+		int cell = open(p, i, 2 + key.length);
+		p.putInt(HEADER + INTERNAL_SLOT * i + 2, rightChild);
+		p.putShort(cell, (short)key.length);
+		for (int j = 0; j < key.length; j++)
+			p.put(cell + 2 + j, key[j]);
+		return true;
+	}
+
+	//Removes slot i; its cell becomes garbage.
+	private static void close(ByteBuffer p, int i) {
+
+		int slot = slotSize(p);
+		int n = count(p);
+		p.putShort(GARBAGE, (short)((p.getShort(GARBAGE) & 0xFFFF) + cellSize(p, cell(p, i))));
+		for (int j = HEADER + slot * (i + 1); j < HEADER + slot * n; j++)
+			p.put(j - slot, p.get(j));
+		p.putShort(COUNT, (short)(n - 1));
+	}
+
+	static void removeLeaf(ByteBuffer p, int i) {
+
+		close(p, i);
+	}
+
+	//Removes child i of an internal page together with the key that separates it from a neighbour,
+	//so its key range joins that neighbour.
+	static void removeChild(ByteBuffer p, int i) {
+
+		if (i == 0) {
+			p.putInt(LINK, child(p, 1));
+			close(p, 0);
+		}
+		else
+			close(p, i - 1);
+	}
+
+	//Rewrites the cells at the end of the page without the garbage between them.
+	private static void compact(ByteBuffer p) {
+
+		int n = count(p);
+		int slot = slotSize(p);
+		byte[] copy = new byte[p.capacity()];
+		for (int j = 0; j < copy.length; j++)
+			copy[j] = p.get(j);
+		ByteBuffer old = ByteBuffer.wrap(copy);
+		int end = p.capacity();
+		for (int i = 0; i < n; i++) {
+			int cell = cell(old, i);
+			int size = cellSize(old, cell);
+			end -= size;
+			for (int j = 0; j < size; j++)
+				p.put(end + j, copy[cell + j]);
+			p.putShort(HEADER + slot * i, (short)end);
+		}
+		p.putShort(CELLS, (short)end);
+		p.putShort(GARBAGE, (short)0);
+	}
+
+	//Fills an initialized, empty leaf with entries from..to-1 of the lists. The links are left alone.
+	static void fillLeaf(ByteBuffer p, List<byte[]> keys, List<byte[]> data, int from, int to) {
+
+		for (int i = from; i < to; i++)
+			insertLeaf(p, i - from, keys.get(i), data.get(i));
+	}
+
+	//Fills an initialized, empty internal page with children from..to (inclusive) and the keys
+	//between them, keys.get(i) separating children.get(i) and children.get(i + 1).
+	static void fillInternal(ByteBuffer p, List<byte[]> keys, List<Integer> children, int from, int to) {
+
+		p.putInt(LINK, children.get(from));
+		for (int i = from; i < to; i++)
+			insertInternal(p, i - from, keys.get(i), children.get(i + 1));
+	}
+}
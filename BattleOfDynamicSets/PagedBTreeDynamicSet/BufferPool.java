@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package PagedBTreeDynamicSet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+//A fixed number of page frames in one direct buffer, caching the pages of a file. A page is
+//pinned while it is in use and unpinned afterwards; a miss evicts the first unpinned frame the
+//clock hand finds with its reference bit clear, clearing the bits it passes over, so pages used
+//since the last sweep get a second chance. Dirty pages are written back when they are evicted
+//and on flush().
+//
+//The page table maps page ids to frames in two int arrays with linear probing, so a pin boxes
+//nothing. The pool is not thread safe: every pin, even for a read, moves the clock hand and
+//changes the table, the pin counts and the reference bits. A PagedBTreeDynamicSet shared between
+//threads must be wrapped in a ConcurrentDynamicSet with ReadMode.EXCLUSIVE.
+class BufferPool {
+
+	private static final int NO_PAGE = -1;
+
+	static class Frame {
+
+		final ByteBuffer page;	//pageSize bytes, absolute gets and puts only
+		final int index;	//position in frames
+		int pageId;	//NO_PAGE while the frame is empty
+		int pins;
+		boolean referenced;
+		boolean dirty;
+
+		Frame(ByteBuffer page, int index) {
+
+			this.page = page;
+			this.index = index;
+			this.pageId = NO_PAGE;
+		}
+	}
+
+	private final FileChannel channel;
+	private final int pageSize;
+	private final Frame[] frames;
+	private final int[] tablePages;	//open addressing page table: page id per slot, NO_PAGE if free
+	private final int[] tableFrames;	//index of the frame holding the page in the same slot
+	private final int mask;	//table length - 1, a power of two at least twice the frame count
+	private int hand;
+	private long hits;
+	private long misses;
+
+	BufferPool(FileChannel channel, int pageSize, int frameCount) {
+
+		this.channel = channel;
+		this.pageSize = pageSize;
+		this.frames = new Frame[frameCount];
+		ByteBuffer memory = ByteBuffer.allocateDirect(frameCount * pageSize);
+		for (int i = 0; i < frameCount; i++) {
+			memory.limit((i + 1) * pageSize).position(i * pageSize);
+			frames[i] = new Frame(memory.slice(), i);
+		}
+		int capacity = Integer.highestOneBit(Math.max(frameCount, 1) * 4 - 1);
+		this.tablePages = new int[capacity];
+		this.tableFrames = new int[capacity];
+		Arrays.fill(tablePages, NO_PAGE);
+		this.mask = capacity - 1;
+		this.hand = 0;
+	}
+
+	int size() {
+
+		return frames.length;
+	}
+
+	long getHits() {
+
+		return hits;
+	}
+
+	long getMisses() {
+
+		return misses;
+	}
+
+	void resetCounters() {
+
+		hits = 0;
+		misses = 0;
+	}
+
+	//Returns the frame holding page pageId, read from the file if it is not cached, pinned.
+	Frame pin(int pageId) {
+
+		Frame f = lookup(pageId);
+		if (f != null) {
+			hits++;
+		}
+		else {
+			misses++;
+			f = victim();
+			f.page.clear();
+			try {
+				long position = (long)pageId * pageSize;
+				while (f.page.hasRemaining()) {
+					if (channel.read(f.page, position + f.page.position()) < 0) {
+						while (f.page.hasRemaining())
+							f.page.put((byte)0);	//past the end of the file
+					}
+				}
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+			attach(f, pageId);
+		}
+		f.pins++;
+		f.referenced = true;
+		return f;
+	}
+
+	//Returns a pinned, zero-filled frame for a page that is new to the file, without reading it.
+	Frame create(int pageId) {
+
+		Frame f = lookup(pageId);
+		if (f == null) {
+			f = victim();
+			attach(f, pageId);
+		}
+		for (int i = 0; i < pageSize; i += 8)
+			f.page.putLong(i, 0L);
+		f.pins++;
+		f.referenced = true;
+		f.dirty = true;
+		return f;
+	}
+
+	void unpin(Frame f) {
+
+		f.pins--;
+	}
+
+	private void attach(Frame f, int pageId) {
+
+		f.pageId = pageId;
+		f.dirty = false;
+		int slot = home(pageId);
+		while (tablePages[slot] != NO_PAGE)
+			slot = (slot + 1) & mask;
+		tablePages[slot] = pageId;
+		tableFrames[slot] = f.index;
+	}
+
+	//Slot where the probe for pageId starts.
+	private int home(int pageId) {
+
+		int h = pageId * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	//Returns the frame holding page pageId, or null if it is not cached.
+	private Frame lookup(int pageId) {
+
+		for (int slot = home(pageId); tablePages[slot] != NO_PAGE; slot = (slot + 1) & mask)
+			if (tablePages[slot] == pageId)
+				return frames[tableFrames[slot]];
+		return null;
+	}
+
+	//Removes pageId from the table. The entries after it in the same probe run are shifted back
+	//into the gap, so lookups never need tombstones.
+	private void detach(int pageId) {
+
+		int gap = home(pageId);
+		while (tablePages[gap] != pageId)
+			gap = (gap + 1) & mask;
+		for (int slot = (gap + 1) & mask; tablePages[slot] != NO_PAGE; slot = (slot + 1) & mask) {
+			int home = home(tablePages[slot]);
+			//an entry can move back to the gap only if its home is not between the gap and its slot
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				tablePages[gap] = tablePages[slot];
+				tableFrames[gap] = tableFrames[slot];
+				gap = slot;
+			}
+		}
+		tablePages[gap] = NO_PAGE;
+	}
+
+	//Sweeps the clock until it finds an unpinned frame whose reference bit is clear, writes the page
+	//in it back if it is dirty and detaches it.
+	private Frame victim() {
+
+		for (int step = 0; step < 2 * frames.length + 1; step++) {
+			Frame f = frames[hand];
+			hand = (hand + 1 == frames.length) ? 0 : hand + 1;
+			if (f.pins > 0)
+				continue;
+			if (f.referenced) {
+				f.referenced = false;
+				continue;
+			}
+			if (f.pageId != NO_PAGE) {
+				if (f.dirty)
+					write(f);
+				detach(f.pageId);
+				f.pageId = NO_PAGE;
+			}
+			return f;
+		}
+		throw new IllegalStateException("every frame of the buffer pool is pinned");
+	}
+
+	private void write(Frame f) {
+
+		ByteBuffer page = f.page.duplicate();
+		page.clear();
+		try {
+			long position = (long)f.pageId * pageSize;
+			while (page.hasRemaining())
+				channel.write(page, position + page.position());
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+		f.dirty = false;
+	}
+
+	//Writes every dirty page back to the file.
+	void flush() {
+
+		for (Frame f : frames)
+			if (f.pageId != NO_PAGE && f.dirty)
+				write(f);
+	}
+}
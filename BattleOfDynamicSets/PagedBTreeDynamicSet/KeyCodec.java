@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package PagedBTreeDynamicSet;
+
+//Turns keys into bytes whose order, compared as unsigned bytes from the left with a shorter
+//prefix first, is the order of compareTo, so a PagedBTreeDynamicSet can compare keys in its pages
+//without decoding them. The name is stored in the file and checked when it is opened again.
+public interface KeyCodec<T extends Comparable<T>> {
+
+	public String name();
+
+	public byte[] encode(T key);
+
+	public T decode(byte[] bytes);
+
+	//Every char on its own in the UTF-8 scheme (1 to 3 bytes, surrogates one by one), which keeps
+	//the UTF-16 order of String.compareTo. Plain UTF-8 would not: it sorts supplementary
+	//characters after U+FFFF.
+	public static final KeyCodec<String> STRING = new KeyCodec<String>() {
+		public String name() {
+
+			return "string";
+		}
+
+		public byte[] encode(String key) {
+
+			int n = 0;
+			for (int i = 0; i < key.length(); i++) {
+				char c = key.charAt(i);
+				n += (c < 0x80) ? 1 : (c < 0x800) ? 2 : 3;
+			}
+			byte[] bytes = new byte[n];
+			int j = 0;
+			for (int i = 0; i < key.length(); i++) {
+				char c = key.charAt(i);
+				if (c < 0x80)
+					bytes[j++] = (byte)c;
+				else if (c < 0x800) {
+					bytes[j++] = (byte)(0xC0 | (c >> 6));
+					bytes[j++] = (byte)(0x80 | (c & 0x3F));
+				}
+				else {
+					bytes[j++] = (byte)(0xE0 | (c >> 12));
+					bytes[j++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+					bytes[j++] = (byte)(0x80 | (c & 0x3F));
+				}
+			}
+			return bytes;
+		}
+
+		public String decode(byte[] bytes) {
+
+			char[] chars = new char[bytes.length];
+			int n = 0;
+			for (int i = 0; i < bytes.length; n++) {
+				int b = bytes[i] & 0xFF;
+				if (b < 0x80) {
+					chars[n] = (char)b;
+					i += 1;
+				}
+				else if (b < 0xE0) {
+					chars[n] = (char)(((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+					i += 2;
+				}
+				else {
+					chars[n] = (char)(((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F));
+					i += 3;
+				}
+			}
+			return new String(chars, 0, n);
+		}
+	};
+
+	//Eight bytes, big-endian, with the sign bit flipped so negative keys come first.
+	public static final KeyCodec<Long> LONG = new KeyCodec<Long>() {
+		public String name() {
+
+			return "long";
+		}
+
+		public byte[] encode(Long key) {
+
+			long v = key.longValue() ^ Long.MIN_VALUE;
+			byte[] bytes = new byte[8];
+			for (int i = 7; i >= 0; i--, v >>>= 8)
+				bytes[i] = (byte)v;
+			return bytes;
+		}
+
+		public Long decode(byte[] bytes) {
+
+			long v = 0;
+			for (int i = 0; i < 8; i++)
+				v = (v << 8) | (bytes[i] & 0xFF);
+			return Long.valueOf(v ^ Long.MIN_VALUE);
+		}
+	};
+
+	//Four bytes, big-endian, with the sign bit flipped.
+	public static final KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+		public String name() {
+
+			return "integer";
+		}
+
+		public byte[] encode(Integer key) {
+
+			int v = key.intValue() ^ Integer.MIN_VALUE;
+			return new byte[] {(byte)(v >>> 24), (byte)(v >>> 16), (byte)(v >>> 8), (byte)v};
+		}
+
+		public Integer decode(byte[] bytes) {
+
+			int v = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+			return Integer.valueOf(v ^ Integer.MIN_VALUE);
+		}
+	};
+}
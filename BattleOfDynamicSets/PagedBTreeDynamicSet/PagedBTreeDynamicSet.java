@@ -0,0 +1,820 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package PagedBTreeDynamicSet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import DynamicSet.*;
+
+/*
+ * A B+-tree whose nodes are fixed-size pages of a file, for sets that do not fit in the heap. Keys
+ * and data are stored as bytes (see KeyCodec) in slotted pages (see BTreePage) and compared as
+ * bytes, so a search decodes nothing but the element it returns. Pages are read and written
+ * through a FileChannel into a BufferPool of poolPages frames, which evicts with a clock sweep;
+ * only the pages in the pool take memory, whatever the size of the file.
+ *
+ * Page 0 of the file is a header with the root, the height, the size, the number of pages and the
+ * free list. Opening an existing file reads only that page, so a set of any size is ready at once
+ * and its pages come in as they are used. flush() writes the dirty pages and the header and forces
+ * them to the device, and close() flushes and closes the file; the file is consistent after either.
+ * There is no log: a crash between two flushes can leave it broken.
+ *
+ * Leaves are linked in key order for successor, predecessor and range scans. A delete removes a
+ * leaf once it is empty, and internal pages and the root go with their last child, but partly
+ * filled pages are not merged: their space is used again by later inserts in their key range.
+ * Elements are decoded from the pages on every call, so the set returns equal elements, not the
+ * objects that were inserted.
+ *
+ * Reads change the buffer pool (see BufferPool), so threads may share the set only through a
+ * ConcurrentDynamicSet in ReadMode.EXCLUSIVE.
+ */
+public class PagedBTreeDynamicSet<T extends Comparable<T>> extends DynamicSet<T> implements AutoCloseable {
+
+	public static final int DEFAULT_PAGE_SIZE = 4096;
+	public static final int DEFAULT_POOL_PAGES = 1024;
+	public static final int MIN_POOL_PAGES = 8;
+
+	private static final int MAGIC = 0x50425453;	//"PBTS"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 128;
+	private static final double FILL = 0.9;	//how full bulkLoad packs the pages
+
+	private static final int ABSENT = 0;	//results of the recursive delete
+	private static final int REMOVED = 1;
+	private static final int EMPTIED = 2;	//the page is empty and was freed
+
+	private final FileChannel channel;
+	private final KeyCodec<T> codec;
+	private final int pageSize;
+	private final int maxEntry;	//largest entry in bytes, a quarter of a page so a split always succeeds
+	private final BufferPool pool;
+	private int root;
+	private int height;	//levels, 1 while the root is a leaf
+	private int pageCount;	//pages in the file, the header included
+	private int freeList;	//first free page, chained through their next links, 0 if none
+	private boolean changed;	//set by the recursive insert: false if the key was already there
+
+	//A page split: the new page to the right and the smallest key under it.
+	private static class Split {
+
+		final byte[] key;
+		final int page;
+
+		Split(byte[] key, int page) {
+
+			this.key = key;
+			this.page = page;
+		}
+	}
+
+	//Opens the set stored in file, or creates it if the file does not exist or is empty.
+	public PagedBTreeDynamicSet(Path file, KeyCodec<T> codec) {
+
+		this(file, codec, DEFAULT_PAGE_SIZE, DEFAULT_POOL_PAGES);
+	}
+
+	//pageSize is used when the file is created, an existing file keeps its own.
+	public PagedBTreeDynamicSet(Path file, KeyCodec<T> codec, int pageSize, int poolPages) {
+
+		this(open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE), codec, pageSize, poolPages);
+	}
+
+	private PagedBTreeDynamicSet(FileChannel channel, KeyCodec<T> codec, int pageSize, int poolPages) {
+
+		super();
+		if (pageSize < 512 || pageSize > 32768 || Integer.bitCount(pageSize) != 1)
+			throw new IllegalArgumentException("pageSize must be a power of two from 512 to 32768: " + pageSize);
+		if (poolPages < MIN_POOL_PAGES)
+			throw new IllegalArgumentException("poolPages must be at least " + MIN_POOL_PAGES + ": " + poolPages);
+		this.channel = channel;
+		this.codec = codec;
+		try {
+			if (channel.size() == 0) {
+				this.pageSize = pageSize;
+				this.pool = new BufferPool(channel, pageSize, poolPages);
+				pageCount = 1;
+				freeList = 0;
+				root = allocate(BTreePage.LEAF);
+				height = 1;
+				writeHeader();
+			}
+			else {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+				while (header.hasRemaining())
+					if (channel.read(header, header.position()) < 0)
+						throw new IllegalArgumentException("not a PagedBTreeDynamicSet file: shorter than its header");
+				if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+					throw new IllegalArgumentException("not a PagedBTreeDynamicSet file");
+				byte[] name = new byte[header.getShort(36)];
+				for (int i = 0; i < name.length; i++)
+					name[i] = header.get(38 + i);
+				String keys = new String(name, StandardCharsets.UTF_8);
+				if (!keys.equals(codec.name()))
+					throw new IllegalArgumentException("the file holds " + keys + " keys, not " + codec.name());
+				this.pageSize = header.getInt(8);
+				this.pool = new BufferPool(channel, this.pageSize, poolPages);
+				root = header.getInt(12);
+				height = header.getInt(16);
+				super.size = (int)header.getLong(20);
+				pageCount = header.getInt(28);
+				freeList = header.getInt(32);
+			}
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+		this.maxEntry = (this.pageSize - BTreePage.HEADER) / 4;
+	}
+
+	//Creates an empty set in a new temporary file that is deleted when the set is closed or
+	//garbage collected, or when the JVM exits.
+	public static <T extends Comparable<T>> PagedBTreeDynamicSet<T> createTemporary(KeyCodec<T> codec, int pageSize, int poolPages) {
+
+		try {
+			Path file = Files.createTempFile("dynamicset", ".pbt");
+			file.toFile().deleteOnExit();
+			return new PagedBTreeDynamicSet<T>(open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.DELETE_ON_CLOSE), codec, pageSize, poolPages);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	private static FileChannel open(Path file, StandardOpenOption... options) {
+
+		try {
+			return FileChannel.open(file, options);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	public static void main(String []args) throws IOException {
+
+		Path file = Files.createTempFile("names", ".pbt");
+		PagedBTreeDynamicSet<String> set = new PagedBTreeDynamicSet<String>(file, KeyCodec.STRING, 512, MIN_POOL_PAGES);
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+
+		PagedElement<String> n1 = new PagedElement<String>(s1, s1);
+		PagedElement<String> n2 = new PagedElement<String>(s2, s2);
+		PagedElement<String> n3 = new PagedElement<String>(s3, s3);
+		PagedElement<String> n4 = new PagedElement<String>(s4, s4);
+
+		//test insert
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n4);
+		set.insert(n1);
+		for (int i = 0; i < 1000; i++)
+			set.insert(new PagedElement<String>("key" + i, "data" + i));
+		for (int i = 0; i < 1000; i++)
+			set.delete(new PagedElement<String>("key" + i, "data" + i));
+		System.out.println(set.toString() + " in " + set.getPageCount() + " pages");
+
+		//reopen the file: only the header is read
+		set.close();
+		set = new PagedBTreeDynamicSet<String>(file, KeyCodec.STRING);
+		System.out.println(set.size() + " elements after reopening, height " + set.height());
+
+		//testing max
+		SetElement<String> testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+
+		//testing successor
+		testNode = set.successor(n3);
+		if (testNode == null)
+			System.out.println("No Successor of " + n3.getKey());
+		else
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+
+		//testing predecessor
+		testNode = set.predecessor(n1);
+		if (testNode == null)
+			System.out.println("No Predecessor of " + n1.getKey());
+		else
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+
+		set.close();
+		Files.delete(file);
+	}
+
+	public int getPageSize() {
+
+		return pageSize;
+	}
+
+	public int getPoolPages() {
+
+		return pool.size();
+	}
+
+	//Returns the number of pages in the file, the header and free pages included.
+	public int getPageCount() {
+
+		return pageCount;
+	}
+
+	//Returns the number of page requests the buffer pool served from memory since the last reset.
+	public long getPoolHits() {
+
+		return pool.getHits();
+	}
+
+	//Returns the number of page requests that read the page from the file since the last reset.
+	public long getPoolMisses() {
+
+		return pool.getMisses();
+	}
+
+	public void resetPoolCounters() {
+
+		pool.resetCounters();
+	}
+
+	//Writes every dirty page and the header, and forces them to the device.
+	public void flush() {
+
+		pool.flush();
+		writeHeader();
+		try {
+			channel.force(false);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	//Flushes and closes the file. The set cannot be used afterwards.
+	public void close() {
+
+		if (!channel.isOpen())
+			return;
+		flush();
+		try {
+			channel.close();
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	private void writeHeader() {
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		header.putInt(0, MAGIC);
+		header.putInt(4, VERSION);
+		header.putInt(8, pageSize);
+		header.putInt(12, root);
+		header.putInt(16, height);
+		header.putLong(20, super.size);
+		header.putInt(28, pageCount);
+		header.putInt(32, freeList);
+		byte[] name = codec.name().getBytes(StandardCharsets.UTF_8);
+		header.putShort(36, (short)name.length);
+		for (int i = 0; i < name.length; i++)
+			header.put(38 + i, name[i]);
+		try {
+			while (header.hasRemaining())
+				channel.write(header, header.position());
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	//Returns the id of a new page of the given type, from the free list or the end of the file.
+	private int allocate(byte type) {
+
+		BufferPool.Frame f;
+		if (freeList != 0) {
+			f = pool.pin(freeList);
+			freeList = BTreePage.next(f.page);
+			f.dirty = true;
+		}
+		else
+			f = pool.create(pageCount++);
+		BTreePage.init(f.page, type);
+		pool.unpin(f);
+		return f.pageId;
+	}
+
+	private void free(int page) {
+
+		BufferPool.Frame f = pool.pin(page);
+		BTreePage.setNext(f.page, freeList);
+		f.dirty = true;
+		pool.unpin(f);
+		freeList = page;
+	}
+
+	private byte[] encodeData(SetElement<T> e) {
+
+		return (e.getData() == null) ? null : codec.encode(e.getData());
+	}
+
+	private PagedElement<T> element(ByteBuffer p, int i) {
+
+		byte[] data = BTreePage.data(p, i);
+		return new PagedElement<T>(codec.decode(BTreePage.key(p, i)), (data == null) ? null : codec.decode(data));
+	}
+
+	//Returns the leaf whose key range holds key.
+	private int descend(byte[] key) {
+
+		int page = root;
+		for (int level = height; level > 1; level--) {
+			BufferPool.Frame f = pool.pin(page);
+			page = BTreePage.child(f.page, BTreePage.childIndex(f.page, key, stats));
+			pool.unpin(f);
+		}
+		return page;
+	}
+
+	//Returns the leftmost (last false) or rightmost (last true) leaf.
+	private int edge(boolean last) {
+
+		int page = root;
+		for (int level = height; level > 1; level--) {
+			BufferPool.Frame f = pool.pin(page);
+			stats.visited();
+			page = BTreePage.child(f.page, last ? BTreePage.count(f.page) : 0);
+			pool.unpin(f);
+		}
+		return page;
+	}
+
+	public void insert(SetElement<T> e) {
+
+		byte[] key = codec.encode(e.getKey());
+		byte[] data = encodeData(e);
+		if (BTreePage.leafEntrySize(key, data) > maxEntry)
+			throw new IllegalArgumentException("key and data take " + BTreePage.leafEntrySize(key, data)
+					+ " bytes, at most " + maxEntry + " fit in a page of " + pageSize);
+		Split split = insert(root, height, key, data);
+		if (!changed)
+			return;	//already in the set
+		super.size++;
+		if (split != null) {
+			int newRoot = allocate(BTreePage.INTERNAL);
+			BufferPool.Frame f = pool.pin(newRoot);
+			BTreePage.setNext(f.page, root);	//child 0
+			BTreePage.insertInternal(f.page, 0, split.key, split.page);
+			f.dirty = true;
+			pool.unpin(f);
+			root = newRoot;
+			height++;
+			stats.levelCreated();
+		}
+	}
+
+	//Inserts key into the subtree of page, level levels high, and returns the split of page if it
+	//had to be split, or null. Pins one page at a time, besides a split's new neighbour.
+	private Split insert(int page, int level, byte[] key, byte[] data) {
+
+		BufferPool.Frame f = pool.pin(page);
+		if (level == 1) {
+			int i = BTreePage.search(f.page, key, stats);
+			changed = (i < 0);
+			Split split = null;
+			if (changed) {
+				i = -(i + 1);
+				f.dirty = true;
+				if (!BTreePage.insertLeaf(f.page, i, key, data))
+					split = splitLeaf(f, i, key, data);
+			}
+			pool.unpin(f);
+			return split;
+		}
+		int i = BTreePage.childIndex(f.page, key, stats);
+		int child = BTreePage.child(f.page, i);
+		pool.unpin(f);
+		Split below = insert(child, level - 1, key, data);
+		if (below == null)
+			return null;
+		f = pool.pin(page);
+		f.dirty = true;
+		Split split = null;
+		if (!BTreePage.insertInternal(f.page, i, below.key, below.page))
+			split = splitInternal(f, i, below.key, below.page);
+		pool.unpin(f);
+		return split;
+	}
+
+	//Splits a full leaf around the new entry i: the entries are divided by bytes, the upper half
+	//moves to a new leaf linked in after this one.
+	private Split splitLeaf(BufferPool.Frame f, int i, byte[] key, byte[] data) {
+
+		ByteBuffer p = f.page;
+		List<byte[]> keys = new ArrayList<byte[]>();
+		List<byte[]> datas = new ArrayList<byte[]>();
+		for (int j = 0; j < BTreePage.count(p); j++) {
+			keys.add(BTreePage.key(p, j));
+			datas.add(BTreePage.data(p, j));
+		}
+		keys.add(i, key);
+		datas.add(i, data);
+		int total = 0;
+		for (int j = 0; j < keys.size(); j++)
+			total += BTreePage.leafEntrySize(keys.get(j), datas.get(j));
+		int m = 0;
+		for (int bytes = 0; m < keys.size() - 1 && bytes + BTreePage.leafEntrySize(keys.get(m), datas.get(m)) <= total / 2; m++)
+			bytes += BTreePage.leafEntrySize(keys.get(m), datas.get(m));
+		m = Math.max(m, 1);
+
+		int next = BTreePage.next(p);
+		int prev = BTreePage.prev(p);
+		int right = allocate(BTreePage.LEAF);
+		BufferPool.Frame r = pool.pin(right);
+		BTreePage.fillLeaf(r.page, keys, datas, m, keys.size());
+		BTreePage.setPrev(r.page, f.pageId);
+		BTreePage.setNext(r.page, next);
+		r.dirty = true;
+		pool.unpin(r);
+		BTreePage.init(p, BTreePage.LEAF);
+		BTreePage.fillLeaf(p, keys, datas, 0, m);
+		BTreePage.setPrev(p, prev);
+		BTreePage.setNext(p, right);
+		if (next != 0) {
+			BufferPool.Frame n = pool.pin(next);
+			BTreePage.setPrev(n.page, right);
+			n.dirty = true;
+			pool.unpin(n);
+		}
+		return new Split(keys.get(m), right);
+	}
+
+	//Splits a full internal page around the new key i (with child i + 1): the middle key by bytes
+	//moves up, the keys and children right of it move to a new page.
+	private Split splitInternal(BufferPool.Frame f, int i, byte[] key, int child) {
+
+		ByteBuffer p = f.page;
+		List<byte[]> keys = new ArrayList<byte[]>();
+		List<Integer> children = new ArrayList<Integer>();
+		children.add(BTreePage.child(p, 0));
+		for (int j = 0; j < BTreePage.count(p); j++) {
+			keys.add(BTreePage.key(p, j));
+			children.add(BTreePage.child(p, j + 1));
+		}
+		keys.add(i, key);
+		children.add(i + 1, child);
+		int total = 0;
+		for (byte[] k : keys)
+			total += BTreePage.internalEntrySize(k);
+		int m = 0;
+		for (int bytes = 0; m < keys.size() - 2 && bytes + BTreePage.internalEntrySize(keys.get(m)) <= total / 2; m++)
+			bytes += BTreePage.internalEntrySize(keys.get(m));
+		m = Math.max(m, 1);
+
+		int right = allocate(BTreePage.INTERNAL);
+		BufferPool.Frame r = pool.pin(right);
+		BTreePage.fillInternal(r.page, keys, children, m + 1, keys.size());
+		r.dirty = true;
+		pool.unpin(r);
+		BTreePage.init(p, BTreePage.INTERNAL);
+		BTreePage.fillInternal(p, keys, children, 0, m);
+		return new Split(keys.get(m), right);
+	}
+
+	public void delete(SetElement<T> e) {
+
+		if (e == null || e.getKey() == null)
+			return;
+		int result = delete(root, height, codec.encode(e.getKey()));
+		if (result == ABSENT)
+			return;
+		super.size--;
+		if (result == EMPTIED) {	//the last child of the internal root went
+			root = allocate(BTreePage.LEAF);
+			height = 1;
+			stats.levelRemoved();
+			return;
+		}
+		while (height > 1) {	//a root with a single child hands over to it
+			BufferPool.Frame f = pool.pin(root);
+			int count = BTreePage.count(f.page);
+			int child = BTreePage.child(f.page, 0);
+			pool.unpin(f);
+			if (count > 0)
+				break;
+			free(root);
+			root = child;
+			height--;
+			stats.levelRemoved();
+		}
+	}
+
+	//Removes key from the subtree of page, level levels high. A leaf that becomes empty is unlinked
+	//and freed, unless it is the root; an internal page that loses its last child is freed.
+	private int delete(int page, int level, byte[] key) {
+
+		BufferPool.Frame f = pool.pin(page);
+		if (level == 1) {
+			int i = BTreePage.search(f.page, key, stats);
+			if (i < 0) {
+				pool.unpin(f);
+				return ABSENT;
+			}
+			BTreePage.removeLeaf(f.page, i);
+			f.dirty = true;
+			int prev = BTreePage.prev(f.page);
+			int next = BTreePage.next(f.page);
+			boolean empty = BTreePage.count(f.page) == 0 && page != root;
+			pool.unpin(f);
+			if (!empty)
+				return REMOVED;
+			if (prev != 0) {
+				BufferPool.Frame n = pool.pin(prev);
+				BTreePage.setNext(n.page, next);
+				n.dirty = true;
+				pool.unpin(n);
+			}
+			if (next != 0) {
+				BufferPool.Frame n = pool.pin(next);
+				BTreePage.setPrev(n.page, prev);
+				n.dirty = true;
+				pool.unpin(n);
+			}
+			free(page);
+			return EMPTIED;
+		}
+		int i = BTreePage.childIndex(f.page, key, stats);
+		int child = BTreePage.child(f.page, i);
+		pool.unpin(f);
+		int result = delete(child, level - 1, key);
+		if (result != EMPTIED)
+			return result;
+		f = pool.pin(page);
+		if (BTreePage.count(f.page) == 0) {
+			pool.unpin(f);
+			free(page);
+			return EMPTIED;
+		}
+		BTreePage.removeChild(f.page, i);
+		f.dirty = true;
+		pool.unpin(f);
+		return REMOVED;
+	}
+
+	public SetElement<T> search(T k) {
+
+		if (k == null)
+			return null;
+		byte[] key = codec.encode(k);
+		BufferPool.Frame f = pool.pin(descend(key));
+		int i = BTreePage.search(f.page, key, stats);
+		SetElement<T> e = (i >= 0) ? element(f.page, i) : null;
+		pool.unpin(f);
+		return e;
+	}
+
+	public SetElement<T> minimum() {
+
+		BufferPool.Frame f = pool.pin(edge(false));
+		SetElement<T> e = (BTreePage.count(f.page) > 0) ? element(f.page, 0) : null;
+		pool.unpin(f);
+		return e;
+	}
+
+	public SetElement<T> maximum() {
+
+		BufferPool.Frame f = pool.pin(edge(true));
+		int n = BTreePage.count(f.page);
+		SetElement<T> e = (n > 0) ? element(f.page, n - 1) : null;
+		pool.unpin(f);
+		return e;
+	}
+
+	public SetElement<T> successor(SetElement<T> e) {
+
+		byte[] key = codec.encode(e.getKey());
+		BufferPool.Frame f = pool.pin(descend(key));
+		int i = BTreePage.search(f.page, key, stats);
+		i = (i >= 0) ? i + 1 : -(i + 1);
+		if (i < BTreePage.count(f.page)) {
+			SetElement<T> s = element(f.page, i);
+			pool.unpin(f);
+			return s;
+		}
+		int next = BTreePage.next(f.page);	//leaves other than the root are never empty
+		pool.unpin(f);
+		if (next == 0)
+			return null;
+		f = pool.pin(next);
+		SetElement<T> s = element(f.page, 0);
+		pool.unpin(f);
+		return s;
+	}
+
+	public SetElement<T> predecessor(SetElement<T> e) {
+
+		byte[] key = codec.encode(e.getKey());
+		BufferPool.Frame f = pool.pin(descend(key));
+		int i = BTreePage.search(f.page, key, stats);
+		i = (i >= 0) ? i - 1 : -(i + 1) - 1;
+		if (i >= 0) {
+			SetElement<T> s = element(f.page, i);
+			pool.unpin(f);
+			return s;
+		}
+		int prev = BTreePage.prev(f.page);
+		pool.unpin(f);
+		if (prev == 0)
+			return null;
+		f = pool.pin(prev);
+		SetElement<T> s = element(f.page, BTreePage.count(f.page) - 1);
+		pool.unpin(f);
+		return s;
+	}
+
+	//Returns the number of levels of the tree, 0 if the set is empty.
+	public int height() {
+
+		return (super.size == 0) ? 0 : height;
+	}
+
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//The first leaf is found by one descent; the cursor then keeps its leaf and slot and walks the
+	//leaf chain, pinning one page per step.
+	public Cursor<T> range(final T lo, T hi) {
+
+		return new Cursor<T>(hi) {
+			private int leaf;
+			private int index;	//slot of the current element in leaf
+
+			protected SetElement<T> first() {
+
+				if (lo == null) {
+					leaf = edge(false);
+					index = -1;
+				}
+				else {
+					byte[] key = codec.encode(lo);
+					leaf = descend(key);
+					BufferPool.Frame f = pool.pin(leaf);
+					int i = BTreePage.search(f.page, key, stats);
+					index = ((i >= 0) ? i : -(i + 1)) - 1;
+					pool.unpin(f);
+				}
+				return step(null);
+			}
+
+			protected SetElement<T> step(SetElement<T> e) {
+
+				BufferPool.Frame f = pool.pin(leaf);
+				index++;
+				while (index >= BTreePage.count(f.page)) {
+					int next = BTreePage.next(f.page);
+					pool.unpin(f);
+					if (next == 0)
+						return null;
+					leaf = next;
+					index = 0;
+					f = pool.pin(leaf);
+				}
+				SetElement<T> s = element(f.page, index);
+				pool.unpin(f);
+				return s;
+			}
+		};
+	}
+
+	//Builds an empty set bottom-up from the elements: they are sorted once, packed into leaves
+	//left to right, and the internal levels are built over the leaves, in O(n) page writes. A set
+	//that is not empty inserts them one by one.
+	@SuppressWarnings("unchecked")
+	public void bulkLoad(Iterator<? extends SetElement<T>> elements) {
+
+		if (super.size > 0) {
+			super.bulkLoad(elements);
+			return;
+		}
+		ArrayList<SetElement<T>> added = new ArrayList<SetElement<T>>();
+		while (elements.hasNext())
+			added.add(elements.next());
+		if (added.isEmpty())
+			return;
+		ArrayList<SetElement<T>> sorted = sortedUnion(new ArrayList<SetElement<T>>(), added);
+		List<byte[]> keys = new ArrayList<byte[]>(sorted.size());
+		List<byte[]> datas = new ArrayList<byte[]>(sorted.size());
+		for (SetElement<T> e : sorted) {
+			byte[] key = codec.encode(e.getKey());
+			byte[] data = encodeData(e);
+			if (BTreePage.leafEntrySize(key, data) > maxEntry)
+				throw new IllegalArgumentException("key and data take " + BTreePage.leafEntrySize(key, data)
+						+ " bytes, at most " + maxEntry + " fit in a page of " + pageSize);
+			keys.add(key);
+			datas.add(data);
+		}
+		free(root);
+		int room = (int)((pageSize - BTreePage.HEADER) * FILL);
+
+		//leaves, with the first key of each one
+		List<byte[]> firstKeys = new ArrayList<byte[]>();
+		List<Integer> pages = new ArrayList<Integer>();
+		int prev = 0;
+		for (int i = 0; i < keys.size(); ) {
+			int j = i;
+			for (int bytes = 0; j < keys.size() && (j == i || bytes + BTreePage.leafEntrySize(keys.get(j), datas.get(j)) <= room); j++)
+				bytes += BTreePage.leafEntrySize(keys.get(j), datas.get(j));
+			int page = allocate(BTreePage.LEAF);
+			BufferPool.Frame f = pool.pin(page);
+			BTreePage.fillLeaf(f.page, keys, datas, i, j);
+			BTreePage.setPrev(f.page, prev);
+			f.dirty = true;
+			pool.unpin(f);
+			if (prev != 0) {
+				f = pool.pin(prev);
+				BTreePage.setNext(f.page, page);
+				f.dirty = true;
+				pool.unpin(f);
+			}
+			firstKeys.add(keys.get(i));
+			pages.add(page);
+			prev = page;
+			i = j;
+		}
+
+		//internal levels, until one page is left
+		int levels = 1;
+		while (pages.size() > 1) {
+			List<byte[]> upperKeys = new ArrayList<byte[]>();
+			List<Integer> upperPages = new ArrayList<Integer>();
+			for (int i = 0; i < pages.size(); ) {
+				int j = i + 1;	//children i..j-1, separated by firstKeys i+1..j-1
+				for (int bytes = 0; j < pages.size() && (j == i + 1 || bytes + BTreePage.internalEntrySize(firstKeys.get(j)) <= room); j++)
+					bytes += BTreePage.internalEntrySize(firstKeys.get(j));
+				int page = allocate(BTreePage.INTERNAL);
+				BufferPool.Frame f = pool.pin(page);
+				BTreePage.fillInternal(f.page, firstKeys.subList(1, firstKeys.size()), pages, i, j - 1);
+				f.dirty = true;
+				pool.unpin(f);
+				upperKeys.add(firstKeys.get(i));
+				upperPages.add(page);
+				i = j;
+			}
+			firstKeys = upperKeys;
+			pages = upperPages;
+			levels++;
+			stats.levelCreated();
+		}
+		root = pages.get(0);
+		height = levels;
+		super.size = keys.size();
+	}
+
+	public String toString() {
+
+		StringBuilder result = new StringBuilder();
+		result.append("[");
+		Cursor<T> c = range(null, null);
+		boolean first = true;
+		while (c.next()) {
+			if (!first)
+				result.append(", ");
+			result.append(c.getKey());
+			first = false;
+		}
+		result.append("]");
+		return result.toString();
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package PersistentRedBlackSet;
+
+import DynamicSet.*;
+
+//An immutable node of a PersistentRedBlackSet. Nodes are shared by every version of the tree that
+//contains them, so they have no parent pointer and nothing about them can change once they are built:
+//an update copies the nodes on its path instead. The color is true for red, false for black, as in RBTNode.
+public class PRBNode<T extends Comparable<T>> extends SetElement<T> implements Comparable<T> {
+	
+	private final boolean color;
+	private final PRBNode<T> left;
+	private final PRBNode<T> right;
+	private final int size;	//number of nodes in the subtree rooted here
+	
+	//Creates a node that is not in any tree, to be handed to insert.
+	public PRBNode(T newKey, T data) {
+		
+		this(newKey, data, false, null, null);
+	}
+	
+	PRBNode(T newKey, T data, boolean color, PRBNode<T> left, PRBNode<T> right) {
+		
+		super(newKey, data);
+		this.color = color;
+		this.left = left;
+		this.right = right;
+		this.size = 1 + size(left) + size(right);
+	}
+	
+	static int size(PRBNode<?> node) {
+		
+		return node == null ? 0 : node.size;
+	}
+	
+	public boolean getColor()
+	{
+		return this.color;
+	}
+	
+	public PRBNode<T> getLeft()
+	{
+		return this.left;
+	}
+	
+	public PRBNode<T> getRight()
+	{
+		return this.right;
+	}
+	
+	public int getSize()
+	{
+		return this.size;
+	}
+	
+	//The data of a node is seen by every version that shares it, so it cannot be replaced.
+	public void setData(T data)
+	{
+		throw new UnsupportedOperationException("PRBNode is immutable");
+	}
+	
+	public int compareTo(T k)
+	{
+		return super.key.compareTo(k);
+	}
+	
+}
@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package PersistentRedBlackSet;
+
+import DynamicSet.*;
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+
+//Persistent red-black tree (left-leaning variant, Sedgewick 2008) with path copying: an update never
+//modifies a node, it copies the O(log n) nodes on the path from the root to the change and shares
+//every other subtree with the previous version. Each version is therefore an immutable tree, and
+//
+//	with(e) and without(k)	return a new version and leave this one as it is,
+//	insert(e) and delete(e)	replace the version this set holds (the DynamicSet contract),
+//	snapshot()		returns the current version as a read-only set in O(1).
+//
+//A snapshot never changes, so any number of threads can read it without locking while one writer
+//keeps updating the live set (writes to the live set must come from one thread at a time). Nodes
+//have no parent pointers, so successor and predecessor search from the root in O(log n), and a
+//range cursor keeps the path to its position on a stack.
+public class PersistentRedBlackSet<T extends Comparable<T>> extends DynamicSet<T> {
+	
+	private static final boolean RED = true;
+	private static final boolean BLACK = false;
+	
+	private volatile PRBNode<T> root;	//the current version, published to readers of snapshot()
+	private final boolean readOnly;
+	
+	public PersistentRedBlackSet() {
+		
+		this(null, false);
+	}
+	
+	private PersistentRedBlackSet(PRBNode<T> root, boolean readOnly) {
+		
+		super();
+		this.root = root;
+		this.readOnly = readOnly;
+		super.size = PRBNode.size(root);
+	}
+	
+	public static void main(String []args) {
+		
+		PersistentRedBlackSet<String> set = new PersistentRedBlackSet<String>();
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+		
+		PRBNode<String> n1 = new PRBNode<String>(s1, s1);
+		PRBNode<String> n2 = new PRBNode<String>(s2, s2);
+		PRBNode<String> n3 = new PRBNode<String>(s3, s3);
+		PRBNode<String> n4 = new PRBNode<String>(s4, s4);
+		
+		//testing insert
+		set.insert(n1);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n4);
+		set.insert(n1);
+		
+		//testing snapshot: later updates of the set do not show in it
+		PersistentRedBlackSet<String> snapshot = set.snapshot();
+		set.delete(n3);
+		set.delete(n2);
+		System.out.println("Set: " + set.size() + " elements, snapshot: " + snapshot.size() + " elements");
+		System.out.println("Maha in snapshot: " + (snapshot.search(s3) != null) + ", in set: " + (set.search(s3) != null));
+		
+		//testing with/without
+		PersistentRedBlackSet<String> version = snapshot.without(s1).with(n1);
+		System.out.println("New version: " + version.size() + " elements");
+		
+		//testing max
+		PRBNode<String> testNode = snapshot.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+		
+		//testing min
+		testNode = snapshot.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+		
+		//testing successor
+		testNode = snapshot.successor(n3);
+		if (testNode == null)
+			System.out.println("No Successor of " + n3.getKey());
+		else
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+		
+		//testing predecessor
+		testNode = snapshot.predecessor(n1);
+		if (testNode == null)
+			System.out.println("No Predecessor of " + n1.getKey());
+		else
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+	}
+	
+	//Returns the number of elements currently in the set.
+	public int size() {
+		
+		return PRBNode.size(root);
+	}
+	
+	//Returns true for snapshots, which cannot be updated in place.
+	public boolean isReadOnly() {
+		
+		return this.readOnly;
+	}
+	
+	//Returns the current version as a read-only set. It shares all nodes with this set, so it costs O(1).
+	public PersistentRedBlackSet<T> snapshot() {
+		
+		return new PersistentRedBlackSet<T>(root, true);
+	}
+	
+	//Returns a read-only version holding the elements of this one and e, copying O(log n) nodes.
+	//If the key of e is already in the set, the version returned is this one's.
+	public PersistentRedBlackSet<T> with(SetElement<T> e) {
+		
+		return new PersistentRedBlackSet<T>(inserted(root, e), true);
+	}
+	
+	//Returns a read-only version holding the elements of this one except the one with key k,
+	//copying O(log n) nodes.
+	public PersistentRedBlackSet<T> without(T k) {
+		
+		return new PersistentRedBlackSet<T>(deleted(root, k), true);
+	}
+	
+	//Insert element e in the set, by replacing the current version with one that holds e.
+	public void insert(SetElement<T> e) {
+		
+		ensureWritable();
+		root = inserted(root, e);
+		super.size = PRBNode.size(root);
+	}
+	
+	//Given a pointer to element e in set, removes e from set, by replacing the current version with
+	//one that does not hold it.
+	public void delete(SetElement<T> e) {
+		
+		ensureWritable();
+		root = deleted(root, e.getKey());
+		super.size = PRBNode.size(root);
+	}
+	
+	private void ensureWritable() {
+		
+		if (readOnly)
+			throw new UnsupportedOperationException("snapshots of a PersistentRedBlackSet are read-only");
+	}
+	
+	//Returns the root of a version of tree that also holds e.
+	private PRBNode<T> inserted(PRBNode<T> tree, SetElement<T> e) {
+		
+		if (search(tree, e.getKey()) != null)
+			return tree;	//e is already in the tree, nothing to copy
+		PRBNode<T> result = insert(tree, e);
+		return result.getColor() == RED ? recolor(result, BLACK) : result;
+	}
+	
+	private PRBNode<T> insert(PRBNode<T> h, SetElement<T> e) {
+		
+		if (h == null)
+			return new PRBNode<T>(e.getKey(), e.getData(), RED, null, null);
+		stats.visited();
+		stats.compared();
+		if (e.getKey().compareTo(h.getKey()) < 0)
+			h = withLeft(h, insert(h.getLeft(), e));
+		else
+			h = withRight(h, insert(h.getRight(), e));
+		return balance(h);
+	}
+	
+	//Returns the root of a version of tree without key k.
+	private PRBNode<T> deleted(PRBNode<T> tree, T k) {
+		
+		if (search(tree, k) == null)
+			return tree;	//k is not in the tree, nothing to copy
+		PRBNode<T> h = tree;
+		if (!isRed(h.getLeft()) && !isRed(h.getRight()))
+			h = recolor(h, RED);
+		h = delete(h, k);
+		return (h != null && h.getColor() == RED) ? recolor(h, BLACK) : h;
+	}
+	
+	//Deletes k from the subtree rooted at h, which must contain it. On the way down h, or its left
+	//child, is kept red, so the node that is finally removed is a red leaf of the 2-3 tree.
+	private PRBNode<T> delete(PRBNode<T> h, T k) {
+		
+		stats.visited();
+		stats.compared();
+		if (k.compareTo(h.getKey()) < 0) {
+			if (!isRed(h.getLeft()) && !isRed(h.getLeft().getLeft()))
+				h = moveRedLeft(h);
+			h = withLeft(h, delete(h.getLeft(), k));
+		}
+		else {
+			if (isRed(h.getLeft()))
+				h = rotateRight(h);
+			stats.compared();
+			if (k.compareTo(h.getKey()) == 0 && h.getRight() == null)
+				return null;
+			if (!isRed(h.getRight()) && !isRed(h.getRight().getLeft()))
+				h = moveRedRight(h);
+			stats.compared();
+			if (k.compareTo(h.getKey()) == 0) {
+				PRBNode<T> min = treeMinimum(h.getRight());	//replace h by its successor
+				h = new PRBNode<T>(min.getKey(), min.getData(), h.getColor(), h.getLeft(), deleteMinimum(h.getRight()));
+			}
+			else
+				h = withRight(h, delete(h.getRight(), k));
+		}
+		return balance(h);
+	}
+	
+	private PRBNode<T> deleteMinimum(PRBNode<T> h) {
+		
+		if (h.getLeft() == null)
+			return null;
+		stats.visited();
+		if (!isRed(h.getLeft()) && !isRed(h.getLeft().getLeft()))
+			h = moveRedLeft(h);
+		return balance(withLeft(h, deleteMinimum(h.getLeft())));
+	}
+	
+	//Restores the left-leaning red-black invariants at h on the way up.
+	private PRBNode<T> balance(PRBNode<T> h) {
+		
+		if (isRed(h.getRight()) && !isRed(h.getLeft()))
+			h = rotateLeft(h);
+		if (isRed(h.getLeft()) && isRed(h.getLeft().getLeft()))
+			h = rotateRight(h);
+		if (isRed(h.getLeft()) && isRed(h.getRight()))
+			h = flipColors(h);
+		return h;
+	}
+	
+	//Makes h.left or one of its children red, borrowing from the right sibling if it can.
+	private PRBNode<T> moveRedLeft(PRBNode<T> h) {
+		
+		h = flipColors(h);
+		if (isRed(h.getRight().getLeft())) {
+			h = withRight(h, rotateRight(h.getRight()));
+			h = flipColors(rotateLeft(h));
+		}
+		return h;
+	}
+	
+	//Makes h.right or one of its children red, borrowing from the left sibling if it can.
+	private PRBNode<T> moveRedRight(PRBNode<T> h) {
+		
+		h = flipColors(h);
+		if (isRed(h.getLeft().getLeft()))
+			h = flipColors(rotateRight(h));
+		return h;
+	}
+	
+	//The tree operations below build new nodes instead of changing h.
+	
+	private PRBNode<T> rotateLeft(PRBNode<T> h) {
+		
+		stats.rotated();
+		PRBNode<T> x = h.getRight();
+		PRBNode<T> lowered = new PRBNode<T>(h.getKey(), h.getData(), RED, h.getLeft(), x.getLeft());
+		return new PRBNode<T>(x.getKey(), x.getData(), h.getColor(), lowered, x.getRight());
+	}
+	
+	private PRBNode<T> rotateRight(PRBNode<T> h) {
+		
+		stats.rotated();
+		PRBNode<T> x = h.getLeft();
+		PRBNode<T> lowered = new PRBNode<T>(h.getKey(), h.getData(), RED, x.getRight(), h.getRight());
+		return new PRBNode<T>(x.getKey(), x.getData(), h.getColor(), x.getLeft(), lowered);
+	}
+	
+	private PRBNode<T> flipColors(PRBNode<T> h) {
+		
+		return new PRBNode<T>(h.getKey(), h.getData(), !h.getColor(),
+				recolor(h.getLeft(), !h.getLeft().getColor()), recolor(h.getRight(), !h.getRight().getColor()));
+	}
+	
+	private PRBNode<T> recolor(PRBNode<T> h, boolean color) {
+		
+		return new PRBNode<T>(h.getKey(), h.getData(), color, h.getLeft(), h.getRight());
+	}
+	
+	private PRBNode<T> withLeft(PRBNode<T> h, PRBNode<T> left) {
+		
+		return new PRBNode<T>(h.getKey(), h.getData(), h.getColor(), left, h.getRight());
+	}
+	
+	private PRBNode<T> withRight(PRBNode<T> h, PRBNode<T> right) {
+		
+		return new PRBNode<T>(h.getKey(), h.getData(), h.getColor(), h.getLeft(), right);
+	}
+	
+	private static boolean isRed(PRBNode<?> node) {
+		
+		return node != null && node.getColor() == RED;
+	}
+	
+	//Finds a SetElement with key 'k' and returns a pointer to it or null if not found
+	public PRBNode<T> search(T k) {
+		
+		return search(root, k);
+	}
+	
+	private PRBNode<T> search(PRBNode<T> current, T k) {
+		
+		while (current != null) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if (c < 0)
+				current = current.getLeft();
+			else if (c > 0)
+				current = current.getRight();
+			else
+				return current;
+		}
+		return null;
+	}
+	
+	//Finds a SetElement that has the smallest key, and returns a pointer to it, or null if the set is empty.
+	public PRBNode<T> minimum() {
+		
+		PRBNode<T> tree = root;
+		return tree == null ? null : treeMinimum(tree);
+	}
+	
+	//Finds a SetElement that has the largest key, and returns a pointer to it, or null if the set is empty.
+	public PRBNode<T> maximum() {
+		
+		PRBNode<T> tree = root;
+		if (tree == null)
+			return null;
+		while (tree.getRight() != null) {
+			stats.visited();
+			tree = tree.getRight();
+		}
+		return tree;
+	}
+	
+	private PRBNode<T> treeMinimum(PRBNode<T> subtree) {
+		
+		while (subtree.getLeft() != null) {
+			stats.visited();
+			subtree = subtree.getLeft();
+		}
+		return subtree;
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next larger key,
+	//and returns a pointer to it, or null if e is the maximum element. Without parent pointers this is
+	//a search from the root for the smallest key > e's key.
+	public PRBNode<T> successor(SetElement<T> e) {
+		
+		PRBNode<T> current = root;
+		PRBNode<T> succ = null;
+		while (current != null) {
+			stats.visited();
+			stats.compared();
+			if (e.getKey().compareTo(current.getKey()) < 0) {
+				succ = current;
+				current = current.getLeft();
+			}
+			else
+				current = current.getRight();
+		}
+		return succ;
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next smaller key,
+	//and returns a pointer to it, or null if e is the minimum element.
+	public PRBNode<T> predecessor(SetElement<T> e) {
+		
+		PRBNode<T> current = root;
+		PRBNode<T> pred = null;
+		while (current != null) {
+			stats.visited();
+			stats.compared();
+			if (e.getKey().compareTo(current.getKey()) > 0) {
+				pred = current;
+				current = current.getRight();
+			}
+			else
+				current = current.getLeft();
+		}
+		return pred;
+	}
+	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//The cursor reads the version that was current when range was called, so it stays valid while
+	//the set is updated. Its stack holds the nodes on the path whose keys are still to come.
+	public Cursor<T> range(final T lo, T hi) {
+		
+		final PRBNode<T> tree = root;
+		final ArrayDeque<PRBNode<T>> path = new ArrayDeque<PRBNode<T>>();
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+				
+				PRBNode<T> current = tree;
+				while (current != null) {
+					if (lo == null || lo.compareTo(current.getKey()) <= 0) {
+						path.push(current);
+						current = current.getLeft();
+					}
+					else
+						current = current.getRight();
+				}
+				return pop();
+			}
+			
+			protected SetElement<T> step(SetElement<T> e) {
+				
+				return pop();
+			}
+			
+			private PRBNode<T> pop() {
+				
+				if (path.isEmpty())
+					return null;
+				PRBNode<T> node = path.pop();
+				for (PRBNode<T> current = node.getRight(); current != null; current = current.getLeft())
+					path.push(current);
+				return node;
+			}
+		};
+	}
+	
+	//Returns the height of the current version in nodes.
+	public int height() {
+		
+		return height(root);
+	}
+	
+	private static <T extends Comparable<T>> int height(PRBNode<T> node) {
+		
+		if (node == null)
+			return 0;
+		return 1 + Math.max(height(node.getLeft()), height(node.getRight()));
+	}
+	
+	//Returns a spliterator over the elements in key order that splits at subtrees. The subtree sizes
+	//make every part exactly SIZED.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		final PRBNode<T> tree = root;	//the current version
+		return new SubtreeSpliterator<T, PRBNode<T>>(tree, (tree == null) ? 0 : tree.getSize(), new SubtreeSpliterator.Tree<PRBNode<T>>() {
+			public PRBNode<T> left(PRBNode<T> node) {
+				
+				return node.getLeft();
+			}
+			
+			public PRBNode<T> right(PRBNode<T> node) {
+				
+				return node.getRight();
+			}
+			
+			public long size(PRBNode<T> node) {
+				
+				return node.getSize();
+			}
+		});
+	}
+}
@@ -39,6 +39,9 @@ public class RBTNode<T extends Comparable<T>> extends SetElement<T> implements C
 	private RBTNode<T> right;
 	private RBTNode<T> parent;
 	
+	private int size;	//number of nodes in the subtree rooted here
+	private Object aggregate;	//monoid value of the subtree, null if the tree has no monoid
+	
 	public RBTNode(T newKey, T data) {
 		
 		super(newKey, data);
@@ -46,6 +49,8 @@ public class RBTNode<T extends Comparable<T>> extends SetElement<T> implements C
 		this.right = null;
 		this.parent = null;
 		this.color = false;
+		this.size = 1;
+		this.aggregate = null;
 	}
 	
 	public boolean getColor()
@@ -68,6 +73,16 @@ public class RBTNode<T extends Comparable<T>> extends SetElement<T> implements C
 		return this.parent;
 	}
 	
+	public int getSize()
+	{
+		return this.size;
+	}
+	
+	public Object getAggregate()
+	{
+		return this.aggregate;
+	}
+	
 	public void setColor(boolean color)
 	{
 		this.color = color;
@@ -88,6 +103,16 @@ public class RBTNode<T extends Comparable<T>> extends SetElement<T> implements C
 		this.parent = parent;
 	}
 	
+	public void setSize(int size)
+	{
+		this.size = size;
+	}
+	
+	public void setAggregate(Object aggregate)
+	{
+		this.aggregate = aggregate;
+	}
+	
 	public int compareTo(T k)
 	{
 		return super.key.compareTo(k);
@@ -29,22 +29,48 @@
 
 package RedBlackDynamicSet;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import DynamicSet.*;
 
 public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 	
+	//The leaf sentinel, black and of size 0, shared by every set and never written after it is
+	//built: no code sets its links or color, and the aggregate of an empty subtree comes from the
+	//monoid instead. Trees can therefore be moved between sets without touching their leaves.
+	private static final RBTNode<?> NIL = sentinel();
+	
 	private RBTNode<T> root;
-	private RBTNode<T> nil;
+	private final RBTNode<T> nil;
+	private final Monoid<T, Object> monoid;	//null if no aggregates are kept
 	
 	public RedBlackDynamicSet() {
 		
+		this(null);
+	}
+	
+	//Create an empty set that keeps, next to the subtree sizes, the value of the given monoid for
+	//every subtree, so aggregate(lo, hi) can answer range queries in O(log n).
+	@SuppressWarnings("unchecked")
+	public <A> RedBlackDynamicSet(Monoid<T, A> monoid) {
+		
 		super();
-		nil = new RBTNode<T>(null, null);
+		this.monoid = (Monoid<T, Object>)monoid;
+		nil = (RBTNode<T>)NIL;
 		root = nil;
-		root.setParent(nil);
-		nil.setParent(nil);
-		nil.setLeft(nil);
-		nil.setRight(nil);
+	}
+	
+	private static <T extends Comparable<T>> RBTNode<T> sentinel() {
+		
+		RBTNode<T> sentinel = new RBTNode<T>(null, null);
+		sentinel.setParent(sentinel);
+		sentinel.setLeft(sentinel);
+		sentinel.setRight(sentinel);
+		sentinel.setSize(0);
+		return sentinel;
 	}
 	
 	public static void main(String []args) {
@@ -106,6 +132,11 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		else
 			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
 		
+		//testing rank, select and count
+		System.out.println("Rank of " + n3.getKey() + ": " + set.rank(n3.getKey()));
+		System.out.println("Element at rank 1: " + set.select(1).getKey());
+		System.out.println("Elements from " + n4.getKey() + " up to " + n3.getKey() + ": " + set.count(n4.getKey(), n3.getKey()));
+		
 	}
 
 	/*
@@ -116,7 +147,7 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 	//Insert element e in the set. Assumes that e has been properly initialized.
 	public void insert(SetElement<T> e) {
 		
-		if (search(e.getKey()) == nil) {	//check if the element e is already in the tree
+		if (search(e.getKey()) == null) {	//check if the element e is already in the tree
 			RBTNode<T> toAdd = new RBTNode<T>(e.getKey(), e.getData());
 			
 			toAdd.setLeft(nil);
@@ -126,6 +157,8 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			RBTNode<T> current = root;
 			
 			while (current != nil) {
+				stats.visited();
+				stats.compared();
 				trailing = current;
 				if (toAdd.getKey().compareTo(current.getKey()) < 0)
 					current = current.getLeft();
@@ -137,13 +170,18 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			toAdd.setParent(trailing);
 			if (trailing == nil)
 				root = toAdd;
-			else if (toAdd.getKey().compareTo(trailing.getKey()) < 0)
-				trailing.setLeft(toAdd);
-			else
-				trailing.setRight(toAdd);
+			else {
+				stats.compared();
+				if (toAdd.getKey().compareTo(trailing.getKey()) < 0)
+					trailing.setLeft(toAdd);
+				else
+					trailing.setRight(toAdd);
+			}
 			toAdd.setLeft(nil);
 			toAdd.setRight(nil);
 			toAdd.setColor(true);
+			for (RBTNode<T> node = toAdd; node != nil; node = node.getParent())
+				update(node);	//every ancestor gained one node
 			RBInsertFixup(toAdd);
 			super.size++;
 		}
@@ -202,6 +240,7 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 	/* Taken from the algorithm provided by the text; Cormen */
 	private void LeftRotate(RBTNode<T> node) {
 		
+		stats.rotated();
 		RBTNode<T> rightchild = node.getRight();
 		node.setRight(rightchild.getLeft());
 
@@ -212,18 +251,21 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 		if (node.getParent() == nil)
 			root = rightchild;
-		else if (node.getKey().compareTo(node.getParent().getLeft().getKey()) == 0)
+		else if (node == node.getParent().getLeft())
 			node.getParent().setLeft(rightchild);
 		else
 			node.getParent().setRight(rightchild);
 		
 		rightchild.setLeft(node);
 		node.setParent(rightchild);
+		update(node);	//node is now the child, so it goes first
+		update(rightchild);
 	}
 	
 	/* Taken from the algorithm provided by the text; Cormen */
 	private void RightRotate(RBTNode<T> node) {
 		
+		stats.rotated();
 		RBTNode<T> leftchild = node.getLeft();
 		node.setLeft(leftchild.getRight());
 		
@@ -234,13 +276,15 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 		if (node.getParent() == nil)
 			root = leftchild;
-		else if (node.getKey().compareTo(node.getParent().getRight().getKey()) == 0)
+		else if (node == node.getParent().getRight())
 			node.getParent().setRight(leftchild);
 		else
 			node.getParent().setLeft(leftchild);
 		
 		leftchild.setRight(node);
 		node.setParent(leftchild);
+		update(node);
+		update(leftchild);
 	}
 	
 	/* Taken from the algorithm provided by the text; Cormen */
@@ -249,10 +293,12 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		
 		RBTNode<T> node = search(e.getKey());
 		
-		if (node != nil)
+		if (node != null)
 		{
 			RBTNode<T> trailing = node;
 			RBTNode<T> leading;
+			RBTNode<T> leadingParent = node.getParent();	//kept here, leading may be nil
+			RBTNode<T> changed = node.getParent();	//lowest node whose subtree loses a node
 			boolean original = trailing.getColor(); //store trailing node's original color
 			if (node.getLeft() == nil) {
 				leading = node.getRight();
@@ -266,9 +312,13 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 				trailing = RBTreeMinimum(node.getRight());
 				original = trailing.getColor();
 				leading = trailing.getRight();
-				if (trailing.getParent() == node)
-					leading.setParent(trailing);
+				if (trailing.getParent() == node) {
+					leadingParent = trailing;
+					changed = trailing;
+				}
 				else {
+					leadingParent = trailing.getParent();
+					changed = trailing.getParent();
 					RedBlackTransplant(trailing, trailing.getRight());
 					trailing.setRight(node.getRight());
 					trailing.getRight().setParent(trailing);
@@ -278,73 +328,79 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 				trailing.getLeft().setParent(trailing);
 				trailing.setColor(node.getColor());
 			}
+			for (; changed != nil; changed = changed.getParent())
+				update(changed);
 			if (original == false) //false for black
-				RedBlackDeleteFixup(leading);
+				RedBlackDeleteFixup(leading, leadingParent);
 			super.size--;
 		}
 		
 	}
 	
 	/* Taken from the algorithm provided by the text; Cormen */
-	private void RedBlackDeleteFixup(RBTNode<T> leading) {
+	//leading may be the shared sentinel, whose parent is never set, so its parent is passed in.
+	private void RedBlackDeleteFixup(RBTNode<T> leading, RBTNode<T> parent) {
 		RBTNode<T> w;
 		while (leading != root && !leading.getColor()) {	//while leading isnt root, and its color is black
-			if (leading == leading.getParent().getLeft()) {
+			if (leading == parent.getLeft()) {
 				
-				w = leading.getParent().getRight();
+				w = parent.getRight();
 				
 				if (w.getColor()) {	//if w's color is red (i.e. true)
 					w.setColor(false);	//false for black					//case 1
-					leading.getParent().setColor(true); //true for red		//case 1
-					LeftRotate(leading.getParent());								//case 1
-					w = leading.getParent().getRight();							//case 1
+					parent.setColor(true); //true for red		//case 1
+					LeftRotate(parent);								//case 1
+					w = parent.getRight();							//case 1
 				}
 				if (!w.getLeft().getColor() && !w.getRight().getColor()) {	//if w's left and right child are both black
 					w.setColor(true);												//case 2
-					leading = leading.getParent();										//case 2
+					leading = parent;										//case 2
+					parent = leading.getParent();
 				}
 				else if (!w.getRight().getColor()) {	//else if w's right child is black
 					w.getLeft().setColor(false); //false for black
 					w.setColor(true); //true for red
 					RightRotate(w);
-					w = leading.getParent().getRight();
+					w = parent.getRight();
 				}
 				else {
-					w.setColor(leading.getParent().getColor());
-					leading.getParent().setColor(false); //false for black
+					w.setColor(parent.getColor());
+					parent.setColor(false); //false for black
 					w.getRight().setColor(false); //false for black
-					LeftRotate(leading.getParent());
+					LeftRotate(parent);
 					leading = root;
 				}
 			}
 			else { //same as "then" clause with left and right exchanged
-				w = leading.getParent().getLeft();
+				w = parent.getLeft();
 				if (w.getColor()) {	//if w's color is red (i.e. true)
 					w.setColor(false); //false for black					//case 1
-					leading.getParent().setColor(true); //true for red		//case 1
-					RightRotate(leading.getParent());								//case 1
-					w = leading.getParent().getLeft();							//case 1
+					parent.setColor(true); //true for red		//case 1
+					RightRotate(parent);								//case 1
+					w = parent.getLeft();							//case 1
 				}
 				if (!w.getRight().getColor() && !w.getLeft().getColor()) { //if w's left and right child are both black
 					w.setColor(true);												//case 2
-					leading = leading.getParent();										//case 2
+					leading = parent;										//case 2
+					parent = leading.getParent();
 				}
 				else if (!w.getLeft().getColor()) { //else if w's right child is black
 					w.getRight().setColor(false); //false for black
 					w.setColor(true); //true for red
 					LeftRotate(w);
-					w = leading.getParent().getLeft();
+					w = parent.getLeft();
 				}
 				else {
-					w.setColor(leading.getParent().getColor());
-					leading.getParent().setColor(false); //false for black
+					w.setColor(parent.getColor());
+					parent.setColor(false); //false for black
 					w.getLeft().setColor(false); //false for black
-					RightRotate(leading.getParent());
+					RightRotate(parent);
 					leading = root;
 				}
 			}//end if statement
 		}//end while
-		leading.setColor(false); //false for black		
+		if (leading != nil)
+			leading.setColor(false); //false for black
 	}
 
 	/* Taken from the algorithm provided by the text; Cormen */
@@ -356,7 +412,8 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 			u.getParent().setLeft(v);
 		else
 			u.getParent().setRight(v);
-		v.setParent(u.getParent());
+		if (v != nil)
+			v.setParent(u.getParent());
 	}
 	
 	/* Taken from the algorithm provided by the text; Cormen */
@@ -364,21 +421,28 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
     //or null if not found.
 	public RBTNode<T> search (T k) {
 		RBTNode<T> currentnode = root;
-		while (currentnode != nil && k.compareTo(currentnode.getKey()) != 0) {
-			if (k.compareTo(currentnode.getKey()) < 0)
+		while (currentnode != nil) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(currentnode.getKey());
+			if (c == 0)
+				return currentnode;
+			if (c < 0)
 				currentnode = currentnode.getLeft();
 			else
 				currentnode = currentnode.getRight();
 		}
-		return currentnode;
+		return null;
 	}
 	
 	//Finds a SetElement that has the smallest key, and returns a pointer to it,
     //or null if the set is empty.
 	public RBTNode<T> minimum() {
 		RBTNode<T> temp = root;
-		while (temp.getLeft() != nil)
+		while (temp.getLeft() != nil) {
+			stats.visited();
 			temp = temp.getLeft();
+		}
 		if (temp == nil)
 			return null;
 		else
@@ -387,8 +451,23 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 	
 	private RBTNode<T> RBTreeMinimum(RBTNode<T> subtree) {
 		RBTNode<T> temp = subtree;
-		while (temp.getLeft() != null)
+		while (temp.getLeft() != nil) {
+			stats.visited();
 			temp = temp.getLeft();
+		}
+			
+		if (temp == nil)
+			return null;
+		else
+			return temp;
+	}
+	
+	private RBTNode<T> RBTreeMaximum(RBTNode<T> subtree) {
+		RBTNode<T> temp = subtree;
+		while (temp.getRight() != nil) {
+			stats.visited();
+			temp = temp.getRight();
+		}
 			
 		if (temp == nil)
 			return null;
@@ -400,8 +479,10 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
     //or null if the set is empty.
 	public RBTNode<T> maximum() {
 		RBTNode<T> temp = root;
-		while (temp.getRight() != nil)
+		while (temp.getRight() != nil) {
+			stats.visited();
 			temp = temp.getRight();
+		}
 			
 		if (temp == nil)
 			return null;
@@ -416,9 +497,18 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		RBTNode<T> suc = search(e.getKey());
 		if (suc != null) {
 			if (suc.getRight() != nil)
-				return suc.getRight();
-			else 
+				return RBTreeMinimum(suc.getRight());
+			//climb until we come up from a left child
+			RBTNode<T> parent = suc.getParent();
+			while (parent != nil && suc == parent.getRight()) {
+				stats.visited();
+				suc = parent;
+				parent = parent.getParent();
+			}
+			if (parent == nil)
 				return null;
+			else
+				return parent;
 		}
 		else
 			return null;
@@ -428,14 +518,647 @@ public class RedBlackDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
     //that has the next smaller key, and returns a pointer to it, or null if
     //e is the minimum element.
 	public RBTNode<T> predecessor(SetElement<T> e) {
-		RBTNode<T> suc = search(e.getKey());
-		if (suc != null) {
-			if (suc.getLeft() != nil)
-				return suc.getLeft();
-			else 
+		RBTNode<T> pred = search(e.getKey());
+		if (pred != null) {
+			if (pred.getLeft() != nil)
+				return RBTreeMaximum(pred.getLeft());
+			//climb until we come up from a right child
+			RBTNode<T> parent = pred.getParent();
+			while (parent != nil && pred == parent.getLeft()) {
+				stats.visited();
+				pred = parent;
+				parent = parent.getParent();
+			}
+			if (parent == nil)
 				return null;
+			else
+				return parent;
+		}
+		else
+			return null;
+	}
+	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//The first element is found by one descent from the root; the steps walk the tree in order,
+	//which visits every edge at most twice, so a scan costs O(1) per element amortized.
+	public Cursor<T> range(final T lo, T hi) {
+		
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+				
+				if (lo == null)
+					return minimum();
+				else
+					return ceiling(lo);
+			}
+			
+			protected SetElement<T> step(SetElement<T> e) {
+				
+				return nextInorder((RBTNode<T>)e);
+			}
+		};
+	}
+	
+	//Returns a spliterator over the elements in key order that splits at subtrees. The subtree sizes
+	//make every part exactly SIZED.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return new SubtreeSpliterator<T, RBTNode<T>>((root == nil) ? null : root, super.size, new SubtreeSpliterator.Tree<RBTNode<T>>() {
+			public RBTNode<T> left(RBTNode<T> node) {
+				
+				return (node.getLeft() == nil) ? null : node.getLeft();
+			}
+			
+			public RBTNode<T> right(RBTNode<T> node) {
+				
+				return (node.getRight() == nil) ? null : node.getRight();
+			}
+			
+			public long size(RBTNode<T> node) {
+				
+				return node.getSize();
+			}
+		});
+	}
+	
+	//Returns the node with the smallest key >= k, or null if every key is smaller.
+	private RBTNode<T> ceiling(T k) {
+		
+		RBTNode<T> current = root;
+		RBTNode<T> candidate = null;
+		while (current != nil) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if (c == 0)
+				return current;
+			if (c < 0) {
+				candidate = current;
+				current = current.getLeft();
+			}
+			else
+				current = current.getRight();
+		}
+		return candidate;
+	}
+	
+	//Returns the node that follows node in key order, or null if node is the maximum.
+	//Same climb as successor, without searching for node first.
+	private RBTNode<T> nextInorder(RBTNode<T> node) {
+		
+		if (node.getRight() != nil)
+			return RBTreeMinimum(node.getRight());
+		RBTNode<T> parent = node.getParent();
+		while (parent != nil && node == parent.getRight()) {
+			stats.visited();
+			node = parent;
+			parent = parent.getParent();
 		}
+		if (parent == nil)
+			return null;
 		else
+			return parent;
+	}
+	
+	//Inserts every element in the set by rebuilding the tree as a perfectly balanced tree in O(n)
+	//when the elements arrive sorted, O(n log n) otherwise (they are sorted first), with no
+	//rotations or fixups. Nodes already in the set are reused, so pointers to them stay valid.
+	public void bulkLoad(Iterator<? extends SetElement<T>> elements) {
+		
+		ArrayList<RBTNode<T>> added = new ArrayList<RBTNode<T>>();
+		while (elements.hasNext()) {
+			SetElement<T> e = elements.next();
+			added.add(new RBTNode<T>(e.getKey(), e.getData()));
+		}
+		ArrayList<RBTNode<T>> nodes = sortedUnion(inorder(), added);
+		//the middle split fills every level but the deepest, so coloring the deepest level red
+		//and everything above it black gives every path the same number of black nodes
+		int deepest = 31 - Integer.numberOfLeadingZeros(Math.max(nodes.size(), 1));
+		root = build(nodes, 0, nodes.size() - 1, nil, 0, deepest);
+		super.size = nodes.size();
+	}
+	
+	//Links nodes[low..high] into a balanced subtree whose root is at the given depth.
+	private RBTNode<T> build(ArrayList<RBTNode<T>> nodes, int low, int high, RBTNode<T> parent, int depth, int deepest) {
+		
+		if (low > high)
+			return nil;
+		int middle = (low + high) >>> 1;
+		RBTNode<T> node = nodes.get(middle);
+		node.setParent(parent);
+		node.setColor(depth == deepest && depth > 0);	//true for red, the root stays black
+		node.setLeft(build(nodes, low, middle - 1, node, depth + 1, deepest));
+		node.setRight(build(nodes, middle + 1, high, node, depth + 1, deepest));
+		update(node);
+		return node;
+	}
+	
+	//Recomputes the subtree size and aggregate of node from its children.
+	private void update(RBTNode<T> node) {
+		
+		node.setSize(node.getLeft().getSize() + node.getRight().getSize() + 1);
+		if (monoid != null)
+			node.setAggregate(monoid.combine(monoid.combine(aggregateOf(node.getLeft()),
+					monoid.of(node.getKey(), node.getData())), aggregateOf(node.getRight())));
+	}
+	
+	//monoid value of the subtree, the identity for the shared sentinel
+	private Object aggregateOf(RBTNode<T> subtree) {
+		
+		return (subtree == nil) ? monoid.identity() : subtree.getAggregate();
+	}
+	
+	//Returns the number of elements with a key smaller than k; for a key in the set that is its
+	//position in key order, counting from 0. O(log n).
+	public int rank(T k) {
+		
+		int rank = 0;
+		RBTNode<T> current = root;
+		while (current != nil) {
+			if (k.compareTo(current.getKey()) <= 0)
+				current = current.getLeft();
+			else {
+				rank += current.getLeft().getSize() + 1;
+				current = current.getRight();
+			}
+		}
+		return rank;
+	}
+	
+	//Returns the element at position i in key order, counting from 0, or null if i is not
+	//between 0 and size() - 1. O(log n).
+	public RBTNode<T> select(int i) {
+		
+		if (i < 0 || i >= super.size)
 			return null;
+		RBTNode<T> current = root;
+		while (true) {
+			int left = current.getLeft().getSize();
+			if (i < left)
+				current = current.getLeft();
+			else if (i == left)
+				return current;
+			else {
+				i -= left + 1;
+				current = current.getRight();
+			}
+		}
+	}
+	
+	//Returns the number of elements with keys from lo (inclusive) to hi (exclusive), the elements
+	//range(lo, hi) would visit. A null bound is unbounded. O(log n).
+	public int count(T lo, T hi) {
+		
+		int below = (lo == null) ? 0 : rank(lo);
+		int upTo = (hi == null) ? super.size : rank(hi);
+		return Math.max(upTo - below, 0);
+	}
+	
+	//Returns the monoid value of the elements with keys from lo (inclusive) to hi (exclusive),
+	//combined in key order, or the identity if there are none. A null bound is unbounded.
+	//O(log n). A is the value type of the monoid given to the constructor; the aggregates
+	//do not see changes made with setData to elements already in the set.
+	@SuppressWarnings("unchecked")
+	public <A> A aggregate(T lo, T hi) {
+		
+		if (monoid == null)
+			throw new IllegalStateException("set was created without a monoid");
+		RBTNode<T> current = root;
+		//find the highest node inside the range, the subtrees below it split at lo and hi
+		while (current != nil) {
+			if (lo != null && current.getKey().compareTo(lo) < 0)
+				current = current.getRight();
+			else if (hi != null && current.getKey().compareTo(hi) >= 0)
+				current = current.getLeft();
+			else
+				break;
+		}
+		if (current == nil)
+			return (A)monoid.identity();
+		Object result = monoid.combine(aggregateFrom(current.getLeft(), lo), monoid.of(current.getKey(), current.getData()));
+		return (A)monoid.combine(result, aggregateBelow(current.getRight(), hi));
+	}
+	
+	//monoid value of the keys >= lo in the subtree
+	private Object aggregateFrom(RBTNode<T> subtree, T lo) {
+		
+		Object right = monoid.identity();
+		while (subtree != nil) {
+			if (lo == null)
+				return monoid.combine(subtree.getAggregate(), right);
+			if (subtree.getKey().compareTo(lo) < 0)
+				subtree = subtree.getRight();
+			else {
+				right = monoid.combine(monoid.combine(monoid.of(subtree.getKey(), subtree.getData()),
+						aggregateOf(subtree.getRight())), right);
+				subtree = subtree.getLeft();
+			}
+		}
+		return right;
+	}
+	
+	//monoid value of the keys < hi in the subtree
+	private Object aggregateBelow(RBTNode<T> subtree, T hi) {
+		
+		Object left = monoid.identity();
+		while (subtree != nil) {
+			if (hi == null)
+				return monoid.combine(left, subtree.getAggregate());
+			if (subtree.getKey().compareTo(hi) >= 0)
+				subtree = subtree.getLeft();
+			else {
+				left = monoid.combine(left, monoid.combine(aggregateOf(subtree.getLeft()),
+						monoid.of(subtree.getKey(), subtree.getData())));
+				subtree = subtree.getRight();
+			}
+		}
+		return left;
+	}
+	
+	/*
+	 * Join-based set operations (Blelloch, Ferizovic and Sun, "Just Join for Parallel Ordered
+	 * Sets", SPAA 2016). join(L, k, R) links two trees whose keys are all smaller and all larger
+	 * than k with k between them in O(|bh(L) - bh(R)| + log n), split(T, k) cuts a tree at k in
+	 * O(log n), and union, intersection and difference are written with nothing else. The two
+	 * halves of each recursion touch disjoint subtrees, so they run as ForkJoin tasks.
+	 *
+	 * A tree here is a subtree root, possibly nil, with a root of either color. The operations
+	 * reuse the nodes they are given and only ever read the nil sentinel, which every set shares,
+	 * so a tree moves to another set without touching its leaves.
+	 */
+	
+	private static final int UNION = 0;
+	private static final int INTERSECTION = 1;
+	private static final int DIFFERENCE = 2;
+	private static final int PARALLEL_GRAIN = 4096;	//smaller set operations are not split into tasks
+	
+	//Removes the elements with keys >= k from this set and returns them as a new set. O(log n).
+	public RedBlackDynamicSet<T> split(T k) {
+		
+		Split<T> s = split(root, blackHeight(root), k, stats);
+		RBTNode<T> high = (s.found == null) ? s.right : join(nil, 0, s.found, s.right, s.rightHeight, stats).root;
+		RedBlackDynamicSet<T> other = new RedBlackDynamicSet<T>(monoid);
+		setRoot(s.left);
+		other.setRoot(high);
+		return other;
+	}
+	
+	//Moves every element of other, whose keys must all be larger than the keys of this set, into
+	//this set and leaves other empty. O(log n).
+	public void join(RedBlackDynamicSet<T> other) {
+		
+		if (other == this)
+			throw new IllegalArgumentException("a set cannot be joined with itself");
+		if (other.monoid != monoid)
+			throw new IllegalArgumentException("sets with different monoids cannot be joined");
+		if (other.root == other.nil)
+			return;
+		if (root != nil && maximum().getKey().compareTo(other.minimum().getKey()) >= 0)
+			throw new IllegalArgumentException("keys of the joined set must be larger than the keys of this set");
+		
+		RBTNode<T> high = other.root;
+		other.setRoot(nil);
+		setRoot(join2(root, blackHeight(root), high, blackHeight(high), stats).root);
+	}
+	
+	//Returns a set holding the elements of a and b; of two elements with the same key the one of a
+	//is kept. O(m log(n/m + 1)) work for sets of sizes m <= n, spread over the common ForkJoinPool.
+	//The result is built from the nodes of a and b, so both are left empty.
+	public static <T extends Comparable<T>> RedBlackDynamicSet<T> union(RedBlackDynamicSet<T> a, RedBlackDynamicSet<T> b) {
+		
+		return setOperation(UNION, a, b);
+	}
+	
+	//Returns a set holding the elements of a whose keys are also in b, see union.
+	public static <T extends Comparable<T>> RedBlackDynamicSet<T> intersect(RedBlackDynamicSet<T> a, RedBlackDynamicSet<T> b) {
+		
+		return setOperation(INTERSECTION, a, b);
+	}
+	
+	//Returns a set holding the elements of a whose keys are not in b, see union.
+	public static <T extends Comparable<T>> RedBlackDynamicSet<T> difference(RedBlackDynamicSet<T> a, RedBlackDynamicSet<T> b) {
+		
+		return setOperation(DIFFERENCE, a, b);
+	}
+	
+	private static <T extends Comparable<T>> RedBlackDynamicSet<T> setOperation(int op, RedBlackDynamicSet<T> a, RedBlackDynamicSet<T> b) {
+		
+		if (a == b)
+			throw new IllegalArgumentException("a set cannot be combined with itself");
+		if (a.monoid != b.monoid)
+			throw new IllegalArgumentException("sets with different monoids cannot be combined");
+		
+		RedBlackDynamicSet<T> result = new RedBlackDynamicSet<T>(a.monoid);
+		RBTNode<T> first = a.root;
+		RBTNode<T> second = b.root;
+		a.setRoot(a.nil);
+		b.setRoot(b.nil);
+		int firstHeight = result.blackHeight(first);
+		int secondHeight = result.blackHeight(second);
+		RedBlackDynamicSet<T>.SetOperation task = result.new SetOperation(op, first, firstHeight, second, secondHeight);
+		result.setRoot(ForkJoinPool.commonPool().invoke(task).root);
+		result.stats.add(task.counts);
+		return result;
+	}
+	
+	//Makes tree the whole content of this set.
+	private void setRoot(RBTNode<T> tree) {
+		
+		root = tree;
+		if (tree != nil) {
+			tree.setParent(nil);
+			tree.setColor(false);	//false for black
+		}
+		super.size = tree.getSize();
+	}
+	
+	//Union, intersection or difference of the trees a and b, of black heights aHeight and bHeight.
+	//b is exposed at its root, a is split at the root's key, and the two sides are combined
+	//recursively, in parallel when they are big.
+	private Tree<T> combine(int op, RBTNode<T> a, int aHeight, RBTNode<T> b, int bHeight, SetStatistics counts) {
+		
+		if (a == nil)
+			return (op == UNION) ? new Tree<T>(b, bHeight) : new Tree<T>(nil, 0);
+		if (b == nil)
+			return (op == INTERSECTION) ? new Tree<T>(nil, 0) : new Tree<T>(a, aHeight);
+		
+		boolean parallel = a.getSize() + b.getSize() > PARALLEL_GRAIN;
+		RBTNode<T> bLeft = b.getLeft();
+		RBTNode<T> bRight = b.getRight();
+		int childHeight = b.getColor() ? bHeight : bHeight - 1;	//read before split relinks b
+		Split<T> s = split(a, aHeight, b.getKey(), counts);
+		Tree<T> left;
+		Tree<T> right;
+		if (parallel) {
+			SetOperation task = new SetOperation(op, s.left, s.leftHeight, bLeft, childHeight);
+			task.fork();
+			right = combine(op, s.right, s.rightHeight, bRight, childHeight, counts);
+			left = task.join();
+			counts.add(task.counts);	//safe once joined
+		}
+		else {
+			left = combine(op, s.left, s.leftHeight, bLeft, childHeight, counts);
+			right = combine(op, s.right, s.rightHeight, bRight, childHeight, counts);
+		}
+		
+		if (op == UNION)
+			return join(left.root, left.height, (s.found != null) ? s.found : b, right.root, right.height, counts);
+		else if (op == INTERSECTION && s.found != null)
+			return join(left.root, left.height, s.found, right.root, right.height, counts);
+		else
+			return join2(left.root, left.height, right.root, right.height, counts);
+	}
+	
+	//One side of a set operation, run by the ForkJoinPool. SetStatistics is not thread safe, so
+	//every task counts its rotations into its own counts, which the task that joins it adds up.
+	private class SetOperation extends RecursiveTask<Tree<T>> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int op;
+		private final RBTNode<T> a;
+		private final int aHeight;
+		private final RBTNode<T> b;
+		private final int bHeight;
+		private final SetStatistics counts;
+		
+		SetOperation(int op, RBTNode<T> a, int aHeight, RBTNode<T> b, int bHeight) {
+			
+			this.op = op;
+			this.a = a;
+			this.aHeight = aHeight;
+			this.b = b;
+			this.bHeight = bHeight;
+			this.counts = new SetStatistics();
+		}
+		
+		protected Tree<T> compute() {
+			
+			return combine(op, a, aHeight, b, bHeight, counts);
+		}
+	}
+	
+	//A tree with its black height. Heights are passed down and handed back up the recursions
+	//rather than counted along a spine, which would add a log factor to every join.
+	private static class Tree<T extends Comparable<T>> {
+		
+		final RBTNode<T> root;
+		final int height;
+		
+		Tree(RBTNode<T> root, int height) {
+			
+			this.root = root;
+			this.height = height;
+		}
+	}
+	
+	//The result of cutting a tree at a key: the trees of the smaller and of the larger keys with
+	//their black heights, and the node with the key itself, or null if the tree did not hold it.
+	private static class Split<T extends Comparable<T>> {
+		
+		RBTNode<T> left;
+		int leftHeight;
+		RBTNode<T> found;
+		RBTNode<T> right;
+		int rightHeight;
+		
+		Split(RBTNode<T> left, int leftHeight, RBTNode<T> found, RBTNode<T> right, int rightHeight) {
+			
+			this.left = left;
+			this.leftHeight = leftHeight;
+			this.found = found;
+			this.right = right;
+			this.rightHeight = rightHeight;
+		}
+	}
+	
+	//Cuts tree, of black height height, at k. The children of a node are one black level lower if
+	//the node is black, so the heights of the pieces follow without walking down to nil.
+	private Split<T> split(RBTNode<T> tree, int height, T k, SetStatistics counts) {
+		
+		if (tree == nil)
+			return new Split<T>(nil, 0, null, nil, 0);
+		RBTNode<T> left = tree.getLeft();
+		RBTNode<T> right = tree.getRight();
+		int childHeight = tree.getColor() ? height : height - 1;
+		int c = k.compareTo(tree.getKey());
+		if (c == 0)
+			return new Split<T>(left, childHeight, tree, right, childHeight);
+		if (c < 0) {
+			Split<T> s = split(left, childHeight, k, counts);
+			Tree<T> joined = join(s.right, s.rightHeight, tree, right, childHeight, counts);
+			s.right = joined.root;
+			s.rightHeight = joined.height;
+			return s;
+		}
+		else {
+			Split<T> s = split(right, childHeight, k, counts);
+			Tree<T> joined = join(left, childHeight, tree, s.left, s.leftHeight, counts);
+			s.left = joined.root;
+			s.leftHeight = joined.height;
+			return s;
+		}
+	}
+	
+	//Cuts the largest node off a non-empty tree: left is the rest of the tree, found is the node.
+	private Split<T> splitLast(RBTNode<T> tree, int height, SetStatistics counts) {
+		
+		int childHeight = tree.getColor() ? height : height - 1;
+		if (tree.getRight() == nil)
+			return new Split<T>(tree.getLeft(), childHeight, tree, nil, 0);
+		RBTNode<T> left = tree.getLeft();
+		Split<T> s = splitLast(tree.getRight(), childHeight, counts);
+		Tree<T> joined = join(left, childHeight, tree, s.left, s.leftHeight, counts);
+		s.left = joined.root;
+		s.leftHeight = joined.height;
+		return s;
+	}
+	
+	//Joins two trees whose keys are all smaller and all larger than each other, with no node between.
+	private Tree<T> join2(RBTNode<T> left, int leftHeight, RBTNode<T> right, int rightHeight, SetStatistics counts) {
+		
+		if (left == nil)
+			return new Tree<T>(right, rightHeight);
+		Split<T> s = splitLast(left, leftHeight, counts);
+		return join(s.left, s.leftHeight, s.found, right, rightHeight, counts);
+	}
+	
+	//Joins left, node and right, where the keys of left are smaller and the keys of right larger
+	//than the key of node. The taller tree is descended along its inner spine to a black node as
+	//high as the other tree, where node is linked in red; a red-red pair this creates is fixed by
+	//one rotation on the way up, or by blackening the root, the only case that adds a black level.
+	private Tree<T> join(RBTNode<T> left, int leftHeight, RBTNode<T> node, RBTNode<T> right, int rightHeight, SetStatistics counts) {
+		
+		if (leftHeight > rightHeight) {
+			RBTNode<T> tree = joinRight(left, leftHeight, node, right, rightHeight, counts);
+			if (tree.getColor() && tree.getRight().getColor()) {
+				tree.setColor(false);	//false for black
+				return new Tree<T>(tree, leftHeight + 1);
+			}
+			return new Tree<T>(tree, leftHeight);
+		}
+		else if (rightHeight > leftHeight) {
+			RBTNode<T> tree = joinLeft(left, leftHeight, node, right, rightHeight, counts);
+			if (tree.getColor() && tree.getLeft().getColor()) {
+				tree.setColor(false);
+				return new Tree<T>(tree, rightHeight + 1);
+			}
+			return new Tree<T>(tree, rightHeight);
+		}
+		else {
+			boolean red = !left.getColor() && !right.getColor();	//red only between two black roots
+			return new Tree<T>(link(left, node, right, red), red ? leftHeight : leftHeight + 1);
+		}
+	}
+	
+	private RBTNode<T> joinRight(RBTNode<T> left, int leftHeight, RBTNode<T> node, RBTNode<T> right, int rightHeight, SetStatistics counts) {
+		
+		if (!left.getColor() && leftHeight == rightHeight)
+			return link(left, node, right, true);	//true for red
+		int childHeight = left.getColor() ? leftHeight : leftHeight - 1;
+		RBTNode<T> tree = link(left.getLeft(), left, joinRight(left.getRight(), childHeight, node, right, rightHeight, counts), left.getColor());
+		if (!tree.getColor() && tree.getRight().getColor() && tree.getRight().getRight().getColor()) {
+			tree.getRight().getRight().setColor(false);
+			return rotateLeft(tree, counts);
+		}
+		return tree;
+	}
+	
+	private RBTNode<T> joinLeft(RBTNode<T> left, int leftHeight, RBTNode<T> node, RBTNode<T> right, int rightHeight, SetStatistics counts) {
+		
+		if (!right.getColor() && leftHeight == rightHeight)
+			return link(left, node, right, true);
+		int childHeight = right.getColor() ? rightHeight : rightHeight - 1;
+		RBTNode<T> tree = link(joinLeft(left, leftHeight, node, right.getLeft(), childHeight, counts), right, right.getRight(), right.getColor());
+		if (!tree.getColor() && tree.getLeft().getColor() && tree.getLeft().getLeft().getColor()) {
+			tree.getLeft().getLeft().setColor(false);
+			return rotateRight(tree, counts);
+		}
+		return tree;
+	}
+	
+	//Number of black nodes on a path from the root of tree down to nil, not counting nil. Only the
+	//public operations count it, once; the recursions below them carry it along.
+	private int blackHeight(RBTNode<T> tree) {
+		
+		int height = 0;
+		for (; tree != nil; tree = tree.getLeft())
+			if (!tree.getColor())
+				height++;
+		return height;
+	}
+	
+	//Makes left and right the children of node and returns node. Only the nodes of the trees being
+	//combined are written, never nil.
+	private RBTNode<T> link(RBTNode<T> left, RBTNode<T> node, RBTNode<T> right, boolean color) {
+		
+		node.setLeft(left);
+		node.setRight(right);
+		node.setColor(color);
+		if (left != nil)
+			left.setParent(node);
+		if (right != nil)
+			right.setParent(node);
+		update(node);
+		return node;
+	}
+	
+	//Rotations of a detached subtree, returning its new root; the caller links it to a parent.
+	private RBTNode<T> rotateLeft(RBTNode<T> node, SetStatistics counts) {
+		
+		counts.rotated();
+		RBTNode<T> rightchild = node.getRight();
+		node.setRight(rightchild.getLeft());
+		if (rightchild.getLeft() != nil)
+			rightchild.getLeft().setParent(node);
+		rightchild.setLeft(node);
+		node.setParent(rightchild);
+		update(node);
+		update(rightchild);
+		return rightchild;
+	}
+	
+	private RBTNode<T> rotateRight(RBTNode<T> node, SetStatistics counts) {
+		
+		counts.rotated();
+		RBTNode<T> leftchild = node.getLeft();
+		node.setLeft(leftchild.getRight());
+		if (leftchild.getRight() != nil)
+			leftchild.getRight().setParent(node);
+		leftchild.setRight(node);
+		node.setParent(leftchild);
+		update(node);
+		update(leftchild);
+		return leftchild;
+	}
+	
+	//Height of the tree in nodes. A red-black tree is at most 2 lg(n + 1) high, so the recursion is shallow.
+	public int height() {
+		
+		return height(root);
+	}
+	
+	private int height(RBTNode<T> node) {
+		
+		if (node == nil)
+			return 0;
+		return 1 + Math.max(height(node.getLeft()), height(node.getRight()));
+	}
+	
+	//Returns the nodes of the tree in key order.
+	private ArrayList<RBTNode<T>> inorder() {
+		
+		ArrayList<RBTNode<T>> result = new ArrayList<RBTNode<T>>(super.size);
+		inorder(root, result);
+		return result;
+	}
+	
+	private void inorder(RBTNode<T> node, ArrayList<RBTNode<T>> result) {
+		
+		if (node == nil)
+			return;
+		inorder(node.getLeft(), result);
+		result.add(node);
+		inorder(node.getRight(), result);
 	}
 }
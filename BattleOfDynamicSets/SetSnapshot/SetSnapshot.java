@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package SetSnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import DynamicSet.*;
+import PagedBTreeDynamicSet.KeyCodec;
+import RedBlackDynamicSet.*;
+
+/*
+ * A binary file holding the elements of a DynamicSet in key order, to save a set and build it again
+ * without parsing text or inserting one key at a time. write() stores every element as a varint key
+ * length, the key bytes from a KeyCodec, a varint of the data length plus two and the data bytes.
+ * Null data is stored as a 0 and data equal to the key, as in the sets TestDynamicSet builds, as a
+ * 1 with no bytes, so it is neither written nor decoded twice. After the elements comes a sparse
+ * index with the file offset of every BLOCK-th element, and a header at the start of the file gives
+ * the number of elements, where the index starts and the name of the codec. The header is written
+ * last, so a file cut short by a crash is rejected instead of loaded half.
+ *
+ * Opening a snapshot memory-maps it, in segments of at most SEGMENT_BYTES cut at index entries so
+ * no element straddles two, and reads only the header and the index. loadInto() streams the
+ * elements in order into bulkLoad(), which the sets that override it (RedBlackDynamicSet,
+ * BSTDynamicSet, AdaptiveDynamicSet, LSMDynamicSet, PagedBTreeDynamicSet) build from in linear time
+ * once a scan has found the input sorted, with no rebalancing, so loading costs about one pass over
+ * the file plus creating the element objects. The other sets fall back to one insert per element.
+ * iterator(from) finds its first block with a binary search over the index and decodes at most one
+ * block before it reaches from.
+ *
+ * The mapping stays valid until the buffers are garbage collected; close() releases the file.
+ */
+public class SetSnapshot<T extends Comparable<T>> implements Iterable<SetElement<T>>, AutoCloseable {
+
+	public static final int BLOCK = 1024;	//elements per index entry
+
+	private static final int MAGIC = 0x44534E50;	//"DSNP"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 64;
+	private static final int NAME_OFFSET = 28;
+	private static final int WRITE_BUFFER = 1 << 20;
+	private static final long SEGMENT_BYTES = 1L << 30;
+
+	private final FileChannel channel;
+	private final KeyCodec<T> codec;
+	private final ElementFactory<T> factory;
+	private final long size;
+	private final long[] index;	//offset of elements 0, BLOCK, 2 * BLOCK, ...
+	private final long[] segmentStart;	//file offset of the first byte of each segment
+	private final MappedByteBuffer[] segments;
+	private final int[] firstBlock;	//index entry at which each segment starts
+
+	//Maps the snapshot in file. Elements are decoded with codec, which must be the one it was
+	//written with, and made with factory.
+	public SetSnapshot(Path file, KeyCodec<T> codec, ElementFactory<T> factory) {
+
+		this.codec = codec;
+		this.factory = factory;
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			readFully(header, 0);
+			if (header.getInt(0) != MAGIC)
+				throw new IllegalArgumentException("not a complete SetSnapshot file: " + file);
+			if (header.getInt(4) != VERSION)
+				throw new IllegalArgumentException("unsupported SetSnapshot version " + header.getInt(4));
+			byte[] name = new byte[header.getShort(NAME_OFFSET)];
+			for (int i = 0; i < name.length; i++)
+				name[i] = header.get(NAME_OFFSET + 2 + i);
+			String keys = new String(name, StandardCharsets.UTF_8);
+			if (!keys.equals(codec.name()))
+				throw new IllegalArgumentException("the snapshot holds " + keys + " keys, not " + codec.name());
+			size = header.getLong(8);
+			long indexOffset = header.getLong(16);
+			if (header.getInt(24) != BLOCK)
+				throw new IllegalArgumentException("the snapshot has blocks of " + header.getInt(24) + " elements, not " + BLOCK);
+
+			index = new long[(int)((size + BLOCK - 1) / BLOCK)];
+			ByteBuffer entries = ByteBuffer.allocate(index.length * 8);
+			readFully(entries, indexOffset);
+			for (int i = 0; i < index.length; i++)
+				index[i] = entries.getLong(i * 8);
+
+			//cut the elements into segments at block boundaries
+			List<Integer> starts = new ArrayList<Integer>();
+			int block = 0;
+			while (block < index.length) {
+				starts.add(block);
+				int next = block + 1;
+				while (next < index.length && index[next] - index[block] <= SEGMENT_BYTES)
+					next++;
+				block = next;
+			}
+			segments = new MappedByteBuffer[starts.size()];
+			segmentStart = new long[starts.size()];
+			firstBlock = new int[starts.size()];
+			for (int i = 0; i < segments.length; i++) {
+				firstBlock[i] = starts.get(i);
+				segmentStart[i] = index[firstBlock[i]];
+				long end = (i + 1 < segments.length) ? index[starts.get(i + 1)] : indexOffset;
+				if (end - segmentStart[i] > Integer.MAX_VALUE)
+					throw new IllegalArgumentException("a block of the snapshot is larger than 2 GB");
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart[i], end - segmentStart[i]);
+			}
+		} catch (IOException ioe) {
+			closeQuietly();
+			throw new UncheckedIOException(ioe);
+		} catch (RuntimeException re) {
+			closeQuietly();
+			throw re;
+		}
+	}
+
+	//Writes the elements of set, in key order, to file (replacing it) and returns the bytes written.
+	public static <T extends Comparable<T>> long write(DynamicSet<T> set, Path file, KeyCodec<T> codec) {
+
+		byte[] name = codec.name().getBytes(StandardCharsets.UTF_8);
+		if (NAME_OFFSET + 2 + name.length > HEADER_BYTES)
+			throw new IllegalArgumentException("codec name too long: " + codec.name());
+		try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+			buffer.put(new byte[HEADER_BYTES]);	//zeros until the snapshot is complete
+			long position = 0;
+			long count = 0;
+			long[] index = new long[16];
+			T last = null;
+			for (SetElement<T> e : set) {
+				if (last != null && last.compareTo(e.getKey()) >= 0)
+					throw new IllegalArgumentException("the set did not return its elements in ascending key order");
+				last = e.getKey();
+				if (count % BLOCK == 0) {
+					int block = (int)(count / BLOCK);
+					if (block == index.length)
+						index = Arrays.copyOf(index, 2 * block);
+					index[block] = position + buffer.position();
+				}
+				byte[] key = codec.encode(e.getKey());
+				boolean same = e.getData() != null && e.getData().equals(e.getKey());
+				byte[] data = (e.getData() == null || same) ? null : codec.encode(e.getData());
+				int bytes = 10 + key.length + ((data == null) ? 0 : data.length);
+				if (buffer.remaining() < bytes) {
+					position += drain(out, buffer);
+					if (buffer.remaining() < bytes)	//larger than the buffer
+						buffer = ByteBuffer.allocateDirect(bytes);
+				}
+				putVarint(buffer, key.length);
+				buffer.put(key);
+				if (data == null)
+					putVarint(buffer, same ? 1 : 0);
+				else {
+					putVarint(buffer, data.length + 2);
+					buffer.put(data);
+				}
+				count++;
+			}
+
+			long indexOffset = position + buffer.position();
+			int blocks = (int)((count + BLOCK - 1) / BLOCK);
+			for (int i = 0; i < blocks; i++) {
+				if (buffer.remaining() < 8)
+					position += drain(out, buffer);
+				buffer.putLong(index[i]);
+			}
+			position += drain(out, buffer);
+			out.force(false);
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			header.putInt(0, MAGIC);
+			header.putInt(4, VERSION);
+			header.putLong(8, count);
+			header.putLong(16, indexOffset);
+			header.putInt(24, BLOCK);
+			header.putShort(NAME_OFFSET, (short)name.length);
+			for (int i = 0; i < name.length; i++)
+				header.put(NAME_OFFSET + 2 + i, name[i]);
+			while (header.hasRemaining())
+				out.write(header, header.position());
+			out.force(false);
+			return position;
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	//Writes out what the buffer holds, empties it and returns the number of bytes written.
+	private static long drain(FileChannel out, ByteBuffer buffer) throws IOException {
+
+		buffer.flip();
+		long bytes = buffer.remaining();
+		while (buffer.hasRemaining())
+			out.write(buffer);
+		buffer.clear();
+		return bytes;
+	}
+
+	private static void putVarint(ByteBuffer buffer, int value) {
+
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte)(0x80 | (value & 0x7F)));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	private static int getVarint(ByteBuffer buffer) {
+
+		int value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position + buffer.position());
+			if (n < 0)
+				throw new IllegalArgumentException("not a complete SetSnapshot file: it ends early");
+		}
+	}
+
+	//Number of elements in the snapshot.
+	public long size() {
+
+		return size;
+	}
+
+	//Bulk loads every element of the snapshot into set and returns the number loaded. Into an empty
+	//set whose bulkLoad builds from sorted input this takes linear time.
+	public long loadInto(DynamicSet<T> set) {
+
+		set.bulkLoad(iterator());
+		return size;
+	}
+
+	//Iterates over all elements in key order.
+	public Iterator<SetElement<T>> iterator() {
+
+		return new SnapshotIterator(0, 0, null);
+	}
+
+	//Iterates in key order over the elements whose key is at least from.
+	public Iterator<SetElement<T>> iterator(T from) {
+
+		int lo = 0;	//last block whose first key is at most from
+		int hi = index.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (firstKey(mid).compareTo(from) <= 0)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return new SnapshotIterator(lo, (long)lo * BLOCK, from);
+	}
+
+	private T firstKey(int block) {
+
+		ByteBuffer buffer = position(block);
+		byte[] key = new byte[getVarint(buffer)];
+		buffer.get(key);
+		return codec.decode(key);
+	}
+
+	private int segmentOf(int block) {
+
+		int segment = segments.length - 1;
+		while (firstBlock[segment] > block)
+			segment--;
+		return segment;
+	}
+
+	//A view of the segment holding block, positioned at its first element.
+	private ByteBuffer position(int block) {
+
+		int segment = segmentOf(block);
+		ByteBuffer buffer = segments[segment].duplicate();
+		buffer.position((int)(index[block] - segmentStart[segment]));
+		return buffer;
+	}
+
+	private class SnapshotIterator implements Iterator<SetElement<T>> {
+
+		private int segment;
+		private ByteBuffer buffer;
+		private long next;	//number of the next element
+		private SetElement<T> pending;	//the next element, already decoded
+
+		SnapshotIterator(int block, long first, T from) {
+
+			next = first;
+			if (next < size) {
+				segment = segmentOf(block);
+				buffer = position(block);
+			}
+			if (from != null)
+				while (hasNext() && pending().getKey().compareTo(from) < 0)
+					pending = null;
+		}
+
+		public boolean hasNext() {
+
+			return pending != null || next < size;
+		}
+
+		public SetElement<T> next() {
+
+			if (!hasNext())
+				throw new NoSuchElementException();
+			SetElement<T> e = pending();
+			pending = null;
+			return e;
+		}
+
+		private SetElement<T> pending() {
+
+			if (pending == null) {
+				if (!buffer.hasRemaining()) {
+					segment++;
+					buffer = segments[segment].duplicate();
+				}
+				byte[] key = new byte[getVarint(buffer)];
+				buffer.get(key);
+				T k = codec.decode(key);
+				int length = getVarint(buffer);
+				T data = null;
+				if (length == 1)
+					data = k;
+				else if (length > 1) {
+					byte[] bytes = new byte[length - 2];
+					buffer.get(bytes);
+					data = codec.decode(bytes);
+				}
+				pending = factory.create(k, data);
+				next++;
+			}
+			return pending;
+		}
+	}
+
+	//Closes the file. The mapped segments are unmapped when they are garbage collected.
+	public void close() {
+
+		try {
+			channel.close();
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	private void closeQuietly() {
+
+		try {
+			channel.close();
+		} catch (IOException ioe) {
+			//already failing
+		}
+	}
+
+	public static void main(String []args) throws IOException {
+
+		RedBlackDynamicSet<String> names = new RedBlackDynamicSet<String>();
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+		names.insert(new RBTNode<String>(s1, s1));
+		names.insert(new RBTNode<String>(s2, s2));
+		names.insert(new RBTNode<String>(s3, s3));
+		names.insert(new RBTNode<String>(s4, s4));
+
+		//save the set and load it into an empty one
+		Path file = Files.createTempFile("names", ".snapshot");
+		System.out.println(write(names, file, KeyCodec.STRING) + " bytes written");
+		RedBlackDynamicSet<String> set = new RedBlackDynamicSet<String>();
+		try (SetSnapshot<String> snapshot = new SetSnapshot<String>(file, KeyCodec.STRING, new ElementFactory<String>() {
+			public SetElement<String> create(String key, String data) {
+
+				return new RBTNode<String>(key, data);
+			}
+		})) {
+			snapshot.loadInto(set);
+		}
+		Files.delete(file);
+		System.out.println(set.size() + " elements loaded, height " + set.height());
+
+		//testing max
+		SetElement<String> testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+
+		//testing successor
+		testNode = set.successor(set.search(s3));
+		if (testNode == null)
+			System.out.println("No Successor of " + s3);
+		else
+			System.out.println("Successor of " + s3 + ": " + testNode.getKey());
+
+		//testing predecessor
+		testNode = set.predecessor(set.search(s1));
+		if (testNode == null)
+			System.out.println("No Predecessor of " + s1);
+		else
+			System.out.println("Predecessor of " + s1 + ": " + testNode.getKey());
+	}
+}
@@ -31,56 +31,43 @@ package SkipListDynamicSet;
 
 import DynamicSet.*;
 
+//One node per key. The tower of a key is a single array of forward links, next[i] being the
+//following node on level i, so a tower of height h costs one object and one array instead of
+//h linked copies of the element. The bottom list is also linked backwards for predecessor.
 public class SLNode<T extends Comparable<T>> extends SetElement<T> implements Comparable<T> {
 	
-	private SLNode<T> above;
-	private SLNode<T> below;
-	private SLNode<T> next;
-	private SLNode<T> prev;
+	private final SLNode<T>[] next;	//forward link per level, next[0] is the bottom list
+	private SLNode<T> prev;	//previous node in the bottom list, null for the first node
 	
 	//initialize new node
 	public SLNode(T key, T data) {
 		
-		super(key, data);
-		above = null;
-		below = null;
-		next = null;
-		prev = null;
-	}
-	
-	public void setAbove(SLNode<T> e) {
-		
-		above = e;
-	}
-	
-	public void setBelow(SLNode<T> e) {
-		
-		below = e;
-	}
-	
-	public void setNext(SLNode<T> e) {
-		
-		next = e;
+		this(key, data, 1);
 	}
 	
-	public void setPrev(SLNode<T> e) {
+	//initialize new node with a tower of the given height
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	SLNode(T key, T data, int height) {
 		
-		prev = e;
+		super(key, data);
+		next = new SLNode[height];
+		prev = null;
 	}
 	
-	public SLNode<T> getAbove()
+	//number of levels the tower of this node reaches
+	public int getHeight()
 	{
-		return above;
+		return next.length;
 	}
 	
-	public SLNode<T> getBelow()
+	public SLNode<T> getNext()
 	{
-		return below;
+		return next[0];
 	}
 	
-	public SLNode<T> getNext()
+	public SLNode<T> getNext(int level)
 	{
-		return next;
+		return next[level];
 	}
 	
 	public SLNode<T> getPrev()
@@ -88,6 +75,16 @@ public class SLNode<T extends Comparable<T>> extends SetElement<T> implements Co
 		return prev;
 	}
 	
+	void setNext(int level, SLNode<T> e) {
+		
+		next[level] = e;
+	}
+	
+	void setPrev(SLNode<T> e) {
+		
+		prev = e;
+	}
+	
 	//compareTo Method
 	//This method will compare two DLL nodes and return negative if the referenced node,
 	//is less than current, positive if the reference node is greater than current, or
@@ -98,5 +95,4 @@ public class SLNode<T extends Comparable<T>> extends SetElement<T> implements Co
 		
 		return result;
 	}
-
 }
@@ -29,44 +29,36 @@
 
 package SkipListDynamicSet;
 
-import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import DynamicSet.*;
 
+//Skip list with one SLNode per key. Each node holds the forward links of its whole tower, so a
+//search descends from the head by following next[level] pointers, and insert and delete find
+//the predecessor on every level in that same descent.
 public class SkipListDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 	
-	private ArrayList<SLNode<T>> dic;
-	private int top;	//size of arraylist, number of levels in the skiplist
-	private int current;	//current level of skiplist
-	private SLNode<T> head;
+	private static final int MAX_LEVEL = 32;
 	
+	private final SLNode<T> head;	//sentinel holding the first node of every level
+	private SLNode<T> tail;	//last node of the bottom list, null if the set is empty
+	private int levels;	//number of levels in use, at least 1
+	private final SLNode<T>[] update;	//predecessor per level, filled by findPredecessors
+	private final SplittableRandom random;
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
 	public SkipListDynamicSet() {
 		
 		super();
-		dic = new ArrayList<SLNode<T>>();	//arraylist of doubly linked list with sentinels
-		//initialize the skip list
-		SLNode<T> one = new SLNode<T>(null, null);	//create two sublist with sentinels
-		SLNode<T> two = new SLNode<T>(null, null);
-		dic.add(one);	//add them into dictionary containing skip list
-		dic.add(two);
-		top = dic.size() - 1;	//refers to number of levels in the skiplist
-		current = top;	//current level while traversing skiplist
-		
-		//initialize horizontal pointer
-		dic.get(top).setNext(dic.get(top));
-		dic.get(top).setPrev(dic.get(top));
-		dic.get(top - 1).setNext(dic.get(top - 1));
-		dic.get(top - 1).setPrev(dic.get(top - 1));
-		
-		//initialize vertical pointers
-		dic.get(top).setBelow(dic.get(top - 1));	//for smallest
-		dic.get(top - 1).setAbove(dic.get(top));
-		
-		dic.get(top).setBelow(dic.get(top - 1));	//for greatest
-		dic.get(top - 1).setAbove(dic.get(top));
-		
-		head = dic.get(top);	//assign top list smallest element to head
+		head = new SLNode<T>(null, null, MAX_LEVEL);
+		tail = null;
+		levels = 1;
+		update = new SLNode[MAX_LEVEL];
+		random = new SplittableRandom();
 	}
 	
+	
 	public static void main(String []args) {
 		
 		SkipListDynamicSet<String> set = new SkipListDynamicSet<String>();
@@ -114,225 +106,276 @@ public class SkipListDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		else
 			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
 	}
-		
 
 	public void insert(SetElement<T> e) {
 		
-		if(search(e.getKey()) == null) {
+		T k = e.getKey();
+		SLNode<T> p = findPredecessors(k);
+		SLNode<T> next = p.getNext(0);
+		if(next != null) {
 			
-			//SLNode<T> temp = new SLNode<T>(e.getKey(), e.getData());
-			SLNode<T> p = searchpos(e.getKey());	//search for position to insert
-			SLNode<T> q = insertAfterAbove(p, null, e);	//perform insertion in bottom horizontal list
-														//return the position of new element
-			current = 0;
-			//determines of loop executes
-			while(Math.random() < (double)1/2) {
-				
-				//if current is at the top, then we need to add 2 sublists to the top of the skiplist
-				//to ensure there is always an empty list at the top
-				if(current == top) {
-					
-					for(int j = 0; j < 2; j++) {
-						
-						SLNode<T> newList = new SLNode<T>(null, null);
-						dic.add(newList);
-						top = dic.size() - 1;	//one more list added so we reset top variable
-						
-						//initialize horizontal pointers
-						dic.get(top).setNext(dic.get(top));
-						dic.get(top).setPrev(dic.get(top));
-						
-						//initialize vertical pointers
-						dic.get(top).setBelow(dic.get(top - 1));	//for smallest
-						dic.get(top - 1).setAbove(dic.get(top));
-						
-						dic.get(top).setBelow(dic.get(top - 1));	//for greatest
-						dic.get(top - 1).setAbove(dic.get(top));
-						
-						head = dic.get(top);	//assign top list smallest element to head
-					}
-				}
+			stats.compared();
+			if(next.getKey().compareTo(k) == 0)
+				return;	//already in the set
+		}
+		
+		int height = randomHeight();
+		if(height > levels) {
+			
+			for(int i = levels; i < height; i++) {
 				
-				while(p.getAbove() == null) {
-					
-					p = p.getPrev();	//scan backward
-				}
-				p = p.getAbove();	//jump to next level
-				current++;
-				q = insertAfterAbove(p, q, e);	//insert new item
+				update[i] = head;
+				stats.levelCreated();
 			}
-			super.size++;
+			levels = height;
 		}
 		
+		//splice the new tower in after the predecessor on each of its levels
+		SLNode<T> node = new SLNode<T>(k, e.getData(), height);
+		for(int i = 0; i < height; i++) {
+			
+			node.setNext(i, update[i].getNext(i));
+			update[i].setNext(i, node);
+		}
+		node.setPrev(p == head ? null : p);
+		if(next != null)
+			next.setPrev(node);
+		else
+			tail = node;
+		super.size++;
 	}
 	
-	private SLNode<T> searchpos(T k) {
+	//Descends once from the head and records in update[i] the last node on level i whose key is
+	//smaller than k (the head if there is none). Returns update[0].
+	private SLNode<T> findPredecessors(T k) {
 		
-		if(k != null) {
+		SLNode<T> p = head;
+		for(int level = levels - 1; level >= 0; level--) {
 			
-			SLNode<T> p = head;
-			current = top;
-			while(p != null && p.getBelow() != null) {
+			SLNode<T> next = p.getNext(level);
+			while(next != null) {
 				
-				p = p.getBelow();
-				current--;	//decrement to next level
-				while(p.getNext() != dic.get(current) && p.getNext().getKey().compareTo(k) <= 0) {
-					
-					p = p.getNext();
-				}
-			}
-			if(p == dic.get(current)) {		//list is empty so return pointer to sentinel
-				return dic.get(current);
+				stats.visited();
+				stats.compared();
+				if(next.getKey().compareTo(k) >= 0)
+					break;
+				p = next;
+				next = p.getNext(level);
 			}
-			else
-				return p;
+			update[level] = p;
 		}
-		else 
-			return null;
+		return p;
 	}
-
-	private SLNode<T> insertAfterAbove(SLNode<T> p, SLNode<T> q, SetElement<T> e) {
-		
-		SLNode<T> newnode = new SLNode<T>(e.getKey(), e.getData());
-		
-		//splice newnode into bottom horizontal list
-		p.getNext().setPrev(newnode);
-		newnode.setPrev(p);
-		newnode.setNext(p.getNext());
-		p.setNext(newnode);
+	
+	//Returns a height from 1 to MAX_LEVEL, h with probability 1/2^h: the number of trailing zero
+	//bits of a random int plus one. The top bit is forced on so the count stops at MAX_LEVEL - 1.
+	private int randomHeight() {
 		
-		//splice newnode into vertical list, however only below since splicing is determined by Math.random()
-		newnode.setBelow(q);
-		if(q != null) {
-			
-			q.setAbove(newnode);
-		}
-		return newnode;
+		return Integer.numberOfTrailingZeros(random.nextInt() | Integer.MIN_VALUE) + 1;
 	}
 	
-	
-	
 	public void delete(SetElement<T> e) {
 		
-		if(e != null) {
+		if(e != null && e.getKey() != null) {
 			
-			SLNode<T> p = search(e.getKey());
+			T k = e.getKey();
+			SLNode<T> p = findPredecessors(k);
+			SLNode<T> node = p.getNext(0);
+			if(node != null)
+				stats.compared();
 			
-			if(p != null) {
+			if(node != null && node.getKey().compareTo(k) == 0) {
 				
-				while(p != null) {
+				//unlink the tower on every level it reaches
+				for(int i = 0; i < node.getHeight(); i++)
+					update[i].setNext(i, node.getNext(i));
+				if(node.getNext() != null)
+					node.getNext().setPrev(node.getPrev());
+				else
+					tail = node.getPrev();
+				
+				//drop emptied levels
+				while(levels > 1 && head.getNext(levels - 1) == null) {
 					
-					if(p.getPrev() == dic.get(current) && p.getNext() == dic.get(current)) {
-						
-						//splice out p a the current level
-						dic.get(current).setNext(dic.get(current));
-						dic.get(current).setPrev(dic.get(current));
-						
-						//remove top list
-						dic.remove(top);
-						top = dic.size() - 1;
-					}
-					else {
-						
-						p.getPrev().setNext(p.getNext());
-						p.getNext().setPrev(p.getPrev());
-					}
-					p = p.getBelow();
-					current--;
+					levels--;
+					stats.levelRemoved();
 				}
+				super.size--;
 			}
 		}
-		super.size--;
 	}
-
 	
+	//Returns the node with key k, or null. The search stops on the highest level where it meets k
+	//and writes no fields, so concurrent readers do not disturb each other.
 	public SLNode<T> search(T k) {
 		
 		if(k != null) {
 			
 			SLNode<T> p = head;
-			current = top;
-			boolean combobreaker = true;
-			
-			while(p != null && p.getBelow() != null && combobreaker) {
+			for(int level = levels - 1; level >= 0; level--) {
 				
-				p = p.getBelow();
-				current--;
-				while(p.getNext() != dic.get(current) && p.getNext().getKey().compareTo(k) <= 0) {
+				SLNode<T> next = p.getNext(level);
+				while(next != null) {
 					
-					p = p.getNext();
-					if(p.getNext() != dic.get(current) && p.getNext().getKey().compareTo(k) == 0)
-						combobreaker = false;
+					stats.visited();
+					stats.compared();
+					int c = next.getKey().compareTo(k);
+					if(c == 0)
+						return next;
+					if(c > 0)
+						break;
+					p = next;
+					next = p.getNext(level);
 				}
 			}
-			if(p == dic.get(current))	//list is empty
-				return null;
-			else if(p.getKey().compareTo(k) == 0)
-				return p;
-			else
-				return null;	//k isn't in the list 
 		}
-		else
-			return null;
+		return null;
+	}
+	
+	//Returns the number of levels in use, 0 if the set is empty.
+	public int height() {
 		
+		return (super.size == 0) ? 0 : levels;
 	}
-
 	
 	public SLNode<T> minimum() {
 		
-		if(dic.get(0).getNext() == dic.get(0))
-			return null;
-		else
-			return dic.get(0).getNext();
+		return head.getNext(0);
 	}
-
 	
 	public SLNode<T> maximum() {
 		
-		if(dic.get(0).getPrev() == dic.get(0))
-			return null;
-		else
-			return dic.get(0).getPrev();
+		return tail;
 	}
-
 	
 	public SLNode<T> successor(SetElement<T> e) {
 		
 		SLNode<T> p = search(e.getKey());
-		if(p != null) {
-			
-			while(p.getBelow() != null) {
-				
-				p = p.getBelow();
-				current--;
-			}
-			if(p.getNext() == dic.get(0)) {
-				
-				p = null;
-			}
-			else
-				p = p.getNext();
-		}
+		if(p != null)
+			p = p.getNext();
 		return p;
 	}
 
 	public SLNode<T> predecessor(SetElement<T> e) {
 		
 		SLNode<T> p = search(e.getKey());
-		if(p != null) {
+		if(p != null)
+			p = p.getPrev();
+		return p;
+	}
+	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//The first element is found by one descent through the levels, every step after it follows
+	//one next pointer of the bottom list.
+	public Cursor<T> range(final T lo, T hi) {
+		
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+				
+				if(lo == null)
+					return minimum();
+				SLNode<T> p = head;	//last node with a key < lo on each level
+				for(int level = levels - 1; level >= 0; level--) {
+					while(p.getNext(level) != null && p.getNext(level).getKey().compareTo(lo) < 0)
+						p = p.getNext(level);
+				}
+				return p.getNext(0);
+			}
 			
-			while(p.getBelow() != null) {
+			protected SetElement<T> step(SetElement<T> e) {
 				
-				p = p.getBelow();
-				current--;
+				return ((SLNode<T>)e).getNext();
 			}
-			if(p.getPrev() == dic.get(0)) {
+		};
+	}
+	
+	//Returns a spliterator over the elements in key order that splits at towers: a part is cut at the
+	//middle one of its nodes on the highest level that holds at least three of them, which one descent
+	//from the head finds in O(log n). The parts estimate their sizes as halves.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return new TowerSpliterator(head.getNext(0), null, super.size);
+	}
+	
+	private class TowerSpliterator implements Spliterator<SetElement<T>> {
+		
+		private SLNode<T> next;	//next bottom node to visit, null at the end of the list
+		private final SLNode<T> fence;	//first bottom node of the following part, null for none
+		private long estimate;
+		private boolean split;
+		
+		TowerSpliterator(SLNode<T> next, SLNode<T> fence, long estimate) {
+			
+			this.next = next;
+			this.fence = fence;
+			this.estimate = estimate;
+			this.split = false;
+		}
+		
+		public boolean tryAdvance(Consumer<? super SetElement<T>> action) {
+			
+			if(next == null || next == fence)
+				return false;
+			SLNode<T> node = next;
+			next = node.getNext();
+			estimate--;
+			action.accept(node);
+			return true;
+		}
+		
+		public Spliterator<SetElement<T>> trySplit() {
+			
+			if(next == null || next == fence)
+				return null;
+			SLNode<T> middle = middleTower();
+			if(middle == null)
+				return null;
+			TowerSpliterator prefix = new TowerSpliterator(next, middle, estimate / 2);
+			prefix.split = true;
+			next = middle;
+			estimate -= estimate / 2;
+			split = true;
+			return prefix;
+		}
+		
+		//Returns the middle tower between next (exclusive) and fence, or null if no tower above the
+		//bottom list rises between them.
+		private SLNode<T> middleTower() {
+			
+			T lo = next.getKey();
+			T hi = (fence == null) ? null : fence.getKey();
+			SLNode<T> p = head;
+			for(int level = levels - 1; level >= 1; level--) {
 				
-				p = null;
+				while(p.getNext(level) != null && p.getNext(level).getKey().compareTo(lo) <= 0)
+					p = p.getNext(level);
+				
+				//count the towers of this level inside the part
+				int count = 0;
+				for(SLNode<T> q = p.getNext(level); q != null && (hi == null || q.getKey().compareTo(hi) < 0); q = q.getNext(level))
+					count++;
+				if(count >= 3 || (level == 1 && count >= 1)) {
+					SLNode<T> middle = p;
+					for(int i = 0; i <= count / 2; i++)
+						middle = middle.getNext(level);
+					return middle;
+				}
 			}
-			else p = p.getPrev();
+			return null;
+		}
+		
+		public long estimateSize() {
+			
+			return Math.max(estimate, 0);
+		}
+		
+		public int characteristics() {
+			
+			int characteristics = ORDERED | DISTINCT | NONNULL;
+			if(!split)
+				characteristics |= SIZED;	//exact until the first split
+			return characteristics;
 		}
-		return p;
 	}
 	
 	public String toString() {
@@ -340,17 +383,9 @@ public class SkipListDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
 		StringBuilder result = new StringBuilder();
 		result.append("[");
 		
-		SLNode<T> p = head;
-		current = top;
-		while(p != null && p.getBelow() != null) {
-			
-			p = p.getBelow();
-			current--;
-		}
-		while(p.getNext() != dic.get(current) && p.getNext() != null) {
-			result.append(p.getNext().getKey());
-			p = p.getNext();
-			if(p.getNext() != dic.get(current) && p.getNext() != null) {
+		for(SLNode<T> p = head.getNext(0); p != null; p = p.getNext()) {
+			result.append(p.getKey());
+			if(p.getNext() != null) {
 				result.append(", ");
 			}
 		}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package SplayDynamicSet;
+
+import DynamicSet.*;
+import java.util.ArrayList;
+import java.util.Spliterator;
+
+//Splay tree (Sleator and Tarjan, 1985): a binary search tree without any balance information that
+//moves every node it touches to the root with a series of rotations (splaying). Any sequence of
+//operations costs O(log n) amortized per operation, and keys that are accessed often stay near the
+//root, so on skewed access patterns the hot keys are found after only a few comparisons.
+//Because lookups restructure the tree, search, minimum, maximum, successor and predecessor all
+//modify it.
+public class SplayDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+	
+	private SplayNode<T> root;
+	
+	public SplayDynamicSet() {
+		
+		super();
+		root = null;
+	}
+	
+	public static void main(String []args) {
+		
+		SplayDynamicSet<String> set = new SplayDynamicSet<String>();
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+		
+		SplayNode<String> n1 = new SplayNode<String>(s1, s1);
+		SplayNode<String> n2 = new SplayNode<String>(s2, s2);
+		SplayNode<String> n3 = new SplayNode<String>(s3, s3);
+		SplayNode<String> n4 = new SplayNode<String>(s4, s4);
+		
+		//testing insert
+		set.insert(n1);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n4);
+		set.insert(n1);
+		
+		System.out.println(set.search(n3.getKey()).getKey());
+		set.delete(n4);
+		set.delete(n3);
+		set.delete(n2);
+		set.delete(n1);
+		set.delete(n1);
+		
+		set.insert(n4);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n1);
+		
+		//testing max
+		SplayNode<String> testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+		
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+		
+		//testing successor
+		testNode = set.successor(n3);
+		if (testNode == null)
+			System.out.println("No Successor of " + n3.getKey());
+		else
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+		
+		//testing predecessor
+		testNode = set.predecessor(n1);
+		if (testNode == null)
+			System.out.println("No Predecessor of " + n1.getKey());
+		else
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+	}
+	
+	//Insert element e in the set and splay the new node to the root. If the key is already in the
+	//set, that node is splayed instead.
+	public void insert(SetElement<T> e) {
+		
+		SplayNode<T> trailing = null;
+		SplayNode<T> current = root;
+		int c = 0;
+		while (current != null) {
+			trailing = current;
+			stats.visited();
+			stats.compared();
+			c = e.getKey().compareTo(current.getKey());
+			if (c < 0)
+				current = current.getLeft();
+			else if (c > 0)
+				current = current.getRight();
+			else {
+				splay(current);	//e is already in the tree
+				return;
+			}
+		}
+		
+		SplayNode<T> toAdd = new SplayNode<T>(e.getKey(), e.getData());
+		toAdd.setParent(trailing);
+		if (trailing == null)
+			root = toAdd;
+		else if (c < 0)
+			trailing.setLeft(toAdd);
+		else
+			trailing.setRight(toAdd);
+		splay(toAdd);
+		super.size++;
+	}
+	
+	//Given a pointer to element e in the set, removes e from the set. e is splayed to the root and
+	//removed; the largest node of its left subtree is then splayed to the top of that subtree, where
+	//it has no right child, and the right subtree of e is hung there.
+	public void delete(SetElement<T> e) {
+		
+		SplayNode<T> node = search(e.getKey());
+		if (node == null)
+			return;
+		
+		SplayNode<T> left = node.getLeft();
+		SplayNode<T> right = node.getRight();
+		if (left == null) {
+			root = right;
+			if (right != null)
+				right.setParent(null);
+		}
+		else {
+			left.setParent(null);
+			root = left;
+			SplayNode<T> largest = treeMaximum(left);
+			splay(largest);
+			largest.setRight(right);
+			if (right != null)
+				right.setParent(largest);
+		}
+		super.size--;
+	}
+	
+	//Rotates node above its parent.
+	private void rotate(SplayNode<T> node) {
+		
+		stats.rotated();
+		SplayNode<T> parent = node.getParent();
+		SplayNode<T> grandparent = parent.getParent();
+		if (node == parent.getLeft()) {
+			parent.setLeft(node.getRight());
+			if (node.getRight() != null)
+				node.getRight().setParent(parent);
+			node.setRight(parent);
+		}
+		else {
+			parent.setRight(node.getLeft());
+			if (node.getLeft() != null)
+				node.getLeft().setParent(parent);
+			node.setLeft(parent);
+		}
+		parent.setParent(node);
+		node.setParent(grandparent);
+		if (grandparent == null)
+			root = node;
+		else if (grandparent.getLeft() == parent)
+			grandparent.setLeft(node);
+		else
+			grandparent.setRight(node);
+	}
+	
+	//Moves node to the root. Rotating the parent first when node and its parent are children on the
+	//same side (zig-zig) is what roughly halves the depth of every node on the access path.
+	private void splay(SplayNode<T> node) {
+		
+		while (node.getParent() != null) {
+			SplayNode<T> parent = node.getParent();
+			SplayNode<T> grandparent = parent.getParent();
+			if (grandparent == null)
+				rotate(node);	//zig
+			else if ((node == parent.getLeft()) == (parent == grandparent.getLeft())) {
+				rotate(parent);	//zig-zig
+				rotate(node);
+			}
+			else {
+				rotate(node);	//zig-zag
+				rotate(node);
+			}
+		}
+	}
+	
+	//Finds a SetElement with key k and returns a pointer to it, or null if not found. The node found,
+	//or the last node visited if k is not in the set, is splayed to the root.
+	public SplayNode<T> search(T k) {
+		
+		SplayNode<T> trailing = null;
+		SplayNode<T> current = root;
+		while (current != null) {
+			trailing = current;
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if (c < 0)
+				current = current.getLeft();
+			else if (c > 0)
+				current = current.getRight();
+			else {
+				splay(current);
+				return current;
+			}
+		}
+		if (trailing != null)
+			splay(trailing);
+		return null;
+	}
+	
+	//Finds a SetElement that has the smallest key, splays it, and returns a pointer to it, or null if the set is empty.
+	public SplayNode<T> minimum() {
+		
+		if (root == null)
+			return null;
+		SplayNode<T> node = treeMinimum(root);
+		splay(node);
+		return node;
+	}
+	
+	//Finds a SetElement that has the largest key, splays it, and returns a pointer to it, or null if the set is empty.
+	public SplayNode<T> maximum() {
+		
+		if (root == null)
+			return null;
+		SplayNode<T> node = treeMaximum(root);
+		splay(node);
+		return node;
+	}
+	
+	private SplayNode<T> treeMinimum(SplayNode<T> subtree) {
+		
+		while (subtree.getLeft() != null) {
+			stats.visited();
+			subtree = subtree.getLeft();
+		}
+		return subtree;
+	}
+	
+	private SplayNode<T> treeMaximum(SplayNode<T> subtree) {
+		
+		while (subtree.getRight() != null) {
+			stats.visited();
+			subtree = subtree.getRight();
+		}
+		return subtree;
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next larger key,
+	//and returns a pointer to it, or null if e is the maximum element. e ends up at the root, so the
+	//successor is the smallest node of its right subtree, which is splayed in turn.
+	public SplayNode<T> successor(SetElement<T> e) {
+		
+		SplayNode<T> node = search(e.getKey());
+		if (node == null || node.getRight() == null)
+			return null;
+		SplayNode<T> succ = treeMinimum(node.getRight());
+		splay(succ);
+		return succ;
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next smaller key,
+	//and returns a pointer to it, or null if e is the minimum element.
+	public SplayNode<T> predecessor(SetElement<T> e) {
+		
+		SplayNode<T> node = search(e.getKey());
+		if (node == null || node.getLeft() == null)
+			return null;
+		SplayNode<T> pred = treeMaximum(node.getLeft());
+		splay(pred);
+		return pred;
+	}
+	
+	//Returns the node that follows node in key order, or null if node is the maximum.
+	private SplayNode<T> nextInorder(SplayNode<T> node) {
+		
+		if (node.getRight() != null)
+			return treeMinimum(node.getRight());
+		SplayNode<T> parent = node.getParent();
+		while (parent != null && node == parent.getRight()) {	//climb until we come up from a left child
+			stats.visited();
+			node = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+	
+	//Returns the node with the smallest key >= k, or null if every key is smaller. The node
+	//returned, or the last node visited, is splayed.
+	private SplayNode<T> ceiling(T k) {
+		
+		SplayNode<T> trailing = null;
+		SplayNode<T> current = root;
+		SplayNode<T> candidate = null;
+		while (current != null) {
+			trailing = current;
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if (c == 0) {
+				candidate = current;
+				break;
+			}
+			if (c < 0) {
+				candidate = current;
+				current = current.getLeft();
+			}
+			else
+				current = current.getRight();
+		}
+		if (candidate != null)
+			splay(candidate);
+		else if (trailing != null)
+			splay(trailing);
+		return candidate;
+	}
+	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//The first element is splayed to the root; the steps walk the tree in order without splaying,
+	//so the scan itself leaves the tree as it is.
+	public Cursor<T> range(final T lo, T hi) {
+		
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+				
+				if (lo == null)
+					return minimum();
+				else
+					return ceiling(lo);
+			}
+			
+			protected SetElement<T> step(SetElement<T> e) {
+				
+				return nextInorder((SplayNode<T>)e);
+			}
+		};
+	}
+	
+	//Returns the height of the tree in nodes, counted one level at a time: a splay tree can be as
+	//deep as it is large, too deep to recurse.
+	public int height() {
+		
+		int height = 0;
+		ArrayList<SplayNode<T>> level = new ArrayList<SplayNode<T>>();
+		if (root != null)
+			level.add(root);
+		while (!level.isEmpty()) {
+			height++;
+			ArrayList<SplayNode<T>> below = new ArrayList<SplayNode<T>>();
+			for (SplayNode<T> node : level) {
+				if (node.getLeft() != null)
+					below.add(node.getLeft());
+				if (node.getRight() != null)
+					below.add(node.getRight());
+			}
+			level = below;
+		}
+		return height;
+	}
+	
+	//Returns a spliterator over the elements in key order that splits at subtrees. The tree keeps no
+	//subtree sizes, so the parts only estimate their sizes as halves.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return new SubtreeSpliterator<T, SplayNode<T>>(root, super.size, new SubtreeSpliterator.Tree<SplayNode<T>>() {
+			public SplayNode<T> left(SplayNode<T> node) {
+				
+				return node.getLeft();
+			}
+			
+			public SplayNode<T> right(SplayNode<T> node) {
+				
+				return node.getRight();
+			}
+			
+			public long size(SplayNode<T> node) {
+				
+				return -1;	//unknown
+			}
+		});
+	}
+}
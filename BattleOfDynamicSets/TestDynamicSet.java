@@ -28,10 +28,7 @@
 
 
 import DynamicSet.*;
-import DLLDynamicSet.*;
-import SkipListDynamicSet.*;
-import BSTDynamicSet.*;
-import RedBlackDynamicSet.*;
+import Benchmark.Implementation;
 import java.util.Scanner;
 import java.util.ArrayList;
 import java.io.*;
@@ -45,11 +42,15 @@ public class TestDynamicSet
 		System.out.println("/**********Dynamic Set Tester**********/\n\n");
 		if (args.length == 1)
 		{
+		//every implementation registered in Benchmark.Implementation gets its own set and table column
+		Implementation[] impls = Implementation.values();
+
 		System.out.println("This program will test the Dynamic Set operations: insert, search, predecessor, successor,");
-		System.out.println("minimum, and maximum, using four different implementations: Doubly Linked List, Skip List,");
-		System.out.println("Binary Search Tree, and Red-Black Tree. At the end of the test, a table with the min, avg,");
-		System.out.println("and max run times in nanoseconds of all the dynamic set operations will be printed. See");
-		System.out.println("README.txt and the Operations Manual for more details and how to operate this program.\n\n");
+		System.out.println("minimum, and maximum, using " + impls.length + " different implementations: " + names(impls) + ".");
+		System.out.println("At the end of the test, a table with the min, avg, and max run times in nanoseconds of all");
+		System.out.println("the dynamic set operations will be printed. See README.txt and the Operations Manual for");
+		System.out.println("more details and how to operate this program. Run java -Ddynamicset.stats=true TestDynamicSet");
+		System.out.println("to also print the comparisons, nodes visited and rotations per operation.\n\n");
 	
 		String filename;
 		Scanner fileScan, scan;
@@ -61,11 +62,11 @@ public class TestDynamicSet
 		//create the arraylist to read in all the data
 		ArrayList<String> list = new ArrayList<String>();
 		
-		//create the 4 dynamic sets
-		DLLDynamicSet<String> set1 = new DLLDynamicSet<String>();
-		SkipListDynamicSet<String> set2 = new SkipListDynamicSet<String>();
-		BSTDynamicSet<String> set3 = new BSTDynamicSet<String>();
-		RedBlackDynamicSet<String> set4 = new RedBlackDynamicSet<String>();
+		//create one dynamic set per implementation
+		ArrayList<DynamicSet<String>> sets = new ArrayList<DynamicSet<String>>();
+		for (Implementation impl : impls)
+			sets.add(impl.create());
+		DynamicSet<String> set1 = sets.get(0); //reference set used to validate interactive commands
 		
 		//read in data into the list
 		while (fileScan.hasNextLine()) //while there are more names to read in
@@ -74,19 +75,19 @@ public class TestDynamicSet
 		for (int i = 0; i < list.size(); i++)
 			list.get(i).trim();
 			
-		//create arrays holding long values to store recorded times
-		long[] test1 = new long[list.size()];
-		long[] test2 = new long[list.size()];
-		long[] test3 = new long[list.size()];
-		long[] test4 = new long[list.size()];
-		
-		//every three cells will hold min, avg, and max times for each of the 4 dynamic sets
-		long[] insert = new long[12];
-		long[] search = new long[12];
-		long[] predecessor = new long[12];
-		long[] successor = new long[12];
-		long[] minimum = new long[4];
-		long[] maximum = new long[4];
+		//create arrays holding long values to store recorded times, one row per set
+		long[][] tests = new long[impls.length][list.size()];
+		
+		//every three cells will hold min, avg, and max times for each of the dynamic sets
+		long[] insert = new long[3 * impls.length];
+		long[] search = new long[3 * impls.length];
+		long[] predecessor = new long[3 * impls.length];
+		long[] successor = new long[3 * impls.length];
+		long[] minimum = new long[impls.length];
+		long[] maximum = new long[impls.length];
+
+		//work counted per set during each timed operation, used only with -Ddynamicset.stats=true
+		SetStatistics[][] work = new SetStatistics[WORK_ROWS.length][impls.length];
 		
 		/* prompt user using command line. details on commands in operations manual */
 		System.out.println("----------Command Line----------\n");
@@ -122,9 +123,13 @@ public class TestDynamicSet
 		/* stats will be called after each call to a dynamic set operator to generate the min, avg, and max */
 		/* runtimes for each method dynamic set operator 																	 */
 		
+		for (int op = 0; op < work.length; op++)
+			for (int s = 0; s < impls.length; s++)
+				work[op][s] = new SetStatistics();
+
 		//call insertion on every data set, and record the min, avg, and max times for each insertion
-		insertion(set1, set2, set3, set4, list, test1, test2, test3, test4);
-		stats(test1, test2, test3, test4, insert, test1.length);
+		insertion(impls, sets, list, tests, work[0]);
+		stats(tests, insert, list.size());
 		
 		//generate random keys to search for using search. same keys will be used on successor and predecessor
 		System.out.println();
@@ -132,32 +137,34 @@ public class TestDynamicSet
 		int[] keys = new int[10];
 		for (int i = 0; i < 10; i++)
 		{
-			keys[i] = (int)(Math.random()*test1.length); 
+			keys[i] = (int)(Math.random()*list.size());
 			System.out.println("* " + list.get(keys[i]));
 		}
 		System.out.println();
 
 		//call search on every data set, and record the min, avg, and max times for each search
-		search(set1, set2, set3, set4, list, test1, test2, test3, test4, keys);
-		stats(test1, test2, test3, test4, search, 10);
+		search(sets, list, tests, keys, work[1]);
+		stats(tests, search, 10);
 		
 		//call predecessor on every data set, and record the min, avg, and max times for each predecessor
-		predecessor(set1, set2, set3, set4, list, test1, test2, test3, test4, keys);
-		stats(test1, test2, test3, test4, predecessor, 10);
+		predecessor(sets, list, tests, keys, work[2]);
+		stats(tests, predecessor, 10);
 		
 		//call successor on every data set, and record the min, avg, and max times for each successor
-		successor(set1, set2, set3, set4, list, test1, test2, test3, test4, keys);
-		stats(test1, test2, test3, test4, successor, 10);
+		successor(sets, list, tests, keys, work[3]);
+		stats(tests, successor, 10);
 		
 		//call minimum on every data set, and record the time it takes, since we cannot have multiple 
 		//tests for finding the minimum element
-		minimum(set1, set2, set3, set4, list, test1, test2, test3, test4, minimum);
+		minimum(sets, minimum, work[4]);
 				
 		//call maximum on every data set, and record the time it takes, since we cannot have multiple
 		//tests for finding the maximum element
-		maximum(set1, set2, set3, set4, list, test1, test2, test3, test4, maximum);
+		maximum(sets, maximum, work[5]);
 		
-		printTable(insert, search, predecessor, successor, minimum, maximum, list.size(), filename);
+		printTable(impls, insert, search, predecessor, successor, minimum, maximum, list.size(), filename);
+		if (SetStatistics.ENABLED)
+			printWork(impls, sets, work, new int[] {list.size(), 10, 10, 10, 1, 1});
 		
 		break;
 		
@@ -173,7 +180,7 @@ public class TestDynamicSet
 			{
 				insertlist.add(in);
 				System.out.println("Inserting " + in + "...");
-				insertion(set1, set2, set3, set4, insertlist, test1, test2, test3, test4);
+				insertion(impls, sets, insertlist, tests, null);
 				System.out.println(in + " added!\n");
 			}
 			else
@@ -205,7 +212,7 @@ public class TestDynamicSet
 			{
 				deletelist.add(del);
 				System.out.println("Deleting " + del + "...");
-				delete(set1, set2, set3, set4, deletelist, test1, test2, test3, test4);
+				delete(sets, deletelist);
 				System.out.println(del + " deleted!\n");
 			}
 			else
@@ -303,511 +310,306 @@ public class TestDynamicSet
 	    INSERT, SEARCH, PREDECESSOR, SUCCESSOR, MINIMUM, MAXIMUM, DELETE, RUNTEST, QUIT;  
 	  }
 	
+	//comma separated list of the implementation names
+	private static String names(Implementation[] impls)
+	{
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < impls.length; i++)
+		{
+			if (i > 0)
+				result.append(", ");
+			result.append(impls[i].name());
+		}
+		return result.toString();
+	}
+
 	/* DECOMMENT PRINT STATEMENTS TO SEE PROGRESS */
-	public static void insertion(DynamicSet<String> set1, DynamicSet<String> set2, DynamicSet<String> set3, DynamicSet<String> set4, ArrayList<String> list,
-											long[] test1, long[] test2, long[] test3, long[] test4)
+	public static void insertion(Implementation[] impls, ArrayList<DynamicSet<String>> sets, ArrayList<String> list, long[][] tests,
+											SetStatistics[] work)
 	
 	{
 		long startTime = 0;
 		long time = 0;
 		
-		//DLL set
-		for (int i = 0; i < list.size(); i++)
+		for (int s = 0; s < sets.size(); s++)
 		{
-			/* DECOMMENT BELOW TO TRACK PROGRAM */
-			//System.out.println("DLL Iteration: " + i);
-			DLLNode<String> s1 = new DLLNode<String>(list.get(i), list.get(i));
-			startTime = System.nanoTime();
-			set1.insert(s1);
-			time = System.nanoTime() - startTime;
-			test1[i] = time;
-		}
-		
-		//SL set
 		for (int i = 0; i < list.size(); i++)
 		{
 			/* DECOMMENT BELOW TO TRACK PROGRAM */
-			//System.out.println("SL Iteration: " + i);
-			SLNode<String> s1 = new SLNode<String>(list.get(i), list.get(i));
+				//System.out.println(impls[s] + " Iteration: " + i);
+				SetElement<String> s1 = impls[s].element(list.get(i));
+				SetStatistics before = before(sets.get(s), work);
 			startTime = System.nanoTime();
-			set2.insert(s1);
+				sets.get(s).insert(s1);
 			time = System.nanoTime() - startTime;
-			test2[i] = time;
+				tests[s][i] = time;
+				after(sets.get(s), work, s, before);
 		}
-		
-		//BST set
-		for (int i = 0; i < list.size(); i++)
-		{
-			/* DECOMMENT BELOW TO TRACK PROGRAM */
-			//System.out.println("BST Iteration: " + i);
-			BSTNode<String> s1 = new BSTNode<String>(list.get(i), list.get(i));
-			startTime = System.nanoTime();
-			set3.insert(s1);
-			time = System.nanoTime() - startTime;
-			test3[i] = time;
-		}
-		
-		//RBT set
-		for (int i = 0; i < list.size(); i++)
-		{
-			/* DECOMMENT BELOW TO TRACK PROGRAM */
-			//System.out.println("RBT Iteration: " + i);
-			RBTNode<String> s1 = new RBTNode<String>(list.get(i), list.get(i));
-			startTime = System.nanoTime();
-			set4.insert(s1);
-			time = System.nanoTime() - startTime;
-			test4[i] = time;
 		}
 	}
 	
-	public static void delete(DynamicSet<String> set1, DynamicSet<String> set2, DynamicSet<String> set3, DynamicSet<String> set4, ArrayList<String> list,
-											long[] test1, long[] test2, long[] test3, long[] test4)
+	public static void delete(ArrayList<DynamicSet<String>> sets, ArrayList<String> list)
 	
 	{
-		//DLL set
-		for (int i = 0; i < list.size(); i++)
+		for (DynamicSet<String> set : sets)
 		{
-			SetElement<String> s1 = set1.search(list.get(i));
-			set1.delete(s1);
-		}
-		
-		//SL set
 		for (int i = 0; i < list.size(); i++)
 		{
-			SetElement<String> s2 = set2.search(list.get(i));
-			set2.delete(s2);
+				SetElement<String> s1 = set.search(list.get(i));
+				set.delete(s1);
+			}
 		}
-		
-		//BST set
-		for (int i = 0; i < list.size(); i++)
-		{
-			SetElement<String> s3 = set3.search(list.get(i));
-			set3.delete(s3);
 		}
 		
-		//RBT set
-		for (int i = 0; i < list.size(); i++)
-		{
-			SetElement<String> s4 = set4.search(list.get(i));
-			set4.delete(s4);
-		}
-	
-	}
-	
-	public static void search(DynamicSet<String> set1, DynamicSet<String> set2, DynamicSet<String> set3, DynamicSet<String> set4, ArrayList<String> list,
-											long[] test1, long[] test2, long[] test3, long[] test4, int[] keys)
+	public static void search(ArrayList<DynamicSet<String>> sets, ArrayList<String> list, long[][] tests, int[] keys,
+											SetStatistics[] work)
 	
 	{
 		long startTime = 0;
 		long time = 0;
 		
 		SetElement<String> elem;
-		//DLL set
-		for (int i = 0; i < 10; i++)
-		{
-			startTime = System.nanoTime();
-			elem = set1.search(list.get(keys[i]));
-			time = System.nanoTime() - startTime;
-			test1[i] = time;
-		}
-		
-		//SL set
-		for (int i = 0; i < 10; i++)
+		for (int s = 0; s < sets.size(); s++)
 		{
-			startTime = System.nanoTime();
-			elem = set2.search(list.get(keys[i]));
-			time = System.nanoTime() - startTime;
-			test2[i] = time;
-		}
-		
-		//BST set
 		for (int i = 0; i < 10; i++)
 		{
+				SetStatistics before = before(sets.get(s), work);
 			startTime = System.nanoTime();
-			elem = set3.search(list.get(keys[i]));
+				elem = sets.get(s).search(list.get(keys[i]));
 			time = System.nanoTime() - startTime;
-			test3[i] = time;
+				tests[s][i] = time;
+				after(sets.get(s), work, s, before);
 		}
-		
-		//RBT set
-		for (int i = 0; i < 10; i++)
-		{
-			startTime = System.nanoTime();
-			elem = set4.search(list.get(keys[i]));
-			time = System.nanoTime() - startTime;
-			test4[i] = time;
 		}
 	}
 
-	public static void predecessor(DynamicSet<String> set1, DynamicSet<String> set2, DynamicSet<String> set3, DynamicSet<String> set4, ArrayList<String> list,
-											long[] test1, long[] test2, long[] test3, long[] test4, int[] keys)
+	public static void predecessor(ArrayList<DynamicSet<String>> sets, ArrayList<String> list, long[][] tests, int[] keys,
+											SetStatistics[] work)
 	
 	{
 		long startTime = 0;
 		long time = 0;
 		
 		SetElement<String> dummy;
-		//DLL set
-		for (int i = 0; i < 10; i++)
+		for (int s = 0; s < sets.size(); s++)
 		{
-			dummy = set1.search(list.get(keys[i]));
-			startTime = System.nanoTime();
-			dummy = set1.predecessor(dummy);
-			time = System.nanoTime() - startTime;
-			test1[i] = time;
-		}
-		
-		//SL set
 		for (int i = 0; i < 10; i++)
 		{
-			dummy = set2.search(list.get(keys[i]));
+				dummy = sets.get(s).search(list.get(keys[i]));
+				SetStatistics before = before(sets.get(s), work);
 			startTime = System.nanoTime();
-			dummy = set2.predecessor(dummy);
+				dummy = sets.get(s).predecessor(dummy);
 			time = System.nanoTime() - startTime;
-			test2[i] = time;
+				tests[s][i] = time;
+				after(sets.get(s), work, s, before);
 		}
-
-		//BST set
-		for (int i = 0; i < 10; i++)
-		{
-			dummy = set3.search(list.get(keys[i]));
-			startTime = System.nanoTime();
-			dummy = set3.predecessor(dummy);
-			time = System.nanoTime() - startTime;
-			test3[i] = time;
-		}
-		
-		//RBT set
-		for (int i = 0; i < 10; i++)
-		{
-			dummy = set4.search(list.get(keys[i]));
-			startTime = System.nanoTime();
-			dummy = set4.predecessor(dummy);
-			time = System.nanoTime() - startTime;
-			test4[i] = time;
 		}
 	}
 	
-	public static void successor(DynamicSet<String> set1, DynamicSet<String> set2, DynamicSet<String> set3, DynamicSet<String> set4, ArrayList<String> list,
-											long[] test1, long[] test2, long[] test3, long[] test4, int[] keys)
+	public static void successor(ArrayList<DynamicSet<String>> sets, ArrayList<String> list, long[][] tests, int[] keys,
+											SetStatistics[] work)
 	
 	{
 		long startTime = 0;
 		long time = 0;
 		
 		SetElement<String> dummy;
-		//DLL set
-		for (int i = 0; i < 10; i++)
+		for (int s = 0; s < sets.size(); s++)
 		{
-			dummy = set1.search(list.get(keys[i]));
-			startTime = System.nanoTime();
-			dummy = set1.successor(dummy);
-			time = System.nanoTime() - startTime;
-			test1[i] = time;
-		}
-		
-		//SL set
 		for (int i = 0; i < 10; i++)
 		{
-			dummy = set2.search(list.get(keys[i]));
+				dummy = sets.get(s).search(list.get(keys[i]));
+				SetStatistics before = before(sets.get(s), work);
 			startTime = System.nanoTime();
-			dummy = set2.successor(dummy);
+				dummy = sets.get(s).successor(dummy);
 			time = System.nanoTime() - startTime;
-			test2[i] = time;
+				tests[s][i] = time;
+				after(sets.get(s), work, s, before);
 		}
-
-		//BST set
-		for (int i = 0; i < 10; i++)
-		{
-			dummy = set3.search(list.get(keys[i]));
-			startTime = System.nanoTime();
-			dummy = set3.successor(dummy);
-			time = System.nanoTime() - startTime;
-			test3[i] = time;
-		}
-		
-		//RBT set
-		for (int i = 0; i < 10; i++)
-		{
-			dummy = set4.search(list.get(keys[i]));
-			startTime = System.nanoTime();
-			dummy = set4.successor(dummy);
-			time = System.nanoTime() - startTime;
-			test4[i] = time;
 		}
 	}
 	
-	public static void minimum(DynamicSet<String> set1, DynamicSet<String> set2, DynamicSet<String> set3, DynamicSet<String> set4, ArrayList<String> list,
-											long[] test1, long[] test2, long[] test3, long[] test4, long[] result)
+	public static void minimum(ArrayList<DynamicSet<String>> sets, long[] result, SetStatistics[] work)
 	
 	{
 		long startTime = 0;
 		long time = 0;
 		
 		SetElement<String> dummy;
-		//DLL set
-		startTime = System.nanoTime();
-		dummy = set1.minimum();
-		time = System.nanoTime() - startTime;
-		result[0] = time;
-		
-		//SL set
-		startTime = System.nanoTime();
-		dummy = set2.minimum();
-		time = System.nanoTime() - startTime;
-		result[1] = time;
-
-		//BST set
-		startTime = System.nanoTime();
-		dummy = set3.minimum();
-		time = System.nanoTime() - startTime;
-		result[2] = time;
-		
-		//RBT set
+		for (int s = 0; s < sets.size(); s++)
+		{
+			SetStatistics before = before(sets.get(s), work);
 		startTime = System.nanoTime();
-		dummy = set4.minimum();
+			dummy = sets.get(s).minimum();
 		time = System.nanoTime() - startTime;
-		result[3] = time;
+			result[s] = time;
+			after(sets.get(s), work, s, before);
+		}
 	}
 	
-	public static void maximum(DynamicSet<String> set1, DynamicSet<String> set2, DynamicSet<String> set3, DynamicSet<String> set4, ArrayList<String> list,
-											long[] test1, long[] test2, long[] test3, long[] test4, long[] result)
+	public static void maximum(ArrayList<DynamicSet<String>> sets, long[] result, SetStatistics[] work)
 	
 	{
 		long startTime = 0;
 		long time = 0;
 		
 		SetElement<String> dummy;
-		//DLL set
-		startTime = System.nanoTime();
-		dummy = set1.maximum();
-		time = System.nanoTime() - startTime;
-		result[0] = time;
-		
-		//SL set
-		startTime = System.nanoTime();
-		dummy = set2.maximum();
-		time = System.nanoTime() - startTime;
-		result[1] = time;
-
-		//BST set
-		startTime = System.nanoTime();
-		dummy = set3.maximum();
-		time = System.nanoTime() - startTime;
-		result[2] = time;
-		
-		//RBT set
+		for (int s = 0; s < sets.size(); s++)
+		{
+			SetStatistics before = before(sets.get(s), work);
 		startTime = System.nanoTime();
-		dummy = set4.maximum();
+			dummy = sets.get(s).maximum();
 		time = System.nanoTime() - startTime;
-		result[3] = time;
+			result[s] = time;
+			after(sets.get(s), work, s, before);
+		}
 	}
 
 		
 	
-	public static void stats(long[] test1, long[] test2, long[] test3, long[] test4, long[] results, int trials)
+	//the counters of set before a timed call, or null if no work is recorded
+	private static SetStatistics before(DynamicSet<String> set, SetStatistics[] work)
 	{
-		//calculate min avg and max values for DLL
-		long avg = 0;
-		long min = test1[0];
-		long max = test1[trials - 1];
-		for (int i = 0; i < trials - 1; i++)
-		{
-			if (test1[i] < min)
-				min = test1[i];
-			else if (test1[i] > max)
-				max = test1[i];
-			avg+= test1[i];
-		}
-		avg = avg/trials;
-		results[0] = min;
-		results[1] = avg;
-		results[2] = max;
-		
-		//calculate min avg and max values for SL
-		avg = 0;
-		min = test2[0];
-		max = test2[trials - 1];
-		for (int i = 0; i < trials - 1; i++)
+		if (work == null || !SetStatistics.ENABLED)
+			return null;
+		return set.getStatistics();
+	}
+
+	//add the work set s did since before to work[s]
+	private static void after(DynamicSet<String> set, SetStatistics[] work, int s, SetStatistics before)
+	{
+		if (before != null)
+			work[s].add(set.getStatistics().minus(before));
+	}
+
+	//calculate min avg and max values for every set; results[3s], results[3s + 1] and results[3s + 2]
+	//hold the values of set s
+	public static void stats(long[][] tests, long[] results, int trials)
+	{
+		for (int s = 0; s < tests.length; s++)
 		{
-			if (test2[i] < min)
-				min = test2[i];
-			else if (test2[i] > max)
-				max = test2[i];
-			avg+= test2[i];
-		}
-		avg = avg/trials;
-		results[3] = min;
-		results[4] = avg;
-		results[5] = max;
-		
-		//calculate min avg and max values for BST
-		avg = 0;
-		min = test3[0];
-		max = test3[trials - 1];
-		for (int i = 0; i < trials - 1; i++)
+		long avg = 0;
+			long min = tests[s][0];
+			long max = tests[s][0];
+			for (int i = 0; i < trials; i++)
 		{
-			if (test3[i] < min)
-				min = test3[i];
-			else if (test3[i] > max)
-				max = test3[i];
-			avg+= test3[i];
+				if (tests[s][i] < min)
+					min = tests[s][i];
+				if (tests[s][i] > max)
+					max = tests[s][i];
+				avg+= tests[s][i];
 		}
 		avg = avg/trials;
-		results[6] = min;
-		results[7] = avg;
-		results[8] = max;
-		
-		//calculate min avg and max values for RBT
-		avg = 0;
-		min = test4[0];
-		max = test4[trials - 1];
-		for (int i = 0; i < trials - 1; i++)
-		{
-			if (test4[i] < min)
-				min = test4[i];
-			else if (test4[i] > max)
-				max = test4[i];
-			avg+= test4[i];
+			results[3 * s] = min;
+			results[3 * s + 1] = avg;
+			results[3 * s + 2] = max;
 		}
-		avg = avg/trials;
-		results[9] = min;
-		results[10] = avg;
-		results[11] = max;
-
 	}
 	
-	public static void printTable(long[] insert, long[] search, long[] predecessor, long[] successor, 
+	public static void printTable(Implementation[] impls, long[] insert, long[] search, long[] predecessor, long[] successor,
 											long[] minimum, long[] maximum, int size, String filename)
 	{
-		String[] values1 = new String[12]; //insert
-		String[] values2 = new String[12]; //search
-		String[] values3 = new String[12]; //predecessor
-		String[] values4 = new String[12]; //successor
-		String[] values5 = new String[4];  //minimum
-		String[] values6 = new String[4]; //maximum
-		
-		//formatting insert data
-		for (int i = 0; i < 12; i++)
+		StringBuilder line = new StringBuilder("-------------");
+		StringBuilder header = new StringBuilder("             |");
+		for (Implementation impl : impls)
 		{
-			if (i%3 == 0)
-				values1[i] = "Min: " + insert[i];
-			else if (i%3 == 1)
-				values1[i] = "Avg: " + insert[i];
-			else
-				values1[i] = "Max: " + insert[i];
-			
-			if (values1[i].length() > 15)
-				values1[i].trim();
-				
-			while (values1[i].length() < 15)
-				values1[i] = values1[i] + " ";
+			line.append("----------------");
+			header.append(pad(" " + impl.name())).append("|");
 		}
 		
-		//formatting search data
-		for (int i = 0; i < 12; i++)
-		{
-			if (i%3 == 0)
-				values2[i] = "Min: " + search[i];
-			else if (i%3 == 1)
-				values2[i] = "Avg: " + search[i];
-			else
-				values2[i] = "Max: " + search[i];
-			
-			if (values2[i].length() > 15)
-				values2[i].trim();
-				
-			while (values2[i].length() < 15)
-				values2[i] = values2[i] + " ";
-		}
-		
-		//formatting predecessor data
-		for (int i = 0; i < 12; i++)
-		{
-			if (i%3 == 0)
-				values3[i] = "Min: " + predecessor[i];
-			else if (i%3 == 1)
-				values3[i] = "Avg: " + predecessor[i];
-			else
-				values3[i] = "Max: " + predecessor[i];
-			
-			if (values3[i].length() > 15)
-				values3[i].trim();
-				
-			while (values3[i].length() < 15)
-				values3[i] = values3[i] + " ";
-		}
-		
-		//formatting successor data
-		for (int i = 0; i < 12; i++)
+		System.out.println("/**********Dynamic Set Test Results************/\n");
+		System.out.println("File Name: " + filename);
+		System.out.println("Size: " + size + " (times reported in nanoseconds)");
+		System.out.println(line + "-");
+		System.out.println(header);
+		System.out.println(line + "|");
+		printRows("insert       ", insert, impls.length, line);
+		printRows("search       ", search, impls.length, line);
+		printRows("predecessor  ", predecessor, impls.length, line);
+		printRows("successor    ", successor, impls.length, line);
+		printRow("minimum      ", minimum, impls.length);
+		System.out.println(line + "|");
+		printRow("maximum      ", maximum, impls.length);
+		System.out.println(line + "-\n");
+	}
+
+	//print the min, avg, and max rows of one operation
+	private static void printRows(String label, long[] values, int sets, StringBuilder line)
+	{
+		String[] prefix = {"Min: ", "Avg: ", "Max: "};
+		for (int row = 0; row < 3; row++)
 		{
-			if (i%3 == 0)
-				values4[i] = "Min: " + successor[i];
-			else if (i%3 == 1)
-				values4[i] = "Avg: " + successor[i];
-			else
-				values4[i] = "Max: " + successor[i];
-			
-			if (values4[i].length() > 15)
-				values4[i].trim();
-				
-			while (values4[i].length() < 15)
-				values4[i] = values4[i] + " ";
+			StringBuilder result = new StringBuilder(row == 0 ? label : "             ");
+			result.append("|");
+			for (int s = 0; s < sets; s++)
+				result.append(pad(prefix[row] + values[3 * s + row])).append("|");
+			System.out.println(result);
 		}
-		
-		//formatting minimum data
-		for (int i = 0; i < 4; i++)
+		System.out.println(line + "|");
+	}
+
+	//print the work per operation counted during the test: comparisons and nodes visited for every
+	//operation, rotations and new skip list levels for insert, and the height of every set at the end
+	public static void printWork(Implementation[] impls, ArrayList<DynamicSet<String>> sets, SetStatistics[][] work, int[] calls)
+	{
+		StringBuilder line = new StringBuilder("-------------");
+		StringBuilder header = new StringBuilder("             |");
+		for (Implementation impl : impls)
 		{
-			values5[i] = "Time: " + minimum[i];
-			
-			if (values5[i].length() > 15)
-				values5[i].trim();
-			
-			while (values5[i].length() < 15)
-				values5[i] = values5[i] + " ";
+			line.append("----------------");
+			header.append(pad(" " + impl.name())).append("|");
 		}
-		
-		//formatting maximum data
-		for (int i = 0; i < 4; i++)
-		{
-			values6[i] = "Time: " + maximum[i];
-			
-			if (values6[i].length() > 15)
-				values6[i].trim();
-			
-			while (values6[i].length() < 15)
-				values6[i] = values6[i] + " ";
+
+		System.out.println("/**********Work per Operation************/\n");
+		System.out.println(line + "-");
+		System.out.println(header);
+		System.out.println(line + "|");
+		for (int op = 0; op < work.length; op++)
+		{
+			String[] prefix = (op == 0) ? new String[] {"Cmp: ", "Visit: ", "Rot: ", "Lvl+: "} : new String[] {"Cmp: ", "Visit: "};
+			for (int row = 0; row < prefix.length; row++)
+			{
+				StringBuilder result = new StringBuilder(row == 0 ? WORK_ROWS[op] : "             ");
+				result.append("|");
+				for (int s = 0; s < impls.length; s++)
+				{
+					SetStatistics w = work[op][s];
+					long count = (row == 0) ? w.getComparisons() : (row == 1) ? w.getVisits()
+											: (row == 2) ? w.getRotations() : w.getLevelsCreated();
+					result.append(pad(prefix[row] + String.format("%.1f", (double)count / calls[op]))).append("|");
+				}
+				System.out.println(result);
+			}
+			System.out.println(line + "|");
 		}
-		
-		System.out.println("/**********Dynamic Set Test Results************/\n");
-		System.out.println("File Name: " + filename);
-		System.out.println("Size: " + size + " (times reported in nanoseconds)");
-		System.out.println("------------------------------------------------------------------------------");
-		System.out.println("             | DLL           | SL            | BST           | RBT           |");
-		System.out.println("-----------------------------------------------------------------------------|");
-		System.out.println("insert       |" + values1[0] + "|" + values1[3] + "|" + values1[6] + "|" + values1[9] + "|"); 
-		System.out.println("             |" + values1[1] + "|" + values1[4] + "|" + values1[7] + "|" + values1[10] + "|");
-		System.out.println("             |" + values1[2] + "|" + values1[5] + "|" + values1[8] + "|" + values1[11] + "|");
-		System.out.println("-----------------------------------------------------------------------------|");
-		System.out.println("search       |" + values2[0] + "|" + values2[3] + "|" + values2[6] + "|" + values2[9] + "|"); 
-		System.out.println("             |" + values2[1] + "|" + values2[4] + "|" + values2[7] + "|" + values2[10] + "|");
-		System.out.println("             |" + values2[2] + "|" + values2[5] + "|" + values2[8] + "|" + values2[11] + "|");
-		System.out.println("-----------------------------------------------------------------------------|");
-		System.out.println("predecessor  |" + values3[0] + "|" + values3[3] + "|" + values3[6] + "|" + values3[9] + "|"); 
-		System.out.println("             |" + values3[1] + "|" + values3[4] + "|" + values3[7] + "|" + values3[10] + "|");
-		System.out.println("             |" + values3[2] + "|" + values3[5] + "|" + values3[8] + "|" + values3[11] + "|");
-		System.out.println("-----------------------------------------------------------------------------|");
-		System.out.println("successor    |" + values4[0] + "|" + values4[3] + "|" + values4[6] + "|" + values4[9] + "|"); 
-		System.out.println("             |" + values4[1] + "|" + values4[4] + "|" + values4[7] + "|" + values4[10] + "|");
-		System.out.println("             |" + values4[2] + "|" + values4[5] + "|" + values4[8] + "|" + values4[11] + "|");
-		System.out.println("-----------------------------------------------------------------------------|");
-		System.out.println("minimum      |" + values5[0] + "|" + values5[1] + "|" + values5[2] + "|" + values5[3] + "|"); 
-		System.out.println("-----------------------------------------------------------------------------|");
-		System.out.println("maximum      |" + values6[0] + "|" + values6[1] + "|" + values6[2] + "|" + values6[3] + "|"); 
-		System.out.println("------------------------------------------------------------------------------\n");
+		StringBuilder result = new StringBuilder("height       |");
+		for (DynamicSet<String> set : sets)
+			result.append(pad("Levels: " + set.height())).append("|");
+		System.out.println(result);
+		System.out.println(line + "-\n");
+	}
 
+	//row labels of the work table, one per timed operation
+	private static final String[] WORK_ROWS = {"insert       ", "search       ", "predecessor  ", "successor    ",
+											"minimum      ", "maximum      "};
 
+	//print the single time row of minimum or maximum
+	private static void printRow(String label, long[] values, int sets)
+	{
+		StringBuilder result = new StringBuilder(label);
+		result.append("|");
+		for (int s = 0; s < sets; s++)
+			result.append(pad("Time: " + values[s])).append("|");
+		System.out.println(result);
+	}
 
+	//pad a table cell to 15 characters
+	private static String pad(String value)
+	{
+		StringBuilder result = new StringBuilder(value);
+		while (result.length() < 15)
+			result.append(" ");
+		return result.toString();
 	}
 	
 }
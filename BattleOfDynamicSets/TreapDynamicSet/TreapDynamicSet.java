@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package TreapDynamicSet;
+
+import java.util.Random;
+import java.util.Spliterator;
+import DynamicSet.*;
+
+//Treap (Seidel and Aragon, 1996): a binary search tree on the keys that is at the same time a heap
+//on random priorities drawn at insertion. The shape is that of a BST built by inserting the keys in
+//random order, so the expected depth is O(log n) whatever order the keys really arrive in.
+//Splitting at a key and joining two treaps whose keys do not overlap both take O(log n).
+public class TreapDynamicSet<T extends Comparable<T>> extends DynamicSet<T> {
+	
+	private TreapNode<T> root;
+	private final Random random;
+	
+	public TreapDynamicSet() {
+		
+		this(new Random());
+	}
+	
+	//Create an empty set drawing its priorities from random, e.g. a seeded one for repeatable shapes.
+	public TreapDynamicSet(Random random) {
+		
+		super();
+		this.root = null;
+		this.random = random;
+	}
+	
+	public static void main(String []args) {
+		
+		TreapDynamicSet<String> set = new TreapDynamicSet<String>();
+		String s1 = "Ja'far";
+		String s2 = "Abdullah";
+		String s3 = "Maha";
+		String s4 = "Amina";
+		
+		TreapNode<String> n1 = new TreapNode<String>(s1, s1);
+		TreapNode<String> n2 = new TreapNode<String>(s2, s2);
+		TreapNode<String> n3 = new TreapNode<String>(s3, s3);
+		TreapNode<String> n4 = new TreapNode<String>(s4, s4);
+		
+		//testing insert
+		set.insert(n1);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n4);
+		set.insert(n1);
+		
+		System.out.println(set.search(n3.getKey()).getKey());
+		set.delete(n4);
+		set.delete(n3);
+		set.delete(n2);
+		set.delete(n1);
+		set.delete(n1);
+		
+		set.insert(n4);
+		set.insert(n2);
+		set.insert(n3);
+		set.insert(n1);
+		set.insert(n1);
+		
+		//testing max
+		TreapNode<String> testNode = set.maximum();
+		System.out.println("Maximum set element: " + testNode.getKey());
+		
+		//testing min
+		testNode = set.minimum();
+		System.out.println("Minimum set element: " + testNode.getKey());
+		
+		//testing successor
+		testNode = set.successor(n3);
+		if (testNode == null)
+			System.out.println("No Successor of " + n3.getKey());
+		else
+			System.out.println("Successor of " + n3.getKey() + ": " + testNode.getKey());
+		
+		//testing predecessor
+		testNode = set.predecessor(n1);
+		if (testNode == null)
+			System.out.println("No Predecessor of " + n1.getKey());
+		else
+			System.out.println("Predecessor of " + n1.getKey() + ": " + testNode.getKey());
+		
+		//testing split and join
+		TreapDynamicSet<String> upper = set.split(s1);
+		System.out.println("Split at " + s1 + ": " + set.size() + " below, " + upper.size() + " from it on");
+		set.join(upper);
+		System.out.println("Joined again: " + set.size());
+	}
+	
+	//Insert element e in the set. The element gets a fresh random priority; the new node is added as
+	//a leaf and rotated up while its priority is above its parent's.
+	public void insert(SetElement<T> e) {
+		
+		TreapNode<T> trailing = null;
+		TreapNode<T> current = root;
+		int c = 0;
+		while (current != null) {
+			trailing = current;
+			stats.visited();
+			stats.compared();
+			c = e.getKey().compareTo(current.getKey());
+			if (c < 0)
+				current = current.getLeft();
+			else if (c > 0)
+				current = current.getRight();
+			else
+				return;	//e is already in the tree
+		}
+		
+		TreapNode<T> toAdd = new TreapNode<T>(e.getKey(), e.getData(), random.nextInt());
+		toAdd.setParent(trailing);
+		if (trailing == null)
+			root = toAdd;
+		else if (c < 0)
+			trailing.setLeft(toAdd);
+		else
+			trailing.setRight(toAdd);
+		for (TreapNode<T> node = trailing; node != null; node = node.getParent())
+			node.setSize(node.getSize() + 1);
+		
+		while (toAdd.getParent() != null && toAdd.getPriority() > toAdd.getParent().getPriority())
+			rotateUp(toAdd);
+		super.size++;
+	}
+	
+	//Given a pointer to element e in the set, removes e from the set. The node is rotated down,
+	//always lifting the child with the higher priority, until it has at most one child, then cut out.
+	public void delete(SetElement<T> e) {
+		
+		TreapNode<T> node = search(e.getKey());
+		if (node == null)
+			return;
+		
+		while (node.getLeft() != null && node.getRight() != null) {
+			if (node.getLeft().getPriority() > node.getRight().getPriority())
+				rotateUp(node.getLeft());
+			else
+				rotateUp(node.getRight());
+		}
+		transplant(node, (node.getLeft() != null) ? node.getLeft() : node.getRight());
+		for (TreapNode<T> up = node.getParent(); up != null; up = up.getParent())
+			up.setSize(up.getSize() - 1);
+		super.size--;
+	}
+	
+	//Rotates node above its parent.
+	private void rotateUp(TreapNode<T> node) {
+		
+		stats.rotated();
+		TreapNode<T> parent = node.getParent();
+		transplant(parent, node);
+		if (node == parent.getLeft()) {
+			parent.setLeft(node.getRight());
+			if (node.getRight() != null)
+				node.getRight().setParent(parent);
+			node.setRight(parent);
+		}
+		else {
+			parent.setRight(node.getLeft());
+			if (node.getLeft() != null)
+				node.getLeft().setParent(parent);
+			node.setLeft(parent);
+		}
+		parent.setParent(node);
+		update(parent);	//parent is now the child, so it goes first
+		update(node);
+	}
+	
+	//Replaces the subtree rooted at node with the subtree rooted at replacement in node's parent.
+	private void transplant(TreapNode<T> node, TreapNode<T> replacement) {
+		
+		if (node.getParent() == null)
+			root = replacement;
+		else if (node == node.getParent().getLeft())
+			node.getParent().setLeft(replacement);
+		else
+			node.getParent().setRight(replacement);
+		if (replacement != null)
+			replacement.setParent(node.getParent());
+	}
+	
+	private static <T extends Comparable<T>> int size(TreapNode<T> subtree) {
+		
+		return (subtree == null) ? 0 : subtree.getSize();
+	}
+	
+	//Recomputes the subtree size of node from its children.
+	private void update(TreapNode<T> node) {
+		
+		node.setSize(size(node.getLeft()) + size(node.getRight()) + 1);
+	}
+	
+	//Moves every element with a key >= k into a new set, which is returned; the elements with
+	//smaller keys stay in this one. Expected O(log n): only the nodes on the search path for k
+	//are relinked.
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public TreapDynamicSet<T> split(T k) {
+		
+		TreapNode<T>[] halves = new TreapNode[2];
+		split(root, k, halves);
+		TreapDynamicSet<T> upper = new TreapDynamicSet<T>(random);
+		root = halves[0];
+		upper.root = halves[1];
+		if (root != null)
+			root.setParent(null);
+		if (upper.root != null)
+			upper.root.setParent(null);
+		super.size = size(root);
+		upper.size = size(upper.root);
+		return upper;
+	}
+	
+	//Splits the subtree at node into the keys < k, left in halves[0], and the keys >= k, left in halves[1].
+	private void split(TreapNode<T> node, T k, TreapNode<T>[] halves) {
+		
+		if (node == null) {
+			halves[0] = null;
+			halves[1] = null;
+		}
+		else if (node.getKey().compareTo(k) < 0) {	//node and its left subtree are below k
+			split(node.getRight(), k, halves);
+			node.setRight(halves[0]);
+			if (halves[0] != null)
+				halves[0].setParent(node);
+			update(node);
+			halves[0] = node;
+		}
+		else {	//node and its right subtree are at or above k
+			split(node.getLeft(), k, halves);
+			node.setLeft(halves[1]);
+			if (halves[1] != null)
+				halves[1].setParent(node);
+			update(node);
+			halves[1] = node;
+		}
+	}
+	
+	//Moves every element of other into this set and leaves other empty. Every key of other must be
+	//larger than every key of this set. Expected O(log n): only the right spine of this treap and
+	//the left spine of other are merged, by priority.
+	public void join(TreapDynamicSet<T> other) {
+		
+		if (other.root == null)
+			return;
+		if (root != null && maximum().getKey().compareTo(other.minimum().getKey()) >= 0)
+			throw new IllegalArgumentException("keys of the joined set must be larger than every key in this set");
+		
+		root = join(root, other.root);
+		root.setParent(null);
+		super.size += other.size;
+		other.root = null;
+		other.size = 0;
+	}
+	
+	//Joins two subtrees, every key of lower below every key of upper, and returns the new root.
+	private TreapNode<T> join(TreapNode<T> lower, TreapNode<T> upper) {
+		
+		if (lower == null)
+			return upper;
+		if (upper == null)
+			return lower;
+		if (lower.getPriority() > upper.getPriority()) {
+			TreapNode<T> right = join(lower.getRight(), upper);
+			lower.setRight(right);
+			right.setParent(lower);
+			update(lower);
+			return lower;
+		}
+		else {
+			TreapNode<T> left = join(lower, upper.getLeft());
+			upper.setLeft(left);
+			left.setParent(upper);
+			update(upper);
+			return upper;
+		}
+	}
+	
+	//Finds a SetElement with key k and returns a pointer to it, or null if not found.
+	public TreapNode<T> search(T k) {
+		
+		TreapNode<T> current = root;
+		while (current != null) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if (c < 0)
+				current = current.getLeft();
+			else if (c > 0)
+				current = current.getRight();
+			else
+				return current;
+		}
+		return null;
+	}
+	
+	//Finds a SetElement that has the smallest key, and returns a pointer to it, or null if the set is empty.
+	public TreapNode<T> minimum() {
+		
+		return (root == null) ? null : treeMinimum(root);
+	}
+	
+	//Finds a SetElement that has the largest key, and returns a pointer to it, or null if the set is empty.
+	public TreapNode<T> maximum() {
+		
+		return (root == null) ? null : treeMaximum(root);
+	}
+	
+	private TreapNode<T> treeMinimum(TreapNode<T> subtree) {
+		
+		while (subtree.getLeft() != null) {
+			stats.visited();
+			subtree = subtree.getLeft();
+		}
+		return subtree;
+	}
+	
+	private TreapNode<T> treeMaximum(TreapNode<T> subtree) {
+		
+		while (subtree.getRight() != null) {
+			stats.visited();
+			subtree = subtree.getRight();
+		}
+		return subtree;
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next larger key,
+	//and returns a pointer to it, or null if e is the maximum element.
+	public TreapNode<T> successor(SetElement<T> e) {
+		
+		TreapNode<T> node = search(e.getKey());
+		return (node == null) ? null : nextInorder(node);
+	}
+	
+	//Given a pointer to element e in the set, finds a SetElement in the set that has the next smaller key,
+	//and returns a pointer to it, or null if e is the minimum element.
+	public TreapNode<T> predecessor(SetElement<T> e) {
+		
+		TreapNode<T> node = search(e.getKey());
+		if (node == null)
+			return null;
+		if (node.getLeft() != null)
+			return treeMaximum(node.getLeft());
+		TreapNode<T> parent = node.getParent();
+		while (parent != null && node == parent.getLeft()) {	//climb until we come up from a right child
+			stats.visited();
+			node = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+	
+	//Returns the node that follows node in key order, or null if node is the maximum.
+	private TreapNode<T> nextInorder(TreapNode<T> node) {
+		
+		if (node.getRight() != null)
+			return treeMinimum(node.getRight());
+		TreapNode<T> parent = node.getParent();
+		while (parent != null && node == parent.getRight()) {	//climb until we come up from a left child
+			stats.visited();
+			node = parent;
+			parent = parent.getParent();
+		}
+		return parent;
+	}
+	
+	//Returns the node with the smallest key >= k, or null if every key is smaller.
+	private TreapNode<T> ceiling(T k) {
+		
+		TreapNode<T> current = root;
+		TreapNode<T> candidate = null;
+		while (current != null) {
+			stats.visited();
+			stats.compared();
+			int c = k.compareTo(current.getKey());
+			if (c == 0)
+				return current;
+			if (c < 0) {
+				candidate = current;
+				current = current.getLeft();
+			}
+			else
+				current = current.getRight();
+		}
+		return candidate;
+	}
+	
+	//Returns a cursor over the elements with keys from lo (inclusive) to hi (exclusive), in key order.
+	//One descent finds the first element, then the cursor walks the tree in order.
+	public Cursor<T> range(final T lo, T hi) {
+		
+		return new Cursor<T>(hi) {
+			protected SetElement<T> first() {
+				
+				if (lo == null)
+					return minimum();
+				else
+					return ceiling(lo);
+			}
+			
+			protected SetElement<T> step(SetElement<T> e) {
+				
+				return nextInorder((TreapNode<T>)e);
+			}
+		};
+	}
+	
+	//Returns the height of the tree in nodes. The random priorities keep it O(log n) in expectation.
+	public int height() {
+		
+		return height(root);
+	}
+	
+	private static <T extends Comparable<T>> int height(TreapNode<T> node) {
+		
+		if (node == null)
+			return 0;
+		return 1 + Math.max(height(node.getLeft()), height(node.getRight()));
+	}
+	
+	//Returns a spliterator over the elements in key order that splits at subtrees. The subtree sizes
+	//make every part exactly SIZED.
+	public Spliterator<SetElement<T>> spliterator() {
+		
+		return new SubtreeSpliterator<T, TreapNode<T>>(root, super.size, new SubtreeSpliterator.Tree<TreapNode<T>>() {
+			public TreapNode<T> left(TreapNode<T> node) {
+				
+				return node.getLeft();
+			}
+			
+			public TreapNode<T> right(TreapNode<T> node) {
+				
+				return node.getRight();
+			}
+			
+			public long size(TreapNode<T> node) {
+				
+				return node.getSize();
+			}
+		});
+	}
+}
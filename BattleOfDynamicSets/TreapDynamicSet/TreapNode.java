@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2013, Kevin Barroga
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     * Neither the names of the copyright holders nor the
+ *       names of any contributors may be used to endorse or promote products
+ *       derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE 
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE 
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR 
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF 
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN 
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package TreapDynamicSet;
+
+import DynamicSet.*;
+
+public class TreapNode<T extends Comparable<T>> extends SetElement<T> implements Comparable<T> {
+	
+	private TreapNode<T> left;
+	private TreapNode<T> right;
+	private TreapNode<T> parent;
+	private final int priority;	//random, a node's priority is never below its children's
+	private int size;	//number of nodes in the subtree rooted here
+	
+	public TreapNode(T newKey, T data) {
+		
+		this(newKey, data, 0);
+	}
+	
+	public TreapNode(T newKey, T data, int priority) {
+		
+		super(newKey, data);
+		this.left = null;
+		this.right = null;
+		this.parent = null;
+		this.priority = priority;
+		this.size = 1;
+	}
+	
+	public TreapNode<T> getLeft() {
+		
+		return this.left;
+	}
+	
+	public TreapNode<T> getRight() {
+		
+		return this.right;
+	}
+	
+	public TreapNode<T> getParent() {
+		
+		return this.parent;
+	}
+	
+	public int getPriority() {
+		
+		return this.priority;
+	}
+	
+	public int getSize() {
+		
+		return this.size;
+	}
+	
+	public void setLeft(TreapNode<T> child) {
+		
+		this.left = child;
+	}
+	
+	public void setRight(TreapNode<T> child) {
+		
+		this.right = child;
+	}
+	
+	public void setParent(TreapNode<T> parent) {
+		
+		this.parent = parent;
+	}
+	
+	public void setSize(int size) {
+		
+		this.size = size;
+	}
+	
+	public int compareTo(T k) {
+		
+		return super.key.compareTo(k);
+	}
+}